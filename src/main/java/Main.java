@@ -3,10 +3,13 @@ import java.io.IOException;
 import java.util.logging.Level;
 
 import command.CommandExecuter;
+import command.ShardedExecutor;
 import rdb.RDBException;
 import rdb.RDBManager;
 import replication.ReplicationManager;
+import server.core.ConnectionThreads;
 import server.core.ServerContext;
+import server.core.ServerCron;
 import server.core.ServerInstance;
 import server.core.ServerManager;
 import storage.DataStore;
@@ -29,6 +32,9 @@ public class Main {
             // Parse and validate configuration
             ServerConfiguration config = new ServerConfiguration(args);
             logger.info("Configuration loaded: " + config.toString());
+            if (config.isVirtualThreadMode() && !ConnectionThreads.isVirtualThreadSupported()) {
+                throw new IllegalArgumentException("--io-mode virtual requires Java 21 or later");
+            }
 
             // Initialize ServerContext singleton
             ServerContext serverContext = ServerContext.getInstance();
@@ -38,8 +44,17 @@ public class Main {
             ServerManager serverManager = ServerManager.create();
             ReplicationManager replicationManager = ReplicationManager.create();
 
-            // Initialize in-memory data store
-            DataStore dataStore = new InMemoryDataStore();
+            // Initialize in-memory data store, split into shards when executor threads own it
+            ShardedExecutor shardedExecutor = null;
+            DataStore dataStore;
+            if (config.usesExecutorThreads()) {
+                shardedExecutor = new ShardedExecutor(config.getPort(), config.getShardCount());
+                dataStore = new InMemoryDataStore(config.getShardCount(), config.getEvictionConfig(),
+                        config.hasKeyPrefixIndex(), config.getDatabases());
+            } else {
+                dataStore = new InMemoryDataStore(config.getEvictionConfig(), config.hasKeyPrefixIndex(),
+                        config.getDatabases());
+            }
             serverContext.setDataStore(dataStore);
 
             // Load RDB file if configured
@@ -47,6 +62,14 @@ public class Main {
 
             // Create core components
             CommandExecuter commandExecuter = new CommandExecuter(dataStore);
+            if (shardedExecutor != null) {
+                // Started after the RDB load, before any client or replication link can submit commands
+                shardedExecutor.start();
+                commandExecuter.useShards(shardedExecutor);
+            }
+
+            // Expire keys nobody reads anymore in the background
+            new ServerCron(dataStore, shardedExecutor, config.getHz()).start();
 
             // Create and start server instance
             logger.info("Creating server instance on port " + config.getPort());
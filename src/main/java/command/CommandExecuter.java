@@ -1,20 +1,22 @@
 package command;
 
-import protocol.RESPSerializer;
 import protocol.errorenum.ErrorType;
 import pub.sub.ChannelManager;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
+import server.connection.entity.ClientSession;
 import server.core.ServerContext;
 import storage.DataStore;
+import storage.SelectedDatabase;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import command.acl.AclPermissions;
 import command.transactions.TransactionCoordinator;
 import command.transactions.TransactionManager;
+import domain.values.UserProperties;
 
 /**
  * CommandExecuter is responsible for executing commands.
@@ -26,9 +28,14 @@ public class CommandExecuter {
     private final TransactionCoordinator transactionCoordinator;
     private final ChannelManager channelManager;
     private final ServerContext serverContext;
+    private final DataStore dataStore;
+    private volatile ShardedExecutor shards;
 
     public CommandExecuter(DataStore dataStore) {
-        this.commandFactory = new CommandFactory(dataStore, ReplicationManager.create());
+        this.dataStore = dataStore;
+        ReplicationManager replicationManager = ReplicationManager.create();
+        this.commandFactory = new CommandFactory(dataStore, replicationManager);
+        dataStore.setEvictionListener(replicationManager::propagateEviction);
         TransactionManager transactionManager = new TransactionManager();
         this.transactionCoordinator = new TransactionCoordinator(transactionManager, commandFactory);
         this.channelManager = ChannelManager.getInstance();
@@ -39,70 +46,170 @@ public class CommandExecuter {
         commandMap.put(commandName.toUpperCase(), command);
     }
 
-    public void execute(String clientId, String commandName, List<String> arguments,
+    /**
+     * From now on every command runs on the executor owning it, whichever
+     * thread asked for it.
+     */
+    public void useShards(ShardedExecutor shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * The executors commands are applied on, or null when they run on the calling thread.
+     */
+    public ShardedExecutor getShards() {
+        return shards;
+    }
+
+    /**
+     * Whether the request can be executed on the calling thread right away.
+     */
+    public boolean runsOnCurrentThread(List<String> commands) {
+        ShardedExecutor executor = shards;
+        CommandSpec spec = CommandTable.resolve(commands);
+        // Unknown commands only get an error, whichever thread writes it
+        return executor == null || spec == null || executor.runsOnCurrentThread(spec, argumentsOf(spec, commands));
+    }
+
+    /**
+     * Queues a task on the executor owning the request, for callers that must not wait.
+     */
+    public void submit(List<String> commands, Runnable task) {
+        CommandSpec spec = CommandTable.resolve(commands);
+        shards.submit(spec, argumentsOf(spec, commands), task);
+    }
+
+    /**
+     * Looks the request up in the command table and executes it. REPLCONF
+     * and ACL name the actual command in their first argument.
+     */
+    public void executeRequest(String clientId, List<String> commands, ClientConnection clientConnection) {
+        CommandSpec spec = CommandTable.resolve(commands);
+        if (spec == null) {
+            clientConnection.writeError("unknown command '" + commands.get(0) + "'");
+            return;
+        }
+        execute(clientId, spec, argumentsOf(spec, commands), clientConnection);
+    }
+
+    private static List<String> argumentsOf(CommandSpec spec, List<String> commands) {
+        return commands.subList(Math.min(spec.getNameWords(), commands.size()), commands.size());
+    }
+
+    private void execute(String clientId, CommandSpec spec, List<String> arguments,
                         ClientConnection clientConnection) {
-        CommandStrategy command = commandFactory.getCommandStrategy(commandName);
+        ShardedExecutor executor = shards;
+        if (executor != null && !executor.runsOnCurrentThread(spec, arguments)) {
+            executor.executeAndWait(spec, arguments,
+                    () -> execute(clientId, spec, arguments, clientConnection));
+            return;
+        }
+
+        // Whichever thread runs it, the command works on the database its client selected
+        SelectedDatabase.set(clientConnection.getSession().getDatabase());
+
+        CommandStrategy command = commandFactory.getCommandStrategy(spec);
 
         if (command != null) {
             try {
                 // Check if user is authenticated for commands other than ACLSETUSER
-                if(!isUserAuthenticated(commandName, clientConnection)){
-                    clientConnection.write(RESPSerializer.error(ErrorType.NOAUTH,"Authentication required."));
-                    clientConnection.flush();
+                if(!isUserAuthenticated(spec, clientConnection)){
+                    clientConnection.writeError(ErrorType.NOAUTH,"Authentication required.");
+                    return;
+                }
+
+                if (!isPermitted(spec, arguments, clientConnection)) {
                     return;
                 }
 
                 // Check if the client is in subscribe mode
-                if (channelManager.isInSubscribeMode(clientId) && !channelManager.isSubscribeModeCommand(commandName)) {
-                    clientConnection.write(RESPSerializer.error("Can't execute '" + commandName.toLowerCase() + "': only (P|S)SUBSCRIBE / (P|S)UNSUBSCRIBE / PING / QUIT / RESET are allowed in this context"));
-                    clientConnection.flush();
+                if (clientConnection.getSession().isInSubscribeMode() && !channelManager.isSubscribeModeCommand(spec.getName())) {
+                    clientConnection.writeError("Can't execute '" + spec.getRuleName() + "': only (P|S)SUBSCRIBE / (P|S)UNSUBSCRIBE / PING / QUIT / RESET are allowed in this context");
+                    return;
+                }
+
+                if (!hasMemoryFor(spec, arguments)) {
+                    clientConnection.writeError(ErrorType.OOM, "command not allowed when used memory > 'maxmemory'.");
                     return;
                 }
 
                 // Delegate transaction control commands to TransactionCoordinator
-                if (transactionCoordinator.isTransactionControlCommand(commandName)) {
-                    transactionCoordinator.handleTransactionControlCommand(clientId, commandName, arguments, command,
+                if (transactionCoordinator.isTransactionControlCommand(spec)) {
+                    transactionCoordinator.handleTransactionControlCommand(spec, arguments, command,
                             clientConnection);
                     return;
                 }
 
                 // If client is in MULTI mode, queue the command instead of executing
-                if (transactionCoordinator.isInMultiMode(clientId)) {
-                    transactionCoordinator.queueCommand(clientId, commandName, arguments, command, clientConnection);
+                if (transactionCoordinator.isInMultiMode(clientConnection)) {
+                    transactionCoordinator.queueCommand(spec, arguments, command, clientConnection);
                     return;
                 }
 
                 // Normal execution path: validate and execute
+                spec.validateArity(arguments);
                 command.validateArguments(arguments);
-                command.execute(arguments, clientConnection);
+                command.execute(arguments, clientConnection, clientConnection);
 
             } catch (IllegalArgumentException e) {
-                try {
-                    clientConnection.write(RESPSerializer.error(e.getMessage()));
-                    clientConnection.flush();
-                } catch (IOException ioException) {
-                    throw new RuntimeException(ioException);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                clientConnection.writeError(e.getMessage());
             }
         } else {
-            // Unknown command
-            try {
-                clientConnection.write(RESPSerializer.error("unknown command '" + commandName + "'"));
-                clientConnection.flush();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            // A container like ACL without a subcommand it knows
+            clientConnection.writeError(arguments.isEmpty()
+                    ? "wrong number of arguments for '" + spec.getRuleName() + "' command"
+                    : "unknown subcommand '" + arguments.get(0) + "'. Try " + spec.getName() + " HELP.");
+        }
+    }
+
+    /**
+     * Commands that may grow memory first evict down to maxmemory, and are
+     * refused when that is not possible. They all write a key, and run on the
+     * thread owning it, which is the only one allowed to evict from its shard;
+     * multi-key writes like MSET evict from their first key's shard, which is
+     * theirs too or parked. Replicas leave eviction to their master.
+     */
+    private boolean hasMemoryFor(CommandSpec spec, List<String> arguments) {
+        if (!spec.hasFlag(CommandFlag.DENY_OOM) || ReplicationManager.isSlaveNode()) {
+            return true;
         }
+        int key = spec.getFirstKeyIndex();
+        return key < 0 || key >= arguments.size() || dataStore.freeMemoryIfNeeded(arguments.get(key));
     }
 
-    private boolean isUserAuthenticated(String commandName, ClientConnection clientConnection) {
-        if (commandName.equalsIgnoreCase("auth")) return true;
+    private boolean isUserAuthenticated(CommandSpec spec, ClientConnection clientConnection) {
+        ClientSession session = clientConnection.getSession();
+        if (session.isAuthenticated()) return true;
+        if (spec.hasFlag(CommandFlag.NO_AUTH)) return true;
 
-        String userName = clientConnection.getUsername();
-        String userPassword = clientConnection.getUserPassword();
+        // A new connection is the default user, logged in without AUTH as long as it needs no password
+        UserProperties defaultUser = serverContext.getDataStore().getUserProperties(session.getUserName());
+        if (defaultUser != null && defaultUser.isEnabled() && defaultUser.isPasswordless()) {
+            session.authenticate(session.getUserName(), defaultUser);
+            return true;
+        }
+        return false;
+    }
 
-        return ServerContext.getInstance().getDataStore().authenticateUser(userName, userPassword);
+    /**
+     * ACL check: one bit test for the command, key patterns are only matched
+     * for users limited to some keys. Writes the error when denied.
+     */
+    private boolean isPermitted(CommandSpec spec, List<String> arguments, ClientConnection clientConnection) {
+        UserProperties user = clientConnection.getSession().getUser();
+        // AUTH runs before there is a user to check
+        if (user == null) return true;
+
+        AclPermissions permissions = user.getPermissions();
+        if (!permissions.canRun(spec)) {
+            clientConnection.writeError(ErrorType.NOPERM, "User " + clientConnection.getSession().getUserName()
+                    + " has no permissions to run the '" + spec.getRuleName() + "' command");
+            return false;
+        }
+        if (!permissions.canAccessKeys(spec, arguments)) {
+            clientConnection.writeError(ErrorType.NOPERM, "No permissions to access a key");
+            return false;
+        }
+        return true;
     }
 }
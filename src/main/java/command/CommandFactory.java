@@ -1,13 +1,15 @@
 package command;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import command.handlers.authentication.ACLGetUser;
 import command.handlers.authentication.ACLSetUser;
 import command.handlers.authentication.ACLWhoAmIHandler;
 import command.handlers.authentication.AUTHHandler;
+import command.handlers.bitmap.*;
 import command.handlers.connection.*;
+import command.handlers.database.*;
+import command.handlers.expiry.*;
 import command.handlers.geospatial.GEOADDHandler;
 import command.handlers.geospatial.GEODISTHandler;
 import command.handlers.geospatial.GEOPOSHandler;
@@ -26,7 +28,8 @@ import replication.sync.WaitRequestManager;
 
 public class CommandFactory {
     private final DataStore dataStore;
-    private final Map<String, CommandStrategy> commandMapCache = new ConcurrentHashMap<>();
+    // Handlers by command id, created on first use
+    private final AtomicReferenceArray<CommandStrategy> handlers = new AtomicReferenceArray<>(CommandTable.size());
     private final ReplicationManager replicationManager;
     private final WaitRequestManager WaitRequestManager;
 
@@ -36,16 +39,38 @@ public class CommandFactory {
         this.WaitRequestManager = new WaitRequestManager(replicationManager);
     }
 
-    public CommandStrategy getCommandStrategy(String commandName) {
-        return commandMapCache.computeIfAbsent(commandName.toUpperCase(), this::createCommandInstance);
+    /**
+     * The handler of the command, null for containers like ACL that only name subcommands.
+     */
+    public CommandStrategy getCommandStrategy(CommandSpec command) {
+        CommandStrategy handler = handlers.get(command.getId());
+        if (handler == null) {
+            handlers.compareAndSet(command.getId(), null, createCommandInstance(command.getName()));
+            handler = handlers.get(command.getId());
+        }
+        return handler;
     }
 
     private CommandStrategy createCommandInstance(String commandName) {
-        return switch (commandName.toUpperCase()) {
+        return switch (commandName) {
             case "PING" -> new PingHandler();
             case "ECHO" -> new EchoHandler();
             case "SET" -> new SetHandler(dataStore, replicationManager);
             case "GET" -> new GetHandler(dataStore);
+            case "MGET" -> new MGETHandler(dataStore);
+            case "MSET" -> new MSETHandler(dataStore, replicationManager, "MSET", false);
+            case "MSETNX" -> new MSETHandler(dataStore, replicationManager, "MSETNX", true);
+            case "GETDEL" -> new GETDELHandler(dataStore, replicationManager);
+            case "APPEND" -> new APPENDHandler(dataStore, replicationManager);
+            case "SETRANGE" -> new SETRANGEHandler(dataStore, replicationManager);
+            case "GETRANGE" -> new GETRANGEHandler(dataStore);
+            case "STRLEN" -> new STRLENHandler(dataStore);
+            case "SETBIT" -> new SETBITHandler(dataStore, replicationManager);
+            case "GETBIT" -> new GETBITHandler(dataStore);
+            case "BITCOUNT" -> new BITCOUNTHandler(dataStore);
+            case "BITPOS" -> new BITPOSHandler(dataStore);
+            case "BITOP" -> new BITOPHandler(dataStore, replicationManager);
+            case "BITFIELD" -> new BITFIELDHandler(dataStore, replicationManager);
             case "CONFIG" -> new CONFIGHandler();
             case "RPUSH" -> new RPUSHHandler(dataStore, replicationManager);
             case "LRANGE" -> new LRANGEHandler(dataStore);
@@ -57,12 +82,26 @@ public class CommandFactory {
             case "XADD" -> new XADDHandler(dataStore, replicationManager);
             case "XRANGE" -> new XRANGEHandler(dataStore);
             case "XREAD" -> new XREADHandler(dataStore);
-            case "INCR" -> new INCRHandler(dataStore, replicationManager);
+            case "INCR" -> new INCRHandler(dataStore, replicationManager, "INCR", false);
+            case "DECR" -> new INCRHandler(dataStore, replicationManager, "DECR", true);
+            case "INCRBY" -> new INCRHandler(dataStore, replicationManager, "INCRBY", false);
+            case "DECRBY" -> new INCRHandler(dataStore, replicationManager, "DECRBY", true);
+            case "INCRBYFLOAT" -> new INCRBYFLOATHandler(dataStore, replicationManager);
+            case "GETEX" -> new GETEXHandler(dataStore, replicationManager);
+            case "EXPIRE" -> new EXPIREHandler(dataStore, replicationManager, "expire", 1000, false);
+            case "PEXPIRE" -> new EXPIREHandler(dataStore, replicationManager, "pexpire", 1, false);
+            case "EXPIREAT" -> new EXPIREHandler(dataStore, replicationManager, "expireat", 1000, true);
+            case "PEXPIREAT" -> new EXPIREHandler(dataStore, replicationManager, "pexpireat", 1, true);
+            case "PERSIST" -> new PERSISTHandler(dataStore, replicationManager);
+            case "TTL" -> new TTLHandler(dataStore, false, false);
+            case "PTTL" -> new TTLHandler(dataStore, true, false);
+            case "EXPIRETIME" -> new TTLHandler(dataStore, false, true);
+            case "PEXPIRETIME" -> new TTLHandler(dataStore, true, true);
             case "MULTI" -> new MULTIHandler();
             case "EXEC" -> new EXECHandler();
             case "DISCARD" -> new DISCARDHandler();
             case "SAVE" -> new SAVEHandler(dataStore);
-            case "INFO" -> new INFOHandler(replicationManager);
+            case "INFO" -> new INFOHandler(replicationManager, dataStore);
             case "LISTENING-PORT" -> new ListeningPortHandler(replicationManager);
             case "CAPA" -> new CapaHandler();
             case "PSYNC" -> new PSYNCHandler(replicationManager);
@@ -70,6 +109,7 @@ public class CommandFactory {
             case "ACK" -> new AckHandler(WaitRequestManager, replicationManager);
             case "WAIT" -> new WaitHandler(replicationManager, WaitRequestManager);
             case "KEYS" -> new KEYHandler(dataStore);
+            case "SCAN" -> new SCANHandler(dataStore);
             case "SUBSCRIBE" -> new SubscribeHandler();
             case "PUBLISH" -> new PublishHandler();
             case "UNSUBSCRIBE" -> new UnsubscribeHandler();
@@ -88,6 +128,18 @@ public class CommandFactory {
             case "ACLSETUSER" -> new ACLSetUser(dataStore);
             case "AUTH" -> new AUTHHandler(dataStore);
             case "WATCH" -> new WatchHandler();
+            case "COMMAND" -> new COMMANDHandler();
+            case "MEMORYUSAGE" -> new MemoryUsageHandler(dataStore);
+            case "MEMORYSTATS" -> new MemoryStatsHandler(dataStore);
+            case "OBJECTENCODING" -> new ObjectEncodingHandler(dataStore);
+            case "KEYSPREFIXCOUNT" -> new KeysPrefixCountHandler(dataStore);
+            case "SELECT" -> new SELECTHandler(dataStore, replicationManager);
+            case "DEL" -> new DELHandler(dataStore, replicationManager, "DEL");
+            case "UNLINK" -> new DELHandler(dataStore, replicationManager, "UNLINK");
+            case "MOVE" -> new MOVEHandler(dataStore, replicationManager);
+            case "SWAPDB" -> new SWAPDBHandler(dataStore, replicationManager);
+            case "FLUSHDB" -> new FLUSHHandler(dataStore, replicationManager, "FLUSHDB", false);
+            case "FLUSHALL" -> new FLUSHHandler(dataStore, replicationManager, "FLUSHALL", true);
             default -> null;
         };
     }
@@ -0,0 +1,38 @@
+package command;
+
+/**
+ * Properties of a command the server acts on, named as COMMAND INFO reports them.
+ */
+public enum CommandFlag {
+    WRITE("write"),
+    READONLY("readonly"),
+    FAST("fast"),
+    BLOCKING("blocking"),
+    ADMIN("admin"),
+    PUBSUB("pubsub"),
+    // May grow memory use, refused while over maxmemory
+    DENY_OOM("denyoom"),
+    // Runs before the connection is authenticated
+    NO_AUTH("no_auth"),
+    // Keys are found by parsing the arguments, not by position
+    MOVABLE_KEYS("movablekeys");
+
+    private final String flagName;
+
+    CommandFlag(String flagName) {
+        this.flagName = flagName;
+    }
+
+    public String flagName() {
+        return flagName;
+    }
+
+    static CommandFlag fromFlagName(String name) {
+        for (CommandFlag flag : values()) {
+            if (flag.flagName.equals(name)) {
+                return flag;
+            }
+        }
+        throw new IllegalArgumentException("Unknown command flag: " + name);
+    }
+}
@@ -3,16 +3,20 @@ package command;
 import java.util.List;
 
 public class CommandRequest {
-    private final String commandName;
+    private final CommandSpec command;
     private final List<String> arguments;
 
-    public CommandRequest(String commandName, List<String> arguments) {
-        this.commandName = commandName;
+    public CommandRequest(CommandSpec command, List<String> arguments) {
+        this.command = command;
         this.arguments = arguments;
     }
 
+    public CommandSpec getCommand() {
+        return command;
+    }
+
     public String getCommandName() {
-        return commandName;
+        return command.getName();
     }
 
     public List<String> getArguments() {
@@ -0,0 +1,213 @@
+package command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import command.acl.AclCategory;
+
+/**
+ * Static description of a command: its id in the {@link CommandTable}, arity,
+ * flags, the ACL categories it belongs to and where its keys are among the
+ * arguments.
+ */
+public final class CommandSpec {
+
+    private final String name;
+    private final String ruleName;
+    private final int id;
+    // Counted with the command name, negative for "at least", as in COMMAND INFO
+    private final int arity;
+    // Words of the name itself, 2 for subcommands like ACL SETUSER
+    private final int nameWords;
+    private final Set<CommandFlag> flags;
+    private final Set<AclCategory> categories;
+    // Arguments holding keys: firstKey..lastKey every keyStep, a negative lastKey counts from the end
+    private final int firstKey;
+    private final int lastKey;
+    private final int keyStep;
+    // Set for commands whose keys follow a keyword, the first half of what follows it
+    private final String keysKeyword;
+    private final List<CommandSpec> subcommands = new ArrayList<>();
+
+    CommandSpec(String name, String ruleName, int id, int arity, int nameWords, Set<CommandFlag> flags,
+            int firstKey, int lastKey, int keyStep, String keysKeyword, AclCategory... categories) {
+        this.name = name;
+        this.ruleName = ruleName;
+        this.id = id;
+        this.arity = arity;
+        this.nameWords = nameWords;
+        this.flags = flags;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
+        this.keyStep = keyStep;
+        this.keysKeyword = keysKeyword;
+        this.categories = categoriesOf(flags, categories);
+    }
+
+    // Flags imply their categories, the data type ones are given explicitly
+    private static Set<AclCategory> categoriesOf(Set<CommandFlag> flags, AclCategory... explicit) {
+        Set<AclCategory> categories = EnumSet.noneOf(AclCategory.class);
+        Collections.addAll(categories, explicit);
+        if (flags.contains(CommandFlag.WRITE)) {
+            categories.add(AclCategory.WRITE);
+        }
+        if (flags.contains(CommandFlag.READONLY)) {
+            categories.add(AclCategory.READ);
+        }
+        categories.add(flags.contains(CommandFlag.FAST) ? AclCategory.FAST : AclCategory.SLOW);
+        if (flags.contains(CommandFlag.BLOCKING)) {
+            categories.add(AclCategory.BLOCKING);
+        }
+        if (flags.contains(CommandFlag.ADMIN)) {
+            categories.add(AclCategory.ADMIN);
+            categories.add(AclCategory.DANGEROUS);
+        }
+        if (flags.contains(CommandFlag.PUBSUB)) {
+            categories.add(AclCategory.PUBSUB);
+        }
+        return categories;
+    }
+
+    void addSubcommand(CommandSpec subcommand) {
+        subcommands.add(subcommand);
+    }
+
+    /**
+     * Name the executor knows the command by, e.g. GET or ACLSETUSER.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Name ACL rules and COMMAND INFO use, e.g. get or acl|setuser.
+     */
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public Set<CommandFlag> getFlags() {
+        return flags;
+    }
+
+    public boolean hasFlag(CommandFlag flag) {
+        return flags.contains(flag);
+    }
+
+    public Set<AclCategory> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Whether this is only a prefix for subcommands, like ACL.
+     */
+    public boolean isContainer() {
+        return !subcommands.isEmpty();
+    }
+
+    public List<CommandSpec> getSubcommands() {
+        return Collections.unmodifiableList(subcommands);
+    }
+
+    /**
+     * Number of request words that name the command, the arguments follow them.
+     */
+    public int getNameWords() {
+        return nameWords;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the argument count does not fit the arity
+     */
+    public void validateArity(List<String> arguments) {
+        int words = nameWords + arguments.size();
+        if (arity >= 0 ? words != arity : words < -arity) {
+            throw new IllegalArgumentException("wrong number of arguments for '" + ruleName + "' command");
+        }
+    }
+
+    /* ========== KEYS ========== */
+
+    public boolean hasKeys() {
+        return firstKey >= 0 || keysKeyword != null;
+    }
+
+    /**
+     * Index of the argument holding the command's only key, or -1 when it
+     * has none or several.
+     */
+    public int getSingleKeyIndex() {
+        return firstKey >= 0 && firstKey == lastKey ? firstKey : -1;
+    }
+
+    /**
+     * Index of the argument holding the command's first key, -1 when it has
+     * none or they follow a keyword.
+     */
+    public int getFirstKeyIndex() {
+        return firstKey;
+    }
+
+    // Key positions the way COMMAND INFO counts them: from the command name, 0 when not positional
+
+    public int getFirstKeyPosition() {
+        return firstKey < 0 ? 0 : nameWords + firstKey;
+    }
+
+    public int getLastKeyPosition() {
+        if (firstKey < 0) {
+            return 0;
+        }
+        return lastKey < 0 ? lastKey : nameWords + lastKey;
+    }
+
+    public int getKeyStep() {
+        return firstKey < 0 ? 0 : keyStep;
+    }
+
+    /**
+     * Whether every key named by the arguments passes the test.
+     */
+    public boolean allKeysMatch(List<String> arguments, Predicate<String> test) {
+        int from = firstKey;
+        int to = lastKey < 0 ? arguments.size() + lastKey : lastKey;
+        if (keysKeyword != null) {
+            int keyword = indexOfIgnoreCase(arguments, keysKeyword);
+            if (keyword < 0) {
+                return true;
+            }
+            from = keyword + 1;
+            to = keyword + (arguments.size() - keyword - 1) / 2;
+        }
+        if (from < 0) {
+            return true;
+        }
+        for (int i = from; i <= to && i < arguments.size(); i += keyStep) {
+            if (!test.test(arguments.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfIgnoreCase(List<String> arguments, String keyword) {
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i).equalsIgnoreCase(keyword)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -2,9 +2,22 @@ package command;
 
 import java.util.List;
 
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 public interface CommandStrategy {
-    void execute(List<String> arguments, ClientConnection clientOutput);
-    void validateArguments(List<String> arguments) throws IllegalArgumentException;
+    /**
+     * Execute the command, writing its reply to {@code clientOutput}. Handlers never
+     * flush: the connection layer sends replies once per batch of pipelined requests.
+     * {@code clientConnection} identifies the client the command came from.
+     */
+    void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection);
+
+    /**
+     * Checks what the arity in the {@link CommandTable} cannot tell, like
+     * numbers that must parse or options that must be known. The argument
+     * count has already been validated when this runs.
+     */
+    default void validateArguments(List<String> arguments) throws IllegalArgumentException {
+    }
 }
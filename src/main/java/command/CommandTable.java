@@ -0,0 +1,365 @@
+package command;
+
+import static command.acl.AclCategory.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import command.acl.AclCategory;
+import protocol.RESPArguments;
+
+/**
+ * Every command the server knows with its arity, flags and key positions,
+ * numbered so per-user permissions can be a bitmap indexed by command id.
+ * Dispatch, ACL checks, shard routing and COMMAND INFO all read it instead
+ * of matching command names themselves.
+ *
+ * Names are the ones the executor dispatches on: ACL and REPLCONF are
+ * containers whose subcommands are separate entries.
+ */
+public final class CommandTable {
+
+    private static final int NO_KEYS = -1;
+
+    private static final NameIndex COMMANDS = new NameIndex();
+    private static final Map<CommandSpec, NameIndex> SUBCOMMANDS = new HashMap<>();
+    private static final List<CommandSpec> TOP_LEVEL = new ArrayList<>();
+    private static final List<CommandSpec> BY_ID = new ArrayList<>();
+
+    static {
+        // Connection
+        define("PING", -1, "fast", NO_KEYS, NO_KEYS, CONNECTION);
+        define("ECHO", 2, "fast", NO_KEYS, NO_KEYS, CONNECTION);
+        define("AUTH", 3, "fast no_auth", NO_KEYS, NO_KEYS, CONNECTION);
+        define("WAIT", 3, "blocking", NO_KEYS, NO_KEYS, CONNECTION);
+        define("COMMAND", -1, "", NO_KEYS, NO_KEYS, CONNECTION);
+        define("SELECT", 2, "fast", NO_KEYS, NO_KEYS, CONNECTION);
+
+        // Keyspace and strings
+        define("KEYS", 2, "readonly", NO_KEYS, NO_KEYS, KEYSPACE, DANGEROUS);
+        define("SCAN", -2, "readonly", NO_KEYS, NO_KEYS, KEYSPACE);
+        define("DEL", -2, "write", 0, -1, KEYSPACE);
+        define("UNLINK", -2, "write fast", 0, -1, KEYSPACE);
+        define("MOVE", 3, "write fast", 0, 0, KEYSPACE);
+        define("SWAPDB", 3, "write fast", NO_KEYS, NO_KEYS, KEYSPACE, DANGEROUS);
+        define("FLUSHDB", -1, "write", NO_KEYS, NO_KEYS, KEYSPACE, DANGEROUS);
+        define("FLUSHALL", -1, "write", NO_KEYS, NO_KEYS, KEYSPACE, DANGEROUS);
+        define("TYPE", 2, "readonly fast", 0, 0, KEYSPACE);
+        define("EXPIRE", -3, "write fast", 0, 0, KEYSPACE);
+        define("PEXPIRE", -3, "write fast", 0, 0, KEYSPACE);
+        define("EXPIREAT", -3, "write fast", 0, 0, KEYSPACE);
+        define("PEXPIREAT", -3, "write fast", 0, 0, KEYSPACE);
+        define("PERSIST", 2, "write fast", 0, 0, KEYSPACE);
+        define("TTL", 2, "readonly fast", 0, 0, KEYSPACE);
+        define("PTTL", 2, "readonly fast", 0, 0, KEYSPACE);
+        define("EXPIRETIME", 2, "readonly fast", 0, 0, KEYSPACE);
+        define("PEXPIRETIME", 2, "readonly fast", 0, 0, KEYSPACE);
+        define("GET", 2, "readonly fast", 0, 0, STRING);
+        define("MGET", -2, "readonly fast", 0, -1, STRING);
+        define("GETEX", -2, "write fast", 0, 0, STRING);
+        define("SET", -3, "write denyoom", 0, 0, STRING);
+        defineWithKeyStep("MSET", -3, "write denyoom", 0, -1, 2, STRING);
+        defineWithKeyStep("MSETNX", -3, "write denyoom", 0, -1, 2, STRING);
+        define("INCR", 2, "write fast denyoom", 0, 0, STRING);
+        define("DECR", 2, "write fast denyoom", 0, 0, STRING);
+        define("INCRBY", 3, "write fast denyoom", 0, 0, STRING);
+        define("DECRBY", 3, "write fast denyoom", 0, 0, STRING);
+        define("INCRBYFLOAT", 3, "write fast denyoom", 0, 0, STRING);
+        define("GETDEL", 2, "write fast", 0, 0, STRING);
+        define("APPEND", 3, "write fast denyoom", 0, 0, STRING);
+        define("SETRANGE", 4, "write denyoom", 0, 0, STRING);
+        define("GETRANGE", 4, "readonly", 0, 0, STRING);
+        define("STRLEN", 2, "readonly fast", 0, 0, STRING);
+
+        // Bitmaps
+        define("SETBIT", 4, "write denyoom", 0, 0, BITMAP);
+        define("GETBIT", 3, "readonly fast", 0, 0, BITMAP);
+        define("BITCOUNT", -2, "readonly", 0, 0, BITMAP);
+        define("BITPOS", -3, "readonly", 0, 0, BITMAP);
+        define("BITOP", -4, "write denyoom", 1, -1, BITMAP);
+        define("BITFIELD", -2, "write denyoom", 0, 0, BITMAP);
+
+        // Lists
+        define("LPUSH", -3, "write fast denyoom", 0, 0, LIST);
+        define("RPUSH", -3, "write fast denyoom", 0, 0, LIST);
+        define("LPOP", -2, "write fast", 0, 0, LIST);
+        define("BLPOP", 3, "write blocking", 0, 0, LIST);
+        define("LLEN", 2, "readonly fast", 0, 0, LIST);
+        define("LRANGE", 4, "readonly", 0, 0, LIST);
+
+        // Sorted sets and geo
+        define("ZADD", -4, "write fast denyoom", 0, 0, SORTEDSET);
+        define("ZREM", 3, "write fast", 0, 0, SORTEDSET);
+        define("ZCARD", 2, "readonly fast", 0, 0, SORTEDSET);
+        define("ZSCORE", 3, "readonly fast", 0, 0, SORTEDSET);
+        define("ZRANK", 3, "readonly fast", 0, 0, SORTEDSET);
+        define("ZRANGE", 4, "readonly", 0, 0, SORTEDSET);
+        define("GEOADD", -5, "write denyoom", 0, 0, GEO);
+        define("GEOPOS", -3, "readonly", 0, 0, GEO);
+        define("GEODIST", -4, "readonly", 0, 0, GEO);
+        define("GEOSEARCH", -7, "readonly", 0, 0, GEO);
+
+        // Streams
+        define("XADD", -5, "write fast denyoom", 0, 0, STREAM);
+        define("XRANGE", 4, "readonly", 0, 0, STREAM);
+        defineWithKeysAfter("XREAD", -4, "readonly blocking movablekeys", "streams", STREAM);
+
+        // Pub/sub and transactions
+        define("SUBSCRIBE", -2, "pubsub", NO_KEYS, NO_KEYS);
+        define("UNSUBSCRIBE", -2, "pubsub", NO_KEYS, NO_KEYS);
+        define("PUBLISH", 3, "pubsub fast", NO_KEYS, NO_KEYS);
+        define("MULTI", 1, "fast", NO_KEYS, NO_KEYS, TRANSACTION);
+        define("EXEC", 1, "", NO_KEYS, NO_KEYS, TRANSACTION);
+        define("DISCARD", 1, "fast", NO_KEYS, NO_KEYS, TRANSACTION);
+        define("WATCH", -2, "fast", 0, -1, TRANSACTION);
+
+        // Server administration and replication
+        define("CONFIG", -3, "admin", NO_KEYS, NO_KEYS);
+        define("INFO", -1, "", NO_KEYS, NO_KEYS, DANGEROUS);
+        define("SAVE", 1, "admin", NO_KEYS, NO_KEYS);
+        define("PSYNC", 3, "admin", NO_KEYS, NO_KEYS);
+        CommandSpec replconf = define("REPLCONF", -2, "admin", NO_KEYS, NO_KEYS);
+        defineSubcommand(replconf, "LISTENING-PORT", 3, "admin");
+        defineSubcommand(replconf, "CAPA", 3, "admin");
+        defineSubcommand(replconf, "GETACK", 3, "admin");
+        defineSubcommand(replconf, "ACK", 3, "admin");
+        CommandSpec acl = define("ACL", -2, "", NO_KEYS, NO_KEYS);
+        defineSubcommand(acl, "WHOAMI", 2, "");
+        defineSubcommand(acl, "GETUSER", 3, "admin");
+        defineSubcommand(acl, "SETUSER", -3, "admin");
+        CommandSpec memory = define("MEMORY", -2, "", NO_KEYS, NO_KEYS);
+        defineSubcommand(memory, "USAGE", -3, "readonly", 0, 0, KEYSPACE);
+        defineSubcommand(memory, "STATS", 2, "");
+        CommandSpec object = define("OBJECT", -2, "", NO_KEYS, NO_KEYS);
+        defineSubcommand(object, "ENCODING", 3, "readonly", 0, 0, KEYSPACE);
+        CommandSpec keysPrefix = define("KEYSPREFIX", -2, "", NO_KEYS, NO_KEYS);
+        defineSubcommand(keysPrefix, "COUNT", 3, "readonly", KEYSPACE);
+    }
+
+    private CommandTable() {
+    }
+
+    /**
+     * The command a parsed request runs: its first word, or the subcommand
+     * named by the second one for containers. A container is returned as is
+     * when the subcommand is unknown or missing, null when the name is unknown.
+     * Names are matched case-insensitively on the request's bytes, nothing is
+     * decoded or allocated.
+     */
+    public static CommandSpec resolve(List<String> request) {
+        CommandSpec command = find(COMMANDS, request, 0);
+        if (command == null || !command.isContainer() || request.size() < 2) {
+            return command;
+        }
+        CommandSpec subcommand = find(SUBCOMMANDS.get(command), request, 1);
+        return subcommand != null ? subcommand : command;
+    }
+
+    /**
+     * The command with this name, "container|subcommand" for subcommands, or null when unknown.
+     */
+    public static CommandSpec lookup(String name) {
+        int separator = name.indexOf('|');
+        if (separator < 0) {
+            return COMMANDS.get(name);
+        }
+        CommandSpec container = COMMANDS.get(name.substring(0, separator));
+        NameIndex subcommands = container == null ? null : SUBCOMMANDS.get(container);
+        return subcommands == null ? null : subcommands.get(name.substring(separator + 1));
+    }
+
+    public static CommandSpec byId(int id) {
+        return BY_ID.get(id);
+    }
+
+    public static int size() {
+        return BY_ID.size();
+    }
+
+    /**
+     * Every command and subcommand, in id order.
+     */
+    public static List<CommandSpec> all() {
+        return Collections.unmodifiableList(BY_ID);
+    }
+
+    /**
+     * The commands a request can start with, subcommands are found through their container.
+     */
+    public static List<CommandSpec> commands() {
+        return Collections.unmodifiableList(TOP_LEVEL);
+    }
+
+    private static CommandSpec find(NameIndex index, List<String> request, int position) {
+        if (request instanceof RESPArguments arguments) {
+            return index.get(arguments, position);
+        }
+        return index.get(request.get(position));
+    }
+
+    /* ========== DEFINITIONS ========== */
+
+    private static CommandSpec define(String name, int arity, String flags, int firstKey, int lastKey,
+            AclCategory... categories) {
+        CommandSpec spec = register(name, name.toLowerCase(), arity, 1, flags, firstKey, lastKey, 1, null,
+                categories);
+        COMMANDS.put(name, spec);
+        TOP_LEVEL.add(spec);
+        return spec;
+    }
+
+    // Keys every keyStep arguments, like the keys of MSET's key value pairs
+    private static void defineWithKeyStep(String name, int arity, String flags, int firstKey, int lastKey,
+            int keyStep, AclCategory... categories) {
+        CommandSpec spec = register(name, name.toLowerCase(), arity, 1, flags, firstKey, lastKey, keyStep, null,
+                categories);
+        COMMANDS.put(name, spec);
+        TOP_LEVEL.add(spec);
+    }
+
+    private static void defineWithKeysAfter(String name, int arity, String flags, String keyword,
+            AclCategory... categories) {
+        CommandSpec spec = register(name, name.toLowerCase(), arity, 1, flags, NO_KEYS, NO_KEYS, 1, keyword,
+                categories);
+        COMMANDS.put(name, spec);
+        TOP_LEVEL.add(spec);
+    }
+
+    private static void defineSubcommand(CommandSpec container, String subcommand, int arity, String flags,
+            AclCategory... categories) {
+        defineSubcommand(container, subcommand, arity, flags, NO_KEYS, NO_KEYS, categories);
+    }
+
+    // Subcommands dispatch as ACLSETUSER or MEMORYUSAGE, REPLCONF ones as the bare subcommand
+    private static void defineSubcommand(CommandSpec container, String subcommand, int arity, String flags,
+            int firstKey, int lastKey, AclCategory... categories) {
+        String name = container.getName().equals("REPLCONF") ? subcommand : container.getName() + subcommand;
+        String ruleName = container.getRuleName() + "|" + subcommand.toLowerCase();
+        CommandSpec spec = register(name, ruleName, arity, 2, flags, firstKey, lastKey, 1, null, categories);
+        container.addSubcommand(spec);
+        SUBCOMMANDS.computeIfAbsent(container, c -> new NameIndex()).put(subcommand, spec);
+    }
+
+    private static CommandSpec register(String name, String ruleName, int arity, int nameWords, String flags,
+            int firstKey, int lastKey, int keyStep, String keysKeyword, AclCategory... categories) {
+        CommandSpec spec = new CommandSpec(name, ruleName, BY_ID.size(), arity, nameWords, parseFlags(flags),
+                firstKey, lastKey, keyStep, keysKeyword, categories);
+        BY_ID.add(spec);
+        return spec;
+    }
+
+    private static Set<CommandFlag> parseFlags(String flags) {
+        Set<CommandFlag> parsed = EnumSet.noneOf(CommandFlag.class);
+        for (String flag : flags.split(" ")) {
+            if (!flag.isEmpty()) {
+                parsed.add(CommandFlag.fromFlagName(flag));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Open-addressing table of upper-case ASCII names, probed with the
+     * characters or raw bytes of a request word folded to upper case.
+     */
+    private static final class NameIndex {
+        private String[] names = new String[16];
+        private CommandSpec[] specs = new CommandSpec[16];
+        private int size;
+
+        void put(String name, CommandSpec spec) {
+            if ((size + 1) * 2 > names.length) {
+                grow();
+            }
+            int slot = hash(name) & (names.length - 1);
+            while (names[slot] != null) {
+                slot = (slot + 1) & (names.length - 1);
+            }
+            names[slot] = name;
+            specs[slot] = spec;
+            size++;
+        }
+
+        CommandSpec get(String word) {
+            int slot = hash(word) & (names.length - 1);
+            for (String name = names[slot]; name != null; name = names[slot]) {
+                if (matches(name, word)) {
+                    return specs[slot];
+                }
+                slot = (slot + 1) & (names.length - 1);
+            }
+            return null;
+        }
+
+        CommandSpec get(RESPArguments request, int index) {
+            int length = request.byteLength(index);
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + fold(request.byteAt(index, i) & 0xFF);
+            }
+            int slot = hash & (names.length - 1);
+            for (String name = names[slot]; name != null; name = names[slot]) {
+                if (matches(name, request, index, length)) {
+                    return specs[slot];
+                }
+                slot = (slot + 1) & (names.length - 1);
+            }
+            return null;
+        }
+
+        private void grow() {
+            String[] oldNames = names;
+            CommandSpec[] oldSpecs = specs;
+            names = new String[oldNames.length * 2];
+            specs = new CommandSpec[oldNames.length * 2];
+            size = 0;
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) {
+                    put(oldNames[i], oldSpecs[i]);
+                }
+            }
+        }
+
+        private static int hash(String word) {
+            int hash = 0;
+            for (int i = 0; i < word.length(); i++) {
+                hash = 31 * hash + fold(word.charAt(i));
+            }
+            return hash;
+        }
+
+        private static boolean matches(String name, String word) {
+            if (name.length() != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != fold(word.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean matches(String name, RESPArguments request, int index, int length) {
+            if (name.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(i) != fold(request.byteAt(index, i) & 0xFF)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // ASCII only: a multi-byte UTF-8 sequence never folds onto a command name
+        private static int fold(int c) {
+            return c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+        }
+    }
+}
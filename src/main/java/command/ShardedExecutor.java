@@ -0,0 +1,195 @@
+package command;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import storage.ShardedKeyspace;
+
+/**
+ * Shared-nothing command execution: the keyspace is split into N shards by
+ * key hash and every shard is owned by its own {@link SingleWriterExecutor}.
+ *
+ * Single-key commands, as the {@link CommandTable} tells them apart, run on
+ * the shard owning their key, and so do multi-key commands like MGET whose
+ * keys all hash to one shard. Everything else
+ * (commands spanning shards like XREAD, KEYS and EXEC, or touching server-wide
+ * state) is a cross-shard hop: a coordinator thread parks every shard at a
+ * barrier, runs the command alone and releases them. With a single shard the
+ * one executor owns everything and no coordinator is needed.
+ *
+ * Thread names keep the "Role-port-n" shape, ReplicationManager reads the
+ * port back from the name of the thread executing a command.
+ */
+public class ShardedExecutor {
+
+    private static final int ALL_SHARDS = -1;
+
+    // Commands that touch neither keys nor shared state, at most their connection's, any shard can answer them
+    private static final Set<String> STATELESS_COMMANDS = Set.of("PING", "ECHO", "COMMAND", "SELECT");
+
+    private final SingleWriterExecutor[] shards;
+    private final SingleWriterExecutor coordinator;
+
+    public ShardedExecutor(int port, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be a positive number");
+        }
+        this.shards = new SingleWriterExecutor[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new SingleWriterExecutor("Shard-" + port + "-" + i);
+        }
+        this.coordinator = shardCount > 1 ? new SingleWriterExecutor("Coordinator-" + port) : null;
+    }
+
+    public void start() {
+        for (SingleWriterExecutor shard : shards) {
+            shard.start();
+        }
+        if (coordinator != null) {
+            coordinator.start();
+        }
+    }
+
+    public void shutdown() {
+        for (SingleWriterExecutor shard : shards) {
+            shard.shutdown();
+        }
+        if (coordinator != null) {
+            coordinator.shutdown();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /* ========== COMMAND ROUTING ========== */
+
+    /**
+     * Whether the command may run on the calling thread without a hop.
+     */
+    public boolean runsOnCurrentThread(CommandSpec command, List<String> arguments) {
+        if (isCoordinatorThread()) {
+            // Every shard is parked while the coordinator runs
+            return true;
+        }
+        int target = route(command, arguments);
+        return target != ALL_SHARDS && shards[target].inExecutorThread();
+    }
+
+    /**
+     * Queues the task on the executor the command belongs to.
+     */
+    public void submit(CommandSpec command, List<String> arguments, Runnable task) {
+        int target = route(command, arguments);
+        if (target == ALL_SHARDS) {
+            coordinator.submit(() -> runWithShardsParked(task));
+        } else {
+            shards[target].submit(task);
+        }
+    }
+
+    /**
+     * Queues a task on one shard's executor, for work on the keys it owns
+     * rather than for a command.
+     */
+    public void submitToShard(int shard, Runnable task) {
+        shards[shard].submit(task);
+    }
+
+    /**
+     * Runs the task on the executor the command belongs to and waits for it.
+     * Never called from a shard for another shard's command, shards only hop
+     * asynchronously so they cannot wait on each other.
+     */
+    public void executeAndWait(CommandSpec command, List<String> arguments, Runnable task) {
+        if (runsOnCurrentThread(command, arguments)) {
+            task.run();
+            return;
+        }
+        int target = route(command, arguments);
+        if (target == ALL_SHARDS) {
+            coordinator.executeAndWait(() -> runWithShardsParked(task));
+        } else {
+            shards[target].executeAndWait(task);
+        }
+    }
+
+    private int route(CommandSpec command, List<String> arguments) {
+        if (shards.length == 1) {
+            return 0;
+        }
+        int key = command.getSingleKeyIndex();
+        if (key >= 0 && key < arguments.size()) {
+            return ShardedKeyspace.shardOf(arguments.get(key), shards.length);
+        }
+        if (STATELESS_COMMANDS.contains(command.getName())) {
+            int current = currentShard();
+            return current == ALL_SHARDS ? 0 : current;
+        }
+        return command.hasKeys() ? shardOfAllKeys(command, arguments) : ALL_SHARDS;
+    }
+
+    // The shard owning every key of the command, ALL_SHARDS when they are spread or not found
+    private int shardOfAllKeys(CommandSpec command, List<String> arguments) {
+        int[] owner = { ALL_SHARDS };
+        boolean together = command.allKeysMatch(arguments, key -> {
+            int shard = ShardedKeyspace.shardOf(key, shards.length);
+            if (owner[0] == ALL_SHARDS) {
+                owner[0] = shard;
+            }
+            return shard == owner[0];
+        });
+        return together ? owner[0] : ALL_SHARDS;
+    }
+
+    private int currentShard() {
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i].inExecutorThread()) {
+                return i;
+            }
+        }
+        return ALL_SHARDS;
+    }
+
+    private boolean isCoordinatorThread() {
+        return coordinator != null && coordinator.inExecutorThread();
+    }
+
+    /**
+     * The cross-shard hop: every shard finishes what it is running, parks at
+     * the barrier and stays there until the task is done.
+     */
+    private void runWithShardsParked(Runnable task) {
+        CountDownLatch parked = new CountDownLatch(shards.length);
+        CountDownLatch released = new CountDownLatch(1);
+        for (SingleWriterExecutor shard : shards) {
+            shard.submit(() -> {
+                parked.countDown();
+                awaitUninterruptibly(released);
+            });
+        }
+        awaitUninterruptibly(parked);
+        try {
+            task.run();
+        } finally {
+            released.countDown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
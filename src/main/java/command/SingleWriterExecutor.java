@@ -0,0 +1,102 @@
+package command;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import util.AppLogger;
+
+/**
+ * Applies commands on one dedicated thread, the way Redis keeps the keyspace
+ * single-threaded while I/O threads only parse requests and write replies.
+ * The data structures behind the store need no locks of their own as long as
+ * nothing else touches them. {@link ShardedExecutor} runs one per shard.
+ *
+ * Producers (I/O threads, client threads, the replication link) hand tasks
+ * over through a lock-free multi-producer queue. The executor parks when the
+ * queue runs empty and the producer that refills it unparks it.
+ */
+public class SingleWriterExecutor implements Runnable {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean parked = false;
+    private volatile boolean running = true;
+    private final Logger logger = AppLogger.getLogger(SingleWriterExecutor.class);
+
+    public SingleWriterExecutor(String name) {
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a task behind everything submitted before it. Safe to call from any thread.
+     */
+    public void submit(Runnable task) {
+        tasks.add(task);
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Runs the task on the executor and waits for it to finish. Used by callers
+     * that own a thread anyway, like the thread-per-client front end.
+     */
+    public void executeAndWait(Runnable task) {
+        if (inExecutorThread()) {
+            task.run();
+            return;
+        }
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        submit(future);
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public boolean inExecutorThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                parked = true;
+                // Re-check after publishing the flag, a producer that missed it has already enqueued
+                if (tasks.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warning("Command task failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+}
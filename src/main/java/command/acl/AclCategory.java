@@ -0,0 +1,40 @@
+package command.acl;
+
+/**
+ * Command categories ACL rules refer to as `+@name` / `-@name`.
+ */
+public enum AclCategory {
+    KEYSPACE,
+    READ,
+    WRITE,
+    FAST,
+    SLOW,
+    STRING,
+    BITMAP,
+    LIST,
+    SORTEDSET,
+    STREAM,
+    GEO,
+    PUBSUB,
+    TRANSACTION,
+    CONNECTION,
+    ADMIN,
+    DANGEROUS,
+    BLOCKING;
+
+    public String ruleName() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * The category named in a rule, or null for an unknown one.
+     */
+    public static AclCategory fromRuleName(String name) {
+        for (AclCategory category : values()) {
+            if (category.ruleName().equalsIgnoreCase(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package command.acl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import command.CommandSpec;
+import command.CommandTable;
+import util.GlobMatcher;
+
+/**
+ * A user's ACL rules compiled for the execution path: a bitmap of the
+ * allowed command ids and the key patterns as compiled matchers. Checking a
+ * command is one bit test; keys are only matched for users restricted to
+ * some of them. Immutable, rule changes compile a new instance.
+ */
+public final class AclPermissions {
+
+    private final BitSet allowedCommands;
+    private final boolean allKeys;
+    private final GlobMatcher[] keyPatterns;
+
+    private AclPermissions(BitSet allowedCommands, GlobMatcher[] keyPatterns) {
+        this.allowedCommands = allowedCommands;
+        this.keyPatterns = keyPatterns;
+        boolean matchesEverything = false;
+        for (GlobMatcher pattern : keyPatterns) {
+            matchesEverything |= pattern.matchesEverything();
+        }
+        this.allKeys = matchesEverything;
+    }
+
+    /**
+     * Applies the command rules (+cmd, -cmd, +@category, -@category) in order
+     * to an empty bitmap and compiles the key patterns (~pattern).
+     *
+     * @throws IllegalArgumentException on an unknown command, category or rule
+     */
+    public static AclPermissions compile(List<String> commandRules, List<String> keyRules) {
+        BitSet allowed = new BitSet(CommandTable.size());
+        for (String rule : commandRules) {
+            applyCommandRule(allowed, rule);
+        }
+        List<GlobMatcher> patterns = new ArrayList<>(keyRules.size());
+        for (String rule : keyRules) {
+            if (!rule.startsWith("~")) {
+                throw new IllegalArgumentException(syntaxError(rule));
+            }
+            patterns.add(GlobMatcher.compile(rule.substring(1)));
+        }
+        return new AclPermissions(allowed, patterns.toArray(new GlobMatcher[0]));
+    }
+
+    public boolean canRun(CommandSpec command) {
+        return allowedCommands.get(command.getId());
+    }
+
+    public boolean canAccessKeys(CommandSpec command, List<String> arguments) {
+        if (allKeys || !command.hasKeys()) {
+            return true;
+        }
+        return command.allKeysMatch(arguments, this::matchesAnyPattern);
+    }
+
+    private boolean matchesAnyPattern(String key) {
+        for (GlobMatcher pattern : keyPatterns) {
+            if (pattern.matches(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void applyCommandRule(BitSet allowed, String rule) {
+        if (rule.length() < 2 || (rule.charAt(0) != '+' && rule.charAt(0) != '-')) {
+            throw new IllegalArgumentException(syntaxError(rule));
+        }
+        boolean allow = rule.charAt(0) == '+';
+        String target = rule.substring(1).toLowerCase();
+
+        if (target.equals("@all")) {
+            allowed.set(0, CommandTable.size(), allow);
+            return;
+        }
+        if (target.startsWith("@")) {
+            AclCategory category = AclCategory.fromRuleName(target.substring(1));
+            if (category == null) {
+                throw new IllegalArgumentException(unknownNameError(rule));
+            }
+            for (CommandSpec command : CommandTable.all()) {
+                if (command.getCategories().contains(category)) {
+                    allowed.set(command.getId(), allow);
+                }
+            }
+            return;
+        }
+
+        // A container like "acl" covers all of its subcommands, "acl|setuser" just one
+        boolean found = false;
+        for (CommandSpec command : CommandTable.all()) {
+            String name = command.getRuleName();
+            if (name.equals(target) || name.startsWith(target + "|")) {
+                allowed.set(command.getId(), allow);
+                found = true;
+            }
+        }
+        if (!found) {
+            throw new IllegalArgumentException(unknownNameError(rule));
+        }
+    }
+
+    private static String unknownNameError(String rule) {
+        return "Error in ACL SETUSER modifier '" + rule + "': Unknown command or category name in ACL";
+    }
+
+    private static String syntaxError(String rule) {
+        return "Error in ACL SETUSER modifier '" + rule + "': Syntax error";
+    }
+}
@@ -2,7 +2,7 @@ package command.handlers.authentication;
 
 import command.CommandStrategy;
 import domain.values.UserProperties;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -18,27 +18,24 @@ public class ACLGetUser implements CommandStrategy {
 
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String userName = arguments.get(0);
             UserProperties userProperties = dataStore.getUserProperties(userName);
             if (userProperties == null)
-                clientOutput.write(RESPSerializer.error("WRONGPASS invalid username or user is disabled."));
+                clientOutput.writeError("WRONGPASS invalid username or user is disabled.");
             else {
                 Map<String, List<String>> userPropertiesData = userProperties.getValue();
-                clientOutput.write(RESPSerializer.writeUserProperties(userPropertiesData));
+                // Flat structure: key, value-array, key2, value2-array, ...
+                clientOutput.writeArrayHeader(userPropertiesData.size() * 2);
+                for (Map.Entry<String, List<String>> entry : userPropertiesData.entrySet()) {
+                    clientOutput.writeBulkString(entry.getKey());
+                    clientOutput.writeArray(entry.getValue());
+                }
             }
-            clientOutput.flush();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'ACL GETUSER' command");
-        }
-    }
 }
@@ -1,8 +1,7 @@
 package command.handlers.authentication;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
-import protocol.errorenum.ErrorType;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import util.AppLogger;
@@ -19,25 +18,19 @@ public class ACLSetUser implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try{
             logger.info("Executing ACL SETUSER with arguments: " + arguments);
             String userName = arguments.get(0);
-            String password = arguments.get(1);
-            boolean isPasswordSet = store.setUserPassword(userName, password);
-            if(isPasswordSet) clientOutput.write(RESPSerializer.simpleString("OK"));
-            else clientOutput.write(RESPSerializer.error(ErrorType.NOAUTH,"Authentication required."));
-            clientOutput.flush();
+            // Whether the caller may change users at all is up to its own ACL (@admin)
+            store.setUser(userName, arguments.subList(1, arguments.size()));
+            clientOutput.writeSimpleString("OK");
+        }
+        catch (IllegalArgumentException e){
+            clientOutput.writeError(e.getMessage());
         }
         catch (Exception e){
             throw new RuntimeException(e);
         }
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 2) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'ACL SETUSER' command");
-        }
-    }
 }
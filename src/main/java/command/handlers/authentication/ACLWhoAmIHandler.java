@@ -1,7 +1,7 @@
 package command.handlers.authentication;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 import java.util.List;
@@ -10,21 +10,15 @@ public class ACLWhoAmIHandler implements CommandStrategy {
 
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try{
-            String username = clientOutput.getUsername();
-            clientOutput.write(RESPSerializer.bulkString(username));
+            String username = clientConnection.getSession().getUserName();
+            clientOutput.writeBulkString(username);
 
-            clientOutput.flush();
         }
         catch (Exception e){
             throw new RuntimeException(e);
         }
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-
-    }
 }
 
@@ -1,7 +1,7 @@
 package command.handlers.authentication;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import protocol.errorenum.ErrorType;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -15,25 +15,21 @@ public class AUTHHandler implements CommandStrategy {
         this.store = dataStore;
     }
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try{
             String userName = arguments.get(0);
             String password = arguments.get(1);
             boolean authedUser = store.authenticateUser(userName, password);
-            if(authedUser)clientOutput.write(RESPSerializer.simpleString("OK"));
-            else clientOutput.write(RESPSerializer.error(ErrorType.WRONGPASS,"invalid username-password pair or user is disabled."));
-            clientOutput.flush();
+            if(authedUser){
+                // Checked once, every later command only reads the session
+                clientConnection.getSession().authenticate(userName, store.getUserProperties(userName));
+                clientOutput.writeSimpleString("OK");
+            }
+            else clientOutput.writeError(ErrorType.WRONGPASS,"invalid username-password pair or user is disabled.");
         }
         catch (Exception e){
             throw new RuntimeException(e);
         }
 
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if(arguments.size() != 2){
-            throw new IllegalArgumentException("Wrong number of arguments for 'AUTH' command");
-        }
-    }
 }
@@ -0,0 +1,51 @@
+package command.handlers.bitmap;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * BITCOUNT key [start end [BYTE | BIT]]: number of set bits in the string
+ * or in the range, counted a 64-bit word at a time.
+ */
+public class BITCOUNTHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public BITCOUNTHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        if (arguments.size() == 2 || arguments.size() > 4) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        if (arguments.size() > 2) {
+            BitArguments.integer(arguments.get(1));
+            BitArguments.integer(arguments.get(2));
+        }
+        if (arguments.size() == 4) {
+            BitArguments.bitUnit(arguments.get(3));
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        long start = 0;
+        long end = -1;
+        if (arguments.size() > 2) {
+            start = BitArguments.integer(arguments.get(1));
+            end = BitArguments.integer(arguments.get(2));
+        }
+        boolean bitUnit = arguments.size() == 4 && BitArguments.bitUnit(arguments.get(3));
+        try {
+            clientOutput.writeInteger(dataStore.bitCount(arguments.get(0), start, end, bitUnit));
+        } catch (IllegalStateException e) {
+            clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package command.handlers.bitmap;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import command.CommandStrategy;
+import domain.values.BitfieldOperation;
+import domain.values.BitfieldOperation.Kind;
+import domain.values.BitfieldOperation.Overflow;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * BITFIELD key [GET type offset] [SET type offset value]
+ * [INCRBY type offset increment] [OVERFLOW WRAP | SAT | FAIL] ...: reads and
+ * writes integers packed in the string, a type being i1 to i64 or u1 to u63
+ * and an offset prefixed with # counting in integers of that type. OVERFLOW
+ * applies to the SET and INCRBY after it, WRAP by default.
+ *
+ * All operations run as one step on the value. A command that only reads
+ * neither creates the key nor is replicated; one that writes is replicated
+ * as is, its overflows come out the same on the replicas.
+ */
+public class BITFIELDHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public BITFIELDHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        operations(arguments);
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        List<BitfieldOperation> operations = operations(arguments);
+        List<Long> results;
+        try {
+            results = dataStore.bitField(arguments.get(0), operations);
+        } catch (IllegalStateException e) {
+            if (!ReplicationManager.isSlaveNode())
+                clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+            return;
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeArrayHeader(results.size());
+        for (Long result : results) {
+            if (result == null) {
+                clientOutput.writeNullBulkString();
+            } else {
+                clientOutput.writeInteger(result);
+            }
+        }
+        if (operations.stream().noneMatch(BitfieldOperation::isWrite)) {
+            return;
+        }
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("BITFIELD");
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    private static List<BitfieldOperation> operations(List<String> arguments) {
+        List<BitfieldOperation> operations = new ArrayList<>();
+        Overflow overflow = Overflow.WRAP;
+        int i = 1;
+        while (i < arguments.size()) {
+            String subcommand = arguments.get(i).toUpperCase(Locale.ROOT);
+            if (subcommand.equals("OVERFLOW")) {
+                overflow = overflow(argument(arguments, i + 1));
+                i += 2;
+                continue;
+            }
+            Kind kind = switch (subcommand) {
+                case "GET" -> Kind.GET;
+                case "SET" -> Kind.SET;
+                case "INCRBY" -> Kind.INCRBY;
+                default -> throw new IllegalArgumentException("syntax error");
+            };
+            String type = argument(arguments, i + 1);
+            boolean signed = type.startsWith("i") || type.startsWith("I");
+            int width = width(type, signed);
+            long offset = offset(argument(arguments, i + 2), width);
+            long value = 0;
+            if (kind != Kind.GET) {
+                value = BitArguments.integer(argument(arguments, i + 3));
+            }
+            operations.add(new BitfieldOperation(kind, signed, width, offset, value, overflow));
+            i += kind == Kind.GET ? 3 : 4;
+        }
+        return operations;
+    }
+
+    private static String argument(List<String> arguments, int index) {
+        if (index >= arguments.size()) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        return arguments.get(index);
+    }
+
+    private static Overflow overflow(String argument) {
+        try {
+            return Overflow.valueOf(argument.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid OVERFLOW type specified");
+        }
+    }
+
+    // i1 to i64 or u1 to u63: an unsigned 64-bit integer would not fit the replies
+    private static int width(String type, boolean signed) {
+        int width = 0;
+        if (type.length() > 1 && (signed || type.startsWith("u") || type.startsWith("U"))) {
+            try {
+                width = Integer.parseInt(type.substring(1));
+            } catch (NumberFormatException e) {
+                width = 0;
+            }
+        }
+        if (width < 1 || width > (signed ? 64 : 63)) {
+            throw new IllegalArgumentException(
+                    "Invalid bitfield type. Use something like i16 u8. Note that u64 is not supported but i64 is.");
+        }
+        return width;
+    }
+
+    // A bit offset, or with # an index of integers of the given width
+    private static long offset(String argument, int width) {
+        boolean indexed = argument.startsWith("#");
+        long offset;
+        try {
+            offset = Long.parseLong(indexed ? argument.substring(1) : argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bit offset is not an integer or out of range");
+        }
+        if (indexed) {
+            offset = offset < 0 || offset > BitArguments.MAX_BITS / width ? -1 : offset * width;
+        }
+        if (offset < 0 || offset + width > BitArguments.MAX_BITS) {
+            throw new IllegalArgumentException("bit offset is not an integer or out of range");
+        }
+        return offset;
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+
+}
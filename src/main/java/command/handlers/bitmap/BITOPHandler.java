@@ -0,0 +1,93 @@
+package command.handlers.bitmap;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import command.CommandStrategy;
+import domain.BitOperation;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * BITOP AND | OR | XOR | NOT destkey key [key ...]: stores the bitwise
+ * operation over the source strings at destkey and returns its length.
+ * Shorter and missing sources count as zero bytes, and the sources are
+ * combined 64 bits at a time.
+ */
+public class BITOPHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public BITOPHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        operation(arguments);
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        long length;
+        try {
+            length = dataStore.bitOp(operation(arguments), arguments.get(1), arguments.subList(2, arguments.size()));
+        } catch (IllegalStateException e) {
+            if (!ReplicationManager.isSlaveNode())
+                clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+            return;
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeInteger(length);
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("BITOP");
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    private static BitOperation operation(List<String> arguments) {
+        BitOperation operation;
+        try {
+            operation = BitOperation.valueOf(arguments.get(0).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        if (operation == BitOperation.NOT && arguments.size() != 3) {
+            throw new IllegalArgumentException("BITOP NOT must be called with a single source key.");
+        }
+        return operation;
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+
+}
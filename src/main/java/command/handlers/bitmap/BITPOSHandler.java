@@ -0,0 +1,59 @@
+package command.handlers.bitmap;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * BITPOS key bit [start [end [BYTE | BIT]]]: position of the first bit set
+ * to 1 or 0 in the string or in the range, skipping a 64-bit word at a
+ * time. Without an end the string counts as followed by clear bits, so the
+ * first clear bit of an all-ones string is the one just past it.
+ */
+public class BITPOSHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public BITPOSHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        if (arguments.size() > 5) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        bit(arguments.get(1));
+        for (int i = 2; i < Math.min(arguments.size(), 4); i++) {
+            BitArguments.integer(arguments.get(i));
+        }
+        if (arguments.size() == 5) {
+            BitArguments.bitUnit(arguments.get(4));
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        long start = arguments.size() > 2 ? BitArguments.integer(arguments.get(2)) : 0;
+        boolean endGiven = arguments.size() > 3;
+        long end = endGiven ? BitArguments.integer(arguments.get(3)) : -1;
+        boolean bitUnit = arguments.size() == 5 && BitArguments.bitUnit(arguments.get(4));
+        try {
+            clientOutput.writeInteger(
+                    dataStore.bitPos(arguments.get(0), bit(arguments.get(1)), start, end, endGiven, bitUnit));
+        } catch (IllegalStateException e) {
+            clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+        }
+    }
+
+    private static int bit(String argument) {
+        return switch (argument) {
+            case "0" -> 0;
+            case "1" -> 1;
+            default -> throw new IllegalArgumentException("The bit argument must be 1 or 0.");
+        };
+    }
+}
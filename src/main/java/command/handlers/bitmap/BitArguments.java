@@ -0,0 +1,49 @@
+package command.handlers.bitmap;
+
+import java.util.Locale;
+
+/**
+ * Argument parsing the bitmap commands share.
+ */
+final class BitArguments {
+    // A string holds at most 512 MB, as many bits as an unsigned int counts
+    static final long MAX_BITS = 512L * 1024 * 1024 * 8;
+
+    private BitArguments() {
+    }
+
+    /**
+     * A bit offset within the largest string.
+     */
+    static long bitOffset(String argument) {
+        long offset;
+        try {
+            offset = Long.parseLong(argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bit offset is not an integer or out of range");
+        }
+        if (offset < 0 || offset >= MAX_BITS) {
+            throw new IllegalArgumentException("bit offset is not an integer or out of range");
+        }
+        return offset;
+    }
+
+    static long integer(String argument) {
+        try {
+            return Long.parseLong(argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+
+    /**
+     * Whether a BYTE or BIT argument asks for bits.
+     */
+    static boolean bitUnit(String argument) {
+        return switch (argument.toUpperCase(Locale.ROOT)) {
+            case "BYTE" -> false;
+            case "BIT" -> true;
+            default -> throw new IllegalArgumentException("syntax error");
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package command.handlers.bitmap;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * GETBIT key offset: the bit at the offset of the string, 0 past its end or
+ * when the key is absent.
+ */
+public class GETBITHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public GETBITHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        BitArguments.bitOffset(arguments.get(1));
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        try {
+            clientOutput.writeInteger(dataStore.getBit(arguments.get(0), BitArguments.bitOffset(arguments.get(1))));
+        } catch (IllegalStateException e) {
+            clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package command.handlers.bitmap;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * SETBIT key offset value: sets or clears the bit at the offset and returns
+ * the bit it held. The string is created or grown with zero bytes to reach
+ * the offset, in place with spare room like APPEND.
+ */
+public class SETBITHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public SETBITHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        BitArguments.bitOffset(arguments.get(1));
+        bit(arguments.get(2));
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        long previous;
+        try {
+            previous = dataStore.setBit(key, BitArguments.bitOffset(arguments.get(1)), bit(arguments.get(2)));
+        } catch (IllegalStateException e) {
+            if (!ReplicationManager.isSlaveNode())
+                clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+            return;
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeInteger(previous);
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("SETBIT");
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    private static int bit(String argument) {
+        return switch (argument) {
+            case "0" -> 0;
+            case "1" -> 1;
+            default -> throw new IllegalArgumentException("bit is not an integer or out of range");
+        };
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+
+}
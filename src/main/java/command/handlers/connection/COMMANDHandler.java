@@ -0,0 +1,92 @@
+package command.handlers.connection;
+
+import java.util.List;
+
+import command.CommandFlag;
+import command.CommandSpec;
+import command.CommandStrategy;
+import command.CommandTable;
+import command.acl.AclCategory;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+
+/**
+ * COMMAND, COMMAND COUNT and COMMAND INFO, answered from the command table.
+ *
+ * Every command is described the way Redis 7 does: name, arity, flags,
+ * first key, last key, key step, ACL categories, tips, key specs and
+ * subcommands. Tips and key specs are always empty.
+ *
+ * Usage: COMMAND [COUNT | INFO [command ...]]
+ */
+public class COMMANDHandler implements CommandStrategy {
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        if (arguments.isEmpty()) {
+            List<CommandSpec> commands = CommandTable.commands();
+            clientOutput.writeArrayHeader(commands.size());
+            for (CommandSpec command : commands) {
+                writeCommandInfo(command, clientOutput);
+            }
+            return;
+        }
+
+        String subCommand = arguments.get(0);
+        if (subCommand.equalsIgnoreCase("COUNT") && arguments.size() == 1) {
+            clientOutput.writeInteger(CommandTable.commands().size());
+        } else if (subCommand.equalsIgnoreCase("INFO")) {
+            writeInfo(arguments.subList(1, arguments.size()), clientOutput);
+        } else {
+            clientOutput.writeError("unknown subcommand or wrong number of arguments for '" + subCommand
+                    + "'. Try COMMAND HELP.");
+        }
+    }
+
+    private void writeInfo(List<String> names, ReplySink clientOutput) {
+        if (names.isEmpty()) {
+            // No names means every command, as for plain COMMAND
+            execute(List.of(), clientOutput, null);
+            return;
+        }
+        clientOutput.writeArrayHeader(names.size());
+        for (String name : names) {
+            CommandSpec command = CommandTable.lookup(name);
+            if (command == null) {
+                clientOutput.writeNullArray();
+            } else {
+                writeCommandInfo(command, clientOutput);
+            }
+        }
+    }
+
+    private void writeCommandInfo(CommandSpec command, ReplySink clientOutput) {
+        clientOutput.writeArrayHeader(10);
+        clientOutput.writeBulkString(command.getRuleName());
+        clientOutput.writeInteger(command.getArity());
+
+        clientOutput.writeArrayHeader(command.getFlags().size());
+        for (CommandFlag flag : command.getFlags()) {
+            clientOutput.writeSimpleString(flag.flagName());
+        }
+
+        clientOutput.writeInteger(command.getFirstKeyPosition());
+        clientOutput.writeInteger(command.getLastKeyPosition());
+        clientOutput.writeInteger(command.getKeyStep());
+
+        clientOutput.writeArrayHeader(command.getCategories().size());
+        for (AclCategory category : command.getCategories()) {
+            clientOutput.writeSimpleString("@" + category.ruleName());
+        }
+
+        // Tips and key specs
+        clientOutput.writeEmptyArray();
+        clientOutput.writeEmptyArray();
+
+        clientOutput.writeArrayHeader(command.getSubcommands().size());
+        for (CommandSpec subcommand : command.getSubcommands()) {
+            writeCommandInfo(subcommand, clientOutput);
+        }
+    }
+
+}
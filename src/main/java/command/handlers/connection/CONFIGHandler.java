@@ -4,7 +4,7 @@ import java.io.IOException;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import server.core.ServerContext;
 import util.ServerConfiguration;
@@ -19,25 +19,23 @@ import util.ServerConfiguration;
 public class CONFIGHandler implements CommandStrategy {
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String subCommand = arguments.get(0).toUpperCase();
             if (subCommand.equals("GET")) {
                 handleConfigGet(arguments.get(1), clientOutput);
             } else {
-                clientOutput.write(RESPSerializer.error("ERR Unsupported CONFIG subcommand"));
-                clientOutput.flush();
+                clientOutput.writeError("ERR Unsupported CONFIG subcommand");
             }
         } catch (IOException e) {
             throw new RuntimeException("Error executing CONFIG command", e);
         }
     }
 
-    private void handleConfigGet(String parameter, ClientConnection clientOutput) throws IOException {
+    private void handleConfigGet(String parameter, ReplySink clientOutput) throws IOException {
         ServerConfiguration config = ServerContext.getInstance().getConfiguration();
         if (config == null) {
-            clientOutput.write(RESPSerializer.error("ERR server configuration not available"));
-            clientOutput.flush();
+            clientOutput.writeError("ERR server configuration not available");
             return;
         }
 
@@ -67,21 +65,33 @@ public class CONFIGHandler implements CommandStrategy {
                 }
                 break;
 
+            case "maxmemory":
+                result = new String[] { "maxmemory", String.valueOf(config.getMaxMemory()) };
+                break;
+
+            case "maxmemory-policy":
+                result = new String[] { "maxmemory-policy", config.getMaxMemoryPolicy().policyName() };
+                break;
+
+            case "maxmemory-samples":
+                result = new String[] { "maxmemory-samples", String.valueOf(config.getMaxMemorySamples()) };
+                break;
+
+            case "key-prefix-index":
+                result = new String[] { "key-prefix-index", config.hasKeyPrefixIndex() ? "yes" : "no" };
+                break;
+
+            case "databases":
+                result = new String[] { "databases", String.valueOf(config.getDatabases()) };
+                break;
+
             default:
                 // Parameter not found - return empty array
                 result = new String[] {};
                 break;
         }
 
-        clientOutput.write(RESPSerializer.array(List.of(result)));
-        clientOutput.flush();
-    }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 2) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'CONFIG' command");
-        }
+        clientOutput.writeArray(List.of(result));
     }
 
 }
@@ -1,53 +1,143 @@
 package command.handlers.connection;
 
-import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
+import server.core.ServerContext;
+import storage.DataStore;
+import storage.ExpiryStats;
+import storage.MemoryStats;
+import util.ServerConfiguration;
 
+/**
+ * INFO [section ...]: replication, memory, stats and keyspace. No section, "all",
+ * "default" or "everything" returns all of them.
+ */
 public class INFOHandler implements CommandStrategy {
     private final ReplicationManager replicationManager;
+    private final DataStore dataStore;
 
-    public INFOHandler(ReplicationManager replicationManager) {
+    public INFOHandler(ReplicationManager replicationManager, DataStore dataStore) {
         this.replicationManager = replicationManager;
+        this.dataStore = dataStore;
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            if (arguments.get(0).equals("replication")) {
-                String info;
-                if(replicationManager.getMasterNode()!=null){
-                    info = replicationManager.getMasterNode().getInfo();
-                }
-                else info = replicationManager.getCurrentSlaveInfo();
-                clientOutput.write(RESPSerializer.bulkString(info));
-                clientOutput.flush();
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        boolean all = arguments.isEmpty();
+        StringBuilder info = new StringBuilder();
+        for (String argument : arguments) {
+            String section = argument.toLowerCase(Locale.ROOT);
+            all |= section.equals("all") || section.equals("default") || section.equals("everything");
+        }
+        if (all || containsIgnoreCase(arguments, "replication")) {
+            appendSection(info, "Replication", replicationInfo());
+        }
+        if (all || containsIgnoreCase(arguments, "memory")) {
+            appendSection(info, "Memory", memoryInfo());
+        }
+        if (all || containsIgnoreCase(arguments, "stats")) {
+            appendSection(info, "Stats", statsInfo());
+        }
+        if (all || containsIgnoreCase(arguments, "keyspace")) {
+            appendSection(info, "Keyspace", keyspaceInfo());
+        }
+        clientOutput.writeBulkString(info.toString());
+    }
+
+    private String replicationInfo() {
+        if (replicationManager.getMasterNode() != null) {
+            return replicationManager.getMasterNode().getInfo();
+        }
+        return replicationManager.getCurrentSlaveInfo();
+    }
+
+    // Keyspace estimates, the JVM heap is reported apart as it also holds everything else
+    private String memoryInfo() {
+        MemoryStats memory = dataStore.getMemoryStats();
+        ServerConfiguration config = ServerContext.getInstance().getConfiguration();
+        long maxMemory = config != null ? config.getMaxMemory() : 0;
+        String policy = config != null ? config.getMaxMemoryPolicy().policyName() : "noeviction";
+        Runtime runtime = Runtime.getRuntime();
+        return "used_memory:" + memory.getUsedMemory() + "\r\n"
+                + "used_memory_human:" + toHuman(memory.getUsedMemory()) + "\r\n"
+                + "used_memory_peak:" + memory.getPeakMemory() + "\r\n"
+                + "used_memory_peak_human:" + toHuman(memory.getPeakMemory()) + "\r\n"
+                + "used_memory_peak_perc:" + String.format(Locale.ROOT, "%.2f%%", memory.getPeakPercentage()) + "\r\n"
+                + "used_memory_overhead:" + memory.getOverheadMemory() + "\r\n"
+                + "used_memory_dataset:" + memory.getDatasetMemory() + "\r\n"
+                + "used_memory_dataset_perc:" + String.format(Locale.ROOT, "%.2f%%", memory.getDatasetPercentage()) + "\r\n"
+                + "maxmemory:" + maxMemory + "\r\n"
+                + "maxmemory_human:" + toHuman(maxMemory) + "\r\n"
+                + "maxmemory_policy:" + policy + "\r\n"
+                + "lazyfree_pending_objects:" + dataStore.getLazyFreePendingObjects() + "\r\n"
+                + "jvm_heap_used:" + (runtime.totalMemory() - runtime.freeMemory()) + "\r\n"
+                + "jvm_heap_max:" + runtime.maxMemory();
+    }
+
+    // Like Redis: bytes below 1K, otherwise two decimals and a K, M or G suffix
+    private static String toHuman(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        }
+        String[] units = { "K", "M", "G", "T" };
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.2f%s", value, units[unit]);
+    }
+
+    private String statsInfo() {
+        ExpiryStats expiry = dataStore.getExpiryStats();
+        return "expired_keys:" + expiry.getExpiredKeys() + "\r\n"
+                + "expired_stale_perc:" + String.format(Locale.ROOT, "%.2f", expiry.getStalePercent()) + "\r\n"
+                + "expired_time_cap_reached_count:" + expiry.getTimeCapReachedCount() + "\r\n"
+                + "expire_cycle_cpu_milliseconds:" + expiry.getCycleMillis() + "\r\n"
+                + "evicted_keys:" + dataStore.getEvictedKeys() + "\r\n"
+                + "lazyfreed_objects:" + dataStore.getLazyFreedObjects();
+    }
+
+    private String keyspaceInfo() {
+        StringBuilder keyspace = new StringBuilder();
+        for (int db = 0; db < dataStore.getDatabaseCount(); db++) {
+            int keys = dataStore.getKeyCount(db);
+            // Like Redis, an empty database is left out
+            if (keys == 0) {
+                continue;
             }
-        } catch (NumberFormatException e) {
-            try {
-                clientOutput.write("Invalid port number\n");
-                clientOutput.flush();
-            } catch (IOException ioException) {
-                throw new RuntimeException(ioException);
+            if (keyspace.length() > 0) {
+                keyspace.append("\r\n");
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            keyspace.append("db").append(db).append(":keys=").append(keys)
+                    .append(",expires=").append(dataStore.getExpiresCount(db));
         }
+        return keyspace.toString();
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        try {
-            if (arguments.size() != 1) {
-                throw new IllegalArgumentException("Wrong number of arguments for 'INFO' command");
+    private static void appendSection(StringBuilder info, String name, String body) {
+        if (info.length() > 0) {
+            info.append("\r\n\r\n");
+        }
+        info.append("# ").append(name);
+        if (!body.isEmpty()) {
+            info.append("\r\n").append(body);
+        }
+    }
+
+    private static boolean containsIgnoreCase(List<String> arguments, String section) {
+        for (String argument : arguments) {
+            if (argument.equalsIgnoreCase(section)) {
+                return true;
             }
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid arguments for 'INFO' command");
         }
+        return false;
     }
 
 }
@@ -0,0 +1,27 @@
+package command.handlers.connection;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * KEYSPREFIX COUNT prefix: how many keys start with the prefix, for watching
+ * the size of key namespaces like "session:". Read from the subtree counts
+ * of the prefix index when the server keeps one, otherwise every key is
+ * checked. Like DBSIZE, expired keys not yet removed are counted.
+ */
+public class KeysPrefixCountHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public KeysPrefixCountHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        clientOutput.writeInteger(dataStore.countKeysWithPrefix(arguments.get(0)));
+    }
+}
@@ -0,0 +1,44 @@
+package command.handlers.connection;
+
+import java.util.List;
+import java.util.Locale;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+import storage.MemoryStats;
+
+/**
+ * MEMORY STATS: the memory estimates of the keyspace as name and value
+ * pairs, under the names Redis uses for the fields it has an estimate for.
+ */
+public class MemoryStatsHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public MemoryStatsHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        MemoryStats stats = dataStore.getMemoryStats();
+        clientOutput.writeArrayHeader(16);
+        writeField(clientOutput, "peak.allocated", stats.getPeakMemory());
+        writeField(clientOutput, "total.allocated", stats.getUsedMemory());
+        writeField(clientOutput, "overhead.total", stats.getOverheadMemory());
+        writeField(clientOutput, "keys.count", stats.getKeyCount());
+        writeField(clientOutput, "keys.bytes-per-key", stats.getBytesPerKey());
+        writeField(clientOutput, "dataset.bytes", stats.getDatasetMemory());
+        clientOutput.writeBulkString("dataset.percentage");
+        clientOutput.writeBulkString(String.format(Locale.ROOT, "%.2f", stats.getDatasetPercentage()));
+        clientOutput.writeBulkString("peak.percentage");
+        clientOutput.writeBulkString(String.format(Locale.ROOT, "%.2f", stats.getPeakPercentage()));
+    }
+
+    private static void writeField(ReplySink clientOutput, String name, long value) {
+        clientOutput.writeBulkString(name);
+        clientOutput.writeInteger(value);
+    }
+
+}
@@ -0,0 +1,49 @@
+package command.handlers.connection;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * MEMORY USAGE key [SAMPLES count]: the estimated bytes of the key and its
+ * value. Estimates are kept up to date as values change, so SAMPLES is
+ * accepted for compatibility but nothing is sampled.
+ */
+public class MemoryUsageHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public MemoryUsageHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        if (arguments.size() == 1) {
+            return;
+        }
+        if (arguments.size() != 3 || !arguments.get(1).equalsIgnoreCase("SAMPLES")) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        try {
+            if (Long.parseLong(arguments.get(2)) < 0) {
+                throw new IllegalArgumentException("syntax error");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        long usage = dataStore.getMemoryUsage(arguments.get(0));
+        if (usage < 0) {
+            clientOutput.writeNullBulkString();
+        } else {
+            clientOutput.writeInteger(usage);
+        }
+    }
+
+}
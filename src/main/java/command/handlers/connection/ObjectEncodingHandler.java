@@ -0,0 +1,40 @@
+package command.handlers.connection;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import domain.RedisValue;
+import domain.values.StringValue;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * OBJECT ENCODING key: how the value is stored, named after the Redis
+ * encoding closest to it. Strings are int, embstr or raw like in Redis; the
+ * other types have a single representation here.
+ */
+public class ObjectEncodingHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public ObjectEncodingHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        RedisValue<?> redisValue = dataStore.getValue(arguments.get(0));
+        if (redisValue == null) {
+            clientOutput.writeNullBulkString();
+            return;
+        }
+        String encoding = switch (redisValue.getType()) {
+            case STRING -> ((StringValue) redisValue).getEncoding();
+            case LIST -> "quicklist";
+            case SORTED_SET -> "skiplist";
+            case STREAM -> "stream";
+            default -> "raw";
+        };
+        clientOutput.writeBulkString(encoding);
+    }
+}
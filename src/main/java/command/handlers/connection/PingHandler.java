@@ -1,18 +1,14 @@
 package command.handlers.connection;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
-import pub.sub.ChannelManager;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PingHandler implements CommandStrategy {
-    private final ChannelManager channelManager = ChannelManager.getInstance();
-
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
         // PING command accepts 0 or 1 arguments (optional message)
@@ -22,23 +18,18 @@ public class PingHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            if (ReplicationManager.isSlaveNode())
-                return;
-
-            if (channelManager.isInSubscribeMode(clientOutput.getClientId())) {
-                List<String> response = new ArrayList<>();
-                response.add("pong");
-                response.add("");
-                clientOutput.write(RESPSerializer.array(response));
-            } else
-                clientOutput.write(RESPSerializer.simpleString("PONG"));
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        if (clientConnection.getSession().isInSubscribeMode()) {
+            List<String> response = new ArrayList<>();
+            response.add("pong");
+            response.add("");
+            clientOutput.writeArray(response);
+        } else
+            clientOutput.writeSimpleString("PONG");
 
-            clientOutput.flush();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
     }
 
 }
@@ -0,0 +1,110 @@
+package command.handlers.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import command.CommandStrategy;
+import domain.DataType;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+import util.GlobMatcher;
+
+/**
+ * SCAN cursor [MATCH pattern] [COUNT count] [TYPE type]: walks the keyspace
+ * a few buckets per call. The reply is the next cursor, "0" once the scan is
+ * complete, and the keys found. MATCH and TYPE filter the keys after they
+ * were collected, so a call may return fewer keys than COUNT, or none.
+ */
+public class SCANHandler implements CommandStrategy {
+    private static final int DEFAULT_COUNT = 10;
+
+    private final DataStore dataStore;
+
+    public SCANHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        parseCursor(arguments.get(0));
+        if (arguments.size() % 2 == 0) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        for (int i = 1; i < arguments.size(); i += 2) {
+            String option = arguments.get(i).toUpperCase();
+            String value = arguments.get(i + 1);
+            switch (option) {
+                case "MATCH", "TYPE" -> {
+                }
+                case "COUNT" -> {
+                    if (parseCount(value) < 1) {
+                        throw new IllegalArgumentException("syntax error");
+                    }
+                }
+                default -> throw new IllegalArgumentException("syntax error");
+            }
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        long cursor = parseCursor(arguments.get(0));
+        GlobMatcher matcher = null;
+        int count = DEFAULT_COUNT;
+        String type = null;
+        // Later options override earlier ones, as in Redis
+        for (int i = 1; i < arguments.size(); i += 2) {
+            String value = arguments.get(i + 1);
+            switch (arguments.get(i).toUpperCase()) {
+                case "MATCH" -> matcher = GlobMatcher.cached(value);
+                case "COUNT" -> count = parseCount(value);
+                case "TYPE" -> type = value;
+            }
+        }
+
+        // A literal start of the pattern lets the prefix index skip every other key
+        String prefix = matcher != null ? matcher.literalPrefix() : "";
+        List<String> found = new ArrayList<>(count);
+        long next = dataStore.scan(cursor, count, prefix, found);
+        List<String> keys = new ArrayList<>(found.size());
+        for (String key : found) {
+            if (matcher != null && !matcher.matches(key)) {
+                continue;
+            }
+            // Skips keys that expired since, and deletes them like a read would
+            if (!dataStore.exists(key)) {
+                continue;
+            }
+            if (type != null && !typeName(dataStore.getType(key)).equalsIgnoreCase(type)) {
+                continue;
+            }
+            keys.add(key);
+        }
+
+        clientOutput.writeArrayHeader(2);
+        clientOutput.writeBulkString(Long.toUnsignedString(next));
+        clientOutput.writeArray(keys);
+    }
+
+    // The name TYPE replies with
+    private static String typeName(DataType type) {
+        return type.toString().toLowerCase();
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseUnsignedLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+    }
+
+    private static int parseCount(String count) {
+        try {
+            return Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package command.handlers.database;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * DEL key [key ...] and UNLINK key [key ...]: removes the keys and returns
+ * how many existed. Both only unlink the keys; values large enough to make
+ * taking them apart costly are released on the lazy-free thread, so DEL
+ * behaves like UNLINK as with Redis' lazyfree-lazy-user-del.
+ */
+public class DELHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+    private final String name;
+
+    public DELHandler(DataStore dataStore, ReplicationManager replicationManager, String name) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+        this.name = name;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        List<String> deleted = new ArrayList<>();
+        for (String key : arguments) {
+            // Expired keys count as absent, like every other read
+            if (dataStore.exists(key) && dataStore.delete(key)) {
+                deleted.add(key);
+            }
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeInteger(deleted.size());
+        if (deleted.isEmpty())
+            return;
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add(name);
+        commandForReplication.addAll(deleted);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+}
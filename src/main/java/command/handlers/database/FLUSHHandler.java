@@ -0,0 +1,84 @@
+package command.handlers.database;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * FLUSHDB [ASYNC|SYNC] and FLUSHALL [ASYNC|SYNC]: empties the selected
+ * database or all of them. ASYNC only swaps empty maps in and leaves the old
+ * keys to the lazy-free thread, so the reply does not wait for millions of
+ * keys to be dropped.
+ */
+public class FLUSHHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+    private final String name;
+    private final boolean all;
+
+    /**
+     * @param all whether every database is flushed, FLUSHALL, or only the selected one
+     */
+    public FLUSHHandler(DataStore dataStore, ReplicationManager replicationManager, String name, boolean all) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+        this.name = name;
+        this.all = all;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) {
+        if (arguments.size() > 1 || (arguments.size() == 1
+                && !arguments.get(0).equalsIgnoreCase("ASYNC") && !arguments.get(0).equalsIgnoreCase("SYNC"))) {
+            throw new IllegalArgumentException("syntax error");
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        boolean async = !arguments.isEmpty() && arguments.get(0).equalsIgnoreCase("ASYNC");
+        if (all) {
+            dataStore.flushAll(async);
+        } else {
+            dataStore.flushDatabase(async);
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeSimpleString("OK");
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add(name);
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+}
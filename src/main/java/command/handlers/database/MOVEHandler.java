@@ -0,0 +1,74 @@
+package command.handlers.database;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+import storage.SelectedDatabase;
+
+/**
+ * MOVE key db: moves the key of the selected database to another one, unless
+ * the target already holds the key. The value object itself moves, its TTL
+ * included.
+ */
+public class MOVEHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public MOVEHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) {
+        SELECTHandler.parseDatabase(dataStore, arguments.get(1), "DB index is out of range");
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        int database = Integer.parseInt(arguments.get(1));
+        if (database == SelectedDatabase.get()) {
+            clientOutput.writeError("source and destination objects are the same");
+            return;
+        }
+        boolean moved = dataStore.move(key, database);
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeInteger(moved ? 1 : 0);
+        if (!moved)
+            return;
+
+        List<String> commandForReplication = List.of("MOVE", key, arguments.get(1));
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+}
@@ -0,0 +1,59 @@
+package command.handlers.database;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+import storage.SelectedDatabase;
+
+/**
+ * SELECT index: switches the connection to another logical database. The
+ * choice is kept in the session, and also applied to the running thread so
+ * the commands after it in a transaction see it too.
+ */
+public class SELECTHandler implements CommandStrategy {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public SELECTHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) {
+        parseDatabase(dataStore, arguments.get(0), "DB index is out of range");
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        int database = Integer.parseInt(arguments.get(0));
+        clientConnection.getSession().setDatabase(database);
+        SelectedDatabase.set(database);
+
+        // The master switches databases in its stream without expecting a reply
+        if (replicationManager.isMasterLink(clientConnection))
+            return;
+
+        clientOutput.writeSimpleString("OK");
+    }
+
+    /**
+     * A database index, or the error given when it names no database.
+     */
+    static int parseDatabase(DataStore dataStore, String argument, String outOfRange) {
+        int database;
+        try {
+            database = Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+        if (database < 0 || database >= dataStore.getDatabaseCount()) {
+            throw new IllegalArgumentException(outOfRange);
+        }
+        return database;
+    }
+}
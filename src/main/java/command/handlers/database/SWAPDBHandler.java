@@ -0,0 +1,75 @@
+package command.handlers.database;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * SWAPDB index1 index2: exchanges two databases by swapping their slots, in
+ * O(1) whatever their size. Runs with every shard parked, so no command sees
+ * one database swapped and not the other.
+ */
+public class SWAPDBHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public SWAPDBHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) {
+        parseIndex(arguments.get(0), "invalid first DB index");
+        parseIndex(arguments.get(1), "invalid second DB index");
+    }
+
+    private void parseIndex(String argument, String invalid) {
+        try {
+            Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(invalid);
+        }
+        SELECTHandler.parseDatabase(dataStore, argument, "DB index is out of range");
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        dataStore.swapDatabases(Integer.parseInt(arguments.get(0)), Integer.parseInt(arguments.get(1)));
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeSimpleString("OK");
+
+        List<String> commandForReplication = List.of("SWAPDB", arguments.get(0), arguments.get(1));
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+}
@@ -0,0 +1,117 @@
+package command.handlers.expiry;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import command.CommandStrategy;
+import domain.ExpireCondition;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * EXPIRE, PEXPIRE, EXPIREAT and PEXPIREAT, told apart by the unit of their
+ * time argument and whether it is relative to now. Replicas always receive
+ * PEXPIREAT with the absolute time, so they expire the key at the same
+ * moment however late the command reaches them.
+ */
+public class EXPIREHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+    private final String commandName;
+    private final long unitMillis;
+    private final boolean absolute;
+
+    public EXPIREHandler(DataStore dataStore, ReplicationManager replicationManager, String commandName,
+            long unitMillis, boolean absolute) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+        this.commandName = commandName;
+        this.unitMillis = unitMillis;
+        this.absolute = absolute;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        try {
+            toExpiryTime(parseTime(arguments.get(1)));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("invalid expire time in '" + commandName + "' command");
+        }
+        parseConditions(arguments);
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        long expiryTime = toExpiryTime(parseTime(arguments.get(1)));
+        boolean applied = dataStore.setExpiry(key, expiryTime, parseConditions(arguments));
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeInteger(applied ? 1 : 0);
+        if (!applied)
+            return;
+
+        List<String> commandForReplication = List.of("PEXPIREAT", key, String.valueOf(expiryTime));
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    private long toExpiryTime(long time) {
+        long millis = Math.multiplyExact(time, unitMillis);
+        return absolute ? millis : Math.addExact(System.currentTimeMillis(), millis);
+    }
+
+    private static long parseTime(String time) {
+        try {
+            return Long.parseLong(time);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+
+    private static Set<ExpireCondition> parseConditions(List<String> arguments) {
+        Set<ExpireCondition> conditions = EnumSet.noneOf(ExpireCondition.class);
+        for (int i = 2; i < arguments.size(); i++) {
+            try {
+                conditions.add(ExpireCondition.valueOf(arguments.get(i).toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported option " + arguments.get(i));
+            }
+        }
+        if (conditions.contains(ExpireCondition.NX) && conditions.size() > 1) {
+            throw new IllegalArgumentException("NX and XX, GT or LT options at the same time are not compatible");
+        }
+        if (conditions.contains(ExpireCondition.GT) && conditions.contains(ExpireCondition.LT)) {
+            throw new IllegalArgumentException("GT and LT options at the same time are not compatible");
+        }
+        return conditions;
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+
+}
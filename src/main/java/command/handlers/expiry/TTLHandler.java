@@ -0,0 +1,40 @@
+package command.handlers.expiry;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * TTL, PTTL, EXPIRETIME and PEXPIRETIME: the time left or the absolute
+ * expiry time, in seconds or milliseconds. -1 when the key has no TTL, -2
+ * when it does not exist.
+ */
+public class TTLHandler implements CommandStrategy {
+    private final DataStore dataStore;
+    private final boolean millis;
+    private final boolean absolute;
+
+    public TTLHandler(DataStore dataStore, boolean millis, boolean absolute) {
+        this.dataStore = dataStore;
+        this.millis = millis;
+        this.absolute = absolute;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        long time = absolute ? dataStore.getExpiryTime(key) : dataStore.getTTL(key);
+        if (time < 0 || millis) {
+            clientOutput.writeInteger(time);
+        } else if (absolute) {
+            clientOutput.writeInteger(time / 1000);
+        } else {
+            // Rounded to the nearest second, as Redis does
+            clientOutput.writeInteger((time + 500) / 1000);
+        }
+    }
+
+}
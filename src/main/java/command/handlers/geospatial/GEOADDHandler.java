@@ -5,7 +5,7 @@ import java.util.List;
 
 import command.CommandStrategy;
 import domain.values.Member;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -17,7 +17,7 @@ public class GEOADDHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
 
             String key = arguments.get(0);
@@ -39,8 +39,7 @@ public class GEOADDHandler implements CommandStrategy {
             numAdded = dataStore.zadd(key, members);
 
             // Send response back to client
-            clientOutput.write(RESPSerializer.integer(numAdded));
-            clientOutput.flush();
+            clientOutput.writeInteger(numAdded);
 
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Longitude and latitude must be valid floating point numbers.");
@@ -53,9 +52,9 @@ public class GEOADDHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 4 || (arguments.size() - 1) % 3 != 0) {
+        if ((arguments.size() - 1) % 3 != 0) {
             throw new IllegalArgumentException(
-                    "GEOADD requires at least 4 arguments and the number of arguments after the key must be a multiple of 3.");
+                    "the number of arguments after the key must be a multiple of 3 for 'geoadd' command");
         }
         for (int i = 1; i < arguments.size(); i += 3) {
             try {
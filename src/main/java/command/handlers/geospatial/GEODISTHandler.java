@@ -3,7 +3,7 @@ package command.handlers.geospatial;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import util.GeospatialDecoding;
@@ -19,7 +19,7 @@ public class GEODISTHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String key = arguments.get(0);
             String member1 = arguments.get(1);
@@ -30,7 +30,7 @@ public class GEODISTHandler implements CommandStrategy {
             double member2Score = dataStore.zscore(key, member2);
             
             if (member1Score == -1 || member2Score == -1) {
-                clientOutput.write(RESPSerializer.nullBulkString());
+                clientOutput.writeNullBulkString();
             } else {
                 // Decode geohashes to coordinates
                 double[] coords1 = GeospatialDecoding.decode((long) member1Score);
@@ -42,9 +42,8 @@ public class GEODISTHandler implements CommandStrategy {
                 // Convert to requested unit
                 distance = convertUnit(distance, unit);
                 
-                clientOutput.write(RESPSerializer.bulkString(String.valueOf(distance)));
+                clientOutput.writeBulkString(String.valueOf(distance));
             }
-            clientOutput.flush();
         } catch (Exception e) {
             throw new IllegalArgumentException("An error occurred while processing GEODIST command.");
         }
@@ -93,7 +92,7 @@ public class GEODISTHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 3 || arguments.size() > 4) {
+        if (arguments.size() > 4) {
             throw new IllegalArgumentException("GEODIST requires 3 or 4 arguments: key, member1, member2, [unit].");
         }
         if (arguments.size() == 4) {
@@ -4,7 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import util.GeospatialDecoding;
@@ -18,7 +18,7 @@ public class GEOSEARCHHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String key = arguments.get(0);
 
@@ -56,9 +56,7 @@ public class GEOSEARCHHandler implements CommandStrategy {
             }
             
             // Send response as RESP array
-            clientOutput.write(RESPSerializer.array(matchingMembers));
-            clientOutput.flush();
-            
+            clientOutput.writeArray(matchingMembers);
         } catch (Exception e) {
             throw new IllegalArgumentException("An error occurred while processing GEOSEARCH command: " + e.getMessage());
         }
@@ -100,11 +98,6 @@ public class GEOSEARCHHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 7) {
-            throw new IllegalArgumentException(
-                    "GEOSEARCH requires at least 7 arguments: key FROMLONLAT longitude latitude BYRADIUS radius [unit]");
-        }
-        
         if (!arguments.get(1).equalsIgnoreCase("FROMLONLAT")) {
             throw new IllegalArgumentException("Second argument must be FROMLONLAT");
         }
@@ -7,7 +7,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.DeferredReply;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -23,9 +25,6 @@ public class BLPOPHandler implements CommandStrategy, Replicable {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 2) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'BLPOP' command");
-        }
         try {
             double timestamp = Double.parseDouble(arguments.get(1));
             if (timestamp < 0) {
@@ -37,50 +36,51 @@ public class BLPOPHandler implements CommandStrategy, Replicable {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String listKey = arguments.get(0);
-            double timestamp = Double.parseDouble(arguments.get(1));
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String listKey = arguments.get(0);
+        double timestamp = Double.parseDouble(arguments.get(1));
 
-            String value = dataStore.BLPOP(listKey, timestamp);
-
-            List<String> result = new ArrayList<>();
-            result.add(listKey);
-            result.add(value);
-
-            
-            
-            // Send response to client
-            // if this is a slave node, do not send response
-            if (ReplicationManager.isSlaveNode()) return;
-            
-            if (value == null)
-            clientOutput.write(RESPSerializer.nullArray());
-            else
-            clientOutput.write(RESPSerializer.array(result));
-            
-            clientOutput.flush();
-            
-            List<String> commandForReplication = new ArrayList<>();
-            commandForReplication.add("BLPOP");
-            commandForReplication.addAll(arguments);
-
-            // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
-            // Replication to replicas
-            replicateToReplicas(commandForReplication);
-            
-        } catch (InterruptedException exception) {
-            try {
-                clientOutput.write(RESPSerializer.error("Operation Interrupted"));
-                clientOutput.flush();
-                return;
-            } catch (IOException exception2) {
-                throw new RuntimeException(exception2);
-            }
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
+        DeferredReply deferredReply = clientOutput.deferReply();
+        if (deferredReply == null) {
+            // Inside a transaction nothing may block, an empty list times out right away
+            String value = dataStore.lpop(listKey);
+            reply(clientOutput, listKey, value);
+            replicate(arguments, value);
+            return;
         }
+
+        // The arguments may be reused once execute returns, the completion keeps its own copy
+        List<String> blpopArguments = List.copyOf(arguments);
+        Runnable cancellation = dataStore.BLPOP(listKey, timestamp, value -> {
+            deferredReply.complete(output -> reply(output, listKey, value));
+            replicate(blpopArguments, value);
+        });
+        // A client that disconnects while blocked must not take the next pushed element with it
+        deferredReply.onCancel(cancellation);
+    }
+
+    private void reply(ReplySink clientOutput, String listKey, String value) {
+        // if this is a slave node, do not send response
+        if (ReplicationManager.isSlaveNode()) return;
+
+        if (value == null)
+            clientOutput.writeNullArray();
+        else
+            clientOutput.writeArray(List.of(listKey, value));
+    }
+
+    private void replicate(List<String> arguments, String value) {
+        // A slave only replays, and a timed out BLPOP popped nothing to replay
+        if (ReplicationManager.isSlaveNode() || value == null) return;
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("BLPOP");
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
     }
 
     @Override
@@ -97,5 +97,4 @@ public class BLPOPHandler implements CommandStrategy, Replicable {
         replicationManager.updateMasterOffset(offset);
     }
 
-
 }
@@ -4,7 +4,7 @@ import java.util.Deque;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import domain.values.ListValue;
@@ -17,24 +17,15 @@ public class LLENHandler implements CommandStrategy {
     }
 
     @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'LLEN' command");
-        }
-    }
-
-    @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String listName = arguments.get(0);
             if (!dataStore.exists(listName)) {
-                clientOutput.write(RESPSerializer.integer(0));
-                clientOutput.flush();
+                clientOutput.writeInteger(0);
                 return;
             }
             Deque<String> values = ((ListValue) dataStore.getValue(listName)).getList();
-            clientOutput.write(RESPSerializer.integer(values.size()));
-            clientOutput.flush();
+            clientOutput.writeInteger(values.size());
         } catch (Exception e) {
             e.printStackTrace();
         }
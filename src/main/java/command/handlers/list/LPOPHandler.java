@@ -7,7 +7,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -23,9 +24,6 @@ public class LPOPHandler implements CommandStrategy, Replicable {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 1) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'LPOP' command");
-        }
         if (arguments.size() > 1) {
             try {
                 Long.parseLong(arguments.get(1));
@@ -36,40 +34,34 @@ public class LPOPHandler implements CommandStrategy, Replicable {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String listName = arguments.get(0);
-            Long counter = arguments.size() > 1 ? Long.parseLong(arguments.get(1)) : null;
-            if (!dataStore.exists(listName)) {
-                clientOutput.write(RESPSerializer.nullBulkString());
-                clientOutput.flush();
-                return;
-            }
-            List<String> firstValues = dataStore.lpop(listName, counter);
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String listName = arguments.get(0);
+        Long counter = arguments.size() > 1 ? Long.parseLong(arguments.get(1)) : null;
+        if (!dataStore.exists(listName)) {
+            clientOutput.writeNullBulkString();
+            return;
+        }
+        List<String> firstValues = dataStore.lpop(listName, counter);
 
-            // If this node is a replica, do not send replies or replicate
-            if (ReplicationManager.isSlaveNode())
-                return;
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
 
-            if (counter == null) {
-                clientOutput.write(RESPSerializer.bulkString(firstValues.get(0)));
-            } else {
-                clientOutput.write(RESPSerializer.array(firstValues));
-            }
-            clientOutput.flush();
+        if (counter == null) {
+            clientOutput.writeBulkString(firstValues.get(0));
+        } else {
+            clientOutput.writeArray(firstValues);
+        }
 
-            List<String> commandForReplication = new ArrayList<>();
-            commandForReplication.add("LPOP");
-            commandForReplication.addAll(arguments);
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("LPOP");
+        commandForReplication.addAll(arguments);
 
-            // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
-            // Replication to replicas
-            replicateToReplicas(commandForReplication);
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
 
-        } catch (IOException exception) {
-            throw new RuntimeException();
-        }
     }
 
     @Override
@@ -8,7 +8,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -24,39 +25,27 @@ public class LPUSHHandler implements CommandStrategy, Replicable {
     }
 
     @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 2) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'LPUSH' command");
-        }
-    }
-
-    @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String listName = arguments.get(0);
-            List<String> values = arguments.subList(1, arguments.size());
-            if (!dataStore.exists(listName))
-                dataStore.setValue(listName, new ListValue(new ArrayDeque<>()));
-            long size = dataStore.lpush(listName, values);
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String listName = arguments.get(0);
+        List<String> values = arguments.subList(1, arguments.size());
+        if (!dataStore.exists(listName))
+            dataStore.setValue(listName, new ListValue(new ArrayDeque<>()));
+        long size = dataStore.lpush(listName, values);
 
-            // If this node is a replica, do not send replies or replicate
-            if (ReplicationManager.isSlaveNode())
-                return;
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
 
-            clientOutput.write(RESPSerializer.integer(size));
-            clientOutput.flush();
+        clientOutput.writeInteger(size);
 
-            List<String> commandForReplication = new ArrayList<>();
-            commandForReplication.add("LPUSH");
-            commandForReplication.addAll(arguments);
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("LPUSH");
+        commandForReplication.addAll(arguments);
 
-            // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
-            // Replication to replicas
-            replicateToReplicas(commandForReplication);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
     }
 
     @Override
@@ -1,12 +1,11 @@
 package command.handlers.list;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import domain.values.ListValue;
@@ -20,9 +19,6 @@ public class LRANGEHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 3) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'LRANGE' command");
-        }
         try {
             Integer.parseInt(arguments.get(1));
             Integer.parseInt(arguments.get(2));
@@ -32,40 +28,33 @@ public class LRANGEHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String listName = arguments.get(0);
-            int startIndex = Integer.parseInt(arguments.get(1));
-            int stopIndex = Integer.parseInt(arguments.get(2));
-
-            if (!dataStore.exists(listName)) {
-                clientOutput.write(RESPSerializer.emptyArray());
-                clientOutput.flush();
-                return;
-            }
-            Deque<String> values = ((ListValue) dataStore.getValue(listName)).getList();
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String listName = arguments.get(0);
+        int startIndex = Integer.parseInt(arguments.get(1));
+        int stopIndex = Integer.parseInt(arguments.get(2));
+
+        if (!dataStore.exists(listName)) {
+            clientOutput.writeEmptyArray();
+            return;
+        }
+        Deque<String> values = ((ListValue) dataStore.getValue(listName)).getList();
 
-            int size = values.size();
-            if (startIndex < 0) startIndex += size;
-            if (stopIndex < 0) stopIndex += size;
-            if (startIndex < 0) startIndex = 0;
-            if (stopIndex < 0) stopIndex = 0;
+        int size = values.size();
+        if (startIndex < 0) startIndex += size;
+        if (stopIndex < 0) stopIndex += size;
+        if (startIndex < 0) startIndex = 0;
+        if (stopIndex < 0) stopIndex = 0;
 
-            if (startIndex >= values.size() || startIndex > stopIndex) {
-                clientOutput.write(RESPSerializer.emptyArray());
-                clientOutput.flush();
-                return;
-            }
-            if (stopIndex >= values.size())
-                stopIndex = values.size() - 1;
+        if (startIndex >= values.size() || startIndex > stopIndex) {
+            clientOutput.writeEmptyArray();
+            return;
+        }
+        if (stopIndex >= values.size())
+            stopIndex = values.size() - 1;
 
-            List<String> listValues = new ArrayList<>(values).subList(startIndex, stopIndex + 1);
-            clientOutput.write(RESPSerializer.array(listValues));
-            clientOutput.flush();
+        List<String> listValues = new ArrayList<>(values).subList(startIndex, stopIndex + 1);
+        clientOutput.writeArray(listValues);
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
     }
 
 }
@@ -7,7 +7,8 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -23,46 +24,32 @@ public class RPUSHHandler implements CommandStrategy, Replicable {
     }
 
     @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 2) {
-            throw new IllegalArgumentException("wrong number of arguments for 'RPUSH' command");
-        }
-    }
-
-    @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String listName = arguments.get(0);
-            List<String> values = arguments.subList(1, arguments.size());
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String listName = arguments.get(0);
+        List<String> values = arguments.subList(1, arguments.size());
 
-            if (!dataStore.exists(listName))
-                dataStore.setValue(listName, new ListValue(new ArrayDeque<>()));
-            if (!(dataStore.getValue(listName) instanceof ListValue)) {
-                clientOutput.write(
-                        RESPSerializer.error("WRONGTYPE Operation against a key holding the wrong kind of value"));
-                clientOutput.flush();
-                return;
-            }
-            long size = dataStore.rpush(listName, values);
+        if (!dataStore.exists(listName))
+            dataStore.setValue(listName, new ListValue(new ArrayDeque<>()));
+        if (!(dataStore.getValue(listName) instanceof ListValue)) {
+            clientOutput.writeError("WRONGTYPE Operation against a key holding the wrong kind of value");
+            return;
+        }
+        long size = dataStore.rpush(listName, values);
 
-            // If this node is a replica, do not send replies or replicate
-            if (ReplicationManager.isSlaveNode())
-                return;
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
 
-            clientOutput.write(RESPSerializer.integer(size));
-            clientOutput.flush();
+        clientOutput.writeInteger(size);
 
-            List<String> commandForReplication = new ArrayList<>();
-            commandForReplication.add("RPUSH");
-            commandForReplication.addAll(arguments);
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("RPUSH");
+        commandForReplication.addAll(arguments);
 
-            // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
-            // Replication to replicas
-            replicateToReplicas(commandForReplication);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
     }
 
     @Override
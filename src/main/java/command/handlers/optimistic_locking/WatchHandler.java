@@ -1,27 +1,21 @@
 package command.handlers.optimistic_locking;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 import java.util.List;
 
 public class WatchHandler implements CommandStrategy{
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try{
             String key = arguments.get(0);
-            clientOutput.write(RESPSerializer.simpleString("OK"));
-            clientOutput.flush();
+            clientOutput.writeSimpleString("OK");
         }
         catch (Exception e) {
             throw new RuntimeException(e);
         }
 
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if(arguments.isEmpty())throw new IllegalArgumentException("Wrong number of arguments for 'WATCH' command");
-    }
 }
@@ -3,7 +3,7 @@ package command.handlers.pubsub;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import pub.sub.ChannelManager;
 import server.connection.entity.ClientConnection;
 
@@ -15,17 +15,19 @@ public class SubscribeHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             List<String> channels = arguments;
-            String subscriberId = clientOutput.getClientId();
+            String subscriberId = clientConnection.getClientId();
             for (String channel : channels) {
-                channelManager.subscribe(channel, clientOutput);
+                channelManager.subscribe(channel, clientConnection);
                 int subscriberChannelsCount = channelManager.getChannelsCount(subscriberId);
+                clientConnection.getSession().setSubscriptionCount(subscriberChannelsCount);
 
-                List<String> response = List.of("subscribe", channel, String.valueOf(subscriberChannelsCount));
-                clientOutput.write(RESPSerializer.arraySubCommand(response));
-                clientOutput.flush();
+                clientOutput.writeArrayHeader(3);
+                clientOutput.writeBulkString("subscribe");
+                clientOutput.writeBulkString(channel);
+                clientOutput.writeInteger(subscriberChannelsCount);
 
             }
 
@@ -34,10 +36,4 @@ public class SubscribeHandler implements CommandStrategy {
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 1)
-            throw new IllegalArgumentException("SUBSCRIBE command requires at least one argument.");
-    }
-
 }
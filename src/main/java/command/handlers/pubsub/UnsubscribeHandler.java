@@ -1,10 +1,9 @@
 package command.handlers.pubsub;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import pub.sub.ChannelManager;
 import server.connection.entity.ClientConnection;
 
@@ -16,29 +15,23 @@ public class UnsubscribeHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
-            String subscriberId = clientOutput.getClientId();
+            String subscriberId = clientConnection.getClientId();
             List<String> channels = arguments;
             int remainingChannels = channelManager.unsubscribe(subscriberId, channels);
+            clientConnection.getSession().setSubscriptionCount(remainingChannels);
 
-            List<String> response = new ArrayList<>();
-            response.add("unsubscribe");
-            response.addAll(channels);
-            response.add(String.valueOf(remainingChannels));
-
-            clientOutput.write(RESPSerializer.arraySubCommand(response));
-            clientOutput.flush();
+            clientOutput.writeArrayHeader(channels.size() + 2);
+            clientOutput.writeBulkString("unsubscribe");
+            for (String channel : channels) {
+                clientOutput.writeBulkString(channel);
+            }
+            clientOutput.writeInteger(remainingChannels);
 
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 1)
-            throw new IllegalArgumentException("UNSUBSCRIBE command requires at least one argument.");
-    }
-
 }
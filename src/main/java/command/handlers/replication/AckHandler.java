@@ -3,6 +3,7 @@ package command.handlers.replication;
 import java.util.List;
 
 import command.CommandStrategy;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import replication.sync.WaitRequestManager;
@@ -17,13 +18,13 @@ public class AckHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String ackOffsetValue = arguments.get(0);
             long ackOffset = Long.parseLong(ackOffsetValue);
 
-            Integer slavePort = replicationManager.getSlaveIdForConnection(clientOutput);
-            System.out.println("[AckCommand] Received ACK " + ackOffset + " from connection " + clientOutput + " mapped to slave " + slavePort);
+            Integer slavePort = replicationManager.getSlaveIdForConnection(clientConnection);
+            System.out.println("[AckCommand] Received ACK " + ackOffset + " from connection " + clientConnection + " mapped to slave " + slavePort);
             if (slavePort == null) {
                 System.out.println("Received ACK from an unregistered replica connection, ignoring.");
                 return;
@@ -35,11 +36,4 @@ public class AckHandler implements CommandStrategy {
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'ACK' command");
-        }
-    }
-
 }
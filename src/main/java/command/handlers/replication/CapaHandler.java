@@ -3,29 +3,21 @@ package command.handlers.replication;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 public class CapaHandler implements CommandStrategy {
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try{
             // Currently, no capabilities are supported, so we return an empty list
-            clientOutput.write(RESPSerializer.simpleString("OK"));
-            clientOutput.flush();
+            clientOutput.writeSimpleString("OK");
         }
         catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if(arguments.size() != 1){
-            throw new IllegalArgumentException("Wrong number of arguments for 'CAPA' command");
-        }
-    }
-
     
 }
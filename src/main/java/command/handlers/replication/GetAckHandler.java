@@ -3,6 +3,7 @@ package command.handlers.replication;
 import java.util.List;
 
 import command.CommandStrategy;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 
@@ -14,24 +15,17 @@ public class GetAckHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientConnection) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String ackValue = arguments.get(0);
             System.out.println("Received REPLCONF GETACK with value: " + ackValue);
             System.out.println("[GetAckCommand] Replica replying with offset "
                     + replicationManager.getSlaveNode().getReplicationOffset());
 
-            replicationManager.responseToMasterWithAckOffset(clientConnection);
+            replicationManager.responseToMasterWithAckOffset(clientOutput);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'REPLCONF GETACK' command");
-        }
-    }
-
 }
@@ -3,7 +3,7 @@ package command.handlers.replication;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 
@@ -15,17 +15,16 @@ public class ListeningPortHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             int listeningPort = Integer.parseInt(arguments.get(0));
 
             if (replicationManager.getMasterNode() != null) {
                 System.out.println("[ListeningPortCommand] Master registering replica connection for port " + listeningPort);
-                replicationManager.registerSlaveConnection(listeningPort, clientOutput);
+                replicationManager.registerSlaveConnection(listeningPort, clientConnection);
             }
 
-            clientOutput.write(RESPSerializer.simpleString("OK"));
-            clientOutput.flush();
+            clientOutput.writeSimpleString("OK");
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -33,10 +32,6 @@ public class ListeningPortHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'LISTENING-PORT' command");
-        }
-
         try {
             Integer.parseInt(arguments.get(0));
         } catch (NumberFormatException e) {
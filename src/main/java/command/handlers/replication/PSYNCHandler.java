@@ -1,13 +1,15 @@
 package command.handlers.replication;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import server.connection.handler.SlaveAckHandler;
+import server.core.ConnectionThreads;
 
 public class PSYNCHandler implements CommandStrategy {
     private final ReplicationManager replicationManager;
@@ -17,12 +19,11 @@ public class PSYNCHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientConnection) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             // Send FULLRESYNC response
             String masterID = replicationManager.getMasterNode().getId();
-            clientConnection.write(RESPSerializer.simpleString("FULLRESYNC " + masterID + " 0"));
-            clientConnection.flush(); // flush text
+            clientOutput.writeSimpleString("FULLRESYNC " + masterID + " 0");
 
             // Send RDB file (empty RDB for simplicity)
             String emptyRdbBase64 = "UkVESVMwMDEx+glyZWRpcy12ZXIFNy4yLjD6CnJlZGlzLWJpdHPAQPoFY3RpbWXCbQi8ZfoIdXNlZC1tZW3CsMQQAPoIYW9mLWJhc2XAAP/wbjv+wP9aog==";
@@ -30,31 +31,32 @@ public class PSYNCHandler implements CommandStrategy {
 
             // Write header and binary RDB data
             String header = "$" + rdbData.length + "\r\n";
-            clientConnection.write(header);
-            clientConnection.writeBytes(rdbData);
+            clientOutput.writeRaw(header.getBytes(StandardCharsets.US_ASCII));
+            clientOutput.writeRaw(rdbData);
+
+            // The snapshot must reach the replica before any propagated command,
+            // which is pushed to the connection directly
             clientConnection.flush();
 
             Integer slavePort = replicationManager.getSlaveIdForConnection(clientConnection);
             
+            // Selector-managed replicas keep sending ACKs through their I/O thread
+            if (clientConnection.getInputStream() == null) {
+                return;
+            }
+
             // Mark connection as handed over to SlaveAckHandler
             // ClientHandler should stop reading after PSYNC completes
             clientConnection.markHandoverToSlaveAckHandler();
             
             // Start thread to handle ACK responses from this replica
-            new Thread(() -> {
+            ConnectionThreads.start("SlaveAckHandler-" + slavePort, () -> {
                 new SlaveAckHandler(clientConnection, replicationManager.getMasterNode().getCommandExecuter()).run();
-            }, "SlaveAckHandler-" + slavePort).start();
+            });
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 2) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'PSYNC' command");
-        }
-    }
-
 }
@@ -4,7 +4,8 @@ import java.util.List;
 import java.util.logging.Logger;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.DeferredReply;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import replication.sync.WaitRequestManager;
@@ -22,7 +23,7 @@ public class WaitHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try{
             int numAcksRequired = Integer.parseInt(arguments.get(0));
             long timeoutMillis = Long.parseLong(arguments.get(1));
@@ -35,18 +36,25 @@ public class WaitHandler implements CommandStrategy {
             
             if(currentOffset == 0){
                 log.info("Master offset is 0 - immediately returning replica count: " + replicaCount);
-                clientOutput.write(RESPSerializer.integer(replicaCount));
-                clientOutput.flush();
+                clientOutput.writeInteger(replicaCount);
                 return;
             }
             
+            DeferredReply deferredReply = clientOutput.deferReply();
+            if (deferredReply == null) {
+                // Inside a transaction nothing may block, no replica acknowledged this WAIT yet
+                clientOutput.writeInteger(0);
+                return;
+            }
+
             long targetOffset = currentOffset;
-            WaitRequest req = new WaitRequest(targetOffset, numAcksRequired, timeoutMillis);
-            int acknowledgedReplicas = WaitRequestManager.awaitClientForAcks(req);
-            
-            log.info("WAIT command completed: received " + acknowledgedReplicas + " ACKs");
-            clientOutput.write(RESPSerializer.integer(acknowledgedReplicas));
-            clientOutput.flush();
+            WaitRequest req = new WaitRequest(targetOffset, numAcksRequired, timeoutMillis, acknowledgedReplicas -> {
+                log.info("WAIT command completed: received " + acknowledgedReplicas + " ACKs");
+                deferredReply.complete(output -> output.writeInteger(acknowledgedReplicas));
+            });
+            WaitRequestManager.awaitClientForAcks(req);
+            // A client that disconnects must not stay queued for ACKs that no one will read
+            deferredReply.onCancel(() -> WaitRequestManager.cancel(req));
         }
         catch (Exception e) {
             log.severe("WAIT command failed: " + e.getMessage());
@@ -56,9 +64,6 @@ public class WaitHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if(arguments.size() != 2){
-            throw new IllegalArgumentException("Wrong number of arguments for 'WAIT' command");
-        }
         try {
             Integer.parseInt(arguments.get(0));
             Long.parseLong(arguments.get(1));
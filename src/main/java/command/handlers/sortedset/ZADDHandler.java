@@ -1,11 +1,10 @@
 package command.handlers.sortedset;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import domain.values.Member;
@@ -18,22 +17,17 @@ public class ZADDHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String key = arguments.get(0);
-            List<Member> members = parseMembers(arguments.subList(1, arguments.size()));
-            int addedCount = dataStore.zadd(key, members);
-            clientOutput.write(RESPSerializer.integer(addedCount));
-            clientOutput.flush();
-        } catch (IOException e) {
-            throw new RuntimeException("IO Error during command execution", e);
-        }
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        List<Member> members = parseMembers(arguments.subList(1, arguments.size()));
+        int addedCount = dataStore.zadd(key, members);
+        clientOutput.writeInteger(addedCount);
     }
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 3 || (arguments.size() - 1) % 2 != 0) {
-            throw new IllegalArgumentException("ZADD command requires at least a key and one score-member pair.");
+        if ((arguments.size() - 1) % 2 != 0) {
+            throw new IllegalArgumentException("syntax error");
         }
     }
 
@@ -1,10 +1,9 @@
 package command.handlers.sortedset;
 
-import java.io.IOException;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -16,22 +15,10 @@ public class ZCARDHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String key = arguments.get(0);
-            int setSize = dataStore.zcard(key);
-            clientOutput.write(RESPSerializer.integer(setSize));
-            clientOutput.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("ZCARD command requires exactly 1 argument.");
-        }
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        int setSize = dataStore.zcard(key);
+        clientOutput.writeInteger(setSize);
     }
 
 }
@@ -3,7 +3,7 @@ package command.handlers.sortedset;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -15,7 +15,7 @@ public class ZRANGEHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String key = arguments.get(0);
             int start = Integer.parseInt(arguments.get(1));
@@ -23,18 +23,10 @@ public class ZRANGEHandler implements CommandStrategy {
 
             List<String> rangeMembers = dataStore.zrange(key, start, end);
 
-            clientOutput.write(RESPSerializer.array(rangeMembers));
-            clientOutput.flush();
+            clientOutput.writeArray(rangeMembers);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 3) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'ZRANGE' command");
-        }
-    }
-
 }
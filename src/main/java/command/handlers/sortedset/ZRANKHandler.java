@@ -1,10 +1,9 @@
 package command.handlers.sortedset;
 
-import java.io.IOException;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -16,25 +15,15 @@ public class ZRANKHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try{
-            String key = arguments.get(0);
-            String memberName = arguments.get(1);
-            Integer rank = dataStore.zrank(key, memberName);
-
-            clientOutput.write(RESPSerializer.integer(rank));
-            clientOutput.flush();
-        }
-        catch (IOException e){
-            throw new RuntimeException("IO Error during command execution", e);
-        }
-    }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 2) {
-            throw new IllegalArgumentException("ZRANK command requires exactly 2 arguments: key and member name.");
-        }
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        String memberName = arguments.get(1);
+        Integer rank = dataStore.zrank(key, memberName);
+
+        if (rank == -1)
+            clientOutput.writeNullBulkString();
+        else
+            clientOutput.writeInteger(rank);
     }
 
 }
@@ -0,0 +1,59 @@
+package command.handlers.stream;
+
+import java.util.List;
+
+import protocol.ReplySink;
+
+/**
+ * Writes the nested stream results returned by the data store
+ * straight to the client, shared by XRANGE and XREAD.
+ */
+final class StreamReplies {
+
+    private StreamReplies() {
+    }
+
+    /**
+     * Each entry is [entryId, [[field1, value1], [field2, value2], ...]]
+     */
+    @SuppressWarnings("unchecked")
+    static void writeEntries(ReplySink clientOutput, List<List<Object>> entries) {
+        if (entries == null || entries.isEmpty()) {
+            clientOutput.writeEmptyArray();
+            return;
+        }
+        clientOutput.writeArrayHeader(entries.size());
+        for (List<Object> entry : entries) {
+            clientOutput.writeArrayHeader(2); // Always 2 elements: ID and fields
+            clientOutput.writeBulkString((String) entry.get(0));
+
+            List<List<String>> fields = (List<List<String>>) entry.get(1);
+            if (fields == null) {
+                clientOutput.writeEmptyArray();
+                continue;
+            }
+            clientOutput.writeArrayHeader(fields.size() * 2);
+            for (List<String> fieldPair : fields) {
+                clientOutput.writeBulkString(fieldPair.get(0)); // field name
+                clientOutput.writeBulkString(fieldPair.get(1)); // field value
+            }
+        }
+    }
+
+    /**
+     * Each stream is [streamKey, [[entryId1, fields1], [entryId2, fields2]]]
+     */
+    @SuppressWarnings("unchecked")
+    static void writeStreams(ReplySink clientOutput, List<List<Object>> streams) {
+        if (streams == null || streams.isEmpty()) {
+            clientOutput.writeNullArray();
+            return;
+        }
+        clientOutput.writeArrayHeader(streams.size());
+        for (List<Object> stream : streams) {
+            clientOutput.writeArrayHeader(2); // Always 2 elements: key and entries
+            clientOutput.writeBulkString((String) stream.get(0));
+            writeEntries(clientOutput, (List<List<Object>>) stream.get(1));
+        }
+    }
+}
@@ -8,7 +8,8 @@ import java.util.HashMap;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -25,16 +26,13 @@ public class XADDHandler implements CommandStrategy, Replicable {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 4) {
-            throw new IllegalArgumentException("Wrong number of arguments of the 'XADD' command.");
-        }
         if ((arguments.size() - 2) % 2 != 0) {
             throw new IllegalArgumentException("wrong number of arguments for XADD");
         }
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             String streamKey = arguments.get(0);
             String entryID = arguments.get(1);
@@ -51,26 +49,18 @@ public class XADDHandler implements CommandStrategy, Replicable {
             if (ReplicationManager.isSlaveNode())
                 return;
 
-            clientOutput.write(RESPSerializer.bulkString(entryID));
-            clientOutput.flush();
+            clientOutput.writeBulkString(entryID);
 
             List<String> commandForReplication = new ArrayList<>();
             commandForReplication.add("XADD");
             commandForReplication.addAll(arguments);
 
             // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
+            updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
             // Replication to replicas
             replicateToReplicas(commandForReplication);
         } catch (InvalidStreamEntryException e) {
-            try {
-                clientOutput.write(RESPSerializer.error(e.getMessage()));
-                clientOutput.flush();
-            } catch (IOException ioException) {
-                throw new RuntimeException(ioException);
-            }
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
+            clientOutput.writeError(e.getMessage());
         }
     }
 
@@ -1,10 +1,9 @@
 package command.handlers.stream;
 
-import java.io.IOException;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -16,24 +15,12 @@ public class XRANGEHandler implements CommandStrategy {
     }
 
     @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 3) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'XRANGE' Command");
-        }
-    }
-
-    @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String streamKey = arguments.get(0);
-            String startEntryId = arguments.get(1);
-            String endEntryId = arguments.get(2);
-            List<List<Object>> result = dataStore.XRANGE(streamKey, startEntryId, endEntryId, true);
-            clientOutput.write(RESPSerializer.xRangeArray(result));
-            clientOutput.flush();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String streamKey = arguments.get(0);
+        String startEntryId = arguments.get(1);
+        String endEntryId = arguments.get(2);
+        List<List<Object>> result = dataStore.XRANGE(streamKey, startEntryId, endEntryId, true);
+        StreamReplies.writeEntries(clientOutput, result);
     }
 
 }
@@ -1,10 +1,10 @@
 package command.handlers.stream;
 
-import java.io.IOException;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.DeferredReply;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
@@ -17,9 +17,6 @@ public class XREADHandler implements CommandStrategy {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 3) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'XREAD' Command");
-        }
         if (!arguments.contains("streams")) {
             throw new IllegalArgumentException("Missing 'streams' keyword in 'XREAD' command");
         }
@@ -37,35 +34,33 @@ public class XREADHandler implements CommandStrategy {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            Long timestamp = 0L;
-            boolean block = false;
-            if (arguments.contains("block")) {
-                block = true;
-                int blockIndex = arguments.indexOf("block");
-                timestamp = Long.parseLong(arguments.get(blockIndex + 1));
-            }
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        Long timestamp = 0L;
+        boolean block = false;
+        if (arguments.contains("block")) {
+            block = true;
+            int blockIndex = arguments.indexOf("block");
+            timestamp = Long.parseLong(arguments.get(blockIndex + 1));
+        }
 
-            int streamsIndexStart = arguments.indexOf("streams");
-            int numStreams = (arguments.size() - streamsIndexStart - 1) / 2;
+        int streamsIndexStart = arguments.indexOf("streams");
+        int numStreams = (arguments.size() - streamsIndexStart - 1) / 2;
 
-            int IDsIndexStart = streamsIndexStart + 1 + numStreams;
-            List<String> streamsKeys = arguments.subList(streamsIndexStart + 1, streamsIndexStart + 1 + numStreams);
-            List<String> streamsStartEntriesIDs = arguments.subList(IDsIndexStart, arguments.size());
+        int IDsIndexStart = streamsIndexStart + 1 + numStreams;
+        List<String> streamsKeys = arguments.subList(streamsIndexStart + 1, streamsIndexStart + 1 + numStreams);
+        List<String> streamsStartEntriesIDs = arguments.subList(IDsIndexStart, arguments.size());
 
-            try {
-                List<List<Object>> result = dataStore.XREAD(streamsKeys, streamsStartEntriesIDs, block, timestamp);
-                clientOutput.write(RESPSerializer.xReadArray(result));
-                clientOutput.flush();
-            } catch (InterruptedException e) {
-                clientOutput.write(RESPSerializer.error(e.getMessage()));
-                clientOutput.flush();
+        if (block) {
+            DeferredReply deferredReply = clientOutput.deferReply();
+            // Inside a transaction nothing may block, the read answers right away
+            if (deferredReply != null) {
+                Runnable cancellation = dataStore.XREAD(streamsKeys, streamsStartEntriesIDs, timestamp,
+                        result -> deferredReply.complete(output -> StreamReplies.writeStreams(output, result)));
+                deferredReply.onCancel(cancellation);
                 return;
             }
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
         }
-
+        List<List<Object>> result = dataStore.XREAD(streamsKeys, streamsStartEntriesIDs);
+        StreamReplies.writeStreams(clientOutput, result);
     }
 }
@@ -0,0 +1,122 @@
+package command.handlers.string;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+
+import command.CommandStrategy;
+import domain.DataType;
+import domain.ExpireCondition;
+import domain.RedisValue;
+import domain.values.StringValue;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * GET that also sets the key's TTL with EX, PX, EXAT or PXAT, or removes it
+ * with PERSIST. The TTL change reaches replicas as PEXPIREAT or PERSIST.
+ */
+public class GETEXHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+
+    public GETEXHandler(DataStore dataStore, ReplicationManager replicationManager) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        if (arguments.size() == 1) {
+            return;
+        }
+        String option = arguments.get(1).toUpperCase();
+        if (option.equals("PERSIST") && arguments.size() == 2) {
+            return;
+        }
+        if (arguments.size() != 3 || !List.of("EX", "PX", "EXAT", "PXAT").contains(option)) {
+            throw new IllegalArgumentException("syntax error");
+        }
+        long time;
+        try {
+            time = Long.parseLong(arguments.get(2));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+        // Bounded so that neither the seconds in milliseconds nor now plus the time overflow
+        if (time <= 0 || time > Long.MAX_VALUE / 2000) {
+            throw new IllegalArgumentException("invalid expire time in 'getex' command");
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        RedisValue<?> redisValue = dataStore.getValue(key);
+        if (redisValue == null || redisValue.getType() != DataType.STRING) {
+            if (ReplicationManager.isSlaveNode())
+                return;
+            if (redisValue == null) {
+                clientOutput.writeNullBulkString();
+            } else {
+                clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+            }
+            return;
+        }
+        byte[] value = ((StringValue) redisValue).getBytes();
+
+        List<String> commandForReplication = null;
+        if (arguments.size() == 2) {
+            if (dataStore.persist(key)) {
+                commandForReplication = List.of("PERSIST", key);
+            }
+        } else if (arguments.size() == 3) {
+            long expiryTime = parseExpiryTime(arguments.get(1).toUpperCase(), Long.parseLong(arguments.get(2)));
+            dataStore.setExpiry(key, expiryTime, EnumSet.noneOf(ExpireCondition.class));
+            commandForReplication = List.of("PEXPIREAT", key, String.valueOf(expiryTime));
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeBulkString(value);
+        if (commandForReplication == null)
+            return;
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    private static long parseExpiryTime(String option, long time) {
+        return switch (option) {
+            case "EX" -> System.currentTimeMillis() + time * 1000;
+            case "PX" -> System.currentTimeMillis() + time;
+            case "EXAT" -> time * 1000;
+            default -> time;
+        };
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+
+}
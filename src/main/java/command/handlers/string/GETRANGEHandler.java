@@ -0,0 +1,46 @@
+package command.handlers.string;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * GETRANGE key start end: the bytes of the string from start to end
+ * inclusive, negative offsets counting from the end. Only the slice is
+ * copied out of the value.
+ */
+public class GETRANGEHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public GETRANGEHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        offset(arguments.get(1));
+        offset(arguments.get(2));
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        try {
+            byte[] range = dataStore.getRange(arguments.get(0), offset(arguments.get(1)), offset(arguments.get(2)));
+            clientOutput.writeBulkString(range);
+        } catch (IllegalStateException e) {
+            clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+        }
+    }
+
+    private static long offset(String argument) {
+        try {
+            return Long.parseLong(argument);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package command.handlers.string;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 import domain.values.StringValue;
 
-import java.io.IOException;
 import java.util.List;
 
 public class GetHandler implements CommandStrategy {
@@ -17,30 +16,17 @@ public class GetHandler implements CommandStrategy {
     }
 
     @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("wrong number of arguments for 'get' command");
-        }
-    }
-
-    @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String key = arguments.get(0);
-            var redisValue = dataStore.getValue(key);
-            
-            if (redisValue == null) {
-                clientOutput.write(RESPSerializer.nullBulkString()); // Null bulk reply
-                clientOutput.flush();
-                return;
-            }
-            
-            String value = ((StringValue) redisValue).getString();
-            clientOutput.write(RESPSerializer.bulkString(value));
-            clientOutput.flush();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        var redisValue = dataStore.getValue(key);
+        
+        if (redisValue == null) {
+            clientOutput.writeNullBulkString(); // Null bulk reply
+            return;
         }
+        
+        // The stored bytes, copied to the reply buffer as they are, under the value's lock
+        ((StringValue) redisValue).readBytes(clientOutput::writeBulkString);
     }
     
 }
@@ -7,59 +7,82 @@ import java.util.ArrayList;
 import java.util.List;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
 
+/**
+ * INCR key, DECR key, INCRBY key increment and DECRBY key decrement: adds to
+ * the integer at the key, which starts from 0 when absent, and returns the
+ * result. The value is kept as a long and updated in place.
+ */
 public class INCRHandler implements CommandStrategy, Replicable {
     private final DataStore dataStore;
     private final ReplicationManager replicationManager;
+    private final String name;
+    // -1 for the DECR commands
+    private final long sign;
 
-    public INCRHandler(DataStore dataStore, ReplicationManager replicationManager) {
+    public INCRHandler(DataStore dataStore, ReplicationManager replicationManager, String name, boolean decrement) {
         this.dataStore = dataStore;
         this.replicationManager = replicationManager;
+        this.name = name;
+        this.sign = decrement ? -1 : 1;
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String key = arguments.get(0);
-            long newValue = dataStore.incr(key);
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        if (arguments.size() == 2) {
+            increment(arguments);
+        }
+    }
 
-            // If this node is a replica, do not send replies or replicate
-            if (ReplicationManager.isSlaveNode())
-                return;
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        long newValue;
+        try {
+            newValue = dataStore.incrBy(key, increment(arguments));
+        } catch (IllegalStateException e) {
+            if (!ReplicationManager.isSlaveNode())
+                clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+            return;
+        }
 
-            clientOutput.write(RESPSerializer.integer(newValue));
-            clientOutput.flush();
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
 
-            List<String> commandForReplication = new ArrayList<>();
-            commandForReplication.add("INCR");
-            commandForReplication.addAll(arguments);
+        clientOutput.writeInteger(newValue);
 
-            // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
-            // Replication to replicas
-            replicateToReplicas(commandForReplication);
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add(name);
+        commandForReplication.addAll(arguments);
 
-        } catch (NumberFormatException nfe) {
-            try {
-                clientOutput.write(RESPSerializer.error(nfe.getMessage()));
-                clientOutput.flush();
-            } catch (IOException ioException) {
-                throw new RuntimeException(ioException);
-            }
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
-        }
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
     }
 
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 1) {
-            throw new IllegalArgumentException("INCR command requires exactly one argument.");
+    private long increment(List<String> arguments) {
+        if (arguments.size() == 1) {
+            return sign;
+        }
+        long increment;
+        try {
+            increment = Long.parseLong(arguments.get(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not an integer or out of range");
+        }
+        // The one decrement with no opposite
+        if (sign < 0 && increment == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("decrement would overflow");
         }
+        return sign * increment;
     }
 
     @Override
@@ -0,0 +1,30 @@
+package command.handlers.string;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * MGET key [key ...]: the value of every key, nil for keys that are missing
+ * or hold another type. The keys are looked up in one pass and their bytes
+ * written into the reply buffer as they are.
+ */
+public class MGETHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public MGETHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        List<byte[]> values = dataStore.mget(arguments);
+        clientOutput.writeArrayHeader(values.size());
+        for (byte[] value : values) {
+            clientOutput.writeBulkString(value);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package command.handlers.string;
+
+import command.handlers.Replicable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
+import replication.ReplicationManager;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * MSET key value [key value ...] and MSETNX key value [key value ...]: sets
+ * every key, MSETNX only when none of them exists. Replicated as a single
+ * MSET, which MSETNX becomes once it has checked its keys.
+ */
+public class MSETHandler implements CommandStrategy, Replicable {
+    private final DataStore dataStore;
+    private final ReplicationManager replicationManager;
+    private final String name;
+    private final boolean onlyIfNoneExist;
+
+    public MSETHandler(DataStore dataStore, ReplicationManager replicationManager, String name,
+            boolean onlyIfNoneExist) {
+        this.dataStore = dataStore;
+        this.replicationManager = replicationManager;
+        this.name = name;
+        this.onlyIfNoneExist = onlyIfNoneExist;
+    }
+
+    @Override
+    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
+        if (arguments.size() % 2 != 0) {
+            throw new IllegalArgumentException("wrong number of arguments for '" + name.toLowerCase() + "' command");
+        }
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        boolean set = true;
+        if (onlyIfNoneExist) {
+            set = dataStore.msetnx(arguments);
+        } else {
+            dataStore.mset(arguments);
+        }
+
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        if (onlyIfNoneExist) {
+            clientOutput.writeInteger(set ? 1 : 0);
+        } else {
+            clientOutput.writeSimpleString("OK");
+        }
+        if (!set)
+            return;
+
+        List<String> commandForReplication = new ArrayList<>(arguments.size() + 1);
+        commandForReplication.add("MSET");
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
+    }
+
+    @Override
+    public void replicateToReplicas(List<String> command) {
+        try {
+            replicationManager.replicateToSlaves(command);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateMasterOffset(long offset) {
+        replicationManager.updateMasterOffset(offset);
+    }
+
+}
@@ -0,0 +1,29 @@
+package command.handlers.string;
+
+import java.util.List;
+
+import command.CommandStrategy;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+import server.connection.entity.ClientConnection;
+import storage.DataStore;
+
+/**
+ * STRLEN key: length in bytes of the string at the key, 0 when absent.
+ */
+public class STRLENHandler implements CommandStrategy {
+    private final DataStore dataStore;
+
+    public STRLENHandler(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        try {
+            clientOutput.writeInteger(dataStore.strlen(arguments.get(0)));
+        } catch (IllegalStateException e) {
+            clientOutput.writeError(ErrorType.WRONGTYPE, "Operation against a key holding the wrong kind of value");
+        }
+    }
+}
@@ -3,7 +3,8 @@ package command.handlers.string;
 import command.handlers.Replicable;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import storage.DataStore;
@@ -25,9 +26,6 @@ public class SetHandler implements CommandStrategy, Replicable {
 
     @Override
     public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() < 2) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'set' command");
-        }
         // Validate expiry options if present
         if (arguments.size() >= 4) {
             String option = arguments.get(2).toUpperCase();
@@ -43,32 +41,27 @@ public class SetHandler implements CommandStrategy, Replicable {
     }
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
-        try {
-            String key = arguments.get(0);
-            String value = arguments.get(1);
-
-            Long expiryTimeStamp = parseExpiryOptions(arguments);
-            RedisValue redisValue = new StringValue(value, expiryTimeStamp);
-            dataStore.setValue(key, redisValue);
-            // If this node is a replica, do not send replies or replicate
-            if (ReplicationManager.isSlaveNode())
-                return;
-
-            clientOutput.write(RESPSerializer.simpleString("OK"));
-            clientOutput.flush();
-
-            List<String> commandForReplication = new ArrayList<>();
-            commandForReplication.add("SET");
-            commandForReplication.addAll(arguments);
-
-            // Update master offset
-            updateMasterOffset(RESPSerializer.array(commandForReplication).getBytes().length);
-            // Replication to replicas
-            replicateToReplicas(commandForReplication);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
+        String key = arguments.get(0);
+        String value = arguments.get(1);
+
+        Long expiryTimeStamp = parseExpiryOptions(arguments);
+        RedisValue redisValue = new StringValue(value, expiryTimeStamp);
+        dataStore.setValue(key, redisValue);
+        // If this node is a replica, do not send replies or replicate
+        if (ReplicationManager.isSlaveNode())
+            return;
+
+        clientOutput.writeSimpleString("OK");
+
+        List<String> commandForReplication = new ArrayList<>();
+        commandForReplication.add("SET");
+        commandForReplication.addAll(arguments);
+
+        // Update master offset
+        updateMasterOffset(RESPEncoder.arraySize(commandForReplication));
+        // Replication to replicas
+        replicateToReplicas(commandForReplication);
     }
 
     private Long parseExpiryOptions(List<String> arguments) {
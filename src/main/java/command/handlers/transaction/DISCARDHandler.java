@@ -4,6 +4,7 @@ package command.handlers.transaction;
 import java.util.List;
 
 import command.CommandStrategy;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 /**
@@ -14,16 +15,9 @@ import server.connection.entity.ClientConnection;
 public class DISCARDHandler implements CommandStrategy {
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         // This method should never be called because DISCARD is intercepted
         // in CommandExecuter.handleTransactionControlCommand()
         throw new UnsupportedOperationException("DISCARD command should be handled by CommandExecuter");
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 0) {
-            throw new IllegalArgumentException("ERR wrong number of arguments for 'discard' command");
-        }
-    }
 }
@@ -3,6 +3,7 @@ package command.handlers.transaction;
 import java.util.List;
 
 import command.CommandStrategy;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 /**
@@ -13,16 +14,9 @@ import server.connection.entity.ClientConnection;
 public class EXECHandler implements CommandStrategy {
 
     @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         // This method should never be called because EXEC is intercepted
         // in CommandExecuter.handleTransactionControlCommand()
         throw new UnsupportedOperationException("EXEC command should be handled by CommandExecuter");
     }
-
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 0) {
-            throw new IllegalArgumentException("ERR wrong number of arguments for 'exec' command");
-        }
-    }
 }
@@ -3,6 +3,7 @@ package command.handlers.transaction;
 import java.util.List;
 
 import command.CommandStrategy;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 
 /**
@@ -13,14 +14,7 @@ import server.connection.entity.ClientConnection;
 public class MULTIHandler implements CommandStrategy {
 
     @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        if (arguments.size() != 0) {
-            throw new IllegalArgumentException("ERR wrong number of arguments for 'multi' command");
-        }
-    }
-
-    @Override
-    public void execute(List<String> arguments, ClientConnection clientOutput) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         // This method should never be called because MULTI is intercepted
         // in CommandExecuter.handleTransactionControlCommand()
         throw new UnsupportedOperationException("MULTI command should be handled by CommandExecuter");
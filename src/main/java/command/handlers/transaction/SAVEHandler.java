@@ -1,7 +1,7 @@
 package command.handlers.transaction;
 
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.ReplySink;
 import rdb.RDBException;
 import rdb.RDBManager;
 import server.connection.entity.ClientConnection;
@@ -21,13 +21,12 @@ public class SAVEHandler implements CommandStrategy {
     }
     
     @Override
-    public void execute(List<String> arguments, ClientConnection clientConnection) {
+    public void execute(List<String> arguments, ReplySink clientOutput, ClientConnection clientConnection) {
         try {
             // Get configuration from ServerContext
             ServerConfiguration config = ServerContext.getInstance().getConfiguration();
             if (config == null) {
-                clientConnection.write(RESPSerializer.error("ERR server configuration not initialized"));
-                clientConnection.flush();
+                clientOutput.writeError("ERR server configuration not initialized");
                 return;
             }
             
@@ -36,13 +35,11 @@ public class SAVEHandler implements CommandStrategy {
             String filename = config.getRdbFileName();
             
             if (directory == null || directory.trim().isEmpty()) {
-                clientConnection.write(RESPSerializer.error("ERR RDB directory not configured"));
-                clientConnection.flush();
+                clientOutput.writeError("ERR RDB directory not configured");
                 return;
             }
             if (filename == null || filename.trim().isEmpty()) {
-                clientConnection.write(RESPSerializer.error("ERR RDB filename not configured"));
-                clientConnection.flush();
+                clientOutput.writeError("ERR RDB filename not configured");
                 return;
             }
             
@@ -50,38 +47,13 @@ public class SAVEHandler implements CommandStrategy {
             RDBManager rdbManager = new RDBManager(dataStore, directory, filename);
             rdbManager.save();
             
-            clientConnection.write(RESPSerializer.simpleString("OK"));
-            clientConnection.flush();
-            
+            clientOutput.writeSimpleString("OK");
         } catch (IOException e) {
-            try {
-                clientConnection.write(RESPSerializer.error("ERR failed to save RDB file: " + e.getMessage()));
-                clientConnection.flush();
-            } catch (IOException ex) {
-                throw new RuntimeException("Error writing response", ex);
-            }
+            clientOutput.writeError("ERR failed to save RDB file: " + e.getMessage());
         } catch (RDBException e) {
-            try {
-                clientConnection.write(RESPSerializer.error("ERR RDB error: " + e.getMessage()));
-                clientConnection.flush();
-            } catch (IOException ex) {
-                throw new RuntimeException("Error writing response", ex);
-            }
+            clientOutput.writeError("ERR RDB error: " + e.getMessage());
         } catch (Exception e) {
-            try {
-                clientConnection.write(RESPSerializer.error("ERR unexpected error: " + e.getMessage()));
-                clientConnection.flush();
-            } catch (IOException ex) {
-                throw new RuntimeException("Error writing response", ex);
-            }
-        }
-    }
-    
-    @Override
-    public void validateArguments(List<String> arguments) throws IllegalArgumentException {
-        // SAVE takes no arguments
-        if (!arguments.isEmpty()) {
-            throw new IllegalArgumentException("Wrong number of arguments for 'SAVE' command");
+            clientOutput.writeError("ERR unexpected error: " + e.getMessage());
         }
     }
 }
@@ -3,33 +3,61 @@ package command.transactions;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import command.CommandRequest;
 
 public class TransactionContext {
     private final Queue<CommandRequest> commandQueue = new LinkedList<>();
     private boolean inMultiMode = true;
-
-    public synchronized void enqueueCommand(CommandRequest commandRequest) {
-        commandQueue.add(commandRequest);
+    // Not synchronized, so a virtual thread holding it never pins its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public void enqueueCommand(CommandRequest commandRequest) {
+        lock.lock();
+        try {
+            commandQueue.add(commandRequest);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized List<CommandRequest> drainCommands() {
-        List<CommandRequest> commands = new LinkedList<>(commandQueue);
-        commandQueue.clear();
-        return commands;
+    public List<CommandRequest> drainCommands() {
+        lock.lock();
+        try {
+            List<CommandRequest> commands = new LinkedList<>(commandQueue);
+            commandQueue.clear();
+            return commands;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void discard(){
-        commandQueue.clear();
-        inMultiMode = false;
+    public void discard(){
+        lock.lock();
+        try {
+            commandQueue.clear();
+            inMultiMode = false;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized boolean isInMultiMode() {
-        return inMultiMode;
+    public boolean isInMultiMode() {
+        lock.lock();
+        try {
+            return inMultiMode;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void setInMultiMode(boolean inMultiMode) {
-        this.inMultiMode = inMultiMode;
+    public void setInMultiMode(boolean inMultiMode) {
+        lock.lock();
+        try {
+            this.inMultiMode = inMultiMode;
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -2,12 +2,11 @@ package command.transactions;
 
 import command.CommandFactory;
 import command.CommandRequest;
+import command.CommandSpec;
 import command.CommandStrategy;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
 import server.connection.entity.ClientConnection;
 
-import java.io.IOException;
-import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,37 +30,37 @@ public class TransactionCoordinator {
     /**
      * Check if a command is a transaction control command (MULTI/EXEC/DISCARD)
      */
-    public boolean isTransactionControlCommand(String commandName) {
-        String upperCommand = commandName.toUpperCase();
-        return upperCommand.equals("MULTI") || upperCommand.equals("EXEC") || upperCommand.equals("DISCARD");
+    public boolean isTransactionControlCommand(CommandSpec command) {
+        String name = command.getName();
+        return name.equals("MULTI") || name.equals("EXEC") || name.equals("DISCARD");
     }
 
     /**
      * Check if the client is currently in MULTI mode
      */
-    public boolean isInMultiMode(String clientId) {
-        return transactionManager.isInMultiMode(clientId);
+    public boolean isInMultiMode(ClientConnection clientConnection) {
+        return transactionManager.isInMultiMode(clientConnection.getSession());
     }
 
     /**
      * Handle transaction control commands (MULTI/EXEC/DISCARD)
      */
-    public void handleTransactionControlCommand(String clientId, String commandName, List<String> arguments,
-            CommandStrategy command, ClientConnection clientConnection) throws IOException {
+    public void handleTransactionControlCommand(CommandSpec spec, List<String> arguments,
+            CommandStrategy command, ClientConnection clientConnection) {
 
-        String upperCommand = commandName.toUpperCase();
+        spec.validateArity(arguments);
 
-        switch (upperCommand) {
+        switch (spec.getName()) {
             case "MULTI":
-                handleMulti(clientId, arguments, command, clientConnection);
+                handleMulti(arguments, command, clientConnection);
                 break;
 
             case "EXEC":
-                handleExec(clientId, clientConnection);
+                handleExec(clientConnection);
                 break;
 
             case "DISCARD":
-                handleDiscard(clientId, clientConnection);
+                handleDiscard(clientConnection);
                 break;
         }
     }
@@ -69,23 +68,23 @@ public class TransactionCoordinator {
     /**
      * Queue a command for execution during EXEC
      */
-    public void queueCommand(String clientId, String commandName, List<String> arguments,
-            CommandStrategy command, ClientConnection clientConnection) throws IOException {
+    public void queueCommand(CommandSpec spec, List<String> arguments,
+            CommandStrategy command, ClientConnection clientConnection) {
         try {
             // Validate the command before queuing
+            spec.validateArity(arguments);
             command.validateArguments(arguments);
 
-            // Enqueue the command
-            transactionManager.enqueueCommand(clientId, new CommandRequest(commandName, arguments));
+            // Enqueue a copy, the parsed arguments are reused for the next request
+            transactionManager.enqueueCommand(clientConnection.getSession(),
+                    new CommandRequest(spec, List.copyOf(arguments)));
 
             // Send QUEUED response
-            clientConnection.write(RESPSerializer.simpleString("QUEUED"));
-            clientConnection.flush();
+            clientConnection.writeSimpleString("QUEUED");
         } catch (IllegalArgumentException e) {
             // Validation error during queuing - discard transaction
-            transactionManager.discardTransaction(clientId);
-            clientConnection.write(RESPSerializer.error(e.getMessage()));
-            clientConnection.flush();
+            transactionManager.discardTransaction(clientConnection.getSession());
+            clientConnection.writeError(e.getMessage());
         }
     }
 
@@ -93,12 +92,11 @@ public class TransactionCoordinator {
     // PRIVATE HELPER METHODS
     // ============================================
 
-    private void handleMulti(String clientId, List<String> arguments, CommandStrategy command,
-            ClientConnection clientConnection) throws IOException {
+    private void handleMulti(List<String> arguments, CommandStrategy command,
+            ClientConnection clientConnection) {
         // Check if already in MULTI mode
-        if (transactionManager.isInMultiMode(clientId)) {
-            clientConnection.write(RESPSerializer.error("MULTI calls can not be nested"));
-            clientConnection.flush();
+        if (transactionManager.isInMultiMode(clientConnection.getSession())) {
+            clientConnection.writeError("MULTI calls can not be nested");
             return;
         }
 
@@ -106,72 +104,64 @@ public class TransactionCoordinator {
         command.validateArguments(arguments);
 
         // Begin transaction
-        transactionManager.beginTransactionContext(clientId);
-        clientConnection.write(RESPSerializer.simpleString("OK"));
-        clientConnection.flush();
+        transactionManager.beginTransactionContext(clientConnection.getSession());
+        clientConnection.writeSimpleString("OK");
     }
 
-    private void handleExec(String clientId, ClientConnection clientConnection) throws IOException {
+    private void handleExec(ClientConnection clientConnection) {
         // Check if in MULTI mode
-        if (!transactionManager.isInMultiMode(clientId)) {
-            clientConnection.write(RESPSerializer.error("EXEC without MULTI"));
-            clientConnection.flush();
+        if (!transactionManager.isInMultiMode(clientConnection.getSession())) {
+            clientConnection.writeError("EXEC without MULTI");
             return;
         }
 
         // Execute all queued commands atomically
-        executeTransaction(clientId, clientConnection);
+        executeTransaction(clientConnection);
     }
 
-    private void handleDiscard(String clientId, ClientConnection clientConnection) throws IOException {
+    private void handleDiscard(ClientConnection clientConnection) {
         // Check if in MULTI mode
-        if (!transactionManager.isInMultiMode(clientId)) {
-            clientConnection.write(RESPSerializer.error("DISCARD without MULTI"));
-            clientConnection.flush();
+        if (!transactionManager.isInMultiMode(clientConnection.getSession())) {
+            clientConnection.writeError("DISCARD without MULTI");
             return;
         }
 
         // Discard the transaction
-        transactionManager.discardTransaction(clientId);
-        clientConnection.write(RESPSerializer.simpleString("OK"));
-        clientConnection.flush();
+        transactionManager.discardTransaction(clientConnection.getSession());
+        clientConnection.writeSimpleString("OK");
     }
 
-    private void executeTransaction(String clientId, ClientConnection clientConnection) throws IOException {
+    private void executeTransaction(ClientConnection clientConnection) {
         // Get all queued commands and clear the transaction context
-        TransactionContext context = transactionManager.getTransactionContextAndClear(clientId);
+        TransactionContext context = transactionManager.getTransactionContextAndClear(clientConnection.getSession());
         List<CommandRequest> queuedCommands = context.drainCommands();
 
-        // Collect replies from each command execution
-        List<String> replies = new ArrayList<>();
+        // Collect the encoded reply of each command
+        List<byte[]> replies = new ArrayList<>();
 
         // Execute each command and collect its reply
         for (CommandRequest request : queuedCommands) {
+            // Capture the command output in memory
+            RESPEncoder reply = new RESPEncoder();
             try {
-                // Use a StringWriter to capture the command output
-                StringWriter stringWriter = new StringWriter();
-                ClientConnection tempWriter = new ClientConnection(clientId, new java.io.OutputStream() {
-                    @Override
-                    public void write(int b) {
-                        stringWriter.write(b);
-                    }
-                }, clientConnection.getInputStream());
-
-                CommandStrategy commandStrategy = commandFactory.getCommandStrategy(request.getCommandName());
+                CommandStrategy commandStrategy = commandFactory.getCommandStrategy(request.getCommand());
                 if (commandStrategy != null) {
-                    commandStrategy.execute(request.getArguments(), tempWriter);
-                    replies.add(stringWriter.toString());
+                    commandStrategy.execute(request.getArguments(), reply, clientConnection);
                 } else {
-                    replies.add(RESPSerializer.error("unknown command '" + request.getCommandName() + "'"));
+                    reply.writeError("unknown command '" + request.getCommandName() + "'");
                 }
             } catch (Exception e) {
                 // If a command fails during execution, return the error for that command
-                replies.add(RESPSerializer.error(e.getMessage()));
+                reply.reset();
+                reply.writeError(e.getMessage());
             }
+            replies.add(reply.toByteArray());
         }
 
         // Send all replies as a RESP array
-        clientConnection.write(RESPSerializer.execArray(replies));
-        clientConnection.flush();
+        clientConnection.writeArrayHeader(replies.size());
+        for (byte[] reply : replies) {
+            clientConnection.writeRaw(reply);
+        }
     }
 }
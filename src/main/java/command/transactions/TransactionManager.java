@@ -1,35 +1,39 @@
 package command.transactions;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
-import java.util.concurrent.ConcurrentHashMap;
-
 import command.CommandRequest;
+import server.connection.entity.ClientSession;
 
+/**
+ * Opens, fills and closes the transaction a client keeps in its session.
+ */
 public class TransactionManager {
-    private final ConcurrentHashMap<String, TransactionContext> contexts = new ConcurrentHashMap<>();
-
 
-    public TransactionContext beginTransactionContext(String clientId) {
-        return contexts.computeIfAbsent(clientId, id -> new TransactionContext());
+    public TransactionContext beginTransactionContext(ClientSession session) {
+        TransactionContext context = session.getTransaction();
+        if (context == null) {
+            context = new TransactionContext();
+            session.setTransaction(context);
+        }
+        return context;
     }
 
-    public boolean isInMultiMode(String clientId) {
-        TransactionContext context = contexts.get(clientId);
+    public boolean isInMultiMode(ClientSession session) {
+        TransactionContext context = session.getTransaction();
         return context != null && context.isInMultiMode();
     }
 
-    public void enqueueCommand(String clientId, CommandRequest commandRequest) {
-        contexts.computeIfAbsent(clientId, id -> new TransactionContext())
-                .enqueueCommand(commandRequest);
+    public void enqueueCommand(ClientSession session, CommandRequest commandRequest) {
+        beginTransactionContext(session).enqueueCommand(commandRequest);
     }
 
-    public TransactionContext getTransactionContextAndClear(String clientId) {
-        return contexts.remove(clientId);
+    public TransactionContext getTransactionContextAndClear(ClientSession session) {
+        TransactionContext context = session.getTransaction();
+        session.setTransaction(null);
+        return context;
     }
 
-    public void discardTransaction(String clientId) {
-        TransactionContext context = contexts.remove(clientId);
+    public void discardTransaction(ClientSession session) {
+        TransactionContext context = getTransactionContextAndClear(session);
         if (context != null) {
             context.discard();
         }
@@ -0,0 +1,11 @@
+package domain;
+
+/**
+ * The operations of BITOP; NOT takes a single source.
+ */
+public enum BitOperation {
+    AND,
+    OR,
+    XOR,
+    NOT
+}
@@ -0,0 +1,25 @@
+package domain;
+
+/**
+ * The NX, XX, GT and LT options of EXPIRE and its variants, XX may be given
+ * together with GT or LT. A key without a TTL counts as never expiring, so
+ * GT never applies to it and LT always does.
+ */
+public enum ExpireCondition {
+    NX,
+    XX,
+    GT,
+    LT;
+
+    /**
+     * @param current the key's expiry time, null when it has no TTL
+     */
+    public boolean allows(Long current, long expiryTime) {
+        return switch (this) {
+            case NX -> current == null;
+            case XX -> current != null;
+            case GT -> current != null && expiryTime > current;
+            case LT -> current == null || expiryTime < current;
+        };
+    }
+}
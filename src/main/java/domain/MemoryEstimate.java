@@ -0,0 +1,54 @@
+package domain;
+
+/**
+ * Rough heap footprints of what the keyspace holds, so memory use can be
+ * tracked by adding up estimates as values change instead of asking the
+ * JVM. Sizes assume a 64-bit JVM with compressed references and compact
+ * Latin-1 strings; they are meant to rank keys and bound the dataset, not
+ * to match a heap dump.
+ */
+public final class MemoryEstimate {
+
+    // A RedisValue with its type, expiry, access and accounting fields
+    public static final long VALUE = 48;
+    // Hash map node and table slot holding a key
+    public static final long KEY_ENTRY = 40;
+    // Array slot of a list element, grown in powers of two
+    public static final long LIST_ELEMENT = 8;
+    // Member object, its tree node and its by-name hash map node
+    public static final long SORTED_SET_MEMBER = 24 + 40 + 40;
+    // Tree node of an entry and its field map with an initial table
+    public static final long STREAM_ENTRY = 40 + 48 + 80;
+    // Hash map node of one stream field
+    public static final long STREAM_FIELD = 40;
+    // An empty deque, tree or hash map with its initial storage
+    public static final long COLLECTION = 48;
+
+    private MemoryEstimate() {
+    }
+
+    /**
+     * A String object and its byte array, padded to 8 bytes.
+     */
+    public static long string(String value) {
+        return 24 + bytes(value.length());
+    }
+
+    /**
+     * A byte array of the given length, padded to 8 bytes.
+     */
+    public static long bytes(int length) {
+        return align(16 + length);
+    }
+
+    /**
+     * What a key costs the keyspace besides its value.
+     */
+    public static long key(String key) {
+        return KEY_ENTRY + string(key);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
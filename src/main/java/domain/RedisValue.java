@@ -1,8 +1,20 @@
 package domain;
 
+import java.util.function.LongConsumer;
+
 public abstract class RedisValue<T> {
+    // Stands for no TTL, so the expiry time needs no boxed Long
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
     protected final DataType type;
-    protected Long expiryTime;
+    // Changed in place by EXPIRE and PERSIST, read by other threads in threaded mode
+    protected volatile long expiryTime = NO_EXPIRY;
+    // LRU clock or LFU counter of the last access, as storage.eviction.AccessTracker packs it
+    private volatile int access;
+    // Estimated bytes held, kept up to date by the subtypes as they change
+    private long memory = MemoryEstimate.VALUE;
+    // The keyspace counter a change in size is reported to, while the value is stored
+    private LongConsumer memoryListener;
 
     protected RedisValue(DataType type, Long expiryTime) {
         this.type = type;
@@ -26,21 +38,76 @@ public abstract class RedisValue<T> {
     }
 
     public boolean isExpired() {
-        return expiryTime != null && System.currentTimeMillis() > expiryTime;
+        long expiry = expiryTime;
+        return expiry != NO_EXPIRY && System.currentTimeMillis() > expiry;
     }
 
     public boolean hasExpiry() {
-        return expiryTime != null;
+        return expiryTime != NO_EXPIRY;
     }
 
-    public void setExpiry(Long newExpiryTime) {
-        if (newExpiryTime != null) {
-            this.expiryTime = System.currentTimeMillis() + (newExpiryTime * 1000);
-        }
+    /**
+     * Sets the absolute expiry time in milliseconds. The value must then be
+     * put back under its key so the expires index follows.
+     */
+    public void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
     }
 
     public void removeExpiry() {
         if (hasExpiry())
-            expiryTime = null;
+            expiryTime = NO_EXPIRY;
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public void setAccess(int access) {
+        this.access = access;
+    }
+
+    public long getMemory() {
+        return memory;
+    }
+
+    /**
+     * Reports size changes to the listener from now on, until detached.
+     */
+    public void attachMemoryListener(LongConsumer listener) {
+        this.memoryListener = listener;
+    }
+
+    public void detachMemoryListener() {
+        this.memoryListener = null;
+    }
+
+    /**
+     * How many elements the value holds, what taking it apart costs. One for
+     * values that are not collections.
+     */
+    public int getElementCount() {
+        return 1;
+    }
+
+    /**
+     * Called once the value has left the keyspace, on the lazy-free thread
+     * when it is large. A hook for storage that must hand its memory back,
+     * like off-heap buffers; heap collections leave it empty, since a
+     * command or an RDB save that took the value earlier may still be
+     * reading it on another thread, and the GC reclaims it once they are done.
+     */
+    public void release() {
+    }
+
+    /**
+     * Called by subtypes whenever what they hold grows or shrinks.
+     */
+    protected void resize(long delta) {
+        memory += delta;
+        LongConsumer listener = memoryListener;
+        if (listener != null) {
+            listener.accept(delta);
+        }
     }
 }
@@ -0,0 +1,98 @@
+package domain.values;
+
+/**
+ * One GET, SET or INCRBY of a BITFIELD command: a signed or unsigned integer
+ * of up to 64 bits at a bit offset of a string, with the OVERFLOW mode in
+ * effect when it was given.
+ */
+public class BitfieldOperation {
+
+    public enum Kind {
+        GET,
+        SET,
+        INCRBY
+    }
+
+    /**
+     * What a SET or INCRBY does with a result outside the type's range:
+     * keep its low bits, clamp it to the nearest bound, or skip the write
+     * and return nil.
+     */
+    public enum Overflow {
+        WRAP,
+        SAT,
+        FAIL
+    }
+
+    private final Kind kind;
+    private final boolean signed;
+    private final int width;
+    private final long offset;
+    private final long value;
+    private final Overflow overflow;
+
+    public BitfieldOperation(Kind kind, boolean signed, int width, long offset, long value, Overflow overflow) {
+        this.kind = kind;
+        this.signed = signed;
+        this.width = width;
+        this.offset = offset;
+        this.value = value;
+        this.overflow = overflow;
+    }
+
+    public boolean isWrite() {
+        return kind != Kind.GET;
+    }
+
+    /**
+     * Bit offset just past the integer.
+     */
+    public long getEnd() {
+        return offset + width;
+    }
+
+    /**
+     * Runs the operation on the string: GET returns the integer, SET the one
+     * it replaced and INCRBY the new one, null when an overflow failed it.
+     */
+    public Long applyTo(StringValue target) {
+        long current = target.getBits(offset, width);
+        if (signed) {
+            current = current << (64 - width) >> (64 - width);
+        }
+        if (kind == Kind.GET) {
+            return current;
+        }
+        Long result = kind == Kind.SET ? fit(value, 0) : fit(current, value);
+        if (result == null) {
+            return null;
+        }
+        target.setBits(offset, width, result);
+        return kind == Kind.SET ? current : result;
+    }
+
+    // base + increment in the type's range, wrapped or saturated as the overflow mode says
+    private Long fit(long base, long increment) {
+        long max = signed ? (width == 64 ? Long.MAX_VALUE : (1L << (width - 1)) - 1) : (1L << width) - 1;
+        long min = signed ? -max - 1 : 0;
+        long sum = base + increment;
+        int direction = 0;
+        if (((base ^ sum) & (increment ^ sum)) < 0) {
+            // Past the range of a long, so past the type's as well
+            direction = increment > 0 ? 1 : -1;
+        } else if (sum > max) {
+            direction = 1;
+        } else if (sum < min) {
+            // A negative value SET into an unsigned type reads as a huge unsigned one, like in Redis
+            direction = signed || increment < 0 ? -1 : 1;
+        }
+        if (direction == 0) {
+            return sum;
+        }
+        return switch (overflow) {
+            case WRAP -> signed ? sum << (64 - width) >> (64 - width) : sum & max;
+            case SAT -> direction > 0 ? max : min;
+            case FAIL -> null;
+        };
+    }
+}
@@ -1,8 +1,10 @@
 package domain.values;
 
+import java.util.Collection;
 import java.util.Deque;
 
 import domain.DataType;
+import domain.MemoryEstimate;
 import domain.RedisValue;
 
 public class ListValue extends RedisValue {
@@ -11,11 +13,13 @@ public class ListValue extends RedisValue {
     public ListValue(Deque<String> list){
         super(DataType.LIST);
         this.list = list;
+        resize(MemoryEstimate.COLLECTION + elementsSize(list));
     }
 
     public ListValue(Deque<String> list, Long expiryTime){
         super(DataType.LIST, expiryTime);
         this.list = list;
+        resize(MemoryEstimate.COLLECTION + elementsSize(list));
     }
 
     @Override
@@ -23,7 +27,46 @@ public class ListValue extends RedisValue {
         return list;
     }
 
+    /**
+     * The elements, for reading. Changes go through addFirst, addLast and
+     * pollFirst so the memory estimate follows them.
+     */
     public Deque<String> getList(){
         return list;
     }
+
+    public void addFirst(String element) {
+        list.addFirst(element);
+        resize(elementSize(element));
+    }
+
+    public void addLast(Collection<String> elements) {
+        list.addAll(elements);
+        resize(elementsSize(elements));
+    }
+
+    public String pollFirst() {
+        String element = list.pollFirst();
+        if (element != null) {
+            resize(-elementSize(element));
+        }
+        return element;
+    }
+
+    @Override
+    public int getElementCount() {
+        return list.size();
+    }
+
+    private static long elementsSize(Collection<String> elements) {
+        long size = 0;
+        for (String element : elements) {
+            size += elementSize(element);
+        }
+        return size;
+    }
+
+    private static long elementSize(String element) {
+        return MemoryEstimate.LIST_ELEMENT + MemoryEstimate.string(element);
+    }
 }
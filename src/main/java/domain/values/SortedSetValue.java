@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.TreeSet;
 
 import domain.DataType;
+import domain.MemoryEstimate;
 import domain.RedisValue;
 
 public class SortedSetValue extends RedisValue {
@@ -17,6 +18,7 @@ public class SortedSetValue extends RedisValue {
         super(type);
         this.members = new TreeSet<>();
         this.membersByName = new HashMap<>();
+        resize(2 * MemoryEstimate.COLLECTION);
     }
 
     public void addMember(Member member) {
@@ -24,6 +26,8 @@ public class SortedSetValue extends RedisValue {
         Member oldMember = membersByName.get(member.getName());
         if (oldMember != null) {
             members.remove(oldMember);
+        } else {
+            resize(memberSize(member));
         }
         // Add new member
         members.add(member);
@@ -31,8 +35,10 @@ public class SortedSetValue extends RedisValue {
     }
 
     public void removeMember(Member member) {
-        members.remove(member);
-        membersByName.remove(member.getName());
+        if (membersByName.remove(member.getName()) != null) {
+            members.remove(member);
+            resize(-memberSize(member));
+        }
     }
 
     public Member getMember(String name) {
@@ -57,6 +63,7 @@ public class SortedSetValue extends RedisValue {
         if (member != null) {
             members.remove(member);
             membersByName.remove(name);
+            resize(-memberSize(member));
             return 1; // Indicate that a member was removed
         }
         return 0; // Indicate that no member was removed
@@ -102,4 +109,13 @@ public class SortedSetValue extends RedisValue {
         return members;
     }
 
+    @Override
+    public int getElementCount() {
+        return members.size();
+    }
+
+    private static long memberSize(Member member) {
+        return MemoryEstimate.SORTED_SET_MEMBER + MemoryEstimate.string(member.getName());
+    }
+
 }
@@ -1,9 +1,11 @@
 package domain.values;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.TreeMap;
 
 import domain.DataType;
+import domain.MemoryEstimate;
 import domain.RedisValue;
 
 public class StreamValue extends RedisValue {
@@ -12,17 +14,37 @@ public class StreamValue extends RedisValue {
     public StreamValue() {
         super(DataType.STREAM);
         this.stream = new TreeMap<>();
+        resize(MemoryEstimate.COLLECTION);
     }
 
     public String getLastEntryID() {
         return stream.lastKey();
     }
 
+    public void addEntry(String entryID, Map<String, String> fields) {
+        long size = MemoryEstimate.STREAM_ENTRY + MemoryEstimate.string(entryID);
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            size += MemoryEstimate.STREAM_FIELD + MemoryEstimate.string(field.getKey())
+                    + MemoryEstimate.string(field.getValue());
+        }
+        stream.put(entryID, new HashMap<>(fields));
+        resize(size);
+    }
+
     @Override
     public Object getValue() {
         return stream;
     }
 
+    @Override
+    public int getElementCount() {
+        return stream.size();
+    }
+
+    /**
+     * The entries, for reading. New entries go through addEntry so the
+     * memory estimate follows them.
+     */
     public TreeMap<String, HashMap<String, String>> getStream() {
         return stream;
     }
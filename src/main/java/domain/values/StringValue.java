@@ -1,28 +1,375 @@
 package domain.values;
 
+import java.util.Arrays;
+
 import domain.DataType;
+import domain.MemoryEstimate;
 import domain.RedisValue;
+import util.Bitmaps;
+import util.ByteStrings;
 
+/**
+ * A binary-safe string, kept as a primitive long when it is the canonical
+ * decimal form of one, like Redis' int encoding: counters are incremented in
+ * place and only formatted when read as a string. Anything else is kept as
+ * its bytes, without a String around them, so GET copies them to the reply
+ * as is.
+ *
+ * APPEND and SETRANGE turn the bytes into a growable buffer, Redis' raw
+ * encoding: its capacity at least doubles when it runs out, so a value built
+ * by appends costs amortized O(1) per append instead of a full copy each.
+ * The bitmap commands read and write the same bytes, see {@link Bitmaps}.
+ *
+ * Changed in place by INCR, APPEND and their families so the key keeps its
+ * TTL and its value object; in threaded mode several connections may do so
+ * at once, hence the lock.
+ */
 public class StringValue extends RedisValue {
-    private String value;
+    // "-9223372036854775808"
+    private static final int MAX_INTEGER_LENGTH = 20;
+    // Longest string Redis allocates together with its object
+    private static final int EMBSTR_MAX_LENGTH = 44;
+    // Buffers grow by doubling up to this size, then by this much, like an SDS
+    private static final int MAX_PREALLOC = 1024 * 1024;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // Null while integer-encoded; its first length bytes are the value, the rest room to append
+    private byte[] bytes;
+    private int length;
+    private long number;
+    // Written in place by APPEND or SETRANGE
+    private boolean raw;
+
+    /**
+     * Receives the bytes of a value without them being copied first.
+     */
+    @FunctionalInterface
+    public interface BytesReader {
+        void read(byte[] bytes, int offset, int length);
+    }
 
     public StringValue(String value){
-        super(DataType.STRING);
-        this.value = value;
+        this(ByteStrings.encode(value));
     }
 
     public StringValue(String value, Long expiryTime){
+        this(ByteStrings.encode(value), expiryTime);
+    }
+
+    public StringValue(byte[] bytes) {
+        super(DataType.STRING);
+        encode(bytes);
+    }
+
+    public StringValue(byte[] bytes, Long expiryTime) {
         super(DataType.STRING, expiryTime);
-        this.value = value;
+        encode(bytes);
+    }
+
+    public StringValue(long number) {
+        super(DataType.STRING);
+        this.number = number;
+    }
+
+    // An integer costs nothing beyond the value object, like Redis' shared integers
+    private void encode(byte[] bytes) {
+        if (isInteger(bytes, bytes.length)) {
+            this.number = Long.parseLong(ByteStrings.decode(bytes));
+        } else {
+            this.bytes = bytes;
+            this.length = bytes.length;
+            resize(MemoryEstimate.bytes(bytes.length));
+        }
     }
 
     @Override
     public Object getValue() {
-        return value;
+        return getString();
+    }
+
+    public synchronized String getString(){
+        return bytes != null ? ByteStrings.decode(bytes, 0, length) : Long.toString(number);
+    }
+
+    /**
+     * The bytes of the value, to be read only: they are the stored ones
+     * unless the value is an integer or has room to grow.
+     */
+    public synchronized byte[] getBytes() {
+        if (bytes == null) {
+            return ByteStrings.encode(Long.toString(number));
+        }
+        // A raw buffer is written in place, so it is never handed out
+        return raw || length != bytes.length ? Arrays.copyOf(bytes, length) : bytes;
+    }
+
+    /**
+     * Hands the stored bytes to the reader, which must not keep or change
+     * them; no writer gets in until it returns.
+     */
+    public synchronized void readBytes(BytesReader reader) {
+        if (bytes == null) {
+            byte[] digits = ByteStrings.encode(Long.toString(number));
+            reader.read(digits, 0, digits.length);
+        } else {
+            reader.read(bytes, 0, length);
+        }
+    }
+
+    public synchronized void setString(String value) {
+        byte[] bytes = ByteStrings.encode(value);
+        long previous = this.bytes != null ? MemoryEstimate.bytes(this.bytes.length) : 0;
+        resize(MemoryEstimate.bytes(bytes.length) - previous);
+        this.bytes = bytes;
+        this.length = bytes.length;
+        this.raw = false;
+    }
+
+    /**
+     * Length in bytes, an integer counting the digits it prints with.
+     */
+    public synchronized int length() {
+        return bytes != null ? length : Long.toString(number).length();
+    }
+
+    /**
+     * The bytes from start to end inclusive, with negative offsets counted
+     * from the end and both clamped to the value as GETRANGE does. Only the
+     * slice is copied.
+     */
+    public synchronized byte[] getRange(long start, long end) {
+        if (bytes == null) {
+            byte[] digits = ByteStrings.encode(Long.toString(number));
+            return slice(digits, digits.length, start, end);
+        }
+        return slice(bytes, length, start, end);
+    }
+
+    private static byte[] slice(byte[] bytes, int length, long start, long end) {
+        if (start < 0) {
+            start = Math.max(0, length + start);
+        }
+        if (end < 0) {
+            end = Math.max(0, length + end);
+        }
+        end = Math.min(end, length - 1L);
+        if (length == 0 || start > end) {
+            return new byte[0];
+        }
+        return Arrays.copyOfRange(bytes, (int) start, (int) end + 1);
+    }
+
+    /**
+     * Appends the bytes in place and returns the new length.
+     */
+    public synchronized int append(byte[] suffix) {
+        int newLength = length() + suffix.length;
+        makeWritable(newLength);
+        System.arraycopy(suffix, 0, bytes, length, suffix.length);
+        length = newLength;
+        return length;
     }
 
-    public String getString(){
-        return value;
+    /**
+     * Overwrites the bytes at the offset, padding with zero bytes up to it
+     * when the value is shorter, and returns the new length.
+     */
+    public synchronized int setRange(int offset, byte[] value) {
+        extend(offset + value.length);
+        System.arraycopy(value, 0, bytes, offset, value.length);
+        return length;
     }
-    
+
+    public synchronized int getBit(long offset) {
+        return (int) Bitmaps.get(data(), length(), offset, 1);
+    }
+
+    /**
+     * Sets or clears the bit at the offset, growing the value with zero
+     * bytes to reach it, and returns the bit it held.
+     */
+    public synchronized int setBit(long offset, int bit) {
+        int previous = getBit(offset);
+        extend((int) (offset >>> 3) + 1);
+        Bitmaps.set(bytes, offset, 1, bit);
+        return previous;
+    }
+
+    /**
+     * BITCOUNT over the range, in bytes or in bits, clamped as GETRANGE does.
+     */
+    public synchronized long bitCount(long start, long end, boolean bitUnit) {
+        long[] range = bitRange(start, end, bitUnit);
+        return range != null ? Bitmaps.count(data(), range[0], range[1]) : 0;
+    }
+
+    /**
+     * BITPOS over the range, in bytes or in bits. Without an end, the value
+     * counts as followed by clear bits, so a clear bit is always found.
+     */
+    public synchronized long bitPos(int bit, long start, long end, boolean endGiven, boolean bitUnit) {
+        long[] range = bitRange(start, end, bitUnit);
+        if (range == null) {
+            return -1;
+        }
+        long position = Bitmaps.position(data(), bit, range[0], range[1]);
+        if (position == -1 && bit == 0 && !endGiven) {
+            return (long) length() * 8;
+        }
+        return position;
+    }
+
+    /**
+     * The width bits from the bit offset as an unsigned number, 0 past the end.
+     */
+    public synchronized long getBits(long offset, int width) {
+        return Bitmaps.get(data(), length(), offset, width);
+    }
+
+    /**
+     * Writes the low width bits of the value from the bit offset.
+     */
+    public synchronized void setBits(long offset, int width, long value) {
+        extend((int) ((offset + width + 7) >>> 3));
+        Bitmaps.set(bytes, offset, width, value);
+    }
+
+    /**
+     * Pads the value with zero bytes up to the given number of bits, when
+     * it is shorter.
+     */
+    public synchronized void extendToBits(long bits) {
+        if (bits > (long) length() * 8) {
+            extend((int) ((bits + 7) >>> 3));
+        }
+    }
+
+    // Bit offsets and byte offsets to the first and last bit of the range, null when it is empty
+    private long[] bitRange(long start, long end, boolean bitUnit) {
+        long total = bitUnit ? (long) length() * 8 : length();
+        if (start < 0) {
+            start = Math.max(0, total + start);
+        }
+        if (end < 0) {
+            end = Math.max(0, total + end);
+        }
+        end = Math.min(end, total - 1);
+        if (total == 0 || start > end) {
+            return null;
+        }
+        return bitUnit ? new long[] { start, end } : new long[] { start * 8, end * 8 + 7 };
+    }
+
+    // The bytes to read from, the digits of an integer
+    private byte[] data() {
+        return bytes != null ? bytes : ByteStrings.encode(Long.toString(number));
+    }
+
+    // Makes the value a raw buffer at least newLength long, zero-padded
+    private void extend(int newLength) {
+        makeWritable(Math.max(newLength, length()));
+        if (newLength > length) {
+            // Room past the length may hold bytes of an earlier, longer value
+            Arrays.fill(bytes, length, newLength, (byte) 0);
+            length = newLength;
+        }
+    }
+
+    /**
+     * Makes the value a raw buffer with room for the given length. An integer
+     * or an array getBytes may have handed out is first copied into a buffer
+     * of its own, growing ones by doubling the length they need.
+     */
+    private void makeWritable(int needed) {
+        if (bytes == null) {
+            byte[] digits = ByteStrings.encode(Long.toString(number));
+            bytes = digits;
+            length = digits.length;
+            resize(MemoryEstimate.bytes(digits.length));
+        } else if (raw && needed <= bytes.length) {
+            return;
+        }
+        long capacity = needed < MAX_PREALLOC ? needed * 2L : (long) needed + MAX_PREALLOC;
+        byte[] grown = Arrays.copyOf(bytes, (int) Math.min(capacity, MAX_CAPACITY));
+        resize(MemoryEstimate.bytes(grown.length) - MemoryEstimate.bytes(bytes.length));
+        bytes = grown;
+        raw = true;
+    }
+
+    /**
+     * Adds to the value as a long, switching it to the integer encoding.
+     *
+     * @throws NumberFormatException when the value is not an integer
+     * @throws ArithmeticException when the result overflows a long
+     */
+    public synchronized long incrBy(long increment) {
+        if (bytes != null) {
+            if (!isInteger(bytes, length)) {
+                throw new NumberFormatException();
+            }
+            number = Long.parseLong(ByteStrings.decode(bytes, 0, length));
+            resize(-MemoryEstimate.bytes(bytes.length));
+            bytes = null;
+            raw = false;
+        }
+        number = Math.addExact(number, increment);
+        return number;
+    }
+
+    /**
+     * OBJECT ENCODING: int, embstr or raw.
+     */
+    public synchronized String getEncoding() {
+        if (bytes == null) {
+            return "int";
+        }
+        return raw || length > EMBSTR_MAX_LENGTH ? "raw" : "embstr";
+    }
+
+    /**
+     * Whether the string is exactly how a long prints: no sign but a minus,
+     * no leading zeros, no "-0", within range.
+     */
+    private static boolean isInteger(byte[] s, int length) {
+        if (length == 0 || length > MAX_INTEGER_LENGTH) {
+            return false;
+        }
+        int start = s[0] == '-' ? 1 : 0;
+        if (start == length || (s[start] == '0' && length > 1)) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            byte c = s[i];
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        if (length < MAX_INTEGER_LENGTH - 1) {
+            return true;
+        }
+        try {
+            Long.parseLong(ByteStrings.decode(s, 0, length));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a float the way Redis does: plain decimal or exponent notation,
+     * without the surrounding spaces, type suffixes or hex forms Java also
+     * accepts.
+     *
+     * @throws NumberFormatException when it is not a float
+     */
+    public static double parseDouble(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+                throw new NumberFormatException(s);
+            }
+        }
+        return Double.parseDouble(s);
+    }
+
 }
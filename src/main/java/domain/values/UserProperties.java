@@ -1,9 +1,9 @@
 package domain.values;
 
+import command.acl.AclPermissions;
 import domain.DataType;
 import domain.RedisValue;
 
-import java.sql.SQLOutput;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -11,6 +11,8 @@ import java.util.Map;
 
 public class UserProperties extends RedisValue {
     private final Map<String, List<String>> userProperties;
+    // The "commands" and "keys" rules compiled, replaced whenever they change
+    private volatile AclPermissions permissions;
 
     public UserProperties() {
         super(DataType.PROPERTY_VALUE);
@@ -25,7 +27,22 @@ public class UserProperties extends RedisValue {
 
     @Override
     public Map<String, List<String>> getValue() {
-        System.out.println("userProperties = " + userProperties);
         return userProperties;
     }
+
+    public AclPermissions getPermissions() {
+        return permissions;
+    }
+
+    public void setPermissions(AclPermissions permissions) {
+        this.permissions = permissions;
+    }
+
+    public boolean isEnabled() {
+        return !userProperties.get("flags").contains("off");
+    }
+
+    public boolean isPasswordless() {
+        return userProperties.get("flags").contains("nopass");
+    }
 }
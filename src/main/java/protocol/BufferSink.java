@@ -0,0 +1,16 @@
+package protocol;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An output that takes over an encoder's buffer instead of having its
+ * content copied out, see {@link RESPEncoder#writeTo(java.io.OutputStream)}.
+ */
+public interface BufferSink {
+
+    /**
+     * Takes the buffer, flipped for reading. The caller must not use it
+     * afterwards; the sink gives it back to the BufferPool once written.
+     */
+    void writeBuffer(ByteBuffer buffer);
+}
@@ -0,0 +1,20 @@
+package protocol;
+
+import java.util.function.Consumer;
+
+/**
+ * A reply handed out by {@link ReplySink#deferReply()}. Whatever thread has
+ * the answer (a push, a timer, a replica's ACK) completes it; the reply is
+ * written and flushed right away and the connection moves on to its next
+ * request. Only the first completion counts.
+ */
+public interface DeferredReply {
+    void complete(Consumer<ReplySink> reply);
+
+    /**
+     * Runs the cancellation if the client goes away before the reply is
+     * completed, so nothing keeps waiting on its behalf; right away when it
+     * is already gone.
+     */
+    void onCancel(Runnable cancellation);
+}
@@ -0,0 +1,122 @@
+package protocol;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import util.ByteStrings;
+
+/**
+ * The arguments of one parsed request, kept as slices of the read buffer.
+ *
+ * An argument is decoded to a String the first time it is read, so bytes
+ * that are never looked at are never copied. Decoding maps each byte to one
+ * char, see {@link ByteStrings}, so binary arguments arrive intact. The container belongs to its
+ * {@link RESPParser} and is reused for the next request: it is only valid
+ * until the parser runs again or the buffer is compacted. Callers that keep
+ * arguments around (queued transactions, work handed to another thread) must
+ * copy them first, e.g. with {@code List.copyOf}.
+ */
+public class RESPArguments extends AbstractList<String> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private ByteBuffer buffer;
+    private int base;
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private String[] decoded = new String[INITIAL_CAPACITY];
+    private int size;
+    private int frameLength;
+
+    RESPArguments() {
+    }
+
+    void reset() {
+        Arrays.fill(decoded, 0, size, null);
+        size = 0;
+        buffer = null;
+    }
+
+    void add(int offset, int length) {
+        if (size == offsets.length) {
+            // Grow as elements arrive rather than trusting the announced count
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            decoded = Arrays.copyOf(decoded, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = length;
+        size++;
+    }
+
+    /**
+     * Binds the collected slices to the frame that starts at {@code base}.
+     */
+    void bind(ByteBuffer buffer, int base, int frameLength) {
+        this.buffer = buffer;
+        this.base = base;
+        this.frameLength = frameLength;
+    }
+
+    int count() {
+        return size;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        String value = decoded[index];
+        if (value == null) {
+            value = decode(base + offsets[index], lengths[index]);
+            decoded[index] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Length in bytes of the argument, without decoding it.
+     */
+    public int byteLength(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return lengths[index];
+    }
+
+    /**
+     * One byte of the argument, read from the buffer so names can be matched
+     * without decoding them.
+     */
+    public byte byteAt(int index, int position) {
+        if (position < 0 || position >= byteLength(index)) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Length: " + lengths[index]);
+        }
+        return buffer.get(base + offsets[index] + position);
+    }
+
+    /**
+     * Number of bytes the whole request occupied on the wire.
+     */
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    private String decode(int offset, int length) {
+        if (buffer.hasArray()) {
+            return ByteStrings.decode(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return ByteStrings.decode(bytes);
+    }
+}
@@ -0,0 +1,304 @@
+package protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import protocol.errorenum.ErrorType;
+import util.BufferPool;
+import util.ByteStrings;
+
+/**
+ * Writes RESP frames straight into a pooled output buffer.
+ *
+ * Strings are written a byte per char as {@link ByteStrings} describes,
+ * byte arrays are copied as is and numbers are written digit by digit, so
+ * building a reply allocates nothing besides the buffer itself.
+ * The buffer is taken from the {@link BufferPool} on the first write and
+ * handed back once its content has been written out.
+ *
+ * An encoder is not thread-safe; ClientConnection guards its own instance.
+ * On its own it serves as a ReplySink that captures a reply in memory.
+ */
+public class RESPEncoder implements ReplySink {
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] NULL_BULK_STRING = { '$', '-', '1', '\r', '\n' };
+    private static final byte[] NULL_ARRAY = { '*', '-', '1', '\r', '\n' };
+    private static final byte[] EMPTY_ARRAY = { '*', '0', '\r', '\n' };
+    private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE).getBytes();
+    // Longest decimal representation of a long, including the sign
+    private static final int MAX_LONG_DIGITS = 20;
+
+    private final BufferPool bufferPool;
+    private ByteBuffer buffer;
+
+    public RESPEncoder() {
+        this.bufferPool = BufferPool.getInstance();
+    }
+
+    /* ========== FRAMES ========== */
+
+    @Override
+    public void writeSimpleString(String message) {
+        ensureCapacity(1 + ByteStrings.length(message) + 2);
+        buffer.put((byte) '+');
+        ByteStrings.put(message, buffer);
+        buffer.put(CRLF);
+    }
+
+    @Override
+    public void writeError(String message) {
+        writeError(ErrorType.ERR, message);
+    }
+
+    @Override
+    public void writeError(ErrorType errorType, String message) {
+        String type = errorType.name();
+        ensureCapacity(1 + type.length() + 1 + ByteStrings.length(message) + 2);
+        buffer.put((byte) '-');
+        ByteStrings.put(type, buffer);
+        buffer.put((byte) ' ');
+        ByteStrings.put(message, buffer);
+        buffer.put(CRLF);
+    }
+
+    @Override
+    public void writeInteger(long number) {
+        ensureCapacity(1 + MAX_LONG_DIGITS + 2);
+        buffer.put((byte) ':');
+        putLong(number);
+        buffer.put(CRLF);
+    }
+
+    @Override
+    public void writeBulkString(String message) {
+        if (message == null) {
+            writeNullBulkString();
+            return;
+        }
+        int length = ByteStrings.length(message);
+        ensureCapacity(1 + MAX_LONG_DIGITS + 2 + length + 2);
+        buffer.put((byte) '$');
+        putLong(length);
+        buffer.put(CRLF);
+        ByteStrings.put(message, buffer);
+        buffer.put(CRLF);
+    }
+
+    @Override
+    public void writeBulkString(byte[] data) {
+        if (data == null) {
+            writeNullBulkString();
+            return;
+        }
+        writeBulkString(data, 0, data.length);
+    }
+
+    @Override
+    public void writeBulkString(byte[] data, int offset, int length) {
+        ensureCapacity(1 + MAX_LONG_DIGITS + 2 + length + 2);
+        buffer.put((byte) '$');
+        putLong(length);
+        buffer.put(CRLF);
+        buffer.put(data, offset, length);
+        buffer.put(CRLF);
+    }
+
+    /**
+     * A number sent as a bulk string, the way Redis returns scores and counters.
+     */
+    @Override
+    public void writeBulkString(long number) {
+        ensureCapacity(1 + 2 + 2 + MAX_LONG_DIGITS + 2);
+        buffer.put((byte) '$');
+        putLong(digits(number));
+        buffer.put(CRLF);
+        putLong(number);
+        buffer.put(CRLF);
+    }
+
+    /**
+     * A double sent as a bulk string. Whole numbers are written without a
+     * fraction, like ZSCORE has always replied.
+     */
+    @Override
+    public void writeBulkString(double number) {
+        if (number == Math.floor(number) && !Double.isInfinite(number)
+                && Math.abs(number) < Long.MAX_VALUE) {
+            writeBulkString((long) number);
+            return;
+        }
+        writeBulkString(Double.toString(number));
+    }
+
+    @Override
+    public void writeNullBulkString() {
+        ensureCapacity(NULL_BULK_STRING.length);
+        buffer.put(NULL_BULK_STRING);
+    }
+
+    @Override
+    public void writeArrayHeader(int size) {
+        ensureCapacity(1 + MAX_LONG_DIGITS + 2);
+        buffer.put((byte) '*');
+        putLong(size);
+        buffer.put(CRLF);
+    }
+
+    @Override
+    public void writeNullArray() {
+        ensureCapacity(NULL_ARRAY.length);
+        buffer.put(NULL_ARRAY);
+    }
+
+    @Override
+    public void writeEmptyArray() {
+        ensureCapacity(EMPTY_ARRAY.length);
+        buffer.put(EMPTY_ARRAY);
+    }
+
+    /**
+     * An array of bulk strings; a null list is sent as a null array.
+     */
+    @Override
+    public void writeArray(List<String> values) {
+        if (values == null) {
+            writeNullArray();
+            return;
+        }
+        writeArrayHeader(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            writeBulkString(values.get(i));
+        }
+    }
+
+    @Override
+    public void writeRaw(byte[] data) {
+        ensureCapacity(data.length);
+        buffer.put(data);
+    }
+
+    /* ========== OUTPUT ========== */
+
+    public boolean isEmpty() {
+        return buffer == null || buffer.position() == 0;
+    }
+
+    /**
+     * Writes everything encoded so far to the stream in a single call and gives
+     * the buffer back to the pool. A stream that is a {@link BufferSink} takes
+     * the buffer itself, no copy is made.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (isEmpty()) {
+            return;
+        }
+        if (outputStream instanceof BufferSink sink) {
+            ByteBuffer encoded = buffer;
+            buffer = null;
+            encoded.flip();
+            sink.writeBuffer(encoded);
+            return;
+        }
+        try {
+            outputStream.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        } finally {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Drops everything encoded so far.
+     */
+    public void reset() {
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Copies everything encoded so far into a new array and gives the buffer
+     * back to the pool.
+     */
+    public byte[] toByteArray() {
+        if (isEmpty()) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        bufferPool.release(buffer);
+        buffer = null;
+        return bytes;
+    }
+
+    /* ========== SIZES ========== */
+
+    /**
+     * Number of bytes {@link #writeArray(List)} produces for these values, without
+     * encoding them. Used to advance replication offsets.
+     */
+    public static long arraySize(List<String> values) {
+        long size = 1 + digits(values.size()) + 2;
+        for (String value : values) {
+            int length = ByteStrings.length(value);
+            size += 1 + digits(length) + 2 + length + 2;
+        }
+        return size;
+    }
+
+    /* ========== PRIVATE HELPERS ========== */
+
+    private void ensureCapacity(int required) {
+        if (buffer == null) {
+            buffer = bufferPool.acquire();
+        }
+        if (buffer.remaining() >= required) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < required) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        bufferPool.release(buffer);
+        buffer = larger;
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            buffer.put(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int count = digits(value);
+        int end = buffer.position() + count;
+        for (int i = end - 1; i >= buffer.position(); i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    // Characters needed to print the value, including the minus sign
+    private static int digits(long value) {
+        if (value == Long.MIN_VALUE) {
+            return MIN_LONG.length;
+        }
+        int count = value < 0 ? 2 : 1;
+        long remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            count++;
+        }
+        return count;
+    }
+}
@@ -1,33 +1,156 @@
 package protocol;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 
+/**
+ * Incremental parser for client requests (*N followed by N bulk strings)
+ * working directly on the bytes of a ByteBuffer.
+ *
+ * A parser belongs to one connection. When a frame is split across reads,
+ * parse returns null and leaves the buffer position at the start of the
+ * frame; the elements already parsed are remembered relative to that start,
+ * so the next call resumes where it stopped even if the buffer was compacted
+ * in between. Lines that do not start a RESP array are skipped.
+ */
 public class RESPParser {
 
-    public static List<String> parseRequest(int numElements, BufferedReader reader) throws IOException {
-        List<String> result = new ArrayList<>();
+    // Same limit as Redis' proto-max-bulk-len
+    private static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    // Longest line without CRLF, like Redis' PROTO_INLINE_MAX_SIZE: junk fails fast
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    // Same limit as Redis' client-query-buffer-limit
+    public static final int QUERY_BUFFER_LIMIT = 1024 * 1024 * 1024;
 
-        String line;
+    private final RESPArguments arguments = new RESPArguments();
 
-        for (int i = 0; i < numElements; i++) {
-            line = reader.readLine();
-            if (line == null || !line.startsWith("$")) {
-                throw new IOException("Invalid RESP bulk string");
+    // Elements in the frame being parsed, -1 while waiting for a *N header
+    private int expectedElements = -1;
+    // Length of the bulk string being parsed, -1 while waiting for its $N header
+    private int bulkLength = -1;
+    // Parse position relative to the start of the current frame
+    private int cursor = 0;
+
+    /**
+     * Parses the next complete request from the readable bytes of the buffer.
+     *
+     * @param buffer buffer in read mode (after flip)
+     * @return the request arguments, or null if more input is needed. The
+     *         returned container is reused by the next call.
+     * @throws IOException if the bytes are not a valid RESP request
+     */
+    public RESPArguments parse(ByteBuffer buffer) throws IOException {
+        int frameStart = buffer.position();
+        int limit = buffer.limit();
+
+        while (expectedElements < 0) {
+            if (frameStart >= limit) {
+                return null;
+            }
+            int lineEnd = findCRLF(buffer, frameStart, limit);
+            if (lineEnd < 0) {
+                checkLineLength(frameStart, limit);
+                return null;
+            }
+            if (buffer.get(frameStart) != '*') {
+                frameStart = lineEnd + 2;
+                buffer.position(frameStart);
+                continue;
+            }
+            int numElements = parseInt(buffer, frameStart + 1, lineEnd);
+            if (numElements <= 0) {
+                frameStart = lineEnd + 2;
+                buffer.position(frameStart);
+                continue;
+            }
+            expectedElements = numElements;
+            arguments.reset();
+            cursor = lineEnd + 2 - frameStart;
+        }
+
+        while (arguments.count() < expectedElements) {
+            int at = frameStart + cursor;
+            if (bulkLength < 0) {
+                int headerEnd = findCRLF(buffer, at, limit);
+                if (headerEnd < 0) {
+                    checkLineLength(at, limit);
+                    return null;
+                }
+                if (buffer.get(at) != '$') {
+                    throw new IOException("Invalid RESP bulk string");
+                }
+                bulkLength = parseInt(buffer, at + 1, headerEnd);
+                if (bulkLength < 0 || bulkLength > MAX_BULK_LENGTH) {
+                    throw new IOException("Invalid RESP bulk string length");
+                }
+                cursor = headerEnd + 2 - frameStart;
+                at = frameStart + cursor;
+            }
+            if (limit - at < bulkLength + 2) {
+                return null;
             }
-            int strLength = Integer.parseInt(line.substring(1));
-            char[] strChars = new char[strLength];
-            int read = reader.read(strChars, 0, strLength);
-            if (read != strLength) {
-                throw new IOException("Could not read full bulk string");
+            arguments.add(cursor, bulkLength);
+            cursor += bulkLength + 2; // skip the trailing \r\n
+            bulkLength = -1;
+        }
+
+        arguments.bind(buffer, frameStart, cursor);
+        buffer.position(frameStart + cursor);
+        expectedElements = -1;
+        cursor = 0;
+        return arguments;
+    }
+
+    /**
+     * Returns a buffer twice as large holding the bytes of a full one, for a
+     * request that does not fit, in write mode like the buffer given.
+     *
+     * @throws IOException once the buffer would pass {@link #QUERY_BUFFER_LIMIT},
+     *         a client sending a request that large or bytes that never form
+     *         one is closed
+     */
+    public static ByteBuffer grow(ByteBuffer full) throws IOException {
+        if (full.capacity() >= QUERY_BUFFER_LIMIT) {
+            throw new IOException("Query buffer limit exceeded");
+        }
+        ByteBuffer larger = ByteBuffer.allocate((int) Math.min(2L * full.capacity(), QUERY_BUFFER_LIMIT));
+        full.flip();
+        larger.put(full);
+        return larger;
+    }
+
+    private static void checkLineLength(int from, int limit) throws IOException {
+        if (limit - from > MAX_LINE_LENGTH) {
+            throw new IOException("Protocol error: too big inline request");
+        }
+    }
+
+    private static int findCRLF(ByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit - 1; i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                return i;
             }
-            reader.readLine(); // Read the trailing \r\n
-            result.add(new String(strChars));
         }
+        return -1;
+    }
 
-        return result;
+    private static int parseInt(ByteBuffer buffer, int from, int to) throws IOException {
+        if (from >= to) {
+            throw new IOException("Invalid RESP length");
+        }
+        boolean negative = buffer.get(from) == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid RESP length");
+            }
+            value = value * 10 + (b - '0');
+        }
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid RESP length");
+        }
+        return (int) (negative ? -value : value);
     }
 
 }
@@ -0,0 +1,64 @@
+package protocol;
+
+import java.util.List;
+
+import protocol.errorenum.ErrorType;
+
+/**
+ * Write-only destination for a command's reply.
+ *
+ * Handlers only describe the reply; when the bytes reach the socket is up to
+ * the connection layer, which flushes once per batch of pipelined requests.
+ */
+public interface ReplySink {
+    void writeSimpleString(String message);
+
+    void writeError(String message);
+
+    void writeError(ErrorType errorType, String message);
+
+    void writeInteger(long number);
+
+    void writeBulkString(String message);
+
+    void writeBulkString(byte[] data);
+
+    /**
+     * The given part of the array as a bulk string, copied before returning.
+     */
+    void writeBulkString(byte[] data, int offset, int length);
+
+    void writeBulkString(long number);
+
+    void writeBulkString(double number);
+
+    void writeNullBulkString();
+
+    void writeArrayHeader(int size);
+
+    void writeNullArray();
+
+    void writeEmptyArray();
+
+    /**
+     * An array of bulk strings; a null list is sent as a null array.
+     */
+    void writeArray(List<String> values);
+
+    /**
+     * Bytes that are already valid RESP, copied as is.
+     */
+    void writeRaw(byte[] data);
+
+    /**
+     * Reserves this position in the reply stream for a reply that only becomes
+     * known later, like a BLPOP waiting for a push. Requests after it are not
+     * answered before it completes.
+     *
+     * @return the handle completing the reply, or null when the sink cannot
+     *         wait (a transaction being executed): the command must answer now
+     */
+    default DeferredReply deferReply() {
+        return null;
+    }
+}
@@ -3,6 +3,9 @@ package protocol.errorenum;
 public enum ErrorType {
     ERR,
     WRONGPASS,
-    NOAUTH
+    NOAUTH,
+    NOPERM,
+    WRONGTYPE,
+    OOM
 
 }
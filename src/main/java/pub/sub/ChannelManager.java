@@ -4,7 +4,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
-import protocol.RESPSerializer;
 import server.connection.entity.ClientConnection;
 
 public class ChannelManager {
@@ -44,10 +43,6 @@ public class ChannelManager {
         return channels;
     }
 
-    public boolean isInSubscribeMode(String subscriberId) {
-        return channelSubscribers.containsKey(subscriberId);
-    }
-
     public boolean isSubscribeModeCommand(String commandName) {
         return commandName.equalsIgnoreCase("SUBSCRIBE") ||
                 commandName.equalsIgnoreCase("PSUBSCRIBE") ||
@@ -66,8 +61,7 @@ public class ChannelManager {
         for (ClientConnection subscriber : subscribers) {
             try {
                 List<String> response = List.of("message", channelName, message);
-                subscriber.write(RESPSerializer.array(response));
-                subscriber.flush();
+                subscriber.pushArray(response);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -1,10 +1,12 @@
 package rdb;
 
 import rdb.util.RDBLengthEncoding;
+import storage.SelectedDatabase;
 import storage.DataStore;
 import domain.DataType;
 import domain.RedisValue;
 import domain.values.StringValue;
+import util.GlobMatcher;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -17,7 +19,6 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 /**
  * High-level manager for RDB persistence operations.
@@ -72,13 +73,14 @@ public class RDBManager {
      * Saves the entire database to the RDB file.
      * 
      * Process:
-     * 1. Get all keys from the data store
-     * 2. Create the RDB file (or overwrite if exists)
-     * 3. Write header
-     * 4. Write SELECTDB for database 0
-     * 5. Write all key-value pairs (currently only STRING types)
-     * 6. Write EOF marker
-     * 7. Write checksum
+     * 1. Create the RDB file (or overwrite if exists)
+     * 2. Write header
+     * 3. For each database holding keys, write SELECTDB and its key-value
+     *    pairs (currently only STRING types)
+     * 4. Write EOF marker
+     * 5. Write checksum
+     *
+     * Must run while no command changes keys, like SAVE does with every shard parked.
      * 
      * @throws IOException If an I/O error occurs
      * @throws RDBException If an RDB-specific error occurs
@@ -91,9 +93,6 @@ public class RDBManager {
             Files.createDirectories(directory);
         }
         
-        // Get all keys
-        Set<String> keys = dataStore.getAllKeys();
-        
         // Open file and write RDB format
         try (FileOutputStream fileOut = new FileOutputStream(rdbFilePath);
              BufferedOutputStream bufferedOut = new BufferedOutputStream(fileOut)) {
@@ -103,48 +102,30 @@ public class RDBManager {
             // 1. Write header: "REDIS0009"
             writer.writeHeader();
             
-            // 2. Write SELECTDB for database 0
-            writer.writeSelectDB(RDBConstants.DEFAULT_DATABASE);
-            
-            // 3. Write all key-value pairs
+            // 2. Write each database that holds keys
             int savedCount = 0;
             int skippedCount = 0;
-            
-            for (String key : keys) {
-                RedisValue value = dataStore.getValue(key);
-                
-                // Skip if value is null (expired or deleted)
-                if (value == null) {
-                    skippedCount++;
-                    continue;
-                }
-                
-                // Skip if expired
-                if (value.isExpired()) {
-                    skippedCount++;
-                    continue;
-                }
-                
-                // Currently only support STRING type
-                DataType type = dataStore.getType(key);
-                if (type != DataType.STRING) {
-                    skippedCount++;
-                    continue; // Skip non-string types for now
-                }
-                
-                try {
-                    writer.writeKeyValuePair(key, value);
-                    savedCount++;
-                } catch (UnsupportedOperationException e) {
-                    // Skip unsupported types
-                    skippedCount++;
+            int selected = SelectedDatabase.get();
+            try {
+                for (int db = 0; db < dataStore.getDatabaseCount(); db++) {
+                    SelectedDatabase.set(db);
+                    Set<String> keys = dataStore.getAllKeys();
+                    if (keys.isEmpty()) {
+                        continue;
+                    }
+                    writer.writeSelectDB(db);
+                    int saved = saveKeys(writer, keys);
+                    savedCount += saved;
+                    skippedCount += keys.size() - saved;
                 }
+            } finally {
+                SelectedDatabase.set(selected);
             }
             
-            // 4. Write EOF marker
+            // 3. Write EOF marker
             writer.writeEOF();
             
-            // 5. Write checksum (zeros for now)
+            // 4. Write checksum (zeros for now)
             writer.writeChecksum();
             
             // Flush to disk
@@ -153,6 +134,36 @@ public class RDBManager {
             System.out.println("RDB save completed: " + savedCount + " keys saved, " + skippedCount + " keys skipped");
         }
     }
+
+    /**
+     * Writes the key-value pairs of the selected database.
+     *
+     * @return the number of keys saved, the others were expired or of unsupported types
+     */
+    private int saveKeys(RDBWriter writer, Set<String> keys) throws IOException {
+        int savedCount = 0;
+        for (String key : keys) {
+            RedisValue value = dataStore.getValue(key);
+            
+            // Skip if value is null (expired or deleted) or expired
+            if (value == null || value.isExpired()) {
+                continue;
+            }
+            
+            // Currently only support STRING type
+            if (dataStore.getType(key) != DataType.STRING) {
+                continue; // Skip non-string types for now
+            }
+            
+            try {
+                writer.writeKeyValuePair(key, value);
+                savedCount++;
+            } catch (UnsupportedOperationException e) {
+                // Skip unsupported types
+            }
+        }
+        return savedCount;
+    }
     
     /**
      * Loads an RDB file into the data store.
@@ -161,7 +172,7 @@ public class RDBManager {
      * 1. Check if file exists
      * 2. Open file and read header
      * 3. Read opcodes and process them:
-     *    - SELECTDB: Switch database (currently only DB 0 supported)
+     *    - SELECTDB: Switch database, the keys after it are loaded into that one
      *    - EXPIRETIME/EXPIRETIMEMS: Read expiry timestamp
      *    - VALUE_TYPE: Read key-value pair
      *    - EOF: End of file
@@ -210,9 +221,11 @@ public class RDBManager {
                     case RDBConstants.SELECTDB_OPCODE:
                         // Database selector
                         int dbNumber = reader.readSelectDB();
-                        if (dbNumber != 0) {
-                            throw new RDBException("Only database 0 is supported, got database " + dbNumber);
+                        if (dbNumber >= dataStore.getDatabaseCount()) {
+                            throw new RDBException("Database " + dbNumber + " is out of range for "
+                                    + dataStore.getDatabaseCount() + " databases");
                         }
+                        SelectedDatabase.set(dbNumber);
                         break;
                         
                     case RDBConstants.EXPIRETIMEMS_OPCODE:
@@ -267,6 +280,9 @@ public class RDBManager {
             reader.readChecksum();
             
             System.out.println("RDB load completed: " + loadedCount + " keys loaded, " + skippedCount + " keys skipped");
+        } finally {
+            // Loading runs on the thread that goes on to start the server
+            SelectedDatabase.set(0);
         }
     }
     
@@ -360,6 +376,7 @@ public class RDBManager {
      */
     public List<String> findKeysInRDBFile(String pattern) {
         List<String> matchingKeys = new ArrayList<>();
+        GlobMatcher matcher = GlobMatcher.cached(pattern);
         
         // Check if file exists
         if (!fileExists()) {
@@ -418,7 +435,7 @@ public class RDBManager {
                                 RDBReader.RDBKeyValue keyValue = reader.readKeyValue(opcode);
                                 
                                 // Check if key matches pattern
-                                if (matchesGlobPattern(keyValue.getKey(), pattern)) {
+                                if (matcher.matches(keyValue.getKey())) {
                                     // Skip expired keys
                                     if (!keyValue.hasExpiry() || keyValue.getExpiryTime() >= System.currentTimeMillis()) {
                                         matchingKeys.add(keyValue.getKey());
@@ -439,63 +456,4 @@ public class RDBManager {
         
         return matchingKeys;
     }
-    
-    /**
-     * Matches a string against a Redis-style glob pattern.
-     * 
-     * @param text The text to match
-     * @param pattern The glob pattern
-     * @return true if the text matches the pattern
-     */
-    private boolean matchesGlobPattern(String text, String pattern) {
-        // Convert glob pattern to regex
-        String regex = globToRegex(pattern);
-        return text.matches(regex);
-    }
-    
-    /**
-     * Converts a Redis glob pattern to a Java regex.
-     * 
-     * @param glob The glob pattern
-     * @return The equivalent regex pattern
-     */
-    private String globToRegex(String glob) {
-        StringBuilder regex = new StringBuilder("^");
-        boolean inEscape = false;
-        boolean inCharClass = false;
-        
-        for (int i = 0; i < glob.length(); i++) {
-            char c = glob.charAt(i);
-            
-            if (inEscape) {
-                // Escape the character for regex
-                regex.append(Pattern.quote(String.valueOf(c)));
-                inEscape = false;
-            } else if (c == '\\') {
-                inEscape = true;
-            } else if (c == '*') {
-                regex.append(".*");
-            } else if (c == '?') {
-                regex.append(".");
-            } else if (c == '[') {
-                regex.append('[');
-                inCharClass = true;
-            } else if (c == ']' && inCharClass) {
-                regex.append(']');
-                inCharClass = false;
-            } else if (inCharClass) {
-                // Inside character class, keep as-is
-                regex.append(c);
-            } else {
-                // Regular character - escape regex special chars
-                if ("(){}+|^$.".indexOf(c) >= 0) {
-                    regex.append('\\');
-                }
-                regex.append(c);
-            }
-        }
-        
-        regex.append("$");
-        return regex.toString();
-    }
 }
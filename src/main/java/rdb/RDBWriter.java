@@ -126,7 +126,7 @@ public class RDBWriter {
         switch (value.getType()) {
             case STRING:
                 StringValue stringValue = (StringValue) value;
-                RDBStringEncoder.encodeString(stringValue.getString(), out);
+                RDBStringEncoder.encodeBytes(stringValue.getBytes(), out);
                 break;
             case LIST:
                 throw new UnsupportedOperationException("LIST encoding not yet implemented");
@@ -2,10 +2,10 @@ package rdb.util;
 
 import rdb.RDBConstants;
 import rdb.util.RDBLengthEncoding.LengthEncodingResult;
+import util.ByteStrings;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Utility class for decoding strings from RDB format.
@@ -43,7 +43,8 @@ public class RDBStringDecoder {
             throw new IOException("Unexpected end of stream while reading string. Expected " + length + " bytes, got " + bytesRead);
         }
         
-        return new String(bytes, StandardCharsets.UTF_8);
+        // One char per byte, like strings read from clients
+        return ByteStrings.decode(bytes);
     }
     
     /**
@@ -3,7 +3,8 @@ package rdb.util;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+
+import util.ByteStrings;
 
 /**
  * Utility class for encoding strings in RDB format.
@@ -17,7 +18,7 @@ public class RDBStringEncoder {
     
     /**
      * Encodes a string and writes it to the output stream.
-     * Format: [length][UTF-8 bytes]
+     * Format: [length][bytes], one byte per char as in {@link ByteStrings}
      * 
      * @param value The string to encode
      * @param out The output stream to write to
@@ -28,9 +29,18 @@ public class RDBStringEncoder {
             throw new IllegalArgumentException("String value cannot be null");
         }
         
-        // Convert string to UTF-8 bytes
-        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
-        
+        encodeBytes(ByteStrings.encode(value), out);
+    }
+
+    /**
+     * Writes a binary string as is.
+     * Format: [length][bytes]
+     * 
+     * @param bytes The bytes to write
+     * @param out The output stream to write to
+     * @throws IOException If an I/O error occurs
+     */
+    public static void encodeBytes(byte[] bytes, OutputStream out) throws IOException {
         // Write length using variable-length encoding
         RDBLengthEncoding.encodeLength(bytes.length, out);
         
@@ -59,7 +69,7 @@ public class RDBStringEncoder {
     }
     
     /**
-     * Calculates the encoded size of a string (length encoding + UTF-8 bytes).
+     * Calculates the encoded size of a string (length encoding + bytes).
      * 
      * @param value The string to calculate size for
      * @return Number of bytes needed to encode this string
@@ -69,9 +79,9 @@ public class RDBStringEncoder {
             throw new IllegalArgumentException("String value cannot be null");
         }
         
-        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
-        int lengthEncodingSize = RDBLengthEncoding.getEncodedSize(bytes.length);
-        return lengthEncodingSize + bytes.length;
+        int length = ByteStrings.length(value);
+        int lengthEncodingSize = RDBLengthEncoding.getEncodedSize(length);
+        return lengthEncodingSize + length;
     }
     
     // Private constructor to prevent instantiation
@@ -39,11 +39,11 @@ public class MasterNode extends ServerInstance {
         return id;
     }
 
-    public long getOffset() {
+    public synchronized long getOffset() {
         return offset;
     }
 
-    public String getInfo() {
+    public synchronized String getInfo() {
         String info = "role:" + role + "\r\n"
                 + "master_replid:" + id + "\r\n"
                 + "master_repl_offset:" + offset;
@@ -51,7 +51,8 @@ public class MasterNode extends ServerInstance {
         return info;
     }
 
-    public void incrementReplicationOffset(long length) {
+    // Commands on different shards advance the offset from different threads
+    public synchronized void incrementReplicationOffset(long length) {
         this.offset += length;
     }
 }
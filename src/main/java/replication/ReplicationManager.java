@@ -8,12 +8,16 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import command.CommandExecuter;
-import protocol.RESPSerializer;
+import protocol.RESPEncoder;
+import protocol.ReplySink;
 import server.connection.entity.ClientConnection;
 import server.connection.handler.CommandPropagationHandler;
+import server.core.ConnectionThreads;
 import server.core.ServerInstance;
+import storage.SelectedDatabase;
 
 public class ReplicationManager {
     private MasterNode masterNode;// reference to the master node if this instance is a master
@@ -22,6 +26,14 @@ public class ReplicationManager {
                                                                            // this instance is a master
     private static ReplicationManager replicationManager = null;// singleton instance of ReplicationManager
     private static boolean isSlaveNode = false;
+    // The connection a replica receives the master's stream on
+    private volatile ClientConnection masterLink;
+    // The database the commands sent to replicas apply to, a replica's stream starts in 0; -1 when unknown
+    private int replicatedDatabase = 0;// guarded by streamLock
+    // Keeps the stream in order; a lock rather than synchronized: pushing blocks
+    // on the replicas' sockets and a virtual thread blocked inside synchronized
+    // would pin its carrier
+    private final ReentrantLock streamLock = new ReentrantLock();
 
     private ReplicationManager() {
         this.masterNode = null;
@@ -86,7 +98,7 @@ public class ReplicationManager {
             // ========== 1. PING ==========
             List<String> pingHandShake = new ArrayList<>();
             pingHandShake.add("PING");
-            clientConnection.write(RESPSerializer.array(pingHandShake));
+            clientConnection.writeArray(pingHandShake);
             clientConnection.flush();
             readLine.apply(clientConnection.getInputStream());
 
@@ -95,7 +107,7 @@ public class ReplicationManager {
             listeningPortHandShake.add("REPLCONF");
             listeningPortHandShake.add("listening-port");
             listeningPortHandShake.add(String.valueOf(slavePort));
-            clientConnection.write(RESPSerializer.array(listeningPortHandShake));
+            clientConnection.writeArray(listeningPortHandShake);
             clientConnection.flush();
             readLine.apply(clientConnection.getInputStream());
 
@@ -104,7 +116,7 @@ public class ReplicationManager {
             capaHandShake.add("REPLCONF");
             capaHandShake.add("capa");
             capaHandShake.add("psync2");
-            clientConnection.write(RESPSerializer.array(capaHandShake));
+            clientConnection.writeArray(capaHandShake);
             clientConnection.flush();
             readLine.apply(clientConnection.getInputStream());
 
@@ -113,7 +125,7 @@ public class ReplicationManager {
             psyncHandShake.add("PSYNC");
             psyncHandShake.add("?");
             psyncHandShake.add("-1");
-            clientConnection.write(RESPSerializer.array(psyncHandShake));
+            clientConnection.writeArray(psyncHandShake);
             clientConnection.flush();
             readLine.apply(clientConnection.getInputStream());
 
@@ -156,10 +168,10 @@ public class ReplicationManager {
     }
 
     private void handleReplicationStreamFromMaster(ClientConnection connection) {
+        this.masterLink = connection;
         // Start a new thread to handle incoming commands from the master
-        Thread replicaHandler = new Thread(new CommandPropagationHandler(slaveNode.getCommandExecuter(),
-                connection));
-        replicaHandler.start();
+        ConnectionThreads.start("Replication-" + slaveNode.getPort(),
+                new CommandPropagationHandler(slaveNode.getCommandExecuter(), connection));
     }
 
     public MasterNode getMasterNode() {
@@ -171,7 +183,23 @@ public class ReplicationManager {
     }
 
     public void registerSlaveConnection(Integer listeningPort, ClientConnection connection) {
-        slaveNodesSockets.put(listeningPort, connection);
+        streamLock.lock();
+        try {
+            slaveNodesSockets.put(listeningPort, connection);
+            // A new replica starts in database 0, unless the others are there too tell everyone again
+            if (replicatedDatabase != 0) {
+                replicatedDatabase = -1;
+            }
+        } finally {
+            streamLock.unlock();
+        }
+    }
+
+    /**
+     * Whether the connection is the one this replica receives its master's stream on.
+     */
+    public boolean isMasterLink(ClientConnection connection) {
+        return connection != null && connection == masterLink;
     }
 
     public Integer getSlaveIdForConnection(ClientConnection connection) {
@@ -210,16 +238,55 @@ public class ReplicationManager {
         return "role:unknown";
     }
 
+    /**
+     * Sends a write to every replica. Like Redis, the stream carries a
+     * SELECT whenever the write applies to another database than the one
+     * before, so the database of the command running on this thread is
+     * switched to first.
+     */
     public void replicateToSlaves(List<String> command) throws IOException {
+        replicateToSlaves(SelectedDatabase.get(), command);
+    }
+
+    /**
+     * Sends a write applying to the given database to every replica.
+     */
+    public void replicateToSlaves(int database, List<String> command) throws IOException {
         int currentPort = Integer.parseInt(Thread.currentThread().getName().split("-")[1]);
         // Only the master should replicate commands
         if (masterNode == null || masterNode.getPort() != currentPort) {
             return;
         }
 
-        for (ClientConnection slaveConnection : slaveNodesSockets.values()) {
-            slaveConnection.write(RESPSerializer.array(command));
-            slaveConnection.flush();
+        streamLock.lock();
+        try {
+            if (database != replicatedDatabase) {
+                List<String> select = List.of("SELECT", String.valueOf(database));
+                for (ClientConnection slaveConnection : slaveNodesSockets.values()) {
+                    slaveConnection.pushArray(select);
+                }
+                updateMasterOffset(RESPEncoder.arraySize(select));
+                replicatedDatabase = database;
+            }
+            for (ClientConnection slaveConnection : slaveNodesSockets.values()) {
+                slaveConnection.pushArray(command);
+            }
+        } finally {
+            streamLock.unlock();
+        }
+    }
+
+    /**
+     * Sends replicas a DEL for a key evicted on this master, which they leave
+     * to it, as Redis does, so they drop the key too.
+     */
+    public void propagateEviction(int database, String key) {
+        List<String> del = List.of("DEL", key);
+        updateMasterOffset(RESPEncoder.arraySize(del));
+        try {
+            replicateToSlaves(database, del);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -240,8 +307,7 @@ public class ReplicationManager {
                 ackCommand.add("REPLCONF");
                 ackCommand.add("GETACK");
                 ackCommand.add("*");
-                slaveMasterConnection.write(RESPSerializer.array(ackCommand));
-                slaveMasterConnection.flush();
+                slaveMasterConnection.pushArray(ackCommand);
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -249,7 +315,7 @@ public class ReplicationManager {
     }
 
     // You are the Slave here
-    public void responseToMasterWithAckOffset(ClientConnection slaveMasterConnection) {
+    public void responseToMasterWithAckOffset(ReplySink slaveMasterConnection) {
         SlaveNode slave = this.slaveNode;
         if (slave != null) {
             try {
@@ -257,8 +323,7 @@ public class ReplicationManager {
                 ackCommand.add("REPLCONF");
                 ackCommand.add("ACK");
                 ackCommand.add(String.valueOf(slave.getReplicationOffset()));
-                slaveMasterConnection.write(RESPSerializer.array(ackCommand));
-                slaveMasterConnection.flush();
+                slaveMasterConnection.writeArray(ackCommand);
 
             } catch (Exception e) {
                 e.printStackTrace();
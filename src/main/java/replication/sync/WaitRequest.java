@@ -2,8 +2,9 @@ package replication.sync;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
 
 
 public class WaitRequest implements Comparable<WaitRequest> {
@@ -12,15 +13,18 @@ public class WaitRequest implements Comparable<WaitRequest> {
     private final long timeoutNanos;            
 
     private final ReentrantLock lock = new ReentrantLock(true);
-    private final Condition condition = lock.newCondition();
+    // Receives the ack count once the request completes, no thread waits for it
+    private final IntConsumer onComplete;
+    private ScheduledFuture<?> timeout;
 
     private final Set<Integer> ackedReplicas = new HashSet<>();
     private int currentReceivedAcks = 0;
     private boolean completed = false;
 
-    public WaitRequest(long offsetTarget, int numAcksRequired, long timeoutMillis) {
+    public WaitRequest(long offsetTarget, int numAcksRequired, long timeoutMillis, IntConsumer onComplete) {
         this.offsetTarget = offsetTarget;
         this.numAcksRequired = numAcksRequired;
+        this.onComplete = onComplete;
         this.timeoutNanos = timeoutMillis <= 0 ? Long.MAX_VALUE
                                                : System.nanoTime() + (timeoutMillis * 1_000_000);
     }
@@ -45,6 +49,40 @@ public class WaitRequest implements Comparable<WaitRequest> {
         return false;
     }
 
+    /**
+     * Completes the request whatever the acks so far, once its timeout fired.
+     */
+    public boolean tryExpire() {
+        if (!completed) {
+            completed = true;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Hands the ack count to the waiting client. Called once, after tryComplete
+     * or tryExpire succeeded and outside the lock.
+     */
+    public void notifyCompleted() {
+        cancelTimeout();
+        onComplete.accept(currentReceivedAcks);
+    }
+
+    public void cancelTimeout() {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+
+    public boolean hasTimeout() {
+        return timeoutNanos != Long.MAX_VALUE;
+    }
+
     public long remainingNanos() {
         long now = System.nanoTime();
         return timeoutNanos - now;
@@ -57,7 +95,7 @@ public class WaitRequest implements Comparable<WaitRequest> {
 
     public long getOffsetTarget() { return offsetTarget; }
     public ReentrantLock getLock() { return lock; }
-    public Condition getCondition() { return condition; }
+    public void setTimeout(ScheduledFuture<?> timeout) { this.timeout = timeout; }
     public int getCurrentReceivedAcks() { return currentReceivedAcks; }
 
     public int getNumAcksRequired() {
@@ -4,6 +4,7 @@ import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 import replication.ReplicationManager;
+import util.TimeoutScheduler;
 
 public class WaitRequestManager {
 
@@ -15,44 +16,54 @@ public class WaitRequestManager {
         this.replicationManager = replicationManager;
     }
 
-    public int awaitClientForAcks(WaitRequest req) throws InterruptedException {
+    /**
+     * Registers the request and returns right away. Its callback gets the ack
+     * count once enough replicas acknowledged the target offset or the timeout
+     * fired, on whichever thread got there first.
+     */
+    public void awaitClientForAcks(WaitRequest req) {
+        boolean completed;
         req.getLock().lock();
         try {
-            if (req.tryComplete()) {
-                return req.getCurrentReceivedAcks();
-            }
-            waitQueue.add(req);
-            replicationManager.askForOffsetAcksFromSlaves();
-
-            if (req.tryComplete()) {
-                waitQueue.remove(req);
-                return req.getCurrentReceivedAcks();
-            }
+            completed = req.tryComplete();
+            if (!completed) {
+                waitQueue.add(req);
+                replicationManager.askForOffsetAcksFromSlaves();
 
-            long remaining = req.remainingNanos();
-            while (!req.isFulfilled() && remaining > 0) {
-                remaining = req.getCondition().awaitNanos(remaining);
+                completed = req.tryComplete();
+                if (completed) {
+                    waitQueue.remove(req);
+                } else if (req.hasTimeout()) {
+                    req.setTimeout(TimeoutScheduler.schedule(req.remainingNanos(), () -> expire(req)));
+                }
             }
-
-            waitQueue.remove(req);
-
-            return req.getCurrentReceivedAcks();
         } finally {
             req.getLock().unlock();
         }
+        if (completed) {
+            req.notifyCompleted();
+        }
     }
 
     public void signalWaiters(int replicaId, long replicaOffset) {
+        WaitRequest completed = acknowledge(replicaId, replicaOffset);
+        if (completed != null) {
+            completed.notifyCompleted();
+        }
+    }
+
+    // Records the ACK and returns the request it completed, if any
+    private WaitRequest acknowledge(int replicaId, long replicaOffset) {
         signalLock.lock();
         try {
             while (true) {
                 WaitRequest req = waitQueue.peek();
                 if (req == null) {
-                    return;
+                    return null;
                 }
 
                 if (req.getOffsetTarget() > replicaOffset) {
-                    return;
+                    return null;
                 }
                 
                 req = waitQueue.poll();
@@ -63,19 +74,22 @@ public class WaitRequestManager {
                 
                 req.getLock().lock();
                 try {
+                    if (req.isCompleted()) {
+                        continue;// timed out meanwhile
+                    }
+
                     boolean isNewAck = req.ackFromReplica(replicaId);
 
                     if (!isNewAck) {
                         waitQueue.add(req);
-                        return;
+                        return null;
                     }
 
                     if (req.tryComplete()) {
-                        req.getCondition().signal();
-                        return;
+                        return req;
                     } else {
                         waitQueue.add(req);
-                        return;
+                        return null;
                     }
 
                 } finally {
@@ -90,16 +104,38 @@ public class WaitRequestManager {
     public void checkTimeouts() {
         for (WaitRequest req : waitQueue) {
             if (req.remainingNanos() <= 0) {
-                req.getLock().lock();
-                try {
-                    if (!req.tryComplete()) {
-                        req.getCondition().signal();
-                    }
-                    waitQueue.remove(req);
-                } finally {
-                    req.getLock().unlock();
-                }
+                expire(req);
+            }
+        }
+    }
+
+    /**
+     * Drops the request of a client that went away: it leaves the queue and
+     * its timeout is cancelled, no reply is sent. A no-op once completed.
+     */
+    public void cancel(WaitRequest req) {
+        req.getLock().lock();
+        try {
+            if (!req.tryExpire()) {
+                return;// already answered
             }
+            waitQueue.remove(req);
+        } finally {
+            req.getLock().unlock();
+        }
+        req.cancelTimeout();
+    }
+
+    private void expire(WaitRequest req) {
+        req.getLock().lock();
+        try {
+            if (!req.tryExpire()) {
+                return;// enough replicas acknowledged first
+            }
+            waitQueue.remove(req);
+        } finally {
+            req.getLock().unlock();
         }
+        req.notifyCompleted();
     }
 }
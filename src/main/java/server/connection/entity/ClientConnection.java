@@ -1,18 +1,39 @@
 package server.connection.entity;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
-public class ClientConnection {
+import protocol.DeferredReply;
+import protocol.RESPArguments;
+import protocol.RESPEncoder;
+import protocol.RESPParser;
+import protocol.ReplySink;
+import protocol.errorenum.ErrorType;
+
+public class ClientConnection implements ReplySink {
+
+    private static final int INPUT_BUFFER_SIZE = 16 * 1024;
 
     private final String clientId;
 
     private final OutputStream outputStream;
     private final InputStream inputStream;
-    private final BufferedReader reader;
-    private String userName = "default";
-    private String userPassword = "";
-    private static ClientConnection clientConnection;
+    private final RESPParser requestParser = new RESPParser();
+    private final RESPEncoder replyEncoder = new RESPEncoder();
+    // A lock rather than synchronized: flushing blocks on the socket and a
+    // virtual thread blocked inside synchronized would pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition replyCompleted = lock.newCondition();
+    // The reply a blocked command still owes, guarded by lock
+    private PendingReply pendingReply;
+    // Set once the client went away, guarded by lock
+    private boolean closed = false;
+    private ByteBuffer inputBuffer;
+    private final ClientSession session = new ClientSession();
 
     // Flag to indicate PSYNC completed - ClientHandler should stop reading
     private volatile boolean handoverToSlaveAckHandler = false;
@@ -21,32 +42,344 @@ public class ClientConnection {
         this.clientId = clientId;
         this.outputStream = outputStream;
         this.inputStream = inputStream;
-        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-        clientConnection = this;
+        // Selector-managed connections have no input stream: their bytes are read by an I/O thread
+        if (inputStream != null) {
+            this.inputBuffer = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+            this.inputBuffer.flip();
+        }
     }
 
-
-    public static ClientConnection getInstance(){
-        return clientConnection;
+    public ClientConnection(String clientId, OutputStream outputStream) {
+        this(clientId, outputStream, null);
     }
 
+
     /* ========== WRITE ========== */
 
-    public synchronized void write(String response) throws IOException {
-        outputStream.write(response.getBytes(StandardCharsets.UTF_8));
-        // writer.write(response);
+    // Replies are encoded into a pooled buffer and only reach the stream on flush,
+    // which the connection layer calls once per batch of pipelined requests
+
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            replyEncoder.writeTo(outputStream);
+            outputStream.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeSimpleString(String message) {
+        lock.lock();
+        try {
+            replyEncoder.writeSimpleString(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeError(String message) {
+        lock.lock();
+        try {
+            replyEncoder.writeError(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeError(ErrorType errorType, String message) {
+        lock.lock();
+        try {
+            replyEncoder.writeError(errorType, message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeInteger(long number) {
+        lock.lock();
+        try {
+            replyEncoder.writeInteger(number);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeBulkString(String message) {
+        lock.lock();
+        try {
+            replyEncoder.writeBulkString(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeBulkString(byte[] data) {
+        lock.lock();
+        try {
+            replyEncoder.writeBulkString(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeBulkString(byte[] data, int offset, int length) {
+        lock.lock();
+        try {
+            replyEncoder.writeBulkString(data, offset, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeBulkString(long number) {
+        lock.lock();
+        try {
+            replyEncoder.writeBulkString(number);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeBulkString(double number) {
+        lock.lock();
+        try {
+            replyEncoder.writeBulkString(number);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeNullBulkString() {
+        lock.lock();
+        try {
+            replyEncoder.writeNullBulkString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeArrayHeader(int size) {
+        lock.lock();
+        try {
+            replyEncoder.writeArrayHeader(size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeNullArray() {
+        lock.lock();
+        try {
+            replyEncoder.writeNullArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeEmptyArray() {
+        lock.lock();
+        try {
+            replyEncoder.writeEmptyArray();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeArray(List<String> values) {
+        lock.lock();
+        try {
+            replyEncoder.writeArray(values);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeRaw(byte[] data) {
+        lock.lock();
+        try {
+            replyEncoder.writeRaw(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends a complete array of bulk strings right away, bypassing the reply
+     * buffer. Used by other clients' threads (pub/sub messages, commands
+     * propagated to replicas) so their frames never land in the middle of a
+     * reply this connection is still building.
+     */
+    public void pushArray(List<String> values) throws IOException {
+        lock.lock();
+        try {
+            RESPEncoder pushEncoder = new RESPEncoder();
+            pushEncoder.writeArray(values);
+            pushEncoder.writeTo(outputStream);
+            outputStream.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* ========== DEFERRED REPLIES ========== */
+
+    // Blocked commands (BLPOP, XREAD BLOCK, WAIT) hold no thread while they
+    // wait: the command defers its reply and returns, and whoever has the
+    // answer later completes it
+
+    @Override
+    public DeferredReply deferReply() {
+        lock.lock();
+        try {
+            PendingReply reply = new PendingReply();
+            if (closed) {
+                // Nobody is left to answer, whatever the command starts waiting for is cancelled at once
+                reply.completed = true;
+                reply.cancelled = true;
+                return reply;
+            }
+            pendingReply = reply;
+            return reply;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called by the connection layer after each request. Returns false when
+     * the request answered right away. Otherwise its reply is still pending:
+     * the connection must stop executing requests, the listener runs once the
+     * reply has been completed and flushed.
+     */
+    public boolean whenReplyDeferred(Runnable listener) {
+        lock.lock();
+        try {
+            if (pendingReply == null) {
+                return false;
+            }
+            pendingReply.awaited = true;
+            pendingReply.onCompleted = listener;
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void flush() throws IOException {
-        outputStream.flush();
+    /**
+     * For connections with a thread of their own: flushes the replies so far
+     * and waits until the pending reply of the last request has been sent.
+     */
+    public void awaitDeferredReply() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            PendingReply pending = pendingReply;
+            if (pending == null) {
+                return;
+            }
+            pending.awaited = true;
+            flush();
+            while (!pending.completed) {
+                replyCompleted.await();
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void writeBytes(byte[] data) throws IOException {
-        outputStream.write(data);
+    // The client is gone: its pending reply will never be sent, whatever waits for it can stop
+    private void cancelDeferredReply() {
+        Runnable cancellation;
+        lock.lock();
+        try {
+            closed = true;
+            PendingReply pending = pendingReply;
+            if (pending == null || pending.completed) {
+                return;
+            }
+            pending.completed = true;
+            pending.cancelled = true;
+            pendingReply = null;
+            cancellation = pending.cancellation;
+            replyCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (cancellation != null) {
+            cancellation.run();
+        }
     }
 
-    public synchronized void flushBytes() throws IOException {
-        outputStream.flush();
+    private final class PendingReply implements DeferredReply {
+        // All fields guarded by the connection lock
+        private boolean completed = false;
+        private boolean awaited = false;
+        private Runnable onCompleted;
+        private boolean cancelled = false;
+        private Runnable cancellation;
+
+        @Override
+        public void onCancel(Runnable cancellation) {
+            lock.lock();
+            try {
+                if (!cancelled) {
+                    if (!completed) {
+                        this.cancellation = cancellation;
+                    }
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            cancellation.run();
+        }
+
+        @Override
+        public void complete(Consumer<ReplySink> reply) {
+            Runnable listener;
+            lock.lock();
+            try {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                reply.accept(ClientConnection.this);
+                if (pendingReply == this) {
+                    pendingReply = null;
+                }
+                if (!awaited) {
+                    // Completed before the command returned, the batch flush sends it
+                    return;
+                }
+                listener = onCompleted;
+                replyCompleted.signalAll();
+                try {
+                    flush();
+                } catch (IOException e) {
+                    // The client went away while blocked, its reader finds out on its own
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (listener != null) {
+                listener.run();
+            }
+        }
     }
 
     /* ========== READ (simple) ========== */
@@ -56,9 +389,38 @@ public class ClientConnection {
         return inputStream.read();
     }
 
-    // Read a single line terminated by '\n' (like BufferedReader.readLine())
-    public String readLine() throws IOException {
-        return reader.readLine();
+    /**
+     * Blocks until the next complete request has been read from the input stream.
+     * The returned arguments are reused, they are only valid until the next call.
+     *
+     * @return the request, or null once the client closed the connection
+     */
+    public RESPArguments readRequest() throws IOException {
+        while (true) {
+            RESPArguments request = requestParser.parse(inputBuffer);
+            if (request != null) {
+                return request;
+            }
+
+            // Everything buffered has been executed, send the replies of this batch
+            // before blocking for more input
+            flush();
+
+            inputBuffer.compact();
+            if (!inputBuffer.hasRemaining()) {
+                // A single request is larger than the buffer
+                inputBuffer = RESPParser.grow(inputBuffer);
+            }
+            int read = inputStream.read(inputBuffer.array(), inputBuffer.arrayOffset() + inputBuffer.position(),
+                    inputBuffer.remaining());
+            if (read >= 0) {
+                inputBuffer.position(inputBuffer.position() + read);
+            }
+            inputBuffer.flip();
+            if (read < 0) {
+                return null;
+            }
+        }
     }
 
     // Read raw bytes into a buffer
@@ -69,12 +431,11 @@ public class ClientConnection {
     /* ========== CONNECTION MGMT ========== */
 
     public void close() {
+        cancelDeferredReply();
         try {
-            reader.close();
-        } catch (IOException ignored) {
-        }
-        try {
-            inputStream.close();
+            if (inputStream != null) {
+                inputStream.close();
+            }
         } catch (IOException ignored) {
         }
         try {
@@ -91,10 +452,6 @@ public class ClientConnection {
         return inputStream;
     }
 
-    public BufferedReader getBufferedReader() {
-        return reader;
-    }
-
     /* ========== PSYNC HANDOVER ========== */
 
     /**
@@ -115,28 +472,16 @@ public class ClientConnection {
     public String getClientId() {
         return clientId;
     }
-    public String getUsername() {
-        return userName;
-    }
-
-    public void setUserName(String userName) {
-        this.userName = userName;
-    }
-
-    public String getUserPassword() {
-        return userPassword;
-    }
 
-    public void setUserPassword(String userPassword) {
-        this.userPassword = userPassword;
+    public ClientSession getSession() {
+        return session;
     }
 
     @Override
     public String toString() {
         return "ClientConnection{" +
                 "clientId='" + clientId + '\'' +
-                ", userName='" + userName + '\'' +
-                ", userPassword='" + userPassword + '\'' +
+                ", userName='" + session.getUserName() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,76 @@
+package server.connection.entity;
+
+import command.transactions.TransactionContext;
+import domain.values.UserProperties;
+
+/**
+ * Per-connection state the command path checks on every request: who the
+ * client is authenticated as, the database it selected, its open transaction
+ * and its subscriptions. Set when AUTH, SELECT, MULTI or SUBSCRIBE change it,
+ * so checking it costs a field read instead of map lookups.
+ *
+ * Only touched by whichever thread currently runs the connection's requests,
+ * one at a time, so the fields need no locking.
+ */
+public class ClientSession {
+
+    private String userName = "default";
+    private UserProperties user;
+    private int database = 0;
+    private TransactionContext transaction;
+    private int subscriptionCount = 0;
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public boolean isAuthenticated() {
+        return user != null;
+    }
+
+    /**
+     * The user the connection is logged in as, its ACL permissions follow
+     * later ACL SETUSER changes. Null until authenticated.
+     */
+    public UserProperties getUser() {
+        return user;
+    }
+
+    /**
+     * The credentials were checked once, the connection stays logged in as this user.
+     */
+    public void authenticate(String userName, UserProperties user) {
+        this.userName = userName;
+        this.user = user;
+    }
+
+    /**
+     * The logical database the connection's commands work on.
+     */
+    public int getDatabase() {
+        return database;
+    }
+
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+
+    /**
+     * The transaction opened by MULTI, or null outside of one.
+     */
+    public TransactionContext getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionContext transaction) {
+        this.transaction = transaction;
+    }
+
+    public boolean isInSubscribeMode() {
+        return subscriptionCount > 0;
+    }
+
+    public void setSubscriptionCount(int subscriptionCount) {
+        this.subscriptionCount = subscriptionCount;
+    }
+}
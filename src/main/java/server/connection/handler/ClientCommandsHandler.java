@@ -1,6 +1,5 @@
 package server.connection.handler;
 
-import java.io.BufferedReader;
 import java.io.OutputStream;
 import java.io.IOException;
 import java.net.Socket;
@@ -10,7 +9,6 @@ import java.util.UUID;
 import java.util.logging.Logger;
 
 import command.CommandExecuter;
-import protocol.RESPParser;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 import server.core.ServerContext;
@@ -74,43 +72,27 @@ public class ClientCommandsHandler implements Runnable {
         logger.info("Processing commands for client: " + clientId);
 
 
-        BufferedReader in = clientConnection.getBufferedReader();
-        String line;
-
-        while ((line = in.readLine()) != null) {
-
-            if (line.isEmpty() || !line.startsWith("*")) {
-                continue;
-            }
-
-            int numElements = Integer.parseInt(line.substring(1));
-            List<String> commands = RESPParser.parseRequest(numElements, in);
-
-            String commandName = commands.get(0);
-            int startIndexInTheCommandList = 1;
-
-            // Handle REPLCONF subcommands
-            if (commandName.equalsIgnoreCase("REPLCONF")) {
-                commandName = commands.get(1);
-                startIndexInTheCommandList = 2;
-            }
-            if (commandName.equalsIgnoreCase("ACL")) {
-                commandName += commands.get(1);
-                startIndexInTheCommandList = 2;
-            }
-
-
-            List<String> arguments = commands.subList(startIndexInTheCommandList, commands.size());
+        List<String> commands;
+        while ((commands = clientConnection.readRequest()) != null) {
 
             try {
-                commandExecuter.execute(clientId, commandName, arguments, clientConnection);
+                commandExecuter.executeRequest(clientId, commands, clientConnection);
             } catch (Exception e) {
                 // Error executing command
             }
 
+            // A blocked command owes its reply, the next request waits until it is sent
+            try {
+                clientConnection.awaitDeferredReply();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
             // After PSYNC completes, ClientHandler should exit and let SlaveAckHandler take
             // over
             if (clientConnection.isHandoverToSlaveAckHandler()) {
+                clientConnection.flush();
                 break;
             }
         }
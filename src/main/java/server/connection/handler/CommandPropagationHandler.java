@@ -1,12 +1,9 @@
 package server.connection.handler;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.List;
 
 import command.CommandExecuter;
-import protocol.RESPParser;
-import protocol.RESPSerializer;
+import protocol.RESPArguments;
 import replication.ReplicationManager;
 import server.connection.entity.ClientConnection;
 
@@ -32,29 +29,12 @@ public class CommandPropagationHandler implements Runnable {
 
     private void processCommands(ClientConnection clientConnection)
             throws IOException {
-        BufferedReader in = clientConnection.getBufferedReader();
-        String line;
-        while ((line = in.readLine()) != null) {
-            if (line.isEmpty() || !line.startsWith("*"))
-                continue;
-
-            int numElements = Integer.parseInt(line.substring(1));
-            List<String> commands = RESPParser.parseRequest(numElements, in);
-
-            String commandName = commands.get(0);
-            
-            int startIndexSublist = 1;
-            if (commandName.equalsIgnoreCase("REPLCONF")) {
-                commandName = commands.get(1);
-                startIndexSublist = 2;
-            }
-            
-            List<String> arguments = commands.subList(startIndexSublist, commands.size());
-            commandExecuter.execute("clientId", commandName, arguments, clientConnection);
-
-            // Update replication offset
-            String RESPCommand = RESPSerializer.array(commands);
-            replicationManager.updateSlaveOffset(RESPCommand.getBytes().length);
+        RESPArguments commands;
+        while ((commands = clientConnection.readRequest()) != null) {
+            commandExecuter.executeRequest("clientId", commands, clientConnection);
+
+            // Update replication offset with the bytes the command took on the wire
+            replicationManager.updateSlaveOffset(commands.getFrameLength());
         }
     }
 
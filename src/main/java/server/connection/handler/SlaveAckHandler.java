@@ -1,13 +1,11 @@
 package server.connection.handler;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 import java.util.logging.Logger;
 
 import command.CommandExecuter;
-import protocol.RESPParser;
 import server.connection.entity.ClientConnection;
 import util.AppLogger;
 
@@ -36,26 +34,9 @@ public class SlaveAckHandler {
             throws IOException {
         logger.info("Processing commands for client: " + clientId);
 
-        BufferedReader in = clientConnection.getBufferedReader();
-        String line;
-        while ((line = in.readLine()) != null) {
-            if (line.isEmpty() || !line.startsWith("*")) {
-                continue;
-            }
-
-            int numElements = Integer.parseInt(line.substring(1));
-            List<String> commands = RESPParser.parseRequest(numElements, in);
-
-            String commandName = commands.get(0);
-
-            int startIndexSublist = 1;
-            if (commandName.equalsIgnoreCase("REPLCONF")) {
-                commandName = commands.get(1);
-                startIndexSublist = 2;
-            }
-
-            List<String> arguments = commands.subList(startIndexSublist, commands.size());
-            commandExecuter.execute(clientId, commandName, arguments, clientConnection);
+        List<String> commands;
+        while ((commands = clientConnection.readRequest()) != null) {
+            commandExecuter.executeRequest(clientId, commands, clientConnection);
         }
     }
 
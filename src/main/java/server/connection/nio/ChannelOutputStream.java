@@ -0,0 +1,41 @@
+package server.connection.nio;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import protocol.BufferSink;
+
+/**
+ * OutputStream handed to the ClientConnection of a selector-managed client.
+ * ClientConnection's encoder hands over its whole pooled buffer per flush,
+ * which is queued as is on the owning connection; it writes it to the socket
+ * from its I/O thread and then gives it back to the pool. Plain writes are
+ * copied once.
+ */
+class ChannelOutputStream extends OutputStream implements BufferSink {
+
+    private final NioConnection connection;
+
+    ChannelOutputStream(NioConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void writeBuffer(ByteBuffer buffer) {
+        connection.enqueueWrite(buffer);
+    }
+
+    @Override
+    public void write(int b) {
+        connection.enqueueWrite(ByteBuffer.wrap(new byte[] { (byte) b }));
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        connection.enqueueWrite(ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + length)));
+    }
+}
@@ -0,0 +1,125 @@
+package server.connection.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+import command.CommandExecuter;
+import util.AppLogger;
+
+/**
+ * An event loop that owns a Selector and every connection registered with it.
+ * All reads, command execution and socket writes of those connections happen
+ * on this thread; other threads hand work over through {@link #execute}.
+ */
+public class IoThread implements Runnable {
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private final CommandExecuter commandExecuter;
+    private volatile boolean running = true;
+    private final Logger logger = AppLogger.getLogger(IoThread.class);
+
+    public IoThread(String name, CommandExecuter commandExecuter) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.commandExecuter = commandExecuter;
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Hands an accepted channel over to this event loop.
+     */
+    public void register(SocketChannel channel) {
+        execute(() -> {
+            try {
+                NioConnection connection = new NioConnection(channel, this, commandExecuter);
+                connection.attach(channel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (ClosedChannelException e) {
+                // Client disconnected before registration
+            }
+        });
+    }
+
+    /**
+     * Queues a task to run on this event loop and wakes the selector up.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                runTasks();
+                processSelectedKeys();
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                logger.warning("Selector error on " + thread.getName() + ": " + e.getMessage());
+            }
+        }
+        closeAll();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warning("I/O task failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            NioConnection connection = (NioConnection) key.attachment();
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        }
+    }
+
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // Shutting down
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+}
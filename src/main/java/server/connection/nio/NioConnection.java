@@ -0,0 +1,317 @@
+package server.connection.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import command.CommandExecuter;
+import protocol.RESPArguments;
+import protocol.RESPParser;
+import server.connection.entity.ClientConnection;
+import util.BufferPool;
+
+/**
+ * A client connection driven by an {@link IoThread}. Incoming bytes are
+ * accumulated in a read buffer and every complete request is executed in
+ * arrival order; replies are queued and written without blocking.
+ *
+ * With executor threads configured, the requests of each read are handed
+ * over to them and this thread only parses and writes.
+ *
+ * A blocked command (BLPOP, XREAD BLOCK, WAIT) holds no thread: it defers
+ * its reply and the connection stops executing requests until whoever
+ * completes the reply wakes it up, which keeps replies in request order.
+ * Meanwhile it keeps reading into its buffer, so a client that disconnects
+ * while blocked is closed and stops waiting.
+ *
+ * A client that sends faster than it reads its replies stops being read
+ * once more than {@link #OUTPUT_LIMIT} bytes of replies are queued, and is
+ * read again when they have all been written.
+ */
+class NioConnection {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final long OUTPUT_LIMIT = 1024 * 1024;
+
+    private final SocketChannel channel;
+    private final IoThread ioThread;
+    private final CommandExecuter commandExecuter;
+    private final String clientId;
+    private final ClientConnection clientConnection;
+    // Buffers handed over by the encoder, owned by this connection until written
+    private final Queue<ByteBuffer> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final RESPParser requestParser = new RESPParser();
+
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private SelectionKey key;
+    private boolean suspended = false;
+    // Reading stopped until the queued replies are written
+    private boolean outputBlocked = false;
+    private boolean closed = false;
+
+    NioConnection(SocketChannel channel, IoThread ioThread, CommandExecuter commandExecuter) {
+        this.channel = channel;
+        this.ioThread = ioThread;
+        this.commandExecuter = commandExecuter;
+        this.clientId = UUID.randomUUID().toString();
+        this.clientConnection = new ClientConnection(clientId, new ChannelOutputStream(this));
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    /* ========== READ ========== */
+
+    void onReadable() {
+        try {
+            if (!readBuffer.hasRemaining()) {
+                // Suspended with the buffer full, nothing more is read until resumed
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                return;
+            }
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            if (!suspended) {
+                processInput();
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void processInput() throws IOException {
+        readBuffer.flip();
+        try {
+            if (commandExecuter.getShards() != null) {
+                handOverBatch();
+            } else {
+                executeBatch();
+            }
+        } finally {
+            readBuffer.compact();
+            if (!readBuffer.hasRemaining()) {
+                // A single request is larger than the buffer, up to the query buffer limit
+                readBuffer = RESPParser.grow(readBuffer);
+            }
+        }
+    }
+
+    private void executeBatch() throws IOException {
+        try {
+            while (!suspended && !closed) {
+                RESPArguments commands = requestParser.parse(readBuffer);
+                if (commands == null) {
+                    break;
+                }
+                execute(commands);
+            }
+        } finally {
+            // One write for all the replies of this read, however many requests it held
+            clientConnection.flush();
+        }
+    }
+
+    /**
+     * Executor mode: this thread only parses. The requests of the read are
+     * handed to the executors that own them, one after the other, and their
+     * replies flushed once. Nothing else is executed until the batch is done.
+     */
+    private void handOverBatch() throws IOException {
+        List<List<String>> batch = new ArrayList<>();
+        while (!suspended && !closed) {
+            RESPArguments commands = requestParser.parse(readBuffer);
+            if (commands == null) {
+                break;
+            }
+            // The parsed arguments point into the read buffer, copy them before leaving this thread
+            batch.add(List.copyOf(commands));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Later requests must wait for this batch, they could start on another executor and overtake it
+        suspend();
+        runBatch(batch, 0);
+    }
+
+    /**
+     * Runs the requests from the given index on, hopping to the executor that
+     * owns the next one whenever it is not the current thread. Only one request
+     * of a connection is ever in flight, so replies keep their order.
+     */
+    private void runBatch(List<List<String>> batch, int from) {
+        for (int next = from; next < batch.size(); next++) {
+            List<String> request = batch.get(next);
+            if (!commandExecuter.runsOnCurrentThread(request)) {
+                int resumeAt = next;
+                commandExecuter.submit(request, () -> runBatch(batch, resumeAt));
+                return;
+            }
+            try {
+                commandExecuter.executeRequest(clientId, request, clientConnection);
+            } catch (Exception e) {
+                // Error executing command
+            }
+            int resumeAt = next + 1;
+            if (clientConnection.whenReplyDeferred(() -> continueBatch(batch, resumeAt))) {
+                // Everything before the blocked command goes out now, its own reply once completed
+                flushOrClose();
+                return;
+            }
+        }
+        if (flushOrClose()) {
+            ioThread.execute(this::resume);
+        }
+    }
+
+    /**
+     * Picks a batch up again after a blocked command replied. Always queued:
+     * the completing thread may be in the middle of another client's command.
+     */
+    private void continueBatch(List<List<String>> batch, int from) {
+        if (from < batch.size()) {
+            commandExecuter.submit(batch.get(from), () -> runBatch(batch, from));
+        } else {
+            ioThread.execute(this::resume);
+        }
+    }
+
+    private boolean flushOrClose() {
+        try {
+            clientConnection.flush();
+            return true;
+        } catch (IOException e) {
+            ioThread.execute(this::close);
+            return false;
+        }
+    }
+
+    private void execute(RESPArguments commands) {
+        try {
+            commandExecuter.executeRequest(clientId, commands, clientConnection);
+        } catch (Exception e) {
+            // Error executing command
+        }
+        // A blocked command still owes its reply, nothing behind it may run before it is sent
+        if (clientConnection.whenReplyDeferred(() -> ioThread.execute(this::resume))) {
+            suspend();
+        }
+    }
+
+    private void suspend() {
+        suspended = true;
+    }
+
+    private void resume() {
+        suspended = false;
+        if (closed || !key.isValid()) {
+            return;
+        }
+        if (!outputBlocked) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+        try {
+            // Requests pipelined behind a blocked command are already buffered
+            processInput();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /* ========== WRITE ========== */
+
+    /**
+     * Queues a reply for this client. Safe to call from any thread; the socket
+     * itself is only written from the I/O thread.
+     */
+    void enqueueWrite(ByteBuffer data) {
+        pendingBytes.addAndGet(data.remaining());
+        pendingWrites.add(data);
+        if (ioThread.inEventLoop()) {
+            writePending();
+        } else {
+            ioThread.execute(this::writePending);
+        }
+    }
+
+    void onWritable() {
+        writePending();
+    }
+
+    private void writePending() {
+        if (closed) {
+            discardPending();
+            return;
+        }
+        try {
+            ByteBuffer head;
+            while ((head = pendingWrites.peek()) != null) {
+                pendingBytes.addAndGet(-channel.write(head));
+                if (head.hasRemaining()) {
+                    // Socket buffer is full, continue once it drains
+                    if (key.isValid()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        if (!outputBlocked && pendingBytes.get() > OUTPUT_LIMIT) {
+                            // Stop taking requests whose replies would only pile up
+                            outputBlocked = true;
+                            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                        }
+                    }
+                    return;
+                }
+                pendingWrites.poll();
+                BufferPool.getInstance().release(head);
+            }
+            if (key.isValid()) {
+                int ops = key.interestOps() & ~SelectionKey.OP_WRITE;
+                if (outputBlocked) {
+                    outputBlocked = false;
+                    ops |= SelectionKey.OP_READ;
+                }
+                key.interestOps(ops);
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    // Replies no one will read, their buffers go back to the pool all the same
+    private void discardPending() {
+        ByteBuffer pending;
+        while ((pending = pendingWrites.poll()) != null) {
+            pendingBytes.addAndGet(-pending.remaining());
+            BufferPool.getInstance().release(pending);
+        }
+    }
+
+    /* ========== CONNECTION MGMT ========== */
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        discardPending();
+        // Cancels a blocked command, whatever it waits for goes to other clients
+        clientConnection.close();
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package server.connection.nio;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.logging.Logger;
+
+import command.CommandExecuter;
+import util.AppLogger;
+
+/**
+ * Accepts clients on a non-blocking server channel and spreads them across a
+ * fixed number of I/O threads, replacing the thread-per-client model.
+ *
+ * Thread names keep the "Role-port-n" shape, ReplicationManager reads the
+ * port back from the name of the thread executing a command.
+ */
+public class SelectorServer {
+
+    private final ServerSocketChannel serverChannel;
+    private final IoThread[] ioThreads;
+    private final Selector acceptSelector;
+    private volatile boolean running = true;
+    private int nextIoThread = 0;
+    private final Logger logger = AppLogger.getLogger(SelectorServer.class);
+
+    public SelectorServer(ServerSocketChannel serverChannel, int port, int ioThreadCount,
+            CommandExecuter commandExecuter) throws IOException {
+        this.serverChannel = serverChannel;
+        this.ioThreads = new IoThread[ioThreadCount];
+        for (int i = 0; i < ioThreadCount; i++) {
+            ioThreads[i] = new IoThread("IO-" + port + "-" + i, commandExecuter);
+        }
+        this.acceptSelector = Selector.open();
+    }
+
+    /**
+     * Runs the accept loop on the calling thread until {@link #stop()} is called.
+     */
+    public void run() throws IOException {
+        for (IoThread ioThread : ioThreads) {
+            ioThread.start();
+        }
+        serverChannel.configureBlocking(false);
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        logger.info("Accepting connections with " + ioThreads.length + " I/O threads");
+
+        try {
+            while (running) {
+                acceptSelector.select();
+                Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                    acceptPending();
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // Expected during shutdown
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void acceptPending() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ioThreads[nextIoThread].register(channel);
+            nextIoThread = (nextIoThread + 1) % ioThreads.length;
+        }
+    }
+
+    public void stop() {
+        running = false;
+        acceptSelector.wakeup();
+    }
+
+    private void shutdown() {
+        for (IoThread ioThread : ioThreads) {
+            ioThread.shutdown();
+        }
+        try {
+            acceptSelector.close();
+        } catch (IOException e) {
+            // Ignore close errors
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package server.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import util.ServerConfiguration;
+
+/**
+ * Starts the threads that serve one connection each: clients in blocking
+ * mode, replicas sending ACKs and the link to our master.
+ *
+ * With `--io-mode virtual` they are virtual threads, which cost a few hundred
+ * bytes while parked on a read instead of a whole platform stack. Virtual
+ * threads only exist from Java 21 on while the build targets 17, so they are
+ * created reflectively: the JVM the server runs on decides whether the mode
+ * is available, the same jar works on both.
+ */
+public final class ConnectionThreads {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Class<?> BUILDER = findClass("java.lang.Thread$Builder");
+    private static final Method NAME = BUILDER == null ? null : findMethod(BUILDER, "name", String.class);
+    private static final Method START = BUILDER == null ? null : findMethod(BUILDER, "start", Runnable.class);
+
+    private ConnectionThreads() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null && NAME != null && START != null;
+    }
+
+    /**
+     * Starts the task on a new thread. The name must keep the "Role-port-n"
+     * shape, ReplicationManager reads the port back from it.
+     */
+    public static Thread start(String name, Runnable task) {
+        ServerConfiguration configuration = ServerContext.getInstance().getConfiguration();
+        if (configuration != null && configuration.isVirtualThreadMode()) {
+            return startVirtual(name, task);
+        }
+        Thread thread = new Thread(task, name);
+        thread.start();
+        return thread;
+    }
+
+    private static Thread startVirtual(String name, Runnable task) {
+        if (!isVirtualThreadSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later");
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) START.invoke(builder, task);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Error starting virtual thread " + name, e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> findClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
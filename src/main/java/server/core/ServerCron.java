@@ -0,0 +1,73 @@
+package server.core;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import command.ShardedExecutor;
+import storage.DataStore;
+import util.AppLogger;
+
+/**
+ * Background work that runs hz times per second: the active expire cycle,
+ * finishing hash table resizes and sampling the memory peak. Every run may
+ * spend a quarter of its period expiring keys and a millisecond per shard
+ * rehashing, like Redis' activerehashing.
+ *
+ * Executor threads own their shard, so there each shard's cycle is queued on
+ * its executor like a command; in threaded mode the keyspace is concurrent
+ * and the cron thread expires keys itself. Expired keys are not replicated,
+ * replicas expire the same keys on their own clock.
+ */
+public class ServerCron {
+
+    private static final int CYCLE_BUDGET_PERCENT = 25;
+    private static final long REHASH_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final DataStore dataStore;
+    private final ShardedExecutor shards;
+    private final long periodNanos;
+    private final ScheduledExecutorService timer;
+    private final Logger logger = AppLogger.getLogger(ServerCron.class);
+
+    /**
+     * @param shards the executors owning the keyspace, null when commands run on connection threads
+     */
+    public ServerCron(DataStore dataStore, ShardedExecutor shards, int hz) {
+        this.dataStore = dataStore;
+        this.shards = shards;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / hz;
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ServerCron");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        timer.scheduleAtFixedRate(this::run, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void run() {
+        long budgetNanos = periodNanos * CYCLE_BUDGET_PERCENT / 100;
+        dataStore.recordPeakMemory();
+        if (shards == null) {
+            try {
+                dataStore.activeExpireCycle(0, budgetNanos);
+                dataStore.activeRehash(0, REHASH_BUDGET_NANOS);
+            } catch (RuntimeException e) {
+                // A failed run must not cancel the ones after it
+                logger.warning("Active expire cycle failed: " + e.getMessage());
+            }
+            return;
+        }
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            int owned = shard;
+            shards.submitToShard(owned, () -> {
+                dataStore.activeExpireCycle(owned, budgetNanos);
+                dataStore.activeRehash(owned, REHASH_BUDGET_NANOS);
+            });
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package server.core;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 
 import command.CommandExecuter;
+import command.ShardedExecutor;
 import server.connection.handler.ClientCommandsHandler;
+import server.connection.nio.SelectorServer;
+import util.ServerConfiguration;
 
 public class ServerInstance implements Runnable {
+    private static final int ACCEPT_BACKLOG = 511;
+
     private final String host;
     private final int port;
     private final CommandExecuter commandExecuter;
+    private final ServerSocketChannel serverChannel;
     private final ServerSocket serverSocket;
+    private SelectorServer selectorServer;
     private Socket clientSocket;
     private boolean isDefaultClient = true;
 
@@ -27,22 +36,41 @@ public class ServerInstance implements Runnable {
         this.host = host;
         this.port = port;
         this.commandExecuter = commandExecuter;
-        this.serverSocket = new ServerSocket(port);
+        // Opened as a channel so it can be served by either the selector or blocking accept
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverSocket = serverChannel.socket();
         this.serverRole = serverRole;
         this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
     }
 
     @Override
     public void run() {
+        ServerConfiguration configuration = ServerContext.getInstance().getConfiguration();
+        if (configuration != null && configuration.isNioMode()) {
+            runSelectorServer(configuration.getIoThreads());
+        } else {
+            runBlockingServer();
+        }
+    }
+
+    private void runSelectorServer(int ioThreads) {
+        try {
+            selectorServer = new SelectorServer(serverChannel, port, ioThreads, commandExecuter);
+            selectorServer.run();
+        } catch (IOException e) {
+            // Expected during shutdown
+        }
+    }
+
+    private void runBlockingServer() {
         while (running) {
             try {
                 clientSocket = serverSocket.accept();
 
-                // Handle each client in a separate thread
-                Thread clientThread = new Thread(
-                        new ClientCommandsHandler(clientSocket, commandExecuter),
-                        "Client-" + port + "-" + clientSocket.getPort());
-                clientThread.start();
+                // Handle each client in a separate (platform or virtual) thread
+                ConnectionThreads.start("Client-" + port + "-" + clientSocket.getPort(),
+                        new ClientCommandsHandler(clientSocket, commandExecuter));
 
             } catch (IOException e) {
                 // Expected during shutdown
@@ -52,6 +80,13 @@ public class ServerInstance implements Runnable {
 
     public void stop() {
         running = false;
+        if (selectorServer != null) {
+            selectorServer.stop();
+        }
+        ShardedExecutor shards = commandExecuter.getShards();
+        if (shards != null) {
+            shards.shutdown();
+        }
         try {
             serverSocket.close();
         } catch (IOException e) {
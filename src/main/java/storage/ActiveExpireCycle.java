@@ -0,0 +1,66 @@
+package storage;
+
+import domain.RedisValue;
+
+/**
+ * Removes expired keys nobody reads anymore. The expires index hands out
+ * the keys whose deadline has passed, so a cycle only ever touches keys that
+ * are actually due and stops when there are none left or its time budget is
+ * spent; the rest stay due for the next cycle. Memory held by dead keys stays
+ * bounded without ever scanning the keyspace.
+ *
+ * A cycle must run on the thread owning the keyspaces it expires.
+ */
+public class ActiveExpireCycle {
+
+    // Keys removed between two looks at the clock
+    private static final int KEYS_PER_CLOCK_CHECK = 16;
+
+    private final ExpiryStats stats;
+
+    public ActiveExpireCycle(ExpiryStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Expires due keys of the keyspaces in turn, the databases of one shard,
+     * sharing one time budget between them.
+     */
+    public void run(Keyspace[] keyspaces, long budgetNanos) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        long visited = 0;
+        boolean timeCapReached = false;
+
+        for (int i = 0; i < keyspaces.length && !timeCapReached; i++) {
+            Keyspace keyspace = keyspaces[i];
+            ExpiresIndex expires = keyspace.getExpires();
+            expires.advance(now);
+            String key;
+            while ((key = expires.pollDue()) != null) {
+                visited++;
+                RedisValue<?> value = keyspace.peek(key);
+                if (value == null || !value.hasExpiry()) {
+                    keyspace.forgetExpiry(key);
+                } else if (!value.isExpired()) {
+                    // The TTL moved after the key was scheduled
+                    expires.put(key, value.getExpiryTime());
+                } else if (keyspace.remove(key, value)) {
+                    stats.keyExpired();
+                }
+                if (visited % KEYS_PER_CLOCK_CHECK == 0 && System.nanoTime() - start > budgetNanos) {
+                    timeCapReached = true;
+                    break;
+                }
+            }
+        }
+
+        long stillDue = 0;
+        long withTtl = 0;
+        for (Keyspace keyspace : keyspaces) {
+            stillDue += keyspace.getExpires().dueCount();
+            withTtl += keyspace.getExpires().size();
+        }
+        stats.cycleCompleted(stillDue, withTtl, System.nanoTime() - start, timeCapReached);
+    }
+}
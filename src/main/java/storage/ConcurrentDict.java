@@ -0,0 +1,317 @@
+package storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * The hash table of the keyspace in threaded mode: a fixed number of
+ * {@link Dict} segments, each guarded by its own lock, so connection threads
+ * mostly work on different segments and every segment keeps Dict's
+ * incremental rehashing and reverse-binary SCAN cursor.
+ *
+ * A SCAN cursor holds the segment in its low bits and that segment's own
+ * cursor above them, so a scan walks the segments one after the other a
+ * bucket at a time, and COUNT bounds the work of each call as in the
+ * sharded modes. Iterators are weakly consistent: they copy one segment at
+ * a time and never fail on concurrent changes.
+ */
+public class ConcurrentDict<V> extends AbstractMap<String, V> implements ConcurrentMap<String, V>, KeyTable<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Dict<V>[] segments;
+    private final ReentrantLock[] locks;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Set<Map.Entry<String, V>> entrySet = new EntrySet();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentDict() {
+        segments = new Dict[SEGMENTS];
+        locks = new ReentrantLock[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Dict<>();
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // The high bits of a multiplicative hash, Dict picks buckets with the low bits of its own
+    private static int segmentOf(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - SEGMENT_BITS);
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public V get(Object key) {
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            return segments[segment].get(key);
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        Objects.requireNonNull(value);
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            V previous = segments[segment].put(key, value);
+            if (previous == null) {
+                size.incrementAndGet();
+            }
+            return previous;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public V putIfAbsent(String key, V value) {
+        Objects.requireNonNull(value);
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            Dict<V> dict = segments[segment];
+            V existing = dict.get(key);
+            if (existing == null) {
+                dict.put(key, value);
+                size.incrementAndGet();
+            }
+            return existing;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            V removed = segments[segment].remove(key);
+            if (removed != null) {
+                size.decrementAndGet();
+            }
+            return removed;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            Dict<V> dict = segments[segment];
+            V current = dict.get(key);
+            if (current == null || !current.equals(value)) {
+                return false;
+            }
+            dict.remove(key);
+            size.decrementAndGet();
+            return true;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(String key, V oldValue, V newValue) {
+        Objects.requireNonNull(newValue);
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            Dict<V> dict = segments[segment];
+            V current = dict.get(key);
+            if (current == null || !current.equals(oldValue)) {
+                return false;
+            }
+            dict.put(key, newValue);
+            return true;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public V replace(String key, V value) {
+        Objects.requireNonNull(value);
+        int segment = segmentOf(key);
+        locks[segment].lock();
+        try {
+            Dict<V> dict = segments[segment];
+            return dict.containsKey(key) ? dict.put(key, value) : null;
+        } finally {
+            locks[segment].unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            locks[i].lock();
+            try {
+                size.addAndGet(-segments[i].size());
+                segments[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * A key picked at random from a random segment, moving on to the next
+     * ones while they are empty. Segments hold about as many keys each, so
+     * the pick is close to uniform.
+     */
+    @Override
+    public String randomKey(Random random) {
+        int start = random.nextInt(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            int segment = (start + i) & (SEGMENTS - 1);
+            locks[segment].lock();
+            try {
+                String key = segments[segment].randomKey(random);
+                if (key != null) {
+                    return key;
+                }
+            } finally {
+                locks[segment].unlock();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean rehashFor(long budgetNanos) {
+        long start = System.nanoTime();
+        boolean rehashing = false;
+        for (int i = 0; i < SEGMENTS; i++) {
+            long left = budgetNanos - (System.nanoTime() - start);
+            locks[i].lock();
+            try {
+                rehashing |= left > 0 ? segments[i].rehashFor(left) : segments[i].isRehashing();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return rehashing;
+    }
+
+    @Override
+    public long scan(long cursor, Consumer<String> action) {
+        int segment = (int) (cursor & (SEGMENTS - 1));
+        long segmentCursor = cursor >>> SEGMENT_BITS;
+        locks[segment].lock();
+        try {
+            segmentCursor = segments[segment].scan(segmentCursor, action);
+        } finally {
+            locks[segment].unlock();
+        }
+        if (segmentCursor == 0 && ++segment == SEGMENTS) {
+            return 0;
+        }
+        return segmentCursor << SEGMENT_BITS | segment;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, V>> {
+        @Override
+        public Iterator<Map.Entry<String, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size.get();
+        }
+    }
+
+    // Copies the entries of one segment at a time under its lock
+    private class EntryIterator implements Iterator<Map.Entry<String, V>> {
+        private int segment;
+        private Iterator<Map.Entry<String, V>> batch = Collections.emptyIterator();
+        private Map.Entry<String, V> last;
+
+        @Override
+        public boolean hasNext() {
+            while (!batch.hasNext() && segment < SEGMENTS) {
+                batch = copy(segment++);
+            }
+            return batch.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = batch.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentDict.this.remove(last.getKey());
+            last = null;
+        }
+
+        private Iterator<Map.Entry<String, V>> copy(int segment) {
+            locks[segment].lock();
+            try {
+                List<Map.Entry<String, V>> entries = new ArrayList<>(segments[segment].size());
+                for (Map.Entry<String, V> entry : segments[segment].entrySet()) {
+                    entries.add(new WriteThroughEntry(entry.getKey(), entry.getValue()));
+                }
+                return entries.iterator();
+            } finally {
+                locks[segment].unlock();
+            }
+        }
+    }
+
+    private class WriteThroughEntry extends AbstractMap.SimpleEntry<String, V> {
+        WriteThroughEntry(String key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
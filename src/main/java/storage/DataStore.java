@@ -4,6 +4,7 @@ import storage.repository.*;
 
 public interface DataStore extends
         CommonRepository,
+        DatabaseRepository,
         StringRepository,
         ListRepository,
         StreamRepository,
@@ -0,0 +1,85 @@
+package storage;
+
+import java.util.Map;
+
+import domain.RedisValue;
+import storage.concurrency.ListWaitRegistry;
+import storage.concurrency.StreamWaitRegistry;
+import storage.impl.CommonRepositoryImpl;
+import storage.impl.ListRepositoryImpl;
+import storage.impl.SortedSetRepositoryImpl;
+import storage.impl.StreamRepositoryImpl;
+import storage.impl.StringRepositoryImpl;
+
+/**
+ * One logical database: its keyspace, the shards it is split into and the
+ * repositories working on it. Clients blocked on a key wait in the
+ * registries of the database holding it, so SWAPDB moves them along with
+ * the data.
+ */
+public class Database {
+
+    private final Map<String, RedisValue<?>> store;
+    private final Keyspace[] shards;
+    private final CommonRepositoryImpl commonRepository;
+    private final StringRepositoryImpl stringRepository;
+    private final ListRepositoryImpl listRepository;
+    private final StreamRepositoryImpl streamRepository;
+    private final SortedSetRepositoryImpl sortedSetRepository;
+
+    /**
+     * @param store the keyspace, a {@link Keyspace} or a {@link ShardedKeyspace}
+     * @param expiryStats counts keys found expired on access, shared by all databases
+     */
+    public Database(Map<String, RedisValue<?>> store, ExpiryStats expiryStats) {
+        this.store = store;
+        this.shards = shardsOf(store);
+        this.commonRepository = new CommonRepositoryImpl(store, shards, expiryStats);
+        this.stringRepository = new StringRepositoryImpl(store);
+        this.listRepository = new ListRepositoryImpl(store, new ListWaitRegistry());
+        this.streamRepository = new StreamRepositoryImpl(store, new StreamWaitRegistry());
+        this.sortedSetRepository = new SortedSetRepositoryImpl(store);
+    }
+
+    private static Keyspace[] shardsOf(Map<String, RedisValue<?>> store) {
+        if (!(store instanceof ShardedKeyspace sharded)) {
+            return new Keyspace[] { (Keyspace) store };
+        }
+        Keyspace[] shards = new Keyspace[sharded.getShardCount()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = sharded.shard(i);
+        }
+        return shards;
+    }
+
+    /**
+     * The shards of the keyspace, a single one when unsharded.
+     */
+    public Keyspace[] getShards() {
+        return shards;
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public CommonRepositoryImpl getCommonRepository() {
+        return commonRepository;
+    }
+
+    public StringRepositoryImpl getStringRepository() {
+        return stringRepository;
+    }
+
+    public ListRepositoryImpl getListRepository() {
+        return listRepository;
+    }
+
+    public StreamRepositoryImpl getStreamRepository() {
+        return streamRepository;
+    }
+
+    public SortedSetRepositoryImpl getSortedSetRepository() {
+        return sortedSetRepository;
+    }
+}
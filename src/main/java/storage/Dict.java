@@ -0,0 +1,461 @@
+package storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The hash table of a keyspace shard, built like Redis' dict: power-of-two
+ * tables of chained entries, grown at one key per bucket and shrunk below
+ * one key per eight buckets.
+ *
+ * Resizing never moves every key at once. A second table is allocated and
+ * each lookup, insert or removal moves one bucket of the old table into it,
+ * so the cost of a resize is spread over the operations that follow instead
+ * of stalling one command; the server cron moves more buckets when the shard
+ * is idle. Keys live in either table until the move is complete.
+ *
+ * Besides the Map API it picks random keys in O(1) for eviction and walks the
+ * table with SCAN cursors that return every key present for the whole scan
+ * at least once, even across resizes.
+ *
+ * Not thread safe: a shard is only touched by the executor owning it, and
+ * {@link ConcurrentDict} locks each of its Dicts for the threaded mode.
+ * Iterators fail fast like HashMap's, a bucket move counts as a change.
+ */
+public class Dict<V> extends AbstractMap<String, V> implements KeyTable<V> {
+
+    private static final int INITIAL_CAPACITY = 4;
+    // Shrink once fewer than one bucket in eight holds a key
+    private static final int MIN_FILL = 8;
+    // Empty buckets one rehash step may skip before giving up
+    private static final int REHASH_EMPTY_VISITS = 10;
+    // Buckets moved between two looks at the clock when rehashing on a budget
+    private static final int REHASH_BATCH = 100;
+
+    private Entry<V>[] table = newTable(INITIAL_CAPACITY);
+    // The table being moved to, null unless rehashing
+    private Entry<V>[] rehashTable;
+    // Every bucket of table below it has been moved
+    private int rehashIndex = -1;
+    private int size;
+    private int modCount;
+    private final Set<Map.Entry<String, V>> entrySet = new EntrySet();
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(Object key) {
+        rehashStep();
+        Entry<V> entry = find(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        rehashStep();
+        return find(key) != null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        rehashStep();
+        Entry<V> existing = find(key);
+        if (existing != null) {
+            V previous = existing.value;
+            existing.value = value;
+            return previous;
+        }
+        expandIfNeeded();
+        // While rehashing new keys go straight to the new table
+        Entry<V>[] target = rehashTable != null ? rehashTable : table;
+        int index = hash(key) & (target.length - 1);
+        target[index] = new Entry<>(key, value, target[index]);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        rehashStep();
+        Entry<V> removed = unlink(key);
+        if (removed == null) {
+            return null;
+        }
+        shrinkIfNeeded();
+        return removed.value;
+    }
+
+    @Override
+    public void clear() {
+        table = newTable(INITIAL_CAPACITY);
+        rehashTable = null;
+        rehashIndex = -1;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return entrySet;
+    }
+
+    public boolean isRehashing() {
+        return rehashTable != null;
+    }
+
+    /**
+     * Buckets across both tables, for tests of the resize policy and for INFO.
+     */
+    public int capacity() {
+        return table.length + (rehashTable != null ? rehashTable.length : 0);
+    }
+
+    /* ========== SAMPLING AND SCANNING ========== */
+
+    /**
+     * A key picked at random, null when empty. Probes random buckets until
+     * one holds keys, which takes a few tries at most as the table is never
+     * less than an eighth full, then picks one key of its chain.
+     */
+    @Override
+    public String randomKey(Random random) {
+        if (size == 0) {
+            return null;
+        }
+        Entry<V> bucket;
+        do {
+            if (rehashTable != null) {
+                // Buckets of the old table below the rehash index are empty
+                int span = table.length - rehashIndex + rehashTable.length;
+                int index = rehashIndex + random.nextInt(span);
+                bucket = index < table.length ? table[index] : rehashTable[index - table.length];
+            } else {
+                bucket = table[random.nextInt(table.length)];
+            }
+        } while (bucket == null);
+
+        int length = 0;
+        for (Entry<V> entry = bucket; entry != null; entry = entry.next) {
+            length++;
+        }
+        Entry<V> picked = bucket;
+        for (int skip = random.nextInt(length); skip > 0; skip--) {
+            picked = picked.next;
+        }
+        return picked.key;
+    }
+
+    /**
+     * Visits the keys of the bucket the cursor points at and returns the
+     * next cursor, 0 once the scan is complete. Start with 0.
+     *
+     * The cursor counts with its bits reversed, so buckets are visited high
+     * bits first: when the table doubles or halves between two calls, the
+     * buckets still to visit map onto buckets still to visit in the new
+     * table. A key may be returned more than once, never skipped. While
+     * rehashing, the bucket of the small table is visited together with
+     * every bucket of the large one it expands to.
+     */
+    @Override
+    public long scan(long cursor, Consumer<String> action) {
+        if (size == 0) {
+            return 0;
+        }
+        long v = cursor;
+        if (rehashTable == null) {
+            long mask = table.length - 1;
+            visit(table[(int) (v & mask)], action);
+            return nextCursor(v, mask);
+        }
+
+        Entry<V>[] small = table.length <= rehashTable.length ? table : rehashTable;
+        Entry<V>[] large = small == table ? rehashTable : table;
+        long smallMask = small.length - 1;
+        long largeMask = large.length - 1;
+        visit(small[(int) (v & smallMask)], action);
+        do {
+            visit(large[(int) (v & largeMask)], action);
+            v = nextCursor(v, largeMask);
+            // Until the bits the large table has over the small one wrap around
+        } while ((v & (smallMask ^ largeMask)) != 0);
+        return v;
+    }
+
+    // Increments the reversed cursor: set the bits above the mask, reverse, add one, reverse back
+    private static long nextCursor(long cursor, long mask) {
+        long v = cursor | ~mask;
+        v = Long.reverse(v);
+        v++;
+        return Long.reverse(v);
+    }
+
+    private static <V> void visit(Entry<V> bucket, Consumer<String> action) {
+        for (Entry<V> entry = bucket; entry != null; entry = entry.next) {
+            action.accept(entry.key);
+        }
+    }
+
+    /* ========== INCREMENTAL REHASHING ========== */
+
+    /**
+     * Moves buckets until the rehash is complete or the budget is spent.
+     * Returns whether a rehash is still in progress.
+     */
+    @Override
+    public boolean rehashFor(long budgetNanos) {
+        long start = System.nanoTime();
+        while (rehashTable != null) {
+            for (int i = 0; i < REHASH_BATCH && rehashTable != null; i++) {
+                rehashStep();
+            }
+            if (System.nanoTime() - start > budgetNanos) {
+                break;
+            }
+        }
+        return rehashTable != null;
+    }
+
+    // Moves one bucket, skipping a bounded number of empty ones on the way
+    private void rehashStep() {
+        if (rehashTable == null) {
+            return;
+        }
+        int emptyVisits = REHASH_EMPTY_VISITS;
+        while (rehashIndex < table.length && table[rehashIndex] == null) {
+            rehashIndex++;
+            if (--emptyVisits == 0) {
+                break;
+            }
+        }
+        if (rehashIndex < table.length && table[rehashIndex] != null) {
+            int mask = rehashTable.length - 1;
+            Entry<V> entry = table[rehashIndex];
+            while (entry != null) {
+                Entry<V> next = entry.next;
+                int index = hash(entry.key) & mask;
+                entry.next = rehashTable[index];
+                rehashTable[index] = entry;
+                entry = next;
+            }
+            table[rehashIndex++] = null;
+        }
+        if (rehashIndex >= table.length) {
+            table = rehashTable;
+            rehashTable = null;
+            rehashIndex = -1;
+        }
+        modCount++;
+    }
+
+    private void expandIfNeeded() {
+        if (rehashTable == null && size >= table.length) {
+            startRehash(table.length * 2);
+        }
+    }
+
+    private void shrinkIfNeeded() {
+        if (rehashTable == null && table.length > INITIAL_CAPACITY && size * MIN_FILL < table.length) {
+            int capacity = INITIAL_CAPACITY;
+            while (capacity <= size) {
+                capacity *= 2;
+            }
+            startRehash(capacity);
+        }
+    }
+
+    private void startRehash(int capacity) {
+        rehashTable = newTable(capacity);
+        rehashIndex = 0;
+    }
+
+    /* ========== BUCKETS ========== */
+
+    private Entry<V> find(Object key) {
+        if (size == 0) {
+            return null;
+        }
+        int hash = hash(key);
+        Entry<V> entry = findIn(table, hash, key);
+        if (entry == null && rehashTable != null) {
+            entry = findIn(rehashTable, hash, key);
+        }
+        return entry;
+    }
+
+    private static <V> Entry<V> findIn(Entry<V>[] table, int hash, Object key) {
+        for (Entry<V> entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.key.equals(key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // Removes the key's entry from whichever table holds it, without a rehash step
+    private Entry<V> unlink(Object key) {
+        if (size == 0) {
+            return null;
+        }
+        int hash = hash(key);
+        Entry<V> removed = unlinkFrom(table, hash, key);
+        if (removed == null && rehashTable != null) {
+            removed = unlinkFrom(rehashTable, hash, key);
+        }
+        if (removed != null) {
+            size--;
+            modCount++;
+        }
+        return removed;
+    }
+
+    private static <V> Entry<V> unlinkFrom(Entry<V>[] table, int hash, Object key) {
+        int index = hash & (table.length - 1);
+        Entry<V> previous = null;
+        for (Entry<V> entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+            if (entry.key.equals(key)) {
+                if (previous == null) {
+                    table[index] = entry.next;
+                } else {
+                    previous.next = entry.next;
+                }
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * String hash codes run through a finalizer, so the low bits picking the
+     * bucket depend on every bit of the hash. Shards are picked from the
+     * same hash codes; without it every key of a shard would share the low
+     * bits of its shard number.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> Entry<V>[] newTable(int capacity) {
+        return (Entry<V>[]) new Entry[capacity];
+    }
+
+    // No cached hash: String caches its own hash code, keeping an entry at 24 bytes
+    private static final class Entry<V> implements Map.Entry<String, V> {
+        private final String key;
+        private V value;
+        private Entry<V> next;
+
+        Entry(String key, V value, Entry<V> next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = this.value;
+            this.value = value;
+            return previous;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, V>> {
+        @Override
+        public Iterator<Map.Entry<String, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Walks the old table then the new one; no rehash step runs while it is in use
+    private class EntryIterator implements Iterator<Map.Entry<String, V>> {
+        private Entry<V>[] current = table;
+        private int index = -1;
+        private Entry<V> next;
+        private Entry<V> last;
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            unlink(last.key);
+            last = null;
+            expectedModCount = modCount;
+        }
+
+        private void advance() {
+            if (next != null && next.next != null) {
+                next = next.next;
+                return;
+            }
+            next = null;
+            while (next == null) {
+                if (++index >= current.length) {
+                    if (current != table || rehashTable == null) {
+                        return;
+                    }
+                    current = rehashTable;
+                    index = 0;
+                }
+                next = current[index];
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The keys of a keyspace that carry a TTL, ordered by deadline in a
+ * hierarchical timing wheel so the active expire cycle finds the keys due
+ * without sampling or walking the keyspace.
+ *
+ * Level 0 has one slot per millisecond of the current 64 ms window, every
+ * level above covers 64 times the span of the one below. A key goes to the
+ * lowest level whose window contains its deadline; when the clock enters a
+ * slot of a higher level its keys cascade down, and the level 0 slot of the
+ * current millisecond moves to the due list. Scheduling, rescheduling and
+ * removing a key are O(1), and a key cascades at most once per level, so
+ * expiring it is O(1) amortized however many keys share the wheel.
+ *
+ * Keys are also kept in a dense array, a removed key replaced by the last
+ * one, so a random key with a TTL can still be picked in O(1). Locked
+ * because in threaded mode every connection thread writes keys; executor
+ * threads own their shard and never contend for it.
+ */
+public class ExpiresIndex {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    // Where an entry's list lives when it is not in a wheel slot
+    private static final int DUE = -1;
+    private static final int DETACHED = -2;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Entry[] dense = new Entry[16];
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+    private Entry due;
+    private int dueCount;
+    // The next millisecond the wheel has to process
+    private long currentTick = System.currentTimeMillis();
+
+    /**
+     * Adds the key with its absolute deadline in milliseconds, or moves it
+     * to the new deadline when it is already indexed.
+     */
+    public void put(String key, long deadline) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key);
+                if (entries.size() == dense.length) {
+                    dense = Arrays.copyOf(dense, dense.length * 2);
+                }
+                entry.position = entries.size();
+                dense[entry.position] = entry;
+                entries.put(key, entry);
+            } else {
+                unlink(entry);
+            }
+            entry.deadline = deadline;
+            schedule(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.remove(key);
+            if (entry == null) {
+                return;
+            }
+            unlink(entry);
+            int last = entries.size();
+            if (entry.position != last) {
+                Entry moved = dense[last];
+                moved.position = entry.position;
+                dense[entry.position] = moved;
+            }
+            dense[last] = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the wheel forward to the given time: every key whose deadline
+     * has passed by then joins the due list.
+     */
+    public void advance(long nowMillis) {
+        lock.lock();
+        try {
+            if (entries.size() == dueCount) {
+                // Nothing left in the wheel, jump instead of walking empty slots
+                currentTick = Math.max(currentTick, nowMillis + 1);
+                return;
+            }
+            while (currentTick <= nowMillis) {
+                cascade(currentTick);
+                int slot = (int) (currentTick & SLOT_MASK);
+                Entry entry = wheel[0][slot];
+                wheel[0][slot] = null;
+                while (entry != null) {
+                    Entry next = entry.next;
+                    pushDue(entry);
+                    entry = next;
+                }
+                currentTick++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next key off the due list, or returns null when none is due.
+     * The key stays indexed but unscheduled until it is put or removed again.
+     */
+    public String pollDue() {
+        lock.lock();
+        try {
+            Entry entry = due;
+            if (entry == null) {
+                return null;
+            }
+            unlink(entry);
+            return entry.key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How many keys are due and not yet polled.
+     */
+    public int dueCount() {
+        lock.lock();
+        try {
+            return dueCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A key picked uniformly at random, or null when no key has a TTL.
+     */
+    public String randomKey(Random random) {
+        lock.lock();
+        try {
+            int size = entries.size();
+            return size == 0 ? null : dense[random.nextInt(size)].key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            Arrays.fill(dense, 0, entries.size(), null);
+            for (Entry[] level : wheel) {
+                Arrays.fill(level, null);
+            }
+            entries.clear();
+            due = null;
+            dueCount = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* ========== WHEEL ========== */
+
+    private void schedule(Entry entry) {
+        // A value expires once the clock is past its deadline, never at it
+        long tick = entry.deadline == Long.MAX_VALUE ? Long.MAX_VALUE : entry.deadline + 1;
+        if (tick < currentTick) {
+            pushDue(entry);
+            return;
+        }
+        long diff = tick ^ currentTick;
+        int level = diff < SLOTS ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        int slot = (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = wheel[level][slot];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        wheel[level][slot] = entry;
+    }
+
+    // Entering a new window of a level pulls its slot down, highest level first
+    private void cascade(long tick) {
+        int levels = 0;
+        while (levels + 1 < LEVELS && (tick & ((1L << ((levels + 1) * SLOT_BITS)) - 1)) == 0) {
+            levels++;
+        }
+        for (int level = levels; level > 0; level--) {
+            int slot = (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+            Entry entry = wheel[level][slot];
+            wheel[level][slot] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                schedule(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void pushDue(Entry entry) {
+        entry.level = DUE;
+        entry.prev = null;
+        entry.next = due;
+        if (due != null) {
+            due.prev = entry;
+        }
+        due = entry;
+        dueCount++;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.level == DETACHED) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else if (entry.level == DUE) {
+            due = entry.next;
+        } else {
+            wheel[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        if (entry.level == DUE) {
+            dueCount--;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.level = DETACHED;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private long deadline;
+        private int position;
+        private int level = DETACHED;
+        private int slot;
+        private Entry prev;
+        private Entry next;
+
+        Entry(String key) {
+            this.key = key;
+        }
+    }
+}
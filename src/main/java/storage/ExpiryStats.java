@@ -0,0 +1,56 @@
+package storage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of keys removed because their TTL passed, reported by INFO stats
+ * under the names Redis uses.
+ */
+public class ExpiryStats {
+
+    private final LongAdder expiredKeys = new LongAdder();
+    private final LongAdder timeCapReached = new LongAdder();
+    private final LongAdder cycleNanos = new LongAdder();
+    // Running average of the share of keys with a TTL left due after a cycle, in percent
+    private volatile double stalePercent;
+
+    /**
+     * A key was removed on access or by the active cycle.
+     */
+    public void keyExpired() {
+        expiredKeys.increment();
+    }
+
+    /**
+     * One run of the active cycle: how many keys were still due when it
+     * stopped out of how many with a TTL, how long it took and whether it
+     * stopped on its time budget.
+     */
+    public void cycleCompleted(long stillDue, long withTtl, long elapsedNanos, boolean timeCapReached) {
+        cycleNanos.add(elapsedNanos);
+        if (timeCapReached) {
+            this.timeCapReached.increment();
+        }
+        if (withTtl > 0) {
+            double current = stillDue * 100.0 / withTtl;
+            // Smoothed the way Redis does, cycles run concurrently on shards so a lost update is fine
+            stalePercent = current * 0.05 + stalePercent * 0.95;
+        }
+    }
+
+    public long getExpiredKeys() {
+        return expiredKeys.sum();
+    }
+
+    public double getStalePercent() {
+        return stalePercent;
+    }
+
+    public long getTimeCapReachedCount() {
+        return timeCapReached.sum();
+    }
+
+    public long getCycleMillis() {
+        return cycleNanos.sum() / 1_000_000;
+    }
+}
@@ -2,11 +2,14 @@ package storage;
 
 import domain.values.UserProperties;
 import storage.impl.*;
-import storage.concurrency.ListWaitRegistry;
-import storage.concurrency.StreamWaitRegistry;
+import domain.BitOperation;
 import domain.DataType;
+import domain.ExpireCondition;
 import domain.RedisValue;
+import storage.eviction.EvictionConfig;
+import storage.eviction.EvictionListener;
 import storage.exception.InvalidStreamEntryException;
+import domain.values.BitfieldOperation;
 import domain.values.Member;
 
 import java.util.HashMap;
@@ -14,28 +17,75 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.Consumer;
 
 public class InMemoryDataStore implements DataStore {
 
-    private final Map<String, RedisValue> store = new ConcurrentHashMap<>();
-    
-    private final CommonRepositoryImpl commonRepository;
-    private final StringRepositoryImpl stringRepository;
-    private final ListRepositoryImpl listRepository;
-    private final StreamRepositoryImpl streamRepository;
-    private final SortedSetRepositoryImpl sortedSetRepository;
+    public static final int DEFAULT_DATABASES = 16;
+
+    // ACL users are not keys, they stay out of the keyspace and its shards
+    private final Map<String, UserProperties> users = new ConcurrentHashMap<>();
+
+    private final DatabaseRepositoryImpl databaseRepository;
     private final AuthenticationRepositoryImpl authenticationRepository;
 
     public InMemoryDataStore() {
-        ListWaitRegistry listWaitRegistry = new ListWaitRegistry();
-        StreamWaitRegistry streamWaitRegistry = new StreamWaitRegistry();
-        
-        this.commonRepository = new CommonRepositoryImpl(store);
-        this.stringRepository = new StringRepositoryImpl(store);
-        this.listRepository = new ListRepositoryImpl(store, listWaitRegistry);
-        this.streamRepository = new StreamRepositoryImpl(store, streamWaitRegistry);
-        this.sortedSetRepository = new SortedSetRepositoryImpl(store);
-        this.authenticationRepository = new AuthenticationRepositoryImpl(store);
+        this(EvictionConfig.DISABLED);
+    }
+
+    public InMemoryDataStore(EvictionConfig eviction) {
+        this(eviction, false);
+    }
+
+    public InMemoryDataStore(EvictionConfig eviction, boolean prefixIndex) {
+        this(eviction, prefixIndex, DEFAULT_DATABASES);
+    }
+
+    /**
+     * @param prefixIndex whether to keep key names in a radix tree for prefix-scoped scans
+     * @param databases how many logical databases SELECT can pick from
+     */
+    public InMemoryDataStore(EvictionConfig eviction, boolean prefixIndex, int databases) {
+        this(() -> new Keyspace(ConcurrentDict::new, eviction, prefixIndex), databases, eviction);
+    }
+
+    /**
+     * A keyspace split into shards, each touched only by the executor thread
+     * owning it.
+     */
+    public InMemoryDataStore(int shardCount) {
+        this(shardCount, EvictionConfig.DISABLED);
+    }
+
+    public InMemoryDataStore(int shardCount, EvictionConfig eviction) {
+        this(shardCount, eviction, false);
+    }
+
+    public InMemoryDataStore(int shardCount, EvictionConfig eviction, boolean prefixIndex) {
+        this(shardCount, eviction, prefixIndex, DEFAULT_DATABASES);
+    }
+
+    public InMemoryDataStore(int shardCount, EvictionConfig eviction, boolean prefixIndex, int databases) {
+        this(() -> new ShardedKeyspace(shardCount, eviction, prefixIndex), databases, eviction);
+    }
+
+    private InMemoryDataStore(Supplier<Map<String, RedisValue<?>>> keyspaces, int databaseCount,
+            EvictionConfig eviction) {
+        if (databaseCount < 1) {
+            throw new IllegalArgumentException("Database count must be a positive number");
+        }
+        ExpiryStats expiryStats = new ExpiryStats();
+        Database[] databases = new Database[databaseCount];
+        for (int i = 0; i < databaseCount; i++) {
+            databases[i] = new Database(keyspaces.get(), expiryStats);
+        }
+        this.databaseRepository = new DatabaseRepositoryImpl(databases, expiryStats, eviction);
+        this.authenticationRepository = new AuthenticationRepositoryImpl(users);
+    }
+
+    private Database selected() {
+        return databaseRepository.selected();
     }
 
     // ============================================
@@ -44,47 +94,182 @@ public class InMemoryDataStore implements DataStore {
 
     @Override
     public void setValue(String key, RedisValue redisValue) {
-        commonRepository.setValue(key, redisValue);
+        selected().getCommonRepository().setValue(key, redisValue);
     }
 
     @Override
     public RedisValue getValue(String key) {
-        return commonRepository.getValue(key);
+        return selected().getCommonRepository().getValue(key);
     }
 
     @Override
     public boolean exists(String key) {
-        return commonRepository.exists(key);
+        return selected().getCommonRepository().exists(key);
     }
 
     @Override
     public boolean delete(String key) {
-        return commonRepository.delete(key);
+        return selected().getCommonRepository().delete(key);
     }
 
+
     @Override
-    public void cleanup() {
-        commonRepository.cleanup();
+    public long getTTL(String key) {
+        return selected().getCommonRepository().getTTL(key);
     }
 
     @Override
-    public long getTTL(String key) {
-        return commonRepository.getTTL(key);
+    public long getExpiryTime(String key) {
+        return selected().getCommonRepository().getExpiryTime(key);
+    }
+
+    @Override
+    public boolean setExpiry(String key, long expiryTime, Set<ExpireCondition> conditions) {
+        return selected().getCommonRepository().setExpiry(key, expiryTime, conditions);
+    }
+
+    @Override
+    public boolean persist(String key) {
+        return selected().getCommonRepository().persist(key);
     }
 
     @Override
     public DataType getType(String key) {
-        return commonRepository.getType(key);
+        return selected().getCommonRepository().getType(key);
     }
 
     @Override
     public boolean isType(String key, DataType dataType) {
-        return commonRepository.isType(key, dataType);
+        return selected().getCommonRepository().isType(key, dataType);
     }
 
     @Override
     public Set<String> getAllKeys() {
-        return commonRepository.getAllKeys();
+        return selected().getCommonRepository().getAllKeys();
+    }
+
+    @Override
+    public Set<String> getKeysWithPrefix(String prefix) {
+        return selected().getCommonRepository().getKeysWithPrefix(prefix);
+    }
+
+    @Override
+    public int countKeysWithPrefix(String prefix) {
+        return selected().getCommonRepository().countKeysWithPrefix(prefix);
+    }
+
+    @Override
+    public long scan(long cursor, int count, String prefix, List<String> keys) {
+        return selected().getCommonRepository().scan(cursor, count, prefix, keys);
+    }
+
+    @Override
+    public int getKeyCount() {
+        return selected().getCommonRepository().getKeyCount();
+    }
+
+    @Override
+    public int getExpiresCount() {
+        return selected().getCommonRepository().getExpiresCount();
+    }
+
+    @Override
+    public long getMemoryUsage(String key) {
+        return selected().getCommonRepository().getMemoryUsage(key);
+    }
+
+    // ============================================
+    // DELEGATE TO DATABASE REPOSITORY
+    // ============================================
+
+    @Override
+    public int getDatabaseCount() {
+        return databaseRepository.getDatabaseCount();
+    }
+
+    @Override
+    public int getKeyCount(int database) {
+        return databaseRepository.getKeyCount(database);
+    }
+
+    @Override
+    public int getExpiresCount(int database) {
+        return databaseRepository.getExpiresCount(database);
+    }
+
+    @Override
+    public boolean move(String key, int database) {
+        return databaseRepository.move(key, database);
+    }
+
+    @Override
+    public void swapDatabases(int first, int second) {
+        databaseRepository.swapDatabases(first, second);
+    }
+
+    @Override
+    public void flushDatabase(boolean async) {
+        databaseRepository.flushDatabase(async);
+    }
+
+    @Override
+    public void flushAll(boolean async) {
+        databaseRepository.flushAll(async);
+    }
+
+    @Override
+    public long getLazyFreePendingObjects() {
+        return databaseRepository.getLazyFreePendingObjects();
+    }
+
+    @Override
+    public long getLazyFreedObjects() {
+        return databaseRepository.getLazyFreedObjects();
+    }
+
+    @Override
+    public void activeExpireCycle(int shard, long budgetNanos) {
+        databaseRepository.activeExpireCycle(shard, budgetNanos);
+    }
+
+    @Override
+    public void activeRehash(int shard, long budgetNanos) {
+        databaseRepository.activeRehash(shard, budgetNanos);
+    }
+
+    @Override
+    public ExpiryStats getExpiryStats() {
+        return databaseRepository.getExpiryStats();
+    }
+
+    @Override
+    public long getUsedMemory() {
+        return databaseRepository.getUsedMemory();
+    }
+
+    @Override
+    public boolean freeMemoryIfNeeded(String key) {
+        return databaseRepository.freeMemoryIfNeeded(key);
+    }
+
+    @Override
+    public long getEvictedKeys() {
+        return databaseRepository.getEvictedKeys();
+    }
+
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        databaseRepository.setEvictionListener(listener);
+    }
+
+    @Override
+    public MemoryStats getMemoryStats() {
+        return databaseRepository.getMemoryStats();
+    }
+
+    @Override
+    public void recordPeakMemory() {
+        databaseRepository.recordPeakMemory();
     }
 
     // ============================================
@@ -93,7 +278,87 @@ public class InMemoryDataStore implements DataStore {
 
     @Override
     public long incr(String key) {
-        return stringRepository.incr(key);
+        return selected().getStringRepository().incr(key);
+    }
+
+    @Override
+    public long incrBy(String key, long increment) {
+        return selected().getStringRepository().incrBy(key, increment);
+    }
+
+    @Override
+    public String incrByFloat(String key, double increment) {
+        return selected().getStringRepository().incrByFloat(key, increment);
+    }
+
+    @Override
+    public List<byte[]> mget(List<String> keys) {
+        return selected().getStringRepository().mget(keys);
+    }
+
+    @Override
+    public void mset(List<String> keysAndValues) {
+        selected().getStringRepository().mset(keysAndValues);
+    }
+
+    @Override
+    public boolean msetnx(List<String> keysAndValues) {
+        return selected().getStringRepository().msetnx(keysAndValues);
+    }
+
+    @Override
+    public long append(String key, String value) {
+        return selected().getStringRepository().append(key, value);
+    }
+
+    @Override
+    public long setRange(String key, long offset, String value) {
+        return selected().getStringRepository().setRange(key, offset, value);
+    }
+
+    @Override
+    public long strlen(String key) {
+        return selected().getStringRepository().strlen(key);
+    }
+
+    @Override
+    public byte[] getRange(String key, long start, long end) {
+        return selected().getStringRepository().getRange(key, start, end);
+    }
+
+    @Override
+    public byte[] getDel(String key) {
+        return selected().getStringRepository().getDel(key);
+    }
+
+    @Override
+    public long setBit(String key, long offset, int bit) {
+        return selected().getStringRepository().setBit(key, offset, bit);
+    }
+
+    @Override
+    public long getBit(String key, long offset) {
+        return selected().getStringRepository().getBit(key, offset);
+    }
+
+    @Override
+    public long bitCount(String key, long start, long end, boolean bitUnit) {
+        return selected().getStringRepository().bitCount(key, start, end, bitUnit);
+    }
+
+    @Override
+    public long bitPos(String key, int bit, long start, long end, boolean endGiven, boolean bitUnit) {
+        return selected().getStringRepository().bitPos(key, bit, start, end, endGiven, bitUnit);
+    }
+
+    @Override
+    public long bitOp(BitOperation operation, String destination, List<String> sources) {
+        return selected().getStringRepository().bitOp(operation, destination, sources);
+    }
+
+    @Override
+    public List<Long> bitField(String key, List<BitfieldOperation> operations) {
+        return selected().getStringRepository().bitField(key, operations);
     }
 
     // ============================================
@@ -102,27 +367,27 @@ public class InMemoryDataStore implements DataStore {
 
     @Override
     public long rpush(String key, List<String> values) {
-        return listRepository.rpush(key, values);
+        return selected().getListRepository().rpush(key, values);
     }
 
     @Override
     public long lpush(String key, List<String> values) {
-        return listRepository.lpush(key, values);
+        return selected().getListRepository().lpush(key, values);
     }
 
     @Override
     public String lpop(String key) {
-        return listRepository.lpop(key);
+        return selected().getListRepository().lpop(key);
     }
 
     @Override
     public List<String> lpop(String key, Long count) {
-        return listRepository.lpop(key, count);
+        return selected().getListRepository().lpop(key, count);
     }
 
     @Override
-    public String BLPOP(String key, double timestamp) throws InterruptedException {
-        return listRepository.BLPOP(key, timestamp);
+    public Runnable BLPOP(String key, double timestamp, Consumer<String> onComplete) {
+        return selected().getListRepository().BLPOP(key, timestamp, onComplete);
     }
 
     // ============================================
@@ -132,18 +397,23 @@ public class InMemoryDataStore implements DataStore {
     @Override
     public String xadd(String streamKey, String entryID, HashMap<String, String> entryValues)
             throws InvalidStreamEntryException {
-        return streamRepository.xadd(streamKey, entryID, entryValues);
+        return selected().getStreamRepository().xadd(streamKey, entryID, entryValues);
     }
 
     @Override
     public List<List<Object>> XRANGE(String streamKey, String startEntryId, String endEntryId, boolean inclusion) {
-        return streamRepository.XRANGE(streamKey, startEntryId, endEntryId, inclusion);
+        return selected().getStreamRepository().XRANGE(streamKey, startEntryId, endEntryId, inclusion);
     }
 
     @Override
-    public List<List<Object>> XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs, boolean block,
-            double timeoutSeconds) throws InterruptedException {
-        return streamRepository.XREAD(streamsKeys, streamsStartEntriesIDs, block, timeoutSeconds);
+    public List<List<Object>> XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs) {
+        return selected().getStreamRepository().XREAD(streamsKeys, streamsStartEntriesIDs);
+    }
+
+    @Override
+    public Runnable XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs, long timeoutMillis,
+            Consumer<List<List<Object>>> onComplete) {
+        return selected().getStreamRepository().XREAD(streamsKeys, streamsStartEntriesIDs, timeoutMillis, onComplete);
     }
 
     // ============================================
@@ -152,32 +422,32 @@ public class InMemoryDataStore implements DataStore {
 
     @Override
     public int zadd(String key, List<Member> members) {
-        return sortedSetRepository.zadd(key, members);
+        return selected().getSortedSetRepository().zadd(key, members);
     }
 
     @Override
     public Integer zrank(String key, String memberName) {
-        return sortedSetRepository.zrank(key, memberName);
+        return selected().getSortedSetRepository().zrank(key, memberName);
     }
 
     @Override
     public List<String> zrange(String key, int start, int end) {
-        return sortedSetRepository.zrange(key, start, end);
+        return selected().getSortedSetRepository().zrange(key, start, end);
     }
 
     @Override
     public int zcard(String key) {
-        return sortedSetRepository.zcard(key);
+        return selected().getSortedSetRepository().zcard(key);
     }
 
     @Override
     public double zscore(String key, String memberName) {
-        return sortedSetRepository.zscore(key, memberName);
+        return selected().getSortedSetRepository().zscore(key, memberName);
     }
 
     @Override
     public int zrem(String key, String memberName) {
-        return sortedSetRepository.zrem(key, memberName);
+        return selected().getSortedSetRepository().zrem(key, memberName);
     }
 
 
@@ -185,19 +455,14 @@ public class InMemoryDataStore implements DataStore {
     // DELEGATE TO Authentication REPOSITORY
     // ============================================
 
-    @Override
-    public String getCurrentUser() {
-        return authenticationRepository.getCurrentUser();
-    }
-
     @Override
     public UserProperties getUserProperties(String currentUser) {
         return authenticationRepository.getUserProperties(currentUser);
     }
 
     @Override
-    public boolean setUserPassword(String userName, String password) {
-        return authenticationRepository.setUserPassword(userName, password);
+    public void setUser(String userName, List<String> rules) {
+        authenticationRepository.setUser(userName, rules);
     }
 
     @Override
@@ -0,0 +1,79 @@
+package storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Every key of a keyspace in a dense array, so allkeys eviction policies can
+ * pick random keys without walking the map. A removed key is replaced by the
+ * last one: adding, removing and picking are all O(1). Only kept when the
+ * eviction policy samples all keys. Locked for threaded mode, like the
+ * expires index.
+ */
+public class KeySampler {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private String[] keys = new String[16];
+    private int size;
+
+    public void add(String key) {
+        lock.lock();
+        try {
+            if (positions.putIfAbsent(key, size) != null) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.lock();
+        try {
+            Integer position = positions.remove(key);
+            if (position == null) {
+                return;
+            }
+            size--;
+            if (position != size) {
+                String moved = keys[size];
+                keys[position] = moved;
+                positions.put(moved, position);
+            }
+            keys[size] = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A key picked uniformly at random, or null when there are none.
+     */
+    public String randomKey(Random random) {
+        lock.lock();
+        try {
+            return size == 0 ? null : keys[random.nextInt(size)];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            Arrays.fill(keys, 0, size, null);
+            positions.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
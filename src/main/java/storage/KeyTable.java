@@ -0,0 +1,32 @@
+package storage;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * A map of keys that, besides the Map API, picks random keys for eviction,
+ * finishes its resizes on a time budget and can be walked with SCAN cursors.
+ * {@link Dict} is one for a shard touched by a single thread,
+ * {@link ConcurrentDict} one for a keyspace every connection thread writes.
+ */
+public interface KeyTable<V> extends Map<String, V> {
+
+    /**
+     * A key picked at random, null when empty.
+     */
+    String randomKey(Random random);
+
+    /**
+     * Moves buckets of unfinished resizes until none is left or the budget
+     * is spent. Returns whether a resize is still in progress.
+     */
+    boolean rehashFor(long budgetNanos);
+
+    /**
+     * Visits the keys of the bucket the cursor points at and returns the
+     * next cursor, 0 once the scan is complete. Start with 0. Every key
+     * present for the whole scan is visited at least once.
+     */
+    long scan(long cursor, Consumer<String> action);
+}
@@ -0,0 +1,388 @@
+package storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import domain.MemoryEstimate;
+import domain.RedisValue;
+import storage.eviction.AccessTracker;
+import storage.eviction.EvictionConfig;
+
+/**
+ * The keys of one keyspace, or of one shard of it, together with the index of
+ * those carrying a TTL. Every write goes through put or remove, which keep
+ * the {@link ExpiresIndex} in step with the values; a value whose TTL is
+ * changed in place is put again under its key to reschedule it.
+ *
+ * The keyspace also adds up the memory estimates of its keys and values:
+ * a stored value reports its own growth, so used memory is never recounted.
+ * Reads through get count as accesses for LRU and LFU eviction, peek does not.
+ *
+ * The keys and everything kept about them form one generation, so FLUSHDB
+ * swaps in an empty one in O(1) with {@link #detach()} and the old map can
+ * be released off the command path. Values removed or overwritten are
+ * handed to the {@link LazyFreer}, except those taken to live on under
+ * another key.
+ */
+public class Keyspace extends AbstractMap<String, RedisValue<?>> {
+
+    private final Supplier<Map<String, RedisValue<?>>> mapFactory;
+    private final boolean sampled;
+    private final boolean indexed;
+    private final AccessTracker accessTracker;
+    // Replaced as a whole on flush, read once per operation
+    private volatile Generation generation;
+    private final Set<Map.Entry<String, RedisValue<?>>> entrySet = new EntrySet();
+
+    /**
+     * @param mapFactory creates the backing map, concurrent when several threads write keys
+     */
+    public Keyspace(Supplier<Map<String, RedisValue<?>>> mapFactory) {
+        this(mapFactory, EvictionConfig.DISABLED);
+    }
+
+    public Keyspace(Supplier<Map<String, RedisValue<?>>> mapFactory, EvictionConfig eviction) {
+        this(mapFactory, eviction, false);
+    }
+
+    /**
+     * @param prefixIndex whether to also keep the key names in a {@link RadixTree}
+     */
+    public Keyspace(Supplier<Map<String, RedisValue<?>>> mapFactory, EvictionConfig eviction, boolean prefixIndex) {
+        this.mapFactory = mapFactory;
+        this.sampled = eviction.samplesAllKeys();
+        this.indexed = prefixIndex;
+        this.accessTracker = new AccessTracker(eviction.getPolicy().usesLfu());
+        this.generation = newGeneration();
+    }
+
+    private Generation newGeneration() {
+        return new Generation(mapFactory.get(), sampled, indexed);
+    }
+
+    public ExpiresIndex getExpires() {
+        return generation.expires;
+    }
+
+    public AccessTracker getAccessTracker() {
+        return accessTracker;
+    }
+
+    /**
+     * The key names by prefix, null when the keyspace keeps no prefix index.
+     */
+    public RadixTree getPrefixIndex() {
+        return generation.prefixIndex;
+    }
+
+    public long getUsedMemory() {
+        Generation current = generation;
+        return current.overheadMemory.sum() + current.datasetMemory.sum();
+    }
+
+    /**
+     * Bytes spent on the keys themselves and their map entries.
+     */
+    public long getOverheadMemory() {
+        return generation.overheadMemory.sum();
+    }
+
+    /**
+     * Bytes held by the values.
+     */
+    public long getDatasetMemory() {
+        return generation.datasetMemory.sum();
+    }
+
+    @Override
+    public RedisValue<?> get(Object key) {
+        RedisValue<?> value = generation.entries.get(key);
+        if (value != null) {
+            accessTracker.touch(value);
+        }
+        return value;
+    }
+
+    /**
+     * The value without counting it as an access, for background work like
+     * expiry and eviction.
+     */
+    public RedisValue<?> peek(String key) {
+        return generation.entries.get(key);
+    }
+
+    /**
+     * A key picked at random, null when there are none or the eviction
+     * policy does not sample all keys.
+     */
+    public String randomKey(Random random) {
+        Generation current = generation;
+        if (current.entries instanceof KeyTable<RedisValue<?>> table) {
+            return table.randomKey(random);
+        }
+        return current.sampler == null ? null : current.sampler.randomKey(random);
+    }
+
+    /**
+     * Spends up to the budget moving the buckets of an unfinished resize,
+     * so an idle shard does not keep two tables around. Returns whether a
+     * resize is still in progress.
+     */
+    public boolean activeRehash(long budgetNanos) {
+        return generation.entries instanceof KeyTable<RedisValue<?>> table && table.rehashFor(budgetNanos);
+    }
+
+    /**
+     * Visits the keys of the next bucket and returns the cursor to continue
+     * from, 0 once every key was visited. A map that is no {@link KeyTable}
+     * has no cursor that survives its resizes, so there every key is visited
+     * in the first call.
+     */
+    public long scan(long cursor, Consumer<String> action) {
+        Map<String, RedisValue<?>> entries = generation.entries;
+        if (entries instanceof KeyTable<RedisValue<?>> table) {
+            return table.scan(cursor, action);
+        }
+        entries.keySet().forEach(action);
+        return 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return generation.entries.containsKey(key);
+    }
+
+    @Override
+    public RedisValue<?> put(String key, RedisValue<?> value) {
+        Generation current = generation;
+        RedisValue<?> previous = current.entries.put(key, value);
+        if (previous == null) {
+            add(current, key, value);
+            return null;
+        }
+        if (previous != value) {
+            accessTracker.init(value);
+            value.attachMemoryListener(current.memoryListener);
+            previous.detachMemoryListener();
+            current.datasetMemory.add(value.getMemory() - previous.getMemory());
+            LazyFreer.getInstance().free(previous);
+        }
+        if (value.hasExpiry()) {
+            current.expires.put(key, value.getExpiryTime());
+        } else if (previous == value || previous.hasExpiry()) {
+            // Putting the same value back means its TTL was changed in place
+            current.expires.remove(key);
+        }
+        return previous;
+    }
+
+    /**
+     * Stores the value only when the key is absent, in one step of the
+     * backing map, so concurrent writers creating the same key agree on a
+     * single value. Returns the value already there, or null.
+     */
+    @Override
+    public RedisValue<?> putIfAbsent(String key, RedisValue<?> value) {
+        Generation current = generation;
+        RedisValue<?> existing = current.entries.putIfAbsent(key, value);
+        if (existing == null) {
+            add(current, key, value);
+        }
+        return existing;
+    }
+
+    // Bookkeeping for a key that just entered the map
+    private void add(Generation current, String key, RedisValue<?> value) {
+        accessTracker.init(value);
+        value.attachMemoryListener(current.memoryListener);
+        current.overheadMemory.add(MemoryEstimate.key(key));
+        current.datasetMemory.add(value.getMemory());
+        if (current.sampler != null) {
+            current.sampler.add(key);
+        }
+        if (current.prefixIndex != null) {
+            current.prefixIndex.add(key);
+        }
+        if (value.hasExpiry()) {
+            current.expires.put(key, value.getExpiryTime());
+        }
+    }
+
+    @Override
+    public RedisValue<?> remove(Object key) {
+        RedisValue<?> removed = take((String) key);
+        if (removed != null) {
+            LazyFreer.getInstance().free(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the key without releasing its value, which the caller keeps
+     * using, as MOVE does. Returns null when the key is absent.
+     */
+    public RedisValue<?> take(String key) {
+        Generation current = generation;
+        RedisValue<?> removed = current.entries.remove(key);
+        if (removed != null) {
+            current.forget(key, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Takes the key only while it still holds this value, without releasing
+     * it. Returns whether it did.
+     */
+    public boolean take(String key, RedisValue<?> value) {
+        Generation current = generation;
+        if (!current.entries.remove(key, value)) {
+            return false;
+        }
+        current.forget(key, value);
+        return true;
+    }
+
+    /**
+     * Removes the key only while it still holds this value, so expiring a
+     * value never deletes one written over it in the meantime.
+     */
+    @Override
+    public boolean remove(Object key, Object value) {
+        Generation current = generation;
+        if (!current.entries.remove(key, value)) {
+            return false;
+        }
+        current.forget((String) key, (RedisValue<?>) value);
+        LazyFreer.getInstance().free((RedisValue<?>) value);
+        return true;
+    }
+
+    /**
+     * Drops an index entry whose key no longer has a TTL. Only happens in
+     * threaded mode, when a concurrent write raced the index update.
+     */
+    void forgetExpiry(String key) {
+        Generation current = generation;
+        RedisValue<?> value = current.entries.get(key);
+        if (value == null || !value.hasExpiry()) {
+            current.expires.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        return generation.entries.size();
+    }
+
+    @Override
+    public void clear() {
+        release(detach());
+    }
+
+    /**
+     * Empties the keyspace in O(1) by starting a new generation and returns
+     * the map holding the old keys, which nothing else references anymore.
+     */
+    public Map<String, RedisValue<?>> detach() {
+        Generation old = generation;
+        generation = newGeneration();
+        return old.entries;
+    }
+
+    /**
+     * Releases the values of a detached map one by one, so a large keyspace
+     * is walked by whoever calls this rather than by the command that
+     * flushed it. The map itself is left as is, a reader that took it before
+     * the flush may still be iterating it.
+     */
+    public static void release(Map<String, RedisValue<?>> detached) {
+        for (RedisValue<?> value : detached.values()) {
+            value.detachMemoryListener();
+            value.release();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, RedisValue<?>>> entrySet() {
+        return entrySet;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, RedisValue<?>>> {
+        @Override
+        public Iterator<Map.Entry<String, RedisValue<?>>> iterator() {
+            Generation current = generation;
+            Iterator<Map.Entry<String, RedisValue<?>>> iterator = current.entries.entrySet().iterator();
+            return new Iterator<>() {
+                private Map.Entry<String, RedisValue<?>> last;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<String, RedisValue<?>> next() {
+                    last = iterator.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    current.forget(last.getKey(), last.getValue());
+                    LazyFreer.getInstance().free(last.getValue());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return generation.entries.size();
+        }
+    }
+
+    // The keys and everything kept about them, dropped together on flush
+    private static final class Generation {
+        private final Map<String, RedisValue<?>> entries;
+        private final ExpiresIndex expires = new ExpiresIndex();
+        // Only kept when eviction samples all keys and the map cannot pick them itself
+        private final KeySampler sampler;
+        // Key names by prefix, null unless enabled
+        private final RadixTree prefixIndex;
+        // Key strings and map entries, and what the values hold
+        private final LongAdder overheadMemory = new LongAdder();
+        private final LongAdder datasetMemory = new LongAdder();
+        private final LongConsumer memoryListener = datasetMemory::add;
+
+        Generation(Map<String, RedisValue<?>> entries, boolean sampled, boolean indexed) {
+            this.entries = entries;
+            this.sampler = sampled && !(entries instanceof KeyTable) ? new KeySampler() : null;
+            this.prefixIndex = indexed ? new RadixTree() : null;
+        }
+
+        // Bookkeeping for a key that just left the map
+        void forget(String key, RedisValue<?> removed) {
+            removed.detachMemoryListener();
+            overheadMemory.add(-MemoryEstimate.key(key));
+            datasetMemory.add(-removed.getMemory());
+            if (sampler != null) {
+                sampler.remove(key);
+            }
+            if (prefixIndex != null) {
+                prefixIndex.remove(key);
+            }
+            if (removed.hasExpiry()) {
+                expires.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package storage;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import domain.RedisValue;
+
+/**
+ * Releases values and whole keyspaces that left the keyspace on a
+ * background thread, like Redis' lazyfree. Deleting, expiring, evicting or
+ * overwriting a key holding more than {@link #LAZYFREE_THRESHOLD} elements
+ * and FLUSHDB ASYNC only unlink what they drop; walking millions of old
+ * keys and calling {@link RedisValue#release()} happens here, so neither
+ * the command nor the executor owning the shard waits for it. Small values
+ * are released right away, queueing them would cost more than it saves.
+ * Releasing never empties a heap collection: other threads may still read
+ * it, and the GC reclaims it once they drop it.
+ *
+ * INFO reports the objects still waiting and those already freed.
+ */
+public class LazyFreer {
+
+    // Elements above which a value is freed in the background, Redis' LAZYFREE_THRESHOLD
+    public static final int LAZYFREE_THRESHOLD = 64;
+
+    private static final LazyFreer INSTANCE = new LazyFreer();
+
+    private final ExecutorService worker;
+    private final AtomicLong pendingObjects = new AtomicLong();
+    private final LongAdder freedObjects = new LongAdder();
+
+    private LazyFreer() {
+        this.worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "LazyFree");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static LazyFreer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Releases a value no key refers to anymore, in the background when it is large.
+     */
+    public void free(RedisValue<?> value) {
+        if (value.getElementCount() <= LAZYFREE_THRESHOLD) {
+            value.release();
+            return;
+        }
+        pendingObjects.incrementAndGet();
+        worker.execute(() -> {
+            value.release();
+            pendingObjects.decrementAndGet();
+            freedObjects.increment();
+        });
+    }
+
+    /**
+     * Queues a map no one else references anymore, see {@link Keyspace#detach()}.
+     */
+    public void free(Map<String, RedisValue<?>> detached) {
+        int size = detached.size();
+        if (size == 0) {
+            return;
+        }
+        pendingObjects.addAndGet(size);
+        worker.execute(() -> {
+            Keyspace.release(detached);
+            pendingObjects.addAndGet(-size);
+            freedObjects.add(size);
+        });
+    }
+
+    public long getPendingObjects() {
+        return pendingObjects.get();
+    }
+
+    public long getFreedObjects() {
+        return freedObjects.sum();
+    }
+}
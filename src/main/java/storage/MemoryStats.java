@@ -0,0 +1,60 @@
+package storage;
+
+/**
+ * A snapshot of the estimated memory use of the keyspace, for MEMORY STATS
+ * and INFO memory. All sizes in bytes.
+ */
+public class MemoryStats {
+
+    private final long usedMemory;
+    private final long peakMemory;
+    private final long datasetMemory;
+    private final long overheadMemory;
+    private final int keyCount;
+
+    public MemoryStats(long usedMemory, long peakMemory, long datasetMemory, long overheadMemory, int keyCount) {
+        this.usedMemory = usedMemory;
+        this.peakMemory = peakMemory;
+        this.datasetMemory = datasetMemory;
+        this.overheadMemory = overheadMemory;
+        this.keyCount = keyCount;
+    }
+
+    public long getUsedMemory() {
+        return usedMemory;
+    }
+
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    /**
+     * What the values hold.
+     */
+    public long getDatasetMemory() {
+        return datasetMemory;
+    }
+
+    /**
+     * What the keys and their map entries cost besides the values.
+     */
+    public long getOverheadMemory() {
+        return overheadMemory;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    public long getBytesPerKey() {
+        return keyCount == 0 ? 0 : usedMemory / keyCount;
+    }
+
+    public double getDatasetPercentage() {
+        return usedMemory == 0 ? 0 : datasetMemory * 100.0 / usedMemory;
+    }
+
+    public double getPeakPercentage() {
+        return peakMemory == 0 ? 0 : usedMemory * 100.0 / peakMemory;
+    }
+}
@@ -0,0 +1,81 @@
+package storage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where SCAN calls walking the prefix index left off. A radix tree walk
+ * resumes after the last key it returned, which does not fit in a numeric
+ * cursor, so the cursor handed to the client is a ticket for the position
+ * kept here. Tickets have the top bit set, bucket cursors never reach it.
+ *
+ * Only the most recent scans are remembered. A forgotten ticket restarts
+ * the walk: keys may then come back twice, but none is missed, which is
+ * all SCAN promises anyway.
+ */
+public class PrefixScanCursors {
+
+    public static final long TICKET_FLAG = 1L << 63;
+    private static final int CAPACITY = 1024;
+
+    /**
+     * A shard of the keyspace and the last key returned from it, null when
+     * the walk of that shard has not started.
+     */
+    public static final class Position {
+        public static final Position START = new Position(0, null);
+
+        private final int shard;
+        private final String lastKey;
+
+        public Position(int shard, String lastKey) {
+            this.shard = shard;
+            this.lastKey = lastKey;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public String getLastKey() {
+            return lastKey;
+        }
+    }
+
+    private final Map<Long, Position> positions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Position> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private long nextTicket = 1;
+
+    public static boolean isTicket(long cursor) {
+        return (cursor & TICKET_FLAG) != 0;
+    }
+
+    /**
+     * The position a cursor stands for and forgets it: a cursor is used once.
+     */
+    public synchronized Position take(long cursor) {
+        if (!isTicket(cursor)) {
+            return Position.START;
+        }
+        Position position = positions.remove(cursor);
+        return position != null ? position : Position.START;
+    }
+
+    /**
+     * A new cursor for the position.
+     */
+    public synchronized long issue(Position position) {
+        long ticket = TICKET_FLAG | nextTicket;
+        // Wraps within the 63 bits below the flag, and never to the bucket cursor 0
+        nextTicket = (nextTicket + 1) & ~TICKET_FLAG;
+        if (nextTicket == 0) {
+            nextTicket = 1;
+        }
+        positions.put(ticket, position);
+        return ticket;
+    }
+}
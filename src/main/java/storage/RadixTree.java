@@ -0,0 +1,307 @@
+package storage;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * The key names of a keyspace in a compressed trie, so keys sharing a
+ * literal prefix like "session:" are found by walking that one subtree
+ * instead of every key. Each node keeps how many keys its subtree holds,
+ * which makes counting the keys under a prefix O(prefix length).
+ *
+ * Edges carry runs of characters and children are sorted by their first
+ * one, so walking a subtree yields keys in String order and a walk can
+ * resume after any key, whatever was added or removed since.
+ *
+ * Locked like {@link ExpiresIndex}: in threaded mode every connection
+ * thread writes keys.
+ */
+public class RadixTree {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Node root = new Node("");
+
+    /**
+     * Adds the key, returns false when it was already present.
+     */
+    public boolean add(String key) {
+        lock.lock();
+        try {
+            if (find(key) != null) {
+                return false;
+            }
+            Node node = root;
+            int depth = 0;
+            while (true) {
+                node.count++;
+                if (depth == key.length()) {
+                    node.terminal = true;
+                    return true;
+                }
+                int index = node.childIndex(key.charAt(depth));
+                if (index < 0) {
+                    Node leaf = new Node(key.substring(depth));
+                    leaf.terminal = true;
+                    leaf.count = 1;
+                    node.insertChild(-index - 1, leaf);
+                    return true;
+                }
+                Node child = node.children[index];
+                int common = commonPrefix(child.edge, key, depth);
+                if (common < child.edge.length()) {
+                    // The key leaves the edge halfway, split it there
+                    Node split = new Node(child.edge.substring(0, common));
+                    split.count = child.count;
+                    child.edge = child.edge.substring(common);
+                    split.children = new Node[] { child };
+                    node.children[index] = split;
+                    child = split;
+                }
+                node = child;
+                depth += common;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the key, returns false when it was not present.
+     */
+    public boolean remove(String key) {
+        lock.lock();
+        try {
+            if (find(key) == null) {
+                return false;
+            }
+            Node node = root;
+            int depth = 0;
+            while (true) {
+                node.count--;
+                if (depth == key.length()) {
+                    node.terminal = false;
+                    break;
+                }
+                Node child = node.children[node.childIndex(key.charAt(depth))];
+                if (child.count == 1) {
+                    // The key is the only one below, drop the whole branch
+                    node.removeChild(child);
+                    break;
+                }
+                node = child;
+                depth += child.edge.length();
+            }
+            // The node lost its key or a child and may be left as a mere link
+            if (node != root) {
+                compact(node);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How many keys start with the prefix.
+     */
+    public int count(String prefix) {
+        lock.lock();
+        try {
+            Node node = descend(prefix);
+            return node == null ? 0 : node.count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return count("");
+    }
+
+    /**
+     * Visits up to limit keys that start with the prefix and sort after the
+     * given key, in String order. Pass null to start from the first one.
+     * Returns the last key visited, or null when no key was left.
+     */
+    public String visit(String prefix, String after, int limit, Consumer<String> action) {
+        lock.lock();
+        try {
+            Node node = descend(prefix);
+            if (node == null || limit <= 0) {
+                return null;
+            }
+            // descend stops at the node whose edge ends at or past the prefix
+            StringBuilder path = new StringBuilder(pathTo(prefix, node));
+            Walk walk = new Walk(after, limit, action);
+            walk.visit(node, path);
+            return walk.last;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            root.children = NO_CHILDREN;
+            root.count = 0;
+            root.terminal = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* ========== NODES ========== */
+
+    private Node find(String key) {
+        Node node = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            int index = node.childIndex(key.charAt(depth));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            if (!key.startsWith(node.edge, depth)) {
+                return null;
+            }
+            depth += node.edge.length();
+        }
+        return node.terminal ? node : null;
+    }
+
+    // The highest node every key with the prefix is under, null when there are none
+    private Node descend(String prefix) {
+        Node node = root;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(depth));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            int common = commonPrefix(node.edge, prefix, depth);
+            if (depth + common < prefix.length() && common < node.edge.length()) {
+                return null;
+            }
+            depth += node.edge.length();
+        }
+        return node;
+    }
+
+    // The full key the node stands for, given that descend found it for the prefix
+    private String pathTo(String prefix, Node node) {
+        Node current = root;
+        StringBuilder path = new StringBuilder();
+        while (current != node) {
+            current = current.children[current.childIndex(prefix.charAt(path.length()))];
+            path.append(current.edge);
+        }
+        return path.toString();
+    }
+
+    // Merges a node left without a key and with a single child into that child
+    private static void compact(Node node) {
+        if (node.terminal || node.children.length != 1) {
+            return;
+        }
+        Node child = node.children[0];
+        node.edge = node.edge + child.edge;
+        node.terminal = child.terminal;
+        node.children = child.children;
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int max = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String edge;
+        private Node[] children = NO_CHILDREN;
+        // Keys in this subtree, this node's own included
+        private int count;
+        private boolean terminal;
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+
+        // Binary search on first characters, -(insertion point) - 1 when absent
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].edge.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int index = childIndex(child.edge.charAt(0));
+            Node[] shrunk = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+    }
+
+    // Depth-first walk in key order that skips whole subtrees sorting before the resume key
+    private static final class Walk {
+        private final String after;
+        private final Consumer<String> action;
+        private int remaining;
+        private String last;
+
+        Walk(String after, int limit, Consumer<String> action) {
+            this.after = after;
+            this.remaining = limit;
+            this.action = action;
+        }
+
+        void visit(Node node, StringBuilder path) {
+            String key = path.toString();
+            boolean inside = after != null && after.startsWith(key);
+            if (after != null && !inside && key.compareTo(after) < 0) {
+                return;
+            }
+            // A key equal to the resume key was already returned
+            if (node.terminal && (after == null || key.compareTo(after) > 0)) {
+                action.accept(key);
+                last = key;
+                remaining--;
+            }
+            for (Node child : node.children) {
+                if (remaining == 0) {
+                    return;
+                }
+                int length = path.length();
+                path.append(child.edge);
+                visit(child, path);
+                path.setLength(length);
+            }
+        }
+    }
+}
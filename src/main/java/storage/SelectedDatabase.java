@@ -0,0 +1,24 @@
+package storage;
+
+/**
+ * The logical database the command running on this thread works on. The
+ * executor sets it from the client's session before running a command and
+ * SELECT changes it, so the data store and the replication stream find it
+ * without every call passing a database number along. Threads that run no
+ * client command, like the cron and loading, work on database 0.
+ */
+public final class SelectedDatabase {
+
+    private static final ThreadLocal<Integer> SELECTED = ThreadLocal.withInitial(() -> 0);
+
+    private SelectedDatabase() {
+    }
+
+    public static int get() {
+        return SELECTED.get();
+    }
+
+    public static void set(int index) {
+        SELECTED.set(index);
+    }
+}
@@ -0,0 +1,158 @@
+package storage;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import domain.RedisValue;
+import storage.eviction.EvictionConfig;
+
+/**
+ * The keyspace split into {@link Keyspace} shards over {@link Dict}s by key
+ * hash. Each shard is owned by one executor thread and only ever touched from
+ * it, so no shard needs to be a concurrent map. Whole-keyspace views (iteration, size) are only safe
+ * while every shard is parked, which is how commands spanning shards run.
+ */
+public class ShardedKeyspace extends AbstractMap<String, RedisValue<?>> {
+
+    private final Keyspace[] shards;
+    private final Set<Map.Entry<String, RedisValue<?>>> entrySet = new EntrySet();
+
+    public ShardedKeyspace(int shardCount) {
+        this(shardCount, EvictionConfig.DISABLED);
+    }
+
+    public ShardedKeyspace(int shardCount, EvictionConfig eviction) {
+        this(shardCount, eviction, false);
+    }
+
+    public ShardedKeyspace(int shardCount, EvictionConfig eviction, boolean prefixIndex) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be a positive number");
+        }
+        this.shards = new Keyspace[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Keyspace(Dict::new, eviction, prefixIndex);
+        }
+    }
+
+    /**
+     * Shard a key belongs to. Executors route commands with the same function.
+     */
+    public static int shardOf(Object key, int shardCount) {
+        int hash = key.hashCode();
+        // Mix the high bits in, short keys mostly differ in their last characters
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    private Keyspace shardFor(Object key) {
+        return shards[shardOf(key, shards.length)];
+    }
+
+    public Keyspace shard(int index) {
+        return shards[index];
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public RedisValue<?> get(Object key) {
+        return shardFor(key).get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shardFor(key).containsKey(key);
+    }
+
+    @Override
+    public RedisValue<?> put(String key, RedisValue<?> value) {
+        return shardFor(key).put(key, value);
+    }
+
+    @Override
+    public RedisValue<?> putIfAbsent(String key, RedisValue<?> value) {
+        return shardFor(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public RedisValue<?> remove(Object key) {
+        return shardFor(key).remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return shardFor(key).remove(key, value);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Keyspace shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (Keyspace shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, RedisValue<?>>> entrySet() {
+        return entrySet;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, RedisValue<?>>> {
+        @Override
+        public Iterator<Map.Entry<String, RedisValue<?>>> iterator() {
+            return new ShardsIterator();
+        }
+
+        @Override
+        public int size() {
+            return ShardedKeyspace.this.size();
+        }
+    }
+
+    // Walks the shards one after the other
+    private class ShardsIterator implements Iterator<Map.Entry<String, RedisValue<?>>> {
+        private int shard = 0;
+        private Iterator<Map.Entry<String, RedisValue<?>>> current = shards[0].entrySet().iterator();
+        private Iterator<Map.Entry<String, RedisValue<?>>> lastReturnedFrom;
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && shard + 1 < shards.length) {
+                current = shards[++shard].entrySet().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, RedisValue<?>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturnedFrom = current;
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturnedFrom == null) {
+                throw new IllegalStateException();
+            }
+            lastReturnedFrom.remove();
+            lastReturnedFrom = null;
+        }
+    }
+}
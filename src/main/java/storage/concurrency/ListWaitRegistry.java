@@ -3,98 +3,117 @@ package storage.concurrency;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import util.TimeoutScheduler;
+
 public class ListWaitRegistry {
 
     private final ConcurrentHashMap<String, KeyWaitQueue> ListWaitQueues = new ConcurrentHashMap<>();
 
     private static class KeyWaitQueue {
         private final ReentrantLock lock = new ReentrantLock(true);// true: to ensure fair FIFO ordering
-        private final Condition condition = lock.newCondition();
-        private final Queue<WaitToken> waiters = new LinkedList<>();
+        private final Queue<Waiter> waiters = new LinkedList<>();
     }
 
-    private static class WaitToken {
-        private volatile boolean fulfilled = false;
-        private volatile String result = null;
-
-        void fulfill(String value) {
-            this.result = value;
-            this.fulfilled = true;
-        }
+    // A blocked client: no thread waits for it, the callback delivers its reply
+    private static class Waiter {
+        private final Consumer<String> onComplete;
+        private ScheduledFuture<?> timeout = null;
 
-        boolean isFulfilled() {
-            return this.fulfilled;
+        Waiter(Consumer<String> onComplete) {
+            this.onComplete = onComplete;
         }
-
-        String getResult() {
-            return this.result;
-        }
-
     }
 
-    public String awaitElement(String key, double timeoutSeconds, Supplier<String> popSupplier)
-            throws InterruptedException {
+    /**
+     * Pops right away when the list has an element, otherwise queues the
+     * client until a push hands it one or the timeout fires. The callback gets
+     * the value, or null on timeout; it runs on the caller, the pushing thread
+     * or the timer thread, never under the queue lock.
+     *
+     * @return cancels the wait: the client leaves the queue and its timeout is
+     *         dropped, so a later push goes to the next client or stays in the
+     *         list. A no-op once the client was served.
+     */
+    public Runnable awaitElement(String key, double timeoutSeconds, Supplier<String> popSupplier,
+            Consumer<String> onComplete) {
         KeyWaitQueue queue = ListWaitQueues.computeIfAbsent(key, k -> new KeyWaitQueue());
-        WaitToken token = new WaitToken();
 
+        String value;
         queue.lock.lock();
         try {
-            String value = popSupplier.get();
-            if (value != null)
-                return value;// double checking before waiting
-
-            // add client to the waiting list
-            queue.waiters.add(token);
-
-            if (timeoutSeconds == 0) {
-                while (!token.isFulfilled()) {
-                    // wait forever for a signal (as the timeout is 0)
-                    queue.condition.await();// the client sleep and the lock is released
-                }
-            } else {
-                // Convert fractional seconds to nanoseconds
-                long nanos = (long) (timeoutSeconds * 1_000_000_000);
-                // wait for a signal or timeout reached
-                while (!token.isFulfilled() && nanos > 0) {
-                    nanos = queue.condition.awaitNanos(nanos);
+            value = popSupplier.get();
+            if (value == null) {
+                // add client to the waiting list
+                Waiter waiter = new Waiter(onComplete);
+                queue.waiters.add(waiter);
+                if (timeoutSeconds > 0) {// a timeout of 0 waits forever
+                    long nanos = (long) (timeoutSeconds * 1_000_000_000);
+                    waiter.timeout = TimeoutScheduler.schedule(nanos, () -> expire(queue, waiter));
                 }
+                return () -> cancel(queue, waiter);
             }
-            // some pushed and we got a signal
-            if (token.isFulfilled())
-                return token.getResult();
-            else {
-                // timeout
-                queue.waiters.remove(token);
-                return null;
+        } finally {
+            queue.lock.unlock();
+        }
+        onComplete.accept(value);
+        return () -> {
+        };
+    }
+
+    private void cancel(KeyWaitQueue queue, Waiter waiter) {
+        queue.lock.lock();
+        try {
+            if (!queue.waiters.remove(waiter)) {
+                return;// already served or timed out
             }
         } finally {
             queue.lock.unlock();
         }
+        if (waiter.timeout != null) {
+            waiter.timeout.cancel(false);
+        }
+    }
 
+    private void expire(KeyWaitQueue queue, Waiter waiter) {
+        queue.lock.lock();
+        try {
+            if (!queue.waiters.remove(waiter)) {
+                return;// a push served it first
+            }
+        } finally {
+            queue.lock.unlock();
+        }
+        waiter.onComplete.accept(null);
     }
 
     public void signalFirstWaiter(String key, Supplier<String> popSupplier) {
         KeyWaitQueue queue = ListWaitQueues.get(key);
         if (queue == null)
             return;// there's no any waiting clients
+        Waiter waiter;
+        String value;
         queue.lock.lock();
         try {
             // Only fulfill the FIRST waiter, not all waiters
-            if (!queue.waiters.isEmpty()) {
-                WaitToken token = queue.waiters.poll();
-                String value = popSupplier.get();
-                if (value != null) {
-                    token.fulfill(value);
-                    queue.condition.signal();// signal only ONE waiting client
-                }
+            if (queue.waiters.isEmpty()) {
+                return;
+            }
+            value = popSupplier.get();
+            if (value == null) {
+                return;
+            }
+            waiter = queue.waiters.poll();
+            if (waiter.timeout != null) {
+                waiter.timeout.cancel(false);
             }
         } finally {
             queue.lock.unlock();
         }
-
+        waiter.onComplete.accept(value);
     }
 }
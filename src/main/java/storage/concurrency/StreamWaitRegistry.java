@@ -1,132 +1,131 @@
 package storage.concurrency;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import util.TimeoutScheduler;
+
 public class StreamWaitRegistry {
 
     private final ConcurrentHashMap<String, KeyWaitQueue> streamWaitQueues = new ConcurrentHashMap<>();
 
     private static class KeyWaitQueue {
         private final ReentrantLock lock = new ReentrantLock(true);// true: to ensure fair FIFO ordering
-        private final Condition condition = lock.newCondition();
-        private final Queue<StreamWaitToken> waiters = new LinkedList<>();
+        private final Queue<StreamWaiter> waiters = new LinkedList<>();
     }
 
-    private static class StreamWaitToken {
-        private volatile boolean fulfilled = false;
-        private volatile List<List<Object>> result = null;
-        private Supplier<List<List<Object>>> readSupplier = null;
-
-        public Supplier<List<List<Object>>> getReadSupplier() {
-            return readSupplier;
-        }
+    // A blocked client: no thread waits for it, the callback delivers its reply
+    private static class StreamWaiter {
+        private final String entryID;
+        private final Supplier<List<List<Object>>> readSupplier;
+        private final Consumer<List<List<Object>>> onComplete;
+        private ScheduledFuture<?> timeout = null;
 
-        public void setReadSupplier(Supplier<List<List<Object>>> readSupplier) {
+        StreamWaiter(String entryID, Supplier<List<List<Object>>> readSupplier,
+                Consumer<List<List<Object>>> onComplete) {
+            this.entryID = entryID;
             this.readSupplier = readSupplier;
+            this.onComplete = onComplete;
         }
+    }
 
-        private String entryID = null;
-
-        public String getEntryID() {
-            return entryID;
-        }
+    /**
+     * Reads right away when the stream has entries after the given ID,
+     * otherwise queues the client until an XADD or the timeout. The callback
+     * gets the entries, or null on timeout; it runs on the caller, the adding
+     * thread or the timer thread, never under the queue lock.
+     *
+     * @return cancels the wait: the client leaves the queue and its timeout is
+     *         dropped. A no-op once the client was served.
+     */
+    public Runnable awaitElement(String key, String entryId, long timeoutMillis,
+            Supplier<List<List<Object>>> readSupplier, Consumer<List<List<Object>>> onComplete) {
 
-        public void setEntryID(String entryID) {
-            this.entryID = entryID;
-        }
+        KeyWaitQueue queue = streamWaitQueues.computeIfAbsent(key, k -> new KeyWaitQueue());
 
-        void fulfill(List<List<Object>> value) {
-            this.result = value;
-            this.fulfilled = true;
+        List<List<Object>> value;
+        queue.lock.lock();
+        try {
+            value = readSupplier.get();
+            if (value == null || value.isEmpty()) {
+                // add client to the waiting list
+                StreamWaiter waiter = new StreamWaiter(entryId, readSupplier, onComplete);
+                queue.waiters.add(waiter);
+                if (timeoutMillis > 0) {// a timeout of 0 waits forever
+                    waiter.timeout = TimeoutScheduler.schedule(timeoutMillis * 1_000_000L,
+                            () -> expire(queue, waiter));
+                }
+                return () -> cancel(queue, waiter);
+            }
+        } finally {
+            queue.lock.unlock();
         }
+        onComplete.accept(value);
+        return () -> {
+        };
+    }
 
-        boolean isFulfilled() {
-            return this.fulfilled;
+    private void cancel(KeyWaitQueue queue, StreamWaiter waiter) {
+        queue.lock.lock();
+        try {
+            if (!queue.waiters.remove(waiter)) {
+                return;// already served or timed out
+            }
+        } finally {
+            queue.lock.unlock();
         }
-
-        List<List<Object>> getResult() {
-            return this.result;
+        if (waiter.timeout != null) {
+            waiter.timeout.cancel(false);
         }
-
     }
 
-    public List<List<Object>> awaitElement(String key, String entryId, double timeoutSeconds,
-            Supplier<List<List<Object>>> readSupplier)
-            throws InterruptedException {
-
-        KeyWaitQueue queue = streamWaitQueues.computeIfAbsent(key, k -> new KeyWaitQueue());
-        StreamWaitToken token = new StreamWaitToken();
-
-        token.setEntryID(entryId);
-        token.setReadSupplier(readSupplier);
-
+    private void expire(KeyWaitQueue queue, StreamWaiter waiter) {
         queue.lock.lock();
         try {
-            List<List<Object>> value = readSupplier.get();
-            if (value != null && !value.isEmpty()) {
-                return value;// double checking before waiting
-            }
-            // add client to the waiting list
-            queue.waiters.add(token);
-            if (timeoutSeconds == 0) {
-                while (!token.isFulfilled()) {
-                    // wait forever for a signal (as the timeout is 0)
-                    queue.condition.await();// the client sleep and the lock is released
-
-                }
-            } else {
-                // timeoutSeconds actually contains milliseconds — convert ms to nanoseconds
-                long nanos = (long) (timeoutSeconds * 1_000_000L);
-                // wait for a signal or timeout reached
-                while (!token.isFulfilled() && nanos > 0) {
-                    nanos = queue.condition.awaitNanos(nanos);
-                }
-            }
-            // some pushed and we got a signal
-            if (token.isFulfilled())
-                return token.getResult();
-            else {
-                // timeout
-                queue.waiters.remove(token);
-                return null;
+            if (!queue.waiters.remove(waiter)) {
+                return;// an XADD served it first
             }
         } finally {
             queue.lock.unlock();
         }
-
+        waiter.onComplete.accept(null);
     }
 
     public void signalFirstWaiter(String key, String entryID) {
         KeyWaitQueue queue = streamWaitQueues.get(key);
         if (queue == null)
             return;// there's no any waiting clients
+        List<Runnable> completions = new ArrayList<>();
         queue.lock.lock();
         try {
             while (!queue.waiters.isEmpty()) {// we go through all the waiting clients to give them their values
-                StreamWaitToken token = queue.waiters.peek();
-                List<List<Object>> entries = token.getReadSupplier().get();
+                StreamWaiter waiter = queue.waiters.peek();
+                List<List<Object>> entries = waiter.readSupplier.get();
                 if (entries == null || entries.isEmpty()) {
-                    return;// no more elements to read
+                    break;// no more elements to read
                 }
-                // Check if the new entry is greater than the token's waiting entry
-                // If new entry <= token entry, it means this isn't the data the client is waiting for
-                if (entryID.compareTo(token.getEntryID()) <= 0) {
-                    return;// the new entry is not after what this client is waiting for
+                // Check if the new entry is greater than the waiter's entry
+                // If new entry <= waiter entry, it means this isn't the data the client is waiting for
+                if (entryID.compareTo(waiter.entryID) <= 0) {
+                    break;// the new entry is not after what this client is waiting for
                 }
 
                 queue.waiters.poll();
-                token.fulfill(entries);
-                queue.condition.signal(); // signal the waiting client
+                if (waiter.timeout != null) {
+                    waiter.timeout.cancel(false);
+                }
+                completions.add(() -> waiter.onComplete.accept(entries));
             }
         } finally {
             queue.lock.unlock();
         }
-
+        completions.forEach(Runnable::run);
     }
 }
@@ -0,0 +1,93 @@
+package storage.eviction;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import domain.RedisValue;
+
+/**
+ * Records key accesses in the 24 bits Redis keeps per object, packed the
+ * way the eviction policy reads them:
+ *
+ * - LRU: a clock in seconds, wrapping every 194 days, of the last access.
+ * - LFU: the minute of the last decrement in the high 16 bits and an 8-bit
+ *   logarithmic Morris counter in the low 8. A hit only bumps the counter
+ *   with probability 1 / ((counter - 5) * 10 + 1), so 255 takes about a
+ *   million hits, and the counter loses one per idle minute.
+ */
+public final class AccessTracker {
+
+    private static final int LRU_CLOCK_MAX = (1 << 24) - 1;
+    private static final long LRU_RESOLUTION_MILLIS = 1000;
+    private static final int LFU_INIT_VALUE = 5;
+    private static final int LFU_COUNTER_MAX = 255;
+    private static final int LFU_LOG_FACTOR = 10;
+    private static final int LFU_DECAY_MINUTES = 1;
+    private static final int LFU_MINUTES_MAX = 0xFFFF;
+
+    private final boolean lfu;
+
+    public AccessTracker(boolean lfu) {
+        this.lfu = lfu;
+    }
+
+    /**
+     * A value just stored: recently used, or new with a small counter so it is
+     * not evicted before it had a chance to be read.
+     */
+    public void init(RedisValue<?> value) {
+        value.setAccess(lfu ? (minutes() << 8) | LFU_INIT_VALUE : lruClock());
+    }
+
+    public void touch(RedisValue<?> value) {
+        if (lfu) {
+            int counter = increment(decayedCounter(value.getAccess()));
+            value.setAccess((minutes() << 8) | counter);
+        } else {
+            value.setAccess(lruClock());
+        }
+    }
+
+    /**
+     * How good an eviction candidate the value is, higher is better: idle
+     * milliseconds for LRU, the inverted counter for LFU.
+     */
+    public long idleScore(RedisValue<?> value) {
+        if (lfu) {
+            return LFU_COUNTER_MAX - decayedCounter(value.getAccess());
+        }
+        int clock = lruClock();
+        int lru = value.getAccess() & LRU_CLOCK_MAX;
+        long idle = clock >= lru ? clock - lru : clock + (LRU_CLOCK_MAX - lru);
+        return idle * LRU_RESOLUTION_MILLIS;
+    }
+
+    /**
+     * The LFU counter once the idle minutes since its last decrement are
+     * taken off.
+     */
+    public static int decayedCounter(int access) {
+        int lastDecrement = access >>> 8;
+        int counter = access & LFU_COUNTER_MAX;
+        int now = minutes();
+        int elapsed = now >= lastDecrement ? now - lastDecrement : LFU_MINUTES_MAX - lastDecrement + now;
+        int periods = elapsed / LFU_DECAY_MINUTES;
+        return periods > counter ? 0 : counter - periods;
+    }
+
+    private static int increment(int counter) {
+        if (counter == LFU_COUNTER_MAX) {
+            return counter;
+        }
+        double base = Math.max(0, counter - LFU_INIT_VALUE);
+        double probability = 1.0 / (base * LFU_LOG_FACTOR + 1);
+        return ThreadLocalRandom.current().nextDouble() < probability ? counter + 1 : counter;
+    }
+
+    private static int lruClock() {
+        return (int) ((System.currentTimeMillis() / LRU_RESOLUTION_MILLIS) & LRU_CLOCK_MAX);
+    }
+
+    private static int minutes() {
+        return (int) ((System.currentTimeMillis() / 60_000) & LFU_MINUTES_MAX);
+    }
+}
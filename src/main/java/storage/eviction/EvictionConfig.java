@@ -0,0 +1,51 @@
+package storage.eviction;
+
+/**
+ * The memory limit of the keyspace in bytes, 0 for none, the policy picking
+ * what to evict once it is reached and how many keys each eviction samples.
+ */
+public final class EvictionConfig {
+
+    public static final int DEFAULT_SAMPLES = 5;
+    public static final EvictionConfig DISABLED = new EvictionConfig(0, EvictionPolicy.NOEVICTION, DEFAULT_SAMPLES);
+
+    private final long maxMemory;
+    private final EvictionPolicy policy;
+    private final int samples;
+
+    public EvictionConfig(long maxMemory, EvictionPolicy policy, int samples) {
+        if (maxMemory < 0) {
+            throw new IllegalArgumentException("maxmemory must not be negative");
+        }
+        if (samples < 1) {
+            throw new IllegalArgumentException("maxmemory-samples must be a positive number");
+        }
+        this.maxMemory = maxMemory;
+        this.policy = policy;
+        this.samples = samples;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    public boolean hasLimit() {
+        return maxMemory > 0;
+    }
+
+    public EvictionPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Whether eviction samples the whole keyspace, so it has to keep every
+     * key where it can be picked at random.
+     */
+    public boolean samplesAllKeys() {
+        return hasLimit() && policy.samplesAllKeys();
+    }
+}
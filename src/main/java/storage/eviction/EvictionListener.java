@@ -0,0 +1,10 @@
+package storage.eviction;
+
+/**
+ * Told about every key the {@link Evictor} removes, on the thread that
+ * evicted it and before the write that needed the room runs.
+ */
+@FunctionalInterface
+public interface EvictionListener {
+    void keyEvicted(int database, String key);
+}
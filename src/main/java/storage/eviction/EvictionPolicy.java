@@ -0,0 +1,54 @@
+package storage.eviction;
+
+/**
+ * Which keys make room once memory use passes maxmemory, named as Redis'
+ * maxmemory-policy values. Volatile policies only pick keys with a TTL.
+ */
+public enum EvictionPolicy {
+    NOEVICTION("noeviction"),
+    ALLKEYS_LRU("allkeys-lru"),
+    ALLKEYS_LFU("allkeys-lfu"),
+    ALLKEYS_RANDOM("allkeys-random"),
+    VOLATILE_LRU("volatile-lru"),
+    VOLATILE_LFU("volatile-lfu"),
+    VOLATILE_RANDOM("volatile-random"),
+    VOLATILE_TTL("volatile-ttl");
+
+    private final String policyName;
+
+    EvictionPolicy(String policyName) {
+        this.policyName = policyName;
+    }
+
+    public String policyName() {
+        return policyName;
+    }
+
+    public static EvictionPolicy fromName(String name) {
+        for (EvictionPolicy policy : values()) {
+            if (policy.policyName.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown maxmemory policy: " + name);
+    }
+
+    public boolean isVolatile() {
+        return this == VOLATILE_LRU || this == VOLATILE_LFU || this == VOLATILE_RANDOM || this == VOLATILE_TTL;
+    }
+
+    /**
+     * Whether candidates are sampled from every key rather than from the expires index.
+     */
+    public boolean samplesAllKeys() {
+        return this == ALLKEYS_LRU || this == ALLKEYS_LFU || this == ALLKEYS_RANDOM;
+    }
+
+    public boolean isRandom() {
+        return this == ALLKEYS_RANDOM || this == VOLATILE_RANDOM;
+    }
+
+    public boolean usesLfu() {
+        return this == ALLKEYS_LFU || this == VOLATILE_LFU;
+    }
+}
@@ -0,0 +1,79 @@
+package storage.eviction;
+
+import storage.Keyspace;
+
+/**
+ * The best eviction candidates seen so far, ordered by idle score. Each
+ * eviction samples a few keys into the pool and evicts its best one, so
+ * candidates from earlier samples keep competing and the choice gets close
+ * to true LRU or LFU without looking at every key. Entries may be stale,
+ * the key is checked again before it is evicted.
+ *
+ * One pool serves every database of a shard, so each candidate remembers
+ * the keyspace it was sampled from.
+ */
+final class EvictionPool {
+
+    static final int SIZE = 16;
+
+    // Ascending by score, the best candidate last
+    private final Candidate[] candidates = new Candidate[SIZE];
+    private final long[] scores = new long[SIZE];
+    private int size;
+
+    void offer(Keyspace keyspace, String key, long score) {
+        remove(keyspace, key);
+        if (size == SIZE && score <= scores[0]) {
+            return;
+        }
+        int position = 0;
+        while (position < size && scores[position] < score) {
+            position++;
+        }
+        if (size == SIZE) {
+            // Full: drop the worst to make room below the insertion point
+            position--;
+            System.arraycopy(candidates, 1, candidates, 0, position);
+            System.arraycopy(scores, 1, scores, 0, position);
+        } else {
+            System.arraycopy(candidates, position, candidates, position + 1, size - position);
+            System.arraycopy(scores, position, scores, position + 1, size - position);
+            size++;
+        }
+        candidates[position] = new Candidate(keyspace, key);
+        scores[position] = score;
+    }
+
+    /**
+     * Takes the best candidate out of the pool, null when it is empty.
+     */
+    Candidate pollBest() {
+        if (size == 0) {
+            return null;
+        }
+        Candidate candidate = candidates[--size];
+        candidates[size] = null;
+        return candidate;
+    }
+
+    private void remove(Keyspace keyspace, String key) {
+        for (int i = 0; i < size; i++) {
+            if (candidates[i].keyspace == keyspace && candidates[i].key.equals(key)) {
+                System.arraycopy(candidates, i + 1, candidates, i, size - i - 1);
+                System.arraycopy(scores, i + 1, scores, i, size - i - 1);
+                candidates[--size] = null;
+                return;
+            }
+        }
+    }
+
+    static final class Candidate {
+        final Keyspace keyspace;
+        final String key;
+
+        Candidate(Keyspace keyspace, String key) {
+            this.keyspace = keyspace;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package storage.eviction;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import domain.RedisValue;
+import storage.Keyspace;
+
+/**
+ * Makes room under maxmemory the way Redis does: sample a few keys of each
+ * database of a shard, keep the best candidates in that shard's
+ * {@link EvictionPool} and evict the best one, until memory use is back
+ * under the limit.
+ *
+ * A shard is only evicted from by the thread owning it, so in sharded mode a
+ * write evicts from its own shard; keys hash evenly, which keeps the shards
+ * about the same size.
+ *
+ * Each evicted key is reported to the {@link EvictionListener}, which a
+ * master uses to send replicas a DEL for it.
+ */
+public class Evictor {
+
+    private final EvictionConfig config;
+    // The keyspaces of every database, by shard
+    private final Keyspace[][] shards;
+    private final EvictionPool[] pools;
+    // Where the random policies start looking next, by shard
+    private final int[] nextDatabase;
+    // In threaded mode every connection thread may evict from the one keyspace
+    private final ReentrantLock[] locks;
+    private final LongAdder evictedKeys = new LongAdder();
+    private volatile EvictionListener listener;
+
+    /**
+     * @param shards for each shard, its keyspace in every database
+     */
+    public Evictor(EvictionConfig config, Keyspace[][] shards) {
+        this.config = config;
+        this.shards = shards;
+        this.pools = new EvictionPool[shards.length];
+        this.nextDatabase = new int[shards.length];
+        this.locks = new ReentrantLock[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            pools[i] = new EvictionPool();
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public EvictionConfig getConfig() {
+        return config;
+    }
+
+    public long getEvictedKeys() {
+        return evictedKeys.sum();
+    }
+
+    public void setListener(EvictionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Evicts keys of the shard until memory use is under maxmemory. Returns
+     * false when it is still over: the policy is noeviction or the shard has
+     * no candidate left.
+     */
+    public boolean freeMemoryIfNeeded(int shard, LongSupplier usedMemory) {
+        if (!config.hasLimit() || usedMemory.getAsLong() <= config.getMaxMemory()) {
+            return true;
+        }
+        if (config.getPolicy() == EvictionPolicy.NOEVICTION) {
+            return false;
+        }
+        locks[shard].lock();
+        try {
+            while (usedMemory.getAsLong() > config.getMaxMemory()) {
+                EvictionPool.Candidate victim = selectVictim(shard);
+                if (victim == null) {
+                    return false;
+                }
+                RedisValue<?> value = victim.keyspace.peek(victim.key);
+                if (value != null && victim.keyspace.remove(victim.key, value)) {
+                    evictedKeys.increment();
+                    notifyEvicted(shard, victim);
+                }
+            }
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    private void notifyEvicted(int shard, EvictionPool.Candidate victim) {
+        EvictionListener current = listener;
+        if (current == null) {
+            return;
+        }
+        // The shard's row is in database order, SWAPDB reorders it along with the databases
+        Keyspace[] keyspaces = shards[shard];
+        for (int database = 0; database < keyspaces.length; database++) {
+            if (keyspaces[database] == victim.keyspace) {
+                current.keyEvicted(database, victim.key);
+                return;
+            }
+        }
+    }
+
+    private EvictionPool.Candidate selectVictim(int shard) {
+        EvictionPolicy policy = config.getPolicy();
+        Random random = ThreadLocalRandom.current();
+        Keyspace[] keyspaces = shards[shard];
+        if (policy.isRandom()) {
+            // Round robin over the databases, like Redis
+            for (int i = 0; i < keyspaces.length; i++) {
+                Keyspace keyspace = keyspaces[nextDatabase[shard]];
+                nextDatabase[shard] = (nextDatabase[shard] + 1) % keyspaces.length;
+                String key = sample(keyspace, policy, random);
+                if (key != null) {
+                    return new EvictionPool.Candidate(keyspace, key);
+                }
+            }
+            return null;
+        }
+
+        EvictionPool pool = pools[shard];
+        for (Keyspace keyspace : keyspaces) {
+            for (int i = 0; i < config.getSamples(); i++) {
+                String key = sample(keyspace, policy, random);
+                if (key == null) {
+                    break;
+                }
+                RedisValue<?> value = keyspace.peek(key);
+                if (value != null) {
+                    pool.offer(keyspace, key, score(keyspace, policy, value));
+                }
+            }
+        }
+
+        EvictionPool.Candidate candidate;
+        while ((candidate = pool.pollBest()) != null) {
+            RedisValue<?> value = candidate.keyspace.peek(candidate.key);
+            if (value != null && (!policy.isVolatile() || value.hasExpiry())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+    private static String sample(Keyspace keyspace, EvictionPolicy policy, Random random) {
+        return policy.isVolatile() ? keyspace.getExpires().randomKey(random) : keyspace.randomKey(random);
+    }
+
+    // Higher is evicted first
+    private static long score(Keyspace keyspace, EvictionPolicy policy, RedisValue<?> value) {
+        if (policy == EvictionPolicy.VOLATILE_TTL) {
+            return value.hasExpiry() ? Long.MAX_VALUE - value.getExpiryTime() : 0;
+        }
+        return keyspace.getAccessTracker().idleScore(value);
+    }
+}
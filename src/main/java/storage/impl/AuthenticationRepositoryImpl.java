@@ -1,13 +1,11 @@
 package storage.impl;
 
-import domain.RedisValue;
+import command.acl.AclPermissions;
 import domain.values.UserProperties;
-import server.connection.entity.ClientConnection;
 import storage.repository.AuthenticationRepository;
 import util.AppLogger;
 import util.SHA256Util;
 
-import java.sql.SQLOutput;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -15,91 +13,137 @@ import java.util.logging.Logger;
 
 public class AuthenticationRepositoryImpl implements AuthenticationRepository {
 
-    private final Map<String, RedisValue> store;
+    private final Map<String, UserProperties> store;
     Logger logger = AppLogger.getLogger(AuthenticationRepositoryImpl.class);
 
 
-    public AuthenticationRepositoryImpl(Map<String, RedisValue> store) {
+    public AuthenticationRepositoryImpl(Map<String, UserProperties> store) {
         this.store = store;
         populateDefaultUser();
     }
 
-    @Override
-    public String getCurrentUser() {
-        return ClientConnection.getInstance().getUsername();
-    }
-
     @Override
     public UserProperties getUserProperties(String currentUser) {
-        return (UserProperties) store.get(currentUser);
+        return store.get(currentUser);
     }
 
     @Override
-    public boolean setUserPassword(String userName, String password) {
-
-        // this user is not authorized to make changes to another user data
-        if(!ClientConnection.getInstance().getUsername().equals(userName))return false;
-
-
-        // Ensuring that "nopass" flag is removed, as we are adding a password to this user now.
-        List<String> flags = getUserProperties(userName).getValue().get("flags");
-        if (!flags.isEmpty() && flags.get(0).equals("nopass")) flags.remove(0);
-
-        String sha256Password = SHA256Util.hashToHex(password.substring(1));
-        getUserProperties(userName).getValue().get("passwords").add(sha256Password);
-
-        ClientConnection clientConnection = ClientConnection.getInstance();
-        clientConnection.setUserName(userName);
-        clientConnection.setUserPassword(password.substring(1));
-
-        return true;
+    public void setUser(String userName, List<String> rules) {
+        UserProperties userProperties = getUserProperties(userName);
+        boolean created = userProperties == null;
+        if (created) {
+            // New users start disabled, without passwords, commands or keys
+            userProperties = newUser(List.of("off"), List.of("-@all"), List.of());
+        }
 
+        // Rules apply to copies: a bad rule leaves the user untouched, and
+        // readers of the old lists never see them change
+        Map<String, List<String>> properties = userProperties.getValue();
+        List<String> flags = new ArrayList<>(properties.get("flags"));
+        List<String> passwords = new ArrayList<>(properties.get("passwords"));
+        List<String> commands = new ArrayList<>(properties.get("commands"));
+        List<String> keys = new ArrayList<>(properties.get("keys"));
+        for (String rule : rules) {
+            applyRule(rule, flags, passwords, commands, keys);
+        }
+        AclPermissions permissions = AclPermissions.compile(commands, keys);
+
+        properties.put("flags", flags);
+        properties.put("passwords", passwords);
+        properties.put("commands", commands);
+        properties.put("keys", keys);
+        userProperties.setPermissions(permissions);
+        if (created) {
+            store.putIfAbsent(userName, userProperties);
+        }
+        logger.info("ACL rules updated for user " + userName);
     }
 
     @Override
     public boolean authenticateUser(String userName, String password) {
         UserProperties userProperties = getUserProperties(userName);
-        if(userProperties == null){
-            populateUserWithPassword(userName, password);
-            return true;
+        if(userProperties == null || !userProperties.isEnabled()){
+            return false;
         }
-        if(userProperties.getValue().get("flags").contains("nopass")){
+        if(userProperties.isPasswordless()){
             return true; // No password required for this user
         }
         List<String> passwords = userProperties.getValue().get("passwords");
-        ClientConnection clientConnection = ClientConnection.getInstance();
-        logger.info("current client: "+ clientConnection.toString());
+        String sha256Password = SHA256Util.hashToHex(password);
         for(String storedPassword:passwords){
-            if(storedPassword.equals(SHA256Util.hashToHex(password))){
-                clientConnection.setUserPassword(password);
-                clientConnection.setUserName(userName);
+            if(storedPassword.equals(sha256Password)){
                 return true;
             }
         }
         return false;
     }
 
-    private void populateDefaultUser(){
-        if(store.containsKey("default"))return;
-        UserProperties userProperties = new UserProperties();
-        // Default Flags Population
-        userProperties.getValue().put("flags", new ArrayList<>());
-        userProperties.getValue().get("flags").add("nopass");
+    private void applyRule(String rule, List<String> flags, List<String> passwords, List<String> commands,
+            List<String> keys) {
+        switch (rule.toLowerCase()) {
+            case "on" -> flags.remove("off");
+            case "off" -> addIfAbsent(flags, "off");
+            case "nopass" -> {
+                addIfAbsent(flags, "nopass");
+                passwords.clear();
+            }
+            case "resetpass" -> {
+                flags.remove("nopass");
+                passwords.clear();
+            }
+            case "allcommands", "+@all" -> replaceWith(commands, "+@all");
+            case "nocommands", "-@all" -> replaceWith(commands, "-@all");
+            case "allkeys" -> replaceWith(keys, "~*");
+            case "resetkeys" -> keys.clear();
+            case "reset" -> {
+                replaceWith(flags, "off");
+                passwords.clear();
+                replaceWith(commands, "-@all");
+                keys.clear();
+            }
+            default -> {
+                if (rule.startsWith(">")) {
+                    // Ensuring that "nopass" flag is removed, as we are adding a password to this user now.
+                    flags.remove("nopass");
+                    addIfAbsent(passwords, SHA256Util.hashToHex(rule.substring(1)));
+                } else if (rule.startsWith("<")) {
+                    passwords.remove(SHA256Util.hashToHex(rule.substring(1)));
+                } else if (rule.startsWith("~")) {
+                    keys.add(rule);
+                } else if (rule.startsWith("+") || rule.startsWith("-")) {
+                    // Checked when the rules are compiled
+                    commands.add(rule);
+                } else {
+                    throw new IllegalArgumentException("Error in ACL SETUSER modifier '" + rule + "': Syntax error");
+                }
+            }
+        }
+    }
 
-        // Default Passwords Population
-        userProperties.getValue().put("passwords", new ArrayList<>());
-        store.put("default", userProperties);
+    private static void addIfAbsent(List<String> values, String value) {
+        if (!values.contains(value)) {
+            values.add(value);
+        }
+    }
+
+    private static void replaceWith(List<String> values, String value) {
+        values.clear();
+        values.add(value);
     }
-    private void populateUserWithPassword(String userName, String password){
-        if(store.containsKey(userName))return;
-        UserProperties userProperties = new UserProperties();
-        // Default Flags Population
-        userProperties.getValue().put("flags", new ArrayList<>());
 
-        // Default Passwords Population
-        userProperties.getValue().put("passwords", new ArrayList<>()).add(SHA256Util.hashToHex(password));
+    private void populateDefaultUser(){
+        if(store.containsKey("default"))return;
+        // The default user needs no password and may run everything on every key
+        store.put("default", newUser(List.of("nopass"), List.of("+@all"), List.of("~*")));
+    }
 
-        store.put(userName, userProperties);
-        ClientConnection.getInstance().setUserName(userName);
+    private static UserProperties newUser(List<String> flags, List<String> commands, List<String> keys) {
+        UserProperties userProperties = new UserProperties();
+        userProperties.getValue().put("flags", new ArrayList<>(flags));
+        userProperties.getValue().put("passwords", new ArrayList<>());
+        userProperties.getValue().put("commands", new ArrayList<>(commands));
+        userProperties.getValue().put("keys", new ArrayList<>(keys));
+        userProperties.setPermissions(AclPermissions.compile(commands, keys));
+        return userProperties;
     }
 }
@@ -1,20 +1,34 @@
 package storage.impl;
 
 import domain.DataType;
+import domain.MemoryEstimate;
+import domain.ExpireCondition;
 import domain.RedisValue;
+import storage.ExpiryStats;
+import storage.Keyspace;
+import storage.PrefixScanCursors;
+import storage.RadixTree;
+import storage.ShardedKeyspace;
 import storage.repository.CommonRepository;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class CommonRepositoryImpl implements CommonRepository {
 
-    private final Map<String, RedisValue> store;
+    private final Map<String, RedisValue<?>> store;
+    // The store as the shards the active expire cycle works on, one when unsharded
+    private final Keyspace[] shards;
+    private final ExpiryStats expiryStats;
+    private final PrefixScanCursors prefixScanCursors = new PrefixScanCursors();
 
-    public CommonRepositoryImpl(Map<String, RedisValue> store) {
+    public CommonRepositoryImpl(Map<String, RedisValue<?>> store, Keyspace[] shards, ExpiryStats expiryStats) {
         this.store = store;
+        this.shards = shards;
+        this.expiryStats = expiryStats;
     }
 
     @Override
@@ -29,7 +43,7 @@ public class CommonRepositoryImpl implements CommonRepository {
             return null;
         }
         if (redisValue.isExpired()) {
-            store.remove(key);
+            expire(key, redisValue);
             return null;
         }
         return redisValue;
@@ -42,7 +56,7 @@ public class CommonRepositoryImpl implements CommonRepository {
             return false;
         }
         if (redisValue.isExpired()) {
-            store.remove(key);
+            expire(key, redisValue);
             return false;
         }
         return true;
@@ -53,9 +67,11 @@ public class CommonRepositoryImpl implements CommonRepository {
         return store.remove(key) != null;
     }
 
-    @Override
-    public void cleanup() {
-        store.entrySet().removeIf(entry -> entry.getValue().isExpired());
+    // Lazy expiry: the key is found dead on access
+    private void expire(String key, RedisValue redisValue) {
+        if (store.remove(key, redisValue)) {
+            expiryStats.keyExpired();
+        }
     }
 
     @Override
@@ -70,13 +86,55 @@ public class CommonRepositoryImpl implements CommonRepository {
         }
 
         if (redisValue.isExpired()) {
-            store.remove(key);
+            expire(key, redisValue);
             return -2;
         }
 
         return redisValue.getExpiryTime() - System.currentTimeMillis();
     }
 
+    @Override
+    public long getExpiryTime(String key) {
+        RedisValue redisValue = getValue(key);
+        if (redisValue == null) {
+            return -2;
+        }
+        return redisValue.hasExpiry() ? redisValue.getExpiryTime() : -1;
+    }
+
+    @Override
+    public boolean setExpiry(String key, long expiryTime, Set<ExpireCondition> conditions) {
+        RedisValue redisValue = getValue(key);
+        if (redisValue == null) {
+            return false;
+        }
+        Long current = redisValue.hasExpiry() ? redisValue.getExpiryTime() : null;
+        for (ExpireCondition condition : conditions) {
+            if (!condition.allows(current, expiryTime)) {
+                return false;
+            }
+        }
+        if (expiryTime <= System.currentTimeMillis()) {
+            store.remove(key, redisValue);
+            return true;
+        }
+        // Same value object, putting it back reschedules the key in the expires index
+        redisValue.setExpiryTime(expiryTime);
+        store.put(key, redisValue);
+        return true;
+    }
+
+    @Override
+    public boolean persist(String key) {
+        RedisValue redisValue = getValue(key);
+        if (redisValue == null || !redisValue.hasExpiry()) {
+            return false;
+        }
+        redisValue.removeExpiry();
+        store.put(key, redisValue);
+        return true;
+    }
+
     @Override
     public DataType getType(String key) {
         RedisValue redisValue = store.get(key);
@@ -95,11 +153,125 @@ public class CommonRepositoryImpl implements CommonRepository {
     @Override
     public Set<String> getAllKeys() {
         Set<String> keys = new HashSet<>();
-        for (Map.Entry<String, RedisValue> entry : store.entrySet()) {
+        for (Map.Entry<String, RedisValue<?>> entry : store.entrySet()) {
             if (!entry.getValue().isExpired()) {
                 keys.add(entry.getKey());
             }
         }
         return keys;
     }
+
+    @Override
+    public Set<String> getKeysWithPrefix(String prefix) {
+        if (!hasPrefixIndex()) {
+            Set<String> keys = getAllKeys();
+            keys.removeIf(key -> !key.startsWith(prefix));
+            return keys;
+        }
+        Set<String> keys = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        for (Keyspace shard : shards) {
+            candidates.clear();
+            shard.getPrefixIndex().visit(prefix, null, Integer.MAX_VALUE, candidates::add);
+            // Listing keys is no access to them, as in getAllKeys
+            for (String key : candidates) {
+                RedisValue<?> value = shard.peek(key);
+                if (value != null && !value.isExpired()) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public int countKeysWithPrefix(String prefix) {
+        int count = 0;
+        if (!hasPrefixIndex()) {
+            for (String key : store.keySet()) {
+                if (key.startsWith(prefix)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        for (Keyspace shard : shards) {
+            count += shard.getPrefixIndex().count(prefix);
+        }
+        return count;
+    }
+
+    @Override
+    public long scan(long cursor, int count, String prefix, List<String> keys) {
+        if (!prefix.isEmpty() && hasPrefixIndex()) {
+            return scanPrefix(cursor, count, prefix, keys);
+        }
+        // The low bits of the cursor pick the shard, the bits above are that shard's own cursor
+        int shardBits = Integer.SIZE - Integer.numberOfLeadingZeros(shards.length - 1);
+        int shard = (int) (cursor & ((1L << shardBits) - 1));
+        long shardCursor = cursor >>> shardBits;
+        if (shard >= shards.length) {
+            return 0;
+        }
+        // Like Redis, give up after ten empty buckets per key asked for
+        int maxBuckets = count * 10;
+        do {
+            shardCursor = shards[shard].scan(shardCursor, keys::add);
+            if (shardCursor == 0 && ++shard == shards.length) {
+                return 0;
+            }
+        } while (keys.size() < count && --maxBuckets > 0);
+        return shardCursor << shardBits | shard;
+    }
+
+    // Walks the prefix index shard after shard; the cursor is a ticket for where the last call stopped
+    private long scanPrefix(long cursor, int count, String prefix, List<String> keys) {
+        PrefixScanCursors.Position position = prefixScanCursors.take(cursor);
+        int shard = position.getShard();
+        String after = position.getLastKey();
+        while (shard < shards.length) {
+            int wanted = count - keys.size();
+            int before = keys.size();
+            RadixTree index = shards[shard].getPrefixIndex();
+            String last = index.visit(prefix, after, wanted, keys::add);
+            if (keys.size() - before == wanted) {
+                return prefixScanCursors.issue(new PrefixScanCursors.Position(shard, last));
+            }
+            shard++;
+            after = null;
+        }
+        return 0;
+    }
+
+    private boolean hasPrefixIndex() {
+        return shards[0].getPrefixIndex() != null;
+    }
+
+    @Override
+    public int getKeyCount() {
+        return store.size();
+    }
+
+    @Override
+    public int getExpiresCount() {
+        int count = 0;
+        for (Keyspace shard : shards) {
+            count += shard.getExpires().size();
+        }
+        return count;
+    }
+
+    @Override
+    public long getMemoryUsage(String key) {
+        // Looked up without counting as an access, like Redis does
+        RedisValue<?> redisValue = shards[shardOf(key)].peek(key);
+        if (redisValue == null || redisValue.isExpired()) {
+            return -1;
+        }
+        return MemoryEstimate.key(key) + redisValue.getMemory();
+    }
+
+    private int shardOf(String key) {
+        return shards.length == 1 ? 0 : ShardedKeyspace.shardOf(key, shards.length);
+    }
 }
@@ -0,0 +1,208 @@
+package storage.impl;
+
+import domain.RedisValue;
+import storage.ActiveExpireCycle;
+import storage.Database;
+import storage.ExpiryStats;
+import storage.Keyspace;
+import storage.LazyFreer;
+import storage.MemoryStats;
+import storage.SelectedDatabase;
+import storage.ShardedKeyspace;
+import storage.eviction.EvictionConfig;
+import storage.eviction.EvictionListener;
+import storage.eviction.Evictor;
+import storage.repository.DatabaseRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class DatabaseRepositoryImpl implements DatabaseRepository {
+
+    // Slots swapped by SWAPDB, the databases themselves never change
+    private final AtomicReferenceArray<Database> databases;
+    // Every database's keyspace by shard; SWAPDB only reorders a shard's row and flushes keep the objects
+    private final Keyspace[][] byShard;
+    private final ExpiryStats expiryStats;
+    private final ActiveExpireCycle activeExpireCycle;
+    private final Evictor evictor;
+    private final LazyFreer lazyFreer = LazyFreer.getInstance();
+    private final AtomicLong peakMemory = new AtomicLong();
+
+    public DatabaseRepositoryImpl(Database[] databases, ExpiryStats expiryStats, EvictionConfig eviction) {
+        this.databases = new AtomicReferenceArray<>(databases);
+        this.expiryStats = expiryStats;
+        this.activeExpireCycle = new ActiveExpireCycle(expiryStats);
+        int shardCount = databases[0].getShards().length;
+        this.byShard = new Keyspace[shardCount][databases.length];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int db = 0; db < databases.length; db++) {
+                byShard[shard][db] = databases[db].getShards()[shard];
+            }
+        }
+        this.evictor = new Evictor(eviction, byShard);
+    }
+
+    /**
+     * The database the command running on this thread works on.
+     */
+    public Database selected() {
+        return databases.get(SelectedDatabase.get());
+    }
+
+    @Override
+    public int getDatabaseCount() {
+        return databases.length();
+    }
+
+    @Override
+    public int getKeyCount(int database) {
+        return databases.get(database).getCommonRepository().getKeyCount();
+    }
+
+    @Override
+    public int getExpiresCount(int database) {
+        return databases.get(database).getCommonRepository().getExpiresCount();
+    }
+
+    @Override
+    public boolean move(String key, int database) {
+        Database source = selected();
+        Database target = databases.get(database);
+        // The key hashes to the same shard in every database
+        Keyspace from = source.getShards()[shardOf(key)];
+        Keyspace to = target.getShards()[shardOf(key)];
+        while (true) {
+            RedisValue<?> value = source.getCommonRepository().getValue(key);
+            if (value == null || target.getCommonRepository().exists(key)) {
+                return false;
+            }
+            // Taken, not deleted: the value lives on. Each step only succeeds on
+            // what was read, so a concurrent write is never overwritten or lost
+            if (!from.take(key, value)) {
+                continue;// written over since it was read, move the new value
+            }
+            if (to.putIfAbsent(key, value) == null) {
+                return true;
+            }
+            // A client created the key in the target meanwhile: put the value back
+            if (from.putIfAbsent(key, value) != null) {
+                // and a client wrote the source key too, which overwrites it
+                LazyFreer.getInstance().free(value);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void swapDatabases(int first, int second) {
+        Database swapped = databases.get(first);
+        databases.set(first, databases.get(second));
+        databases.set(second, swapped);
+    }
+
+    @Override
+    public void flushDatabase(boolean async) {
+        flush(selected(), async);
+    }
+
+    @Override
+    public void flushAll(boolean async) {
+        for (int db = 0; db < databases.length(); db++) {
+            flush(databases.get(db), async);
+        }
+    }
+
+    private void flush(Database database, boolean async) {
+        for (Keyspace shard : database.getShards()) {
+            if (async) {
+                lazyFreer.free(shard.detach());
+            } else {
+                shard.clear();
+            }
+        }
+    }
+
+    @Override
+    public long getLazyFreePendingObjects() {
+        return lazyFreer.getPendingObjects();
+    }
+
+    @Override
+    public long getLazyFreedObjects() {
+        return lazyFreer.getFreedObjects();
+    }
+
+    @Override
+    public void activeExpireCycle(int shard, long budgetNanos) {
+        activeExpireCycle.run(byShard[shard], budgetNanos);
+    }
+
+    @Override
+    public void activeRehash(int shard, long budgetNanos) {
+        long start = System.nanoTime();
+        for (Keyspace keyspace : byShard[shard]) {
+            long left = budgetNanos - (System.nanoTime() - start);
+            if (left <= 0) {
+                return;
+            }
+            keyspace.activeRehash(left);
+        }
+    }
+
+    @Override
+    public ExpiryStats getExpiryStats() {
+        return expiryStats;
+    }
+
+    @Override
+    public long getUsedMemory() {
+        long used = 0;
+        for (Keyspace[] shard : byShard) {
+            for (Keyspace keyspace : shard) {
+                used += keyspace.getUsedMemory();
+            }
+        }
+        return used;
+    }
+
+    @Override
+    public boolean freeMemoryIfNeeded(String key) {
+        return evictor.freeMemoryIfNeeded(shardOf(key), this::getUsedMemory);
+    }
+
+    @Override
+    public long getEvictedKeys() {
+        return evictor.getEvictedKeys();
+    }
+
+    @Override
+    public void setEvictionListener(EvictionListener listener) {
+        evictor.setListener(listener);
+    }
+
+    @Override
+    public MemoryStats getMemoryStats() {
+        long dataset = 0;
+        long overhead = 0;
+        int keys = 0;
+        for (Keyspace[] shard : byShard) {
+            for (Keyspace keyspace : shard) {
+                dataset += keyspace.getDatasetMemory();
+                overhead += keyspace.getOverheadMemory();
+                keys += keyspace.size();
+            }
+        }
+        long peak = peakMemory.accumulateAndGet(dataset + overhead, Math::max);
+        return new MemoryStats(dataset + overhead, peak, dataset, overhead, keys);
+    }
+
+    @Override
+    public void recordPeakMemory() {
+        peakMemory.accumulateAndGet(getUsedMemory(), Math::max);
+    }
+
+    private int shardOf(String key) {
+        return byShard.length == 1 ? 0 : ShardedKeyspace.shardOf(key, byShard.length);
+    }
+}
@@ -7,16 +7,16 @@ import storage.repository.ListRepository;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class ListRepositoryImpl implements ListRepository {
 
-    private final Map<String, RedisValue> store;
+    private final Map<String, RedisValue<?>> store;
     private final ListWaitRegistry listWaitRegistry;
 
-    public ListRepositoryImpl(Map<String, RedisValue> store, ListWaitRegistry listWaitRegistry) {
+    public ListRepositoryImpl(Map<String, RedisValue<?>> store, ListWaitRegistry listWaitRegistry) {
         this.store = store;
         this.listWaitRegistry = listWaitRegistry;
     }
@@ -26,7 +26,7 @@ public class ListRepositoryImpl implements ListRepository {
         ListValue redisValue = getOrCreateList(key);
         boolean wasEmpty = redisValue.getList().isEmpty();
 
-        redisValue.getList().addAll(values);
+        redisValue.addLast(values);
         long size = redisValue.getList().size();
 
         if (wasEmpty) {
@@ -42,7 +42,7 @@ public class ListRepositoryImpl implements ListRepository {
         boolean wasEmpty = redisValue.getList().isEmpty();
 
         for (String value : values) {
-            redisValue.getList().addFirst(value);
+            redisValue.addFirst(value);
         }
         long size = redisValue.getList().size();
 
@@ -60,7 +60,7 @@ public class ListRepositoryImpl implements ListRepository {
             return null;
         }
         ListValue listValue = (ListValue) redisValue;
-        return listValue.getList().pollFirst();
+        return listValue.pollFirst();
     }
 
     @Override
@@ -74,11 +74,11 @@ public class ListRepositoryImpl implements ListRepository {
             return null;
         }
 
-        Deque<String> values = ((ListValue) redisValue).getList();
+        ListValue listValue = (ListValue) redisValue;
         List<String> removedValues = new ArrayList<>();
 
-        while (count > 0 && !values.isEmpty()) {
-            removedValues.add(values.pollFirst());
+        while (count > 0 && !listValue.getList().isEmpty()) {
+            removedValues.add(listValue.pollFirst());
             count--;
         }
 
@@ -86,13 +86,9 @@ public class ListRepositoryImpl implements ListRepository {
     }
 
     @Override
-    public String BLPOP(String key, double timestamp) throws InterruptedException {
-        String value = lpop(key);
-        if (value != null) {
-            return value;
-        }
-
-        return listWaitRegistry.awaitElement(key, timestamp, () -> lpop(key));
+    public Runnable BLPOP(String key, double timestamp, Consumer<String> onComplete) {
+        // The registry pops first and only queues the client when the list is empty
+        return listWaitRegistry.awaitElement(key, timestamp, () -> lpop(key), onComplete);
     }
 
     private ListValue getOrCreateList(String key) {
@@ -12,9 +12,9 @@ import java.util.Map;
 
 public class SortedSetRepositoryImpl implements SortedSetRepository {
 
-    private final Map<String, RedisValue> store;
+    private final Map<String, RedisValue<?>> store;
 
-    public SortedSetRepositoryImpl(Map<String, RedisValue> store) {
+    public SortedSetRepositoryImpl(Map<String, RedisValue<?>> store) {
         this.store = store;
     }
 
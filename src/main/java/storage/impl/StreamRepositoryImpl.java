@@ -12,14 +12,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class StreamRepositoryImpl implements StreamRepository {
 
-    private final Map<String, RedisValue> store;
+    private final Map<String, RedisValue<?>> store;
     private final StreamWaitRegistry streamWaitRegistry;
 
-    public StreamRepositoryImpl(Map<String, RedisValue> store, StreamWaitRegistry streamWaitRegistry) {
+    public StreamRepositoryImpl(Map<String, RedisValue<?>> store, StreamWaitRegistry streamWaitRegistry) {
         this.store = store;
         this.streamWaitRegistry = streamWaitRegistry;
     }
@@ -38,8 +39,7 @@ public class StreamRepositoryImpl implements StreamRepository {
             entryID = processEntryID(entryID, null, true);
         }
 
-        streamMap.put(entryID, new HashMap<>());
-        streamMap.get(entryID).putAll(entryValues);
+        stream.addEntry(entryID, entryValues);
 
         streamWaitRegistry.signalFirstWaiter(streamKey, entryID);
 
@@ -91,39 +91,58 @@ public class StreamRepositoryImpl implements StreamRepository {
     }
 
     @Override
-    public List<List<Object>> XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs, boolean block,
-            double timeoutSeconds)
-            throws InterruptedException {
+    public List<List<Object>> XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs) {
         List<List<Object>> streamsReads = new ArrayList<>();
         for (int index = 0; index < streamsKeys.size(); index++) {
             String streamKey = streamsKeys.get(index);
-            String startEntryId = streamsStartEntriesIDs.get(index);
-            
-            if (startEntryId.equals("$")) {
-                RedisValue redisValue = store.get(streamKey);
-                if (redisValue != null && redisValue instanceof StreamValue) {
-                    startEntryId = ((StreamValue) redisValue).getLastEntryID();
-                } else {
-                    startEntryId = "0-0";
-                }
-            }
+            String startEntryId = resolveStartEntryId(streamKey, streamsStartEntriesIDs.get(index));
+            streamsReads.add(readStream(streamKey, startEntryId));
+        }
+        return streamsReads;
+    }
 
-            RedisValue redisValue = store.get(streamKey);
-            boolean shouldBlock = (redisValue == null || 
-                    (((StreamValue) redisValue).getLastEntryID().compareTo(startEntryId) <= 0)) && block;
+    @Override
+    public Runnable XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs, long timeoutMillis,
+            Consumer<List<List<Object>>> onComplete) {
+        List<List<Object>> streamsReads = new ArrayList<>();
+        for (int index = 0; index < streamsKeys.size(); index++) {
+            String streamKey = streamsKeys.get(index);
+            String startEntryId = resolveStartEntryId(streamKey, streamsStartEntriesIDs.get(index));
 
-            if (shouldBlock) {
-                return streamWaitRegistry.awaitElement(streamKey, startEntryId, timeoutSeconds,
-                        createStreamReadSupplier(streamKey, startEntryId));
+            if (!hasEntriesAfter(streamKey, startEntryId)) {
+                return streamWaitRegistry.awaitElement(streamKey, startEntryId, timeoutMillis,
+                        createStreamReadSupplier(streamKey, startEntryId), onComplete);
             }
+            streamsReads.add(readStream(streamKey, startEntryId));
+        }
+        onComplete.accept(streamsReads);
+        return () -> {
+        };
+    }
 
-            String endEntryId = Long.MAX_VALUE + "-" + Long.MAX_VALUE;
-            List<Object> streamRead = new ArrayList<>();
-            streamRead.add(streamKey);
-            streamRead.add(XRANGE(streamKey, startEntryId, endEntryId, false));
-            streamsReads.add(streamRead);
+    private List<Object> readStream(String streamKey, String startEntryId) {
+        String endEntryId = Long.MAX_VALUE + "-" + Long.MAX_VALUE;
+        List<Object> streamRead = new ArrayList<>();
+        streamRead.add(streamKey);
+        streamRead.add(XRANGE(streamKey, startEntryId, endEntryId, false));
+        return streamRead;
+    }
+
+    // "$" stands for the last entry of the stream at the time of the call
+    private String resolveStartEntryId(String streamKey, String startEntryId) {
+        if (!startEntryId.equals("$")) {
+            return startEntryId;
         }
-        return streamsReads;
+        RedisValue redisValue = store.get(streamKey);
+        if (redisValue != null && redisValue instanceof StreamValue) {
+            return ((StreamValue) redisValue).getLastEntryID();
+        }
+        return "0-0";
+    }
+
+    private boolean hasEntriesAfter(String streamKey, String startEntryId) {
+        RedisValue redisValue = store.get(streamKey);
+        return redisValue != null && ((StreamValue) redisValue).getLastEntryID().compareTo(startEntryId) > 0;
     }
 
     private Supplier<List<List<Object>>> createStreamReadSupplier(String streamKey, String startEntryId) {
@@ -1,37 +1,311 @@
 package storage.impl;
 
+import domain.BitOperation;
 import domain.RedisValue;
+import domain.values.BitfieldOperation;
 import domain.values.StringValue;
 import storage.repository.StringRepository;
+import util.Bitmaps;
+import util.ByteStrings;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class StringRepositoryImpl implements StringRepository {
 
-    private final Map<String, RedisValue> store;
+    // Same limit as Redis' proto-max-bulk-len
+    private static final long MAX_STRING_LENGTH = 512 * 1024 * 1024;
 
-    public StringRepositoryImpl(Map<String, RedisValue> store) {
+    private final Map<String, RedisValue<?>> store;
+
+    public StringRepositoryImpl(Map<String, RedisValue<?>> store) {
         this.store = store;
     }
 
     @Override
     public long incr(String key) {
+        return incrBy(key, 1);
+    }
+
+    @Override
+    public long incrBy(String key, long increment) {
+        while (true) {
+            StringValue stringValue = getString(key);
+            if (stringValue == null) {
+                // Created already holding the result, unless another client created the key first
+                if (store.putIfAbsent(key, new StringValue(increment)) == null) {
+                    return increment;
+                }
+                continue;
+            }
+            try {
+                // Updated in place, the key keeps its TTL as in Redis
+                return stringValue.incrBy(increment);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("value is not an integer or out of range");
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("increment or decrement would overflow");
+            }
+        }
+    }
+
+    @Override
+    public String incrByFloat(String key, double increment) {
+        while (true) {
+            StringValue stringValue = getString(key);
+            if (stringValue == null) {
+                String result = format(checkFinite(increment));
+                if (store.putIfAbsent(key, new StringValue(result)) == null) {
+                    return result;
+                }
+                continue;
+            }
+            // The read and the write are one step for other INCR family commands on the value
+            synchronized (stringValue) {
+                double current;
+                try {
+                    current = StringValue.parseDouble(stringValue.getString());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("value is not a valid float");
+                }
+                String result = format(checkFinite(current + increment));
+                stringValue.setString(result);
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public List<byte[]> mget(List<String> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            RedisValue redisValue = store.get(key);
+            if (redisValue instanceof StringValue stringValue && !redisValue.isExpired()) {
+                values.add(stringValue.getBytes());
+            } else {
+                values.add(null);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void mset(List<String> keysAndValues) {
+        for (int i = 0; i < keysAndValues.size(); i += 2) {
+            store.put(keysAndValues.get(i), new StringValue(keysAndValues.get(i + 1)));
+        }
+    }
+
+    /**
+     * Each key is claimed with putIfAbsent, and the ones already claimed are
+     * given back when a key turns out to exist. In threaded mode a key
+     * written concurrently is thus never overwritten; elsewhere the command
+     * runs alone and the keys are simply all free or not.
+     */
+    @Override
+    public boolean msetnx(List<String> keysAndValues) {
+        // The last value of a key given twice wins, as in MSET
+        Map<String, StringValue> pairs = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.size(); i += 2) {
+            pairs.put(keysAndValues.get(i), new StringValue(keysAndValues.get(i + 1)));
+        }
+        List<String> claimed = new ArrayList<>(pairs.size());
+        for (Map.Entry<String, StringValue> pair : pairs.entrySet()) {
+            String key = pair.getKey();
+            RedisValue existing = store.get(key);
+            if (existing != null && existing.isExpired()) {
+                store.remove(key, existing);
+            }
+            if (store.putIfAbsent(key, pair.getValue()) != null) {
+                for (String taken : claimed) {
+                    store.remove(taken, pairs.get(taken));
+                }
+                return false;
+            }
+            claimed.add(key);
+        }
+        return true;
+    }
+
+    @Override
+    public long append(String key, String value) {
+        byte[] suffix = ByteStrings.encode(value);
+        while (true) {
+            StringValue stringValue = getString(key);
+            if (stringValue == null) {
+                if (store.putIfAbsent(key, new StringValue(suffix)) == null) {
+                    return suffix.length;
+                }
+                continue;
+            }
+            // The length check and the append are one step for other writers of the value
+            synchronized (stringValue) {
+                checkLength((long) stringValue.length() + suffix.length);
+                return stringValue.append(suffix);
+            }
+        }
+    }
+
+    @Override
+    public long setRange(String key, long offset, String value) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset is out of range");
+        }
+        byte[] bytes = ByteStrings.encode(value);
+        while (true) {
+            StringValue stringValue = getString(key);
+            // Nothing to write leaves the key as it is, absent or not
+            if (bytes.length == 0) {
+                return stringValue != null ? stringValue.length() : 0;
+            }
+            checkLength(offset + bytes.length);
+            if (stringValue == null) {
+                byte[] padded = new byte[(int) offset + bytes.length];
+                System.arraycopy(bytes, 0, padded, (int) offset, bytes.length);
+                if (store.putIfAbsent(key, new StringValue(padded)) == null) {
+                    return padded.length;
+                }
+                continue;
+            }
+            return stringValue.setRange((int) offset, bytes);
+        }
+    }
+
+    @Override
+    public long strlen(String key) {
+        StringValue stringValue = getString(key);
+        return stringValue != null ? stringValue.length() : 0;
+    }
+
+    @Override
+    public byte[] getRange(String key, long start, long end) {
+        StringValue stringValue = getString(key);
+        return stringValue != null ? stringValue.getRange(start, end) : new byte[0];
+    }
+
+    @Override
+    public byte[] getDel(String key) {
+        StringValue stringValue = getString(key);
+        if (stringValue == null || !store.remove(key, stringValue)) {
+            return null;
+        }
+        return stringValue.getBytes();
+    }
+
+    @Override
+    public long setBit(String key, long offset, int bit) {
+        while (true) {
+            StringValue stringValue = getString(key);
+            if (stringValue == null) {
+                byte[] bytes = new byte[(int) (offset >>> 3) + 1];
+                Bitmaps.set(bytes, offset, 1, bit);
+                if (store.putIfAbsent(key, new StringValue(bytes)) == null) {
+                    return 0;
+                }
+                continue;
+            }
+            return stringValue.setBit(offset, bit);
+        }
+    }
+
+    @Override
+    public long getBit(String key, long offset) {
+        StringValue stringValue = getString(key);
+        return stringValue != null ? stringValue.getBit(offset) : 0;
+    }
+
+    @Override
+    public long bitCount(String key, long start, long end, boolean bitUnit) {
+        StringValue stringValue = getString(key);
+        return stringValue != null ? stringValue.bitCount(start, end, bitUnit) : 0;
+    }
+
+    @Override
+    public long bitPos(String key, int bit, long start, long end, boolean endGiven, boolean bitUnit) {
+        StringValue stringValue = getString(key);
+        if (stringValue == null) {
+            // An absent key is an empty string followed by clear bits
+            return bit == 1 ? -1 : 0;
+        }
+        return stringValue.bitPos(bit, start, end, endGiven, bitUnit);
+    }
+
+    @Override
+    public long bitOp(BitOperation operation, String destination, List<String> sources) {
+        List<byte[]> values = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            StringValue stringValue = getString(source);
+            values.add(stringValue != null ? stringValue.getBytes() : null);
+        }
+        byte[] result = Bitmaps.combine(operation, values);
+        if (result.length == 0) {
+            store.remove(destination);
+        } else {
+            store.put(destination, new StringValue(result));
+        }
+        return result.length;
+    }
+
+    @Override
+    public List<Long> bitField(String key, List<BitfieldOperation> operations) {
+        long end = 0;
+        for (BitfieldOperation operation : operations) {
+            if (operation.isWrite()) {
+                end = Math.max(end, operation.getEnd());
+            }
+        }
+        StringValue stringValue = getString(key);
+        // Only writes create the key, padded up front to every integer they write like in Redis
+        while (stringValue == null && end > 0) {
+            StringValue created = new StringValue(new byte[(int) ((end + 7) >>> 3)]);
+            if (store.putIfAbsent(key, created) == null) {
+                stringValue = created;
+            } else {
+                stringValue = getString(key);
+            }
+        }
+        StringValue target = stringValue != null ? stringValue : new StringValue(new byte[0]);
+        List<Long> results = new ArrayList<>(operations.size());
+        synchronized (target) {
+            target.extendToBits(end);
+            for (BitfieldOperation operation : operations) {
+                results.add(operation.applyTo(target));
+            }
+        }
+        return results;
+    }
+
+    private static void checkLength(long length) {
+        if (length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("string exceeds maximum allowed size (proto-max-bulk-len)");
+        }
+    }
+
+    // The live string value at the key, null when there is none; an expired one is dropped
+    private StringValue getString(String key) {
         RedisValue redisValue = store.get(key);
-        if (redisValue == null) {
-            RedisValue newRedisValue = new StringValue("1");
-            store.put(key, newRedisValue);
-            return 1;
-        }
-        String stringValue = ((StringValue) redisValue).getString();
-        long value;
-        try {
-            value = Long.parseLong(stringValue);
-            value++;
-            RedisValue newRedisValue = new StringValue(String.valueOf(value));
-            store.put(key, newRedisValue);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("value is not an integer or out of range");
+        if (redisValue != null && redisValue.isExpired()) {
+            store.remove(key, redisValue);
+            return null;
+        }
+        if (redisValue != null && !(redisValue instanceof StringValue)) {
+            throw new IllegalStateException("WRONGTYPE Operation against a key holding the wrong kind of value");
+        }
+        return (StringValue) redisValue;
+    }
+
+    private static double checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("increment would produce NaN or Infinity");
         }
         return value;
     }
+
+    // Shortest digits that read back as the same double, never in exponent notation, like Redis
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
 }
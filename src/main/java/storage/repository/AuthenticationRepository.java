@@ -2,10 +2,19 @@ package storage.repository;
 
 import domain.values.UserProperties;
 
+import java.util.List;
+
 public interface AuthenticationRepository {
-    String getCurrentUser();
     UserProperties getUserProperties(String currentUser);
-    boolean setUserPassword(String userName, String password);
+    /**
+     * Applies ACL SETUSER rules to the user, creating it when missing.
+     *
+     * @throws IllegalArgumentException on an invalid rule, the user is left unchanged
+     */
+    void setUser(String userName, List<String> rules);
 
+    /**
+     * Checks the credentials only, the caller records the result in the client's session.
+     */
     boolean authenticateUser(String userName, String password);
 }
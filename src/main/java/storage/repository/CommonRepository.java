@@ -2,6 +2,9 @@ package storage.repository;
 
 import domain.RedisValue;
 import domain.DataType;
+import domain.ExpireCondition;
+
+import java.util.List;
 import java.util.Set;
 
 public interface CommonRepository {
@@ -19,8 +22,54 @@ public interface CommonRepository {
     boolean isType(String key, DataType dataType);
     
     long getTTL(String key);
-    
-    void cleanup();
+
+    /**
+     * The absolute expiry time in milliseconds, -1 without a TTL and -2 when the key does not exist.
+     */
+    long getExpiryTime(String key);
+
+    /**
+     * Sets the key's expiry time when every condition allows it, deleting the
+     * key when the time has already passed. Returns whether anything changed.
+     */
+    boolean setExpiry(String key, long expiryTime, Set<ExpireCondition> conditions);
+
+    /**
+     * Removes the key's TTL, returns false when it had none or does not exist.
+     */
+    boolean persist(String key);
     
     Set<String> getAllKeys();
+
+    /**
+     * The live keys starting with the prefix, found through the prefix index
+     * when there is one.
+     */
+    Set<String> getKeysWithPrefix(String prefix);
+
+    /**
+     * How many keys start with the prefix, expired ones not yet removed
+     * included, like the key count.
+     */
+    int countKeysWithPrefix(String prefix);
+
+    /**
+     * Adds the keys of the next buckets to the list until about count keys
+     * were found and returns the cursor to continue from, 0 once the whole
+     * keyspace was scanned. Keys present from the first call to the last are
+     * returned at least once; expired keys may be returned too.
+     *
+     * With a non-empty prefix and a prefix index, only keys starting with the
+     * prefix are visited, in key order.
+     */
+    long scan(long cursor, int count, String prefix, List<String> keys);
+
+    int getKeyCount();
+
+    int getExpiresCount();
+
+    /**
+     * Estimated bytes the key and its value take, -1 when the key does not exist.
+     */
+    long getMemoryUsage(String key);
 }
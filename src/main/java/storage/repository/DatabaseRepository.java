@@ -0,0 +1,88 @@
+package storage.repository;
+
+import storage.ExpiryStats;
+import storage.MemoryStats;
+import storage.eviction.EvictionListener;
+
+/**
+ * What spans every logical database: switching keys and whole databases
+ * between them, flushing, and the background work and memory accounting of
+ * the server. The other repositories work on the database selected for the
+ * command running on the calling thread.
+ */
+public interface DatabaseRepository {
+
+    int getDatabaseCount();
+
+    int getKeyCount(int database);
+
+    int getExpiresCount(int database);
+
+    /**
+     * Moves the key of the selected database to another one, false when it
+     * does not exist or the target database already holds the key.
+     */
+    boolean move(String key, int database);
+
+    /**
+     * Exchanges the contents of two databases in O(1): clients that selected
+     * one see the keys of the other from now on.
+     */
+    void swapDatabases(int first, int second);
+
+    /**
+     * Empties the selected database. Asynchronously only the map is swapped,
+     * the old keys are freed on a background thread.
+     */
+    void flushDatabase(boolean async);
+
+    void flushAll(boolean async);
+
+    /**
+     * Large values and keys of flushed databases still waiting to be freed
+     * in the background.
+     */
+    long getLazyFreePendingObjects();
+
+    long getLazyFreedObjects();
+
+    /**
+     * Runs one active expire cycle over a shard of every database, on the
+     * thread owning that shard. Unsharded keyspaces are shard 0.
+     */
+    void activeExpireCycle(int shard, long budgetNanos);
+
+    /**
+     * Moves on unfinished resizes of a shard's hash tables, on the thread
+     * owning that shard.
+     */
+    void activeRehash(int shard, long budgetNanos);
+
+    ExpiryStats getExpiryStats();
+
+    /**
+     * Estimated bytes held by all keys and values.
+     */
+    long getUsedMemory();
+
+    /**
+     * Evicts keys by the maxmemory policy until memory use is under the
+     * limit, from the shard owning the key about to be written. Returns false
+     * when memory is still over the limit and the write must be refused.
+     */
+    boolean freeMemoryIfNeeded(String key);
+
+    long getEvictedKeys();
+
+    /**
+     * Reports every key evicted from now on to the listener.
+     */
+    void setEvictionListener(EvictionListener listener);
+
+    MemoryStats getMemoryStats();
+
+    /**
+     * Keeps track of the highest memory use seen, called periodically.
+     */
+    void recordPeakMemory();
+}
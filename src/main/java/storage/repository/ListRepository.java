@@ -1,6 +1,7 @@
 package storage.repository;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ListRepository {
     
@@ -12,5 +13,10 @@ public interface ListRepository {
     
     List<String> lpop(String key, Long count);
     
-    String BLPOP(String key, double timeout) throws InterruptedException;
+    /**
+     * Pops now or once a push arrives; the callback gets the value, or null on timeout.
+     *
+     * @return cancels the wait, leaving any later push to other clients
+     */
+    Runnable BLPOP(String key, double timeout, Consumer<String> onComplete);
 }
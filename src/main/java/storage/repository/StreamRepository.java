@@ -2,6 +2,7 @@ package storage.repository;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
 
 import storage.exception.InvalidStreamEntryException;
 
@@ -12,6 +13,14 @@ public interface StreamRepository {
 
     List<List<Object>> XRANGE(String streamKey, String startEntryId, String endEntryId, boolean inclusion);
 
-    List<List<Object>> XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs, boolean block, double timeoutSeconds)
-        throws InterruptedException;
+    List<List<Object>> XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs);
+
+    /**
+     * XREAD BLOCK: reads now or once a stream gets entries after the requested
+     * ID; the callback gets the streams read, or null on timeout.
+     *
+     * @return cancels the wait
+     */
+    Runnable XREAD(List<String> streamsKeys, List<String> streamsStartEntriesIDs, long timeoutMillis,
+        Consumer<List<List<Object>>> onComplete);
 }
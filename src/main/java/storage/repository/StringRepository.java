@@ -1,6 +1,101 @@
 package storage.repository;
 
+import java.util.List;
+
+import domain.BitOperation;
+import domain.values.BitfieldOperation;
+
 public interface StringRepository {
     
     long incr(String key);
+
+    /**
+     * Adds to the integer stored at the key, starting from 0 when absent.
+     */
+    long incrBy(String key, long increment);
+
+    /**
+     * Adds to the float stored at the key, starting from 0 when absent, and
+     * returns the new value as stored.
+     */
+    String incrByFloat(String key, double increment);
+
+    /**
+     * The bytes of each key's string value in order, null for keys that are
+     * missing or hold another type.
+     */
+    List<byte[]> mget(List<String> keys);
+
+    /**
+     * Sets each key to the value following it, the pairs given flattened.
+     */
+    void mset(List<String> keysAndValues);
+
+    /**
+     * Sets the pairs only if none of the keys exists, returns whether it did.
+     */
+    boolean msetnx(List<String> keysAndValues);
+
+    /**
+     * Appends to the string at the key, creating it when absent, and returns
+     * its new length.
+     */
+    long append(String key, String value);
+
+    /**
+     * Overwrites the string at the key from the offset on, zero-padding it
+     * up to the offset, and returns its new length.
+     */
+    long setRange(String key, long offset, String value);
+
+    /**
+     * Length of the string at the key, 0 when absent.
+     */
+    long strlen(String key);
+
+    /**
+     * The bytes from start to end inclusive, negative offsets counted from
+     * the end; empty when the key is absent.
+     */
+    byte[] getRange(String key, long start, long end);
+
+    /**
+     * Removes the key and returns the bytes it held, null when absent.
+     */
+    byte[] getDel(String key);
+
+    /**
+     * Sets or clears the bit at the offset, creating or zero-padding the
+     * string to reach it, and returns the bit it held.
+     */
+    long setBit(String key, long offset, int bit);
+
+    /**
+     * The bit at the offset, 0 past the end or when the key is absent.
+     */
+    long getBit(String key, long offset);
+
+    /**
+     * Number of set bits in the range, given in bytes or in bits with
+     * negative offsets counted from the end.
+     */
+    long bitCount(String key, long start, long end, boolean bitUnit);
+
+    /**
+     * Position of the first bit set to the given value in the range, -1 when
+     * there is none; see {@link domain.values.StringValue#bitPos}.
+     */
+    long bitPos(String key, int bit, long start, long end, boolean endGiven, boolean bitUnit);
+
+    /**
+     * Stores the operation over the source strings at the destination,
+     * deleting it when the result is empty, and returns the result's length.
+     */
+    long bitOp(BitOperation operation, String destination, List<String> sources);
+
+    /**
+     * Runs the BITFIELD operations in order as one step and returns their
+     * results, null for those an overflow failed.
+     */
+    List<Long> bitField(String key, List<BitfieldOperation> operations);
 }
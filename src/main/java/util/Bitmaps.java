@@ -0,0 +1,174 @@
+package util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import domain.BitOperation;
+
+/**
+ * Bit operations over the bytes of a string, bit 0 being the most
+ * significant bit of the first byte as in Redis.
+ *
+ * Whole stretches are read eight bytes at a time as big-endian longs, so a
+ * long's leading bit is the string's first bit: BITCOUNT adds up
+ * Long.bitCount per word and BITOP combines words, a byte at a time only at
+ * the edges.
+ */
+public final class Bitmaps {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private Bitmaps() {
+    }
+
+    /**
+     * Number of set bits from bit start to bit end inclusive, both within
+     * the bytes.
+     */
+    public static long count(byte[] bytes, long start, long end) {
+        int first = (int) (start >>> 3);
+        int last = (int) (end >>> 3);
+        int firstMask = 0xFF >>> (start & 7);
+        int lastMask = (0xFF << (7 - (end & 7))) & 0xFF;
+        if (first == last) {
+            return Integer.bitCount(bytes[first] & firstMask & lastMask);
+        }
+        long count = Integer.bitCount(bytes[first] & firstMask) + Integer.bitCount(bytes[last] & lastMask);
+        int i = first + 1;
+        for (; i + Long.BYTES <= last; i += Long.BYTES) {
+            count += Long.bitCount((long) LONGS.get(bytes, i));
+        }
+        for (; i < last; i++) {
+            count += Integer.bitCount(bytes[i] & 0xFF);
+        }
+        return count;
+    }
+
+    /**
+     * Position of the first bit set to the given value from bit start to
+     * bit end inclusive, -1 when there is none.
+     */
+    public static long position(byte[] bytes, int bit, long start, long end) {
+        int first = (int) (start >>> 3);
+        int last = (int) (end >>> 3);
+        // Looking for a clear bit is looking for a set one in the complement
+        int flip = bit == 1 ? 0 : 0xFF;
+        int i = first;
+        while (i <= last) {
+            if (i > first && i + Long.BYTES <= last) {
+                long word = (long) LONGS.get(bytes, i);
+                if (bit == 0) {
+                    word = ~word;
+                }
+                if (word != 0) {
+                    return (long) i * 8 + Long.numberOfLeadingZeros(word);
+                }
+                i += Long.BYTES;
+                continue;
+            }
+            int mask = 0xFF;
+            if (i == first) {
+                mask &= 0xFF >>> (start & 7);
+            }
+            if (i == last) {
+                mask &= 0xFF << (7 - (end & 7));
+            }
+            int found = ((bytes[i] & 0xFF) ^ flip) & mask;
+            if (found != 0) {
+                return (long) i * 8 + Integer.numberOfLeadingZeros(found) - 24;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * The width bits from the offset as an unsigned number; bits past the
+     * bytes read as 0.
+     */
+    public static long get(byte[] bytes, int length, long offset, int width) {
+        long value = 0;
+        for (long bit = offset; bit < offset + width; bit++) {
+            int index = (int) (bit >>> 3);
+            int b = index < length ? (bytes[index] >> (7 - (bit & 7))) & 1 : 0;
+            value = value << 1 | b;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the low width bits of the value from the offset, which the
+     * bytes must have room for.
+     */
+    public static void set(byte[] bytes, long offset, int width, long value) {
+        for (int i = 0; i < width; i++) {
+            long bit = offset + i;
+            int index = (int) (bit >>> 3);
+            int mask = 1 << (7 - (bit & 7));
+            if ((value >>> (width - 1 - i) & 1) != 0) {
+                bytes[index] |= (byte) mask;
+            } else {
+                bytes[index] &= (byte) ~mask;
+            }
+        }
+    }
+
+    /**
+     * BITOP over the sources, null ones counting as empty strings. The
+     * result is as long as the longest source, shorter ones padded with
+     * zero bytes.
+     */
+    public static byte[] combine(BitOperation operation, List<byte[]> sources) {
+        int length = 0;
+        for (byte[] source : sources) {
+            if (source != null) {
+                length = Math.max(length, source.length);
+            }
+        }
+        byte[] result = new byte[length];
+        byte[] first = sources.get(0);
+        if (first != null) {
+            System.arraycopy(first, 0, result, 0, first.length);
+        }
+        if (operation == BitOperation.NOT) {
+            apply(operation, result, result);
+            return result;
+        }
+        for (int s = 1; s < sources.size(); s++) {
+            byte[] source = sources.get(s) != null ? sources.get(s) : new byte[0];
+            apply(operation, result, source);
+            // Past a shorter source AND sees zeros, OR and XOR leave the result as is
+            if (operation == BitOperation.AND) {
+                Arrays.fill(result, source.length, length, (byte) 0);
+            }
+        }
+        return result;
+    }
+
+    // Combines the result with the source over the source's length, word by word
+    private static void apply(BitOperation operation, byte[] result, byte[] source) {
+        int length = source.length;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            long a = (long) LONGS.get(result, i);
+            long b = (long) LONGS.get(source, i);
+            long combined = switch (operation) {
+                case AND -> a & b;
+                case OR -> a | b;
+                case XOR -> a ^ b;
+                case NOT -> ~b;
+            };
+            LONGS.set(result, i, combined);
+        }
+        for (; i < length; i++) {
+            result[i] = (byte) switch (operation) {
+                case AND -> result[i] & source[i];
+                case OR -> result[i] | source[i];
+                case XOR -> result[i] ^ source[i];
+                case NOT -> ~source[i];
+            };
+        }
+    }
+}
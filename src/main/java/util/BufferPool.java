@@ -0,0 +1,53 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BufferPool is a singleton that recycles fixed-size heap ByteBuffers used to
+ * build replies, so a connection only holds an output buffer while it has
+ * something to send. Buffers that were grown past the standard size are
+ * dropped instead of being returned to the pool.
+ */
+public class BufferPool {
+    public static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+
+    private static final BufferPool instance = new BufferPool();
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private BufferPool() {
+    }
+
+    public static BufferPool getInstance() {
+        return instance;
+    }
+
+    /**
+     * Take a cleared buffer of {@link #BUFFER_SIZE} bytes from the pool.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Give a buffer back. The caller must not use it afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != BUFFER_SIZE || pooled.get() >= MAX_POOLED_BUFFERS) {
+            return;
+        }
+        buffer.clear();
+        pooled.incrementAndGet();
+        buffers.add(buffer);
+    }
+}
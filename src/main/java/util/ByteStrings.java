@@ -0,0 +1,98 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keys and values as Strings holding one char per byte.
+ *
+ * Redis keys and values are arbitrary bytes. Decoding them as Latin-1 maps
+ * every byte to the char of the same value and back, so a protobuf blob or
+ * compressed JSON survives the trip through a String unchanged, where UTF-8
+ * would replace its invalid sequences. With compact strings such a String
+ * is stored as its bytes plus a cached hash, which is all an SDS-like byte
+ * string would hold; keys, list elements, members and fields keep their
+ * String type at no extra cost, and byte lengths are String lengths.
+ *
+ * Text the server builds itself may go beyond Latin-1, like a path in an
+ * error message: chars above 0xFF are written as UTF-8.
+ */
+public final class ByteStrings {
+
+    private ByteStrings() {
+    }
+
+    public static String decode(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    public static String decode(byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    public static byte[] encode(String value) {
+        int length = length(value);
+        if (length == value.length()) {
+            return value.getBytes(StandardCharsets.ISO_8859_1);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        put(value, bytes);
+        return bytes.array();
+    }
+
+    /**
+     * Number of bytes {@link #put} writes for the string.
+     */
+    public static int length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x100) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // Two chars, four bytes
+                bytes += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the string at the buffer's position, which must have room for
+     * {@link #length} bytes. A lone surrogate is written as '?', like
+     * String.getBytes does.
+     */
+    public static void put(String value, ByteBuffer buffer) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x100) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+}
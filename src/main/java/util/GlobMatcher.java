@@ -0,0 +1,253 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Redis glob pattern compiled once and matched many times: `*` any run of
+ * characters, `?` any single character, `[abc]`, `[^a]` and `[a-z]` character
+ * classes, and `\` escaping the next character.
+ *
+ * Patterns without wildcards compare with equals, `prefix*` patterns with
+ * startsWith; everything else walks the compiled tokens, backtracking to the
+ * last `*` on a mismatch.
+ *
+ * Patterns that clients send again and again, like a SCAN MATCH repeated on
+ * every cursor, are compiled once through {@link #cached}.
+ */
+public final class GlobMatcher {
+
+    private static final int LITERAL = 0;
+    private static final int ANY_CHAR = 1;
+    private static final int ANY_SEQUENCE = 2;
+    private static final int CHAR_CLASS = 3;
+    private static final int CACHE_SIZE = 256;
+
+    // Least recently used patterns are dropped first
+    private static final Map<String, GlobMatcher> CACHE = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GlobMatcher> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String pattern;
+    private final boolean matchesEverything;
+    private final String literal;
+    private final String prefix;
+    private final String literalPrefix;
+    private final Token[] tokens;
+
+    private GlobMatcher(String pattern, Token[] tokens) {
+        this.pattern = pattern;
+        this.tokens = tokens;
+        this.matchesEverything = tokens.length > 0 && onlySequences(tokens);
+        this.literal = literalOf(tokens, tokens.length);
+        this.prefix = tokens.length > 0 && tokens[tokens.length - 1].kind == ANY_SEQUENCE
+                ? literalOf(tokens, tokens.length - 1)
+                : null;
+        this.literalPrefix = leadingLiteral(tokens);
+    }
+
+    public static GlobMatcher compile(String pattern) {
+        return new GlobMatcher(pattern, tokenize(pattern));
+    }
+
+    /**
+     * The compiled pattern, shared with earlier callers of the same pattern.
+     */
+    public static GlobMatcher cached(String pattern) {
+        synchronized (CACHE) {
+            GlobMatcher matcher = CACHE.get(pattern);
+            if (matcher == null) {
+                matcher = compile(pattern);
+                CACHE.put(pattern, matcher);
+            }
+            return matcher;
+        }
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public boolean matchesEverything() {
+        return matchesEverything;
+    }
+
+    /**
+     * The text every match starts with, empty when the pattern starts with a wildcard.
+     */
+    public String literalPrefix() {
+        return literalPrefix;
+    }
+
+    public boolean matches(String text) {
+        if (matchesEverything) {
+            return true;
+        }
+        if (literal != null) {
+            return literal.equals(text);
+        }
+        if (prefix != null) {
+            return text.startsWith(prefix);
+        }
+        return matchTokens(text);
+    }
+
+    private boolean matchTokens(String text) {
+        int t = 0;
+        int p = 0;
+        int starToken = -1;
+        int starText = 0;
+        while (t < text.length()) {
+            if (p < tokens.length && tokens[p].kind == ANY_SEQUENCE) {
+                // Try the empty run first, grow it on later mismatches
+                starToken = p++;
+                starText = t;
+            } else if (p < tokens.length && tokens[p].matches(text.charAt(t))) {
+                p++;
+                t++;
+            } else if (starToken >= 0) {
+                p = starToken + 1;
+                t = ++starText;
+            } else {
+                return false;
+            }
+        }
+        while (p < tokens.length && tokens[p].kind == ANY_SEQUENCE) {
+            p++;
+        }
+        return p == tokens.length;
+    }
+
+    /* ========== COMPILATION ========== */
+
+    private static Token[] tokenize(String pattern) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    // Consecutive stars match the same as one
+                    if (tokens.isEmpty() || tokens.get(tokens.size() - 1).kind != ANY_SEQUENCE) {
+                        tokens.add(new Token(ANY_SEQUENCE, '\0', null, false));
+                    }
+                    i++;
+                }
+                case '?' -> {
+                    tokens.add(new Token(ANY_CHAR, '\0', null, false));
+                    i++;
+                }
+                case '[' -> i = parseClass(pattern, i + 1, tokens);
+                case '\\' -> {
+                    if (i + 1 < pattern.length()) {
+                        i++;
+                    }
+                    tokens.add(new Token(LITERAL, pattern.charAt(i), null, false));
+                    i++;
+                }
+                default -> {
+                    tokens.add(new Token(LITERAL, c, null, false));
+                    i++;
+                }
+            }
+        }
+        return tokens.toArray(new Token[0]);
+    }
+
+    // Parses a class starting after its '[', returns the index after its ']'
+    private static int parseClass(String pattern, int i, List<Token> tokens) {
+        boolean negated = i < pattern.length() && pattern.charAt(i) == '^';
+        if (negated) {
+            i++;
+        }
+        StringBuilder ranges = new StringBuilder();
+        while (i < pattern.length() && pattern.charAt(i) != ']') {
+            char c = pattern.charAt(i);
+            if (c == '\\' && i + 1 < pattern.length()) {
+                c = pattern.charAt(++i);
+                ranges.append(c).append(c);
+            } else if (i + 2 < pattern.length() && pattern.charAt(i + 1) == '-' && pattern.charAt(i + 2) != ']') {
+                char end = pattern.charAt(i + 2);
+                // Reversed ranges match the same characters, as in Redis
+                ranges.append((char) Math.min(c, end)).append((char) Math.max(c, end));
+                i += 2;
+            } else {
+                ranges.append(c).append(c);
+            }
+            i++;
+        }
+        tokens.add(new Token(CHAR_CLASS, '\0', ranges.toString().toCharArray(), negated));
+        // An unterminated class runs to the end of the pattern
+        return Math.min(i + 1, pattern.length());
+    }
+
+    private static boolean onlySequences(Token[] tokens) {
+        for (Token token : tokens) {
+            if (token.kind != ANY_SEQUENCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The text the first tokens spell, or null when one of them is a wildcard
+    private static String literalOf(Token[] tokens, int count) {
+        StringBuilder text = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            if (tokens[i].kind != LITERAL) {
+                return null;
+            }
+            text.append(tokens[i].literal);
+        }
+        return text.toString();
+    }
+
+    private static String leadingLiteral(Token[] tokens) {
+        StringBuilder text = new StringBuilder();
+        for (Token token : tokens) {
+            if (token.kind != LITERAL) {
+                break;
+            }
+            text.append(token.literal);
+        }
+        return text.toString();
+    }
+
+    private static final class Token {
+        private final int kind;
+        private final char literal;
+        // Inclusive [from, to] pairs
+        private final char[] ranges;
+        private final boolean negated;
+
+        Token(int kind, char literal, char[] ranges, boolean negated) {
+            this.kind = kind;
+            this.literal = literal;
+            this.ranges = ranges;
+            this.negated = negated;
+        }
+
+        boolean matches(char c) {
+            switch (kind) {
+                case LITERAL:
+                    return c == literal;
+                case ANY_CHAR:
+                    return true;
+                case CHAR_CLASS:
+                    for (int i = 0; i < ranges.length; i += 2) {
+                        if (c >= ranges[i] && c <= ranges[i + 1]) {
+                            return !negated;
+                        }
+                    }
+                    return negated;
+                default:
+                    return false;
+            }
+        }
+    }
+}
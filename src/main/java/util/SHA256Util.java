@@ -1,6 +1,5 @@
 package util;
 
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -12,7 +11,8 @@ public final class SHA256Util {
     public static String hashToHex(String plaintext) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(plaintext.getBytes(StandardCharsets.UTF_8));
+            // The password's bytes as the client sent them
+            byte[] hash = digest.digest(ByteStrings.encode(plaintext));
 
             StringBuilder hex = new StringBuilder(hash.length * 2);
             for (byte b : hash) {
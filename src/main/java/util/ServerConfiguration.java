@@ -1,5 +1,9 @@
 package util;
 
+import storage.InMemoryDataStore;
+import storage.eviction.EvictionConfig;
+import storage.eviction.EvictionPolicy;
+
 /**
  * ServerConfiguration parses and holds Redis server startup configuration
  * from command-line arguments.
@@ -8,6 +12,19 @@ package util;
  * - --replicaof <host> <port>: Configure as replica of specified master
  * - --dir <path>: Directory for RDB file
  * - --dbfilename <name>: RDB file name
+ * - --io-mode <nio|blocking|virtual>: Client connection front end, virtual runs
+ *   one virtual thread per connection and needs Java 21 (default: nio)
+ * - --io-threads <n>: Number of selector I/O threads in nio mode
+ * - --exec-mode <threaded|single|sharded>: Run commands on the connection threads,
+ *   on one executor thread or on one executor per keyspace shard (default: threaded)
+ * - --shards <n>: Number of keyspace shards in sharded mode
+ * - --hz <n>: Background task runs per second, like the active expire cycle (default: 10)
+ * - --maxmemory <bytes>: Memory limit of the keyspace, with Redis units like 100mb (default: 0, no limit)
+ * - --maxmemory-policy <policy>: What to evict at the limit, e.g. allkeys-lru (default: noeviction)
+ * - --maxmemory-samples <n>: Keys sampled per eviction (default: 5)
+ * - --key-prefix-index <yes|no>: Keep key names in a radix tree so SCAN MATCH and KEYS
+ *   patterns starting with a literal prefix only visit matching keys (default: no)
+ * - --databases <n>: Number of logical databases SELECT can switch between (default: 16)
  */
 public class ServerConfiguration {
     // Constants
@@ -15,6 +32,16 @@ public class ServerConfiguration {
     private static final String DEFAULT_HOST = "localhost";
     private static final String ROLE_MASTER = "master";
     private static final String ROLE_SLAVE = "slave";
+    private static final String IO_MODE_NIO = "nio";
+    private static final String IO_MODE_BLOCKING = "blocking";
+    private static final String IO_MODE_VIRTUAL = "virtual";
+    private static final String EXEC_MODE_THREADED = "threaded";
+    private static final String EXEC_MODE_SINGLE = "single";
+    private static final String EXEC_MODE_SHARDED = "sharded";
+    private static final int DEFAULT_IO_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int DEFAULT_SHARDS = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_HZ = 10;
+    private static final int MAX_HZ = 500;
     
     // Configuration fields
     private final int port;
@@ -23,6 +50,16 @@ public class ServerConfiguration {
     private final int masterPort;
     private final String rdbFileDir;
     private final String rdbFileName;
+    private final String ioMode;
+    private final int ioThreads;
+    private final String execMode;
+    private final int shards;
+    private final int hz;
+    private final long maxMemory;
+    private final EvictionPolicy maxMemoryPolicy;
+    private final int maxMemorySamples;
+    private final boolean keyPrefixIndex;
+    private final int databases;
 
     public ServerConfiguration(String[] args) {
         ConfigBuilder builder = new ConfigBuilder();
@@ -35,6 +72,16 @@ public class ServerConfiguration {
         this.masterPort = builder.masterPort;
         this.rdbFileDir = builder.rdbFileDir;
         this.rdbFileName = builder.rdbFileName;
+        this.ioMode = builder.ioMode;
+        this.ioThreads = builder.ioThreads;
+        this.execMode = builder.execMode;
+        this.shards = builder.shards;
+        this.hz = builder.hz;
+        this.maxMemory = builder.maxMemory;
+        this.maxMemoryPolicy = builder.maxMemoryPolicy;
+        this.maxMemorySamples = builder.maxMemorySamples;
+        this.keyPrefixIndex = builder.keyPrefixIndex;
+        this.databases = builder.databases;
     }
 
     private void parseArgs(String[] args, ConfigBuilder builder) {
@@ -73,6 +120,76 @@ public class ServerConfiguration {
                         builder.rdbFileName = args[++i];
                     }
                     break;
+
+                case "--io-mode":
+                    // Format: --io-mode <nio|blocking|virtual>
+                    if (i + 1 < args.length) {
+                        builder.ioMode = parseIoMode(args[++i]);
+                    }
+                    break;
+
+                case "--io-threads":
+                    // Format: --io-threads <count>
+                    if (i + 1 < args.length) {
+                        builder.ioThreads = parsePositiveInt("--io-threads", args[++i]);
+                    }
+                    break;
+
+                case "--exec-mode":
+                    // Format: --exec-mode <threaded|single>
+                    if (i + 1 < args.length) {
+                        builder.execMode = parseExecMode(args[++i]);
+                    }
+                    break;
+
+                case "--shards":
+                    // Format: --shards <count>
+                    if (i + 1 < args.length) {
+                        builder.shards = parsePositiveInt("--shards", args[++i]);
+                    }
+                    break;
+
+                case "--hz":
+                    // Format: --hz <runs per second>, capped like Redis does
+                    if (i + 1 < args.length) {
+                        builder.hz = Math.min(MAX_HZ, parsePositiveInt("--hz", args[++i]));
+                    }
+                    break;
+
+                case "--maxmemory":
+                    // Format: --maxmemory <bytes>, 0 for no limit
+                    if (i + 1 < args.length) {
+                        builder.maxMemory = parseMemory(args[++i]);
+                    }
+                    break;
+
+                case "--maxmemory-policy":
+                    // Format: --maxmemory-policy <policy>
+                    if (i + 1 < args.length) {
+                        builder.maxMemoryPolicy = EvictionPolicy.fromName(args[++i]);
+                    }
+                    break;
+
+                case "--maxmemory-samples":
+                    // Format: --maxmemory-samples <count>
+                    if (i + 1 < args.length) {
+                        builder.maxMemorySamples = parsePositiveInt("--maxmemory-samples", args[++i]);
+                    }
+                    break;
+
+                case "--key-prefix-index":
+                    // Format: --key-prefix-index <yes|no>
+                    if (i + 1 < args.length) {
+                        builder.keyPrefixIndex = parseYesNo("--key-prefix-index", args[++i]);
+                    }
+                    break;
+
+                case "--databases":
+                    // Format: --databases <count>
+                    if (i + 1 < args.length) {
+                        builder.databases = parsePositiveInt("--databases", args[++i]);
+                    }
+                    break;
             }
         }
     }
@@ -89,6 +206,69 @@ public class ServerConfiguration {
         }
     }
 
+    private String parseIoMode(String mode) {
+        String normalized = mode.toLowerCase();
+        if (!normalized.equals(IO_MODE_NIO) && !normalized.equals(IO_MODE_BLOCKING)
+                && !normalized.equals(IO_MODE_VIRTUAL)) {
+            throw new IllegalArgumentException("Invalid io mode: " + mode + " (expected nio, blocking or virtual)");
+        }
+        return normalized;
+    }
+
+    private String parseExecMode(String mode) {
+        String normalized = mode.toLowerCase();
+        if (!normalized.equals(EXEC_MODE_THREADED) && !normalized.equals(EXEC_MODE_SINGLE)
+                && !normalized.equals(EXEC_MODE_SHARDED)) {
+            throw new IllegalArgumentException(
+                    "Invalid exec mode: " + mode + " (expected threaded, single or sharded)");
+        }
+        return normalized;
+    }
+
+    // Byte counts with Redis units: k and m are powers of 1000, kb and mb of 1024
+    private long parseMemory(String value) {
+        String normalized = value.toLowerCase();
+        long unit = 1;
+        String[][] units = { { "gb", "1073741824" }, { "mb", "1048576" }, { "kb", "1024" },
+                { "g", "1000000000" }, { "m", "1000000" }, { "k", "1000" }, { "b", "1" } };
+        for (String[] candidate : units) {
+            if (normalized.endsWith(candidate[0])) {
+                unit = Long.parseLong(candidate[1]);
+                normalized = normalized.substring(0, normalized.length() - candidate[0].length());
+                break;
+            }
+        }
+        try {
+            long parsed = Long.parseLong(normalized);
+            if (parsed < 0) {
+                throw new IllegalArgumentException("--maxmemory must not be negative");
+            }
+            return Math.multiplyExact(parsed, unit);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid value for --maxmemory: " + value);
+        }
+    }
+
+    private boolean parseYesNo(String option, String value) {
+        String normalized = value.toLowerCase();
+        if (!normalized.equals("yes") && !normalized.equals("no")) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value + " (expected yes or no)");
+        }
+        return normalized.equals("yes");
+    }
+
+    private int parsePositiveInt(String option, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 1) {
+                throw new IllegalArgumentException(option + " must be a positive number");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+
     // Getters
     public int getPort() {
         return port;
@@ -121,6 +301,78 @@ public class ServerConfiguration {
     public String getRdbFileName() {
         return rdbFileName;
     }
+
+    public String getIoMode() {
+        return ioMode;
+    }
+
+    public boolean isNioMode() {
+        return IO_MODE_NIO.equals(ioMode);
+    }
+
+    public boolean isVirtualThreadMode() {
+        return IO_MODE_VIRTUAL.equals(ioMode);
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public String getExecMode() {
+        return execMode;
+    }
+
+    /**
+     * Whether commands run on executor threads that own the keyspace, rather
+     * than on the connection threads.
+     */
+    public boolean usesExecutorThreads() {
+        return !EXEC_MODE_THREADED.equals(execMode);
+    }
+
+    /**
+     * Number of keyspace shards, each with its own executor thread. Single mode is one shard.
+     */
+    public int getShardCount() {
+        return EXEC_MODE_SHARDED.equals(execMode) ? shards : 1;
+    }
+
+    /**
+     * How many times per second background tasks like the active expire cycle run.
+     */
+    public int getHz() {
+        return hz;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    public EvictionPolicy getMaxMemoryPolicy() {
+        return maxMemoryPolicy;
+    }
+
+    public int getMaxMemorySamples() {
+        return maxMemorySamples;
+    }
+
+    /**
+     * Whether key names are also kept in a radix tree for prefix-scoped SCAN, KEYS and KEYSPREFIX COUNT.
+     */
+    public boolean hasKeyPrefixIndex() {
+        return keyPrefixIndex;
+    }
+
+    /**
+     * How many logical databases there are, numbered from 0.
+     */
+    public int getDatabases() {
+        return databases;
+    }
+
+    public EvictionConfig getEvictionConfig() {
+        return new EvictionConfig(maxMemory, maxMemoryPolicy, maxMemorySamples);
+    }
     
     // Helper builder class
     private static class ConfigBuilder {
@@ -130,13 +382,26 @@ public class ServerConfiguration {
         int masterPort = 0;
         String rdbFileDir = null;
         String rdbFileName = null;
+        String ioMode = IO_MODE_NIO;
+        int ioThreads = DEFAULT_IO_THREADS;
+        String execMode = EXEC_MODE_THREADED;
+        int shards = DEFAULT_SHARDS;
+        int hz = DEFAULT_HZ;
+        long maxMemory = 0;
+        EvictionPolicy maxMemoryPolicy = EvictionPolicy.NOEVICTION;
+        int maxMemorySamples = EvictionConfig.DEFAULT_SAMPLES;
+        boolean keyPrefixIndex = false;
+        int databases = InMemoryDataStore.DEFAULT_DATABASES;
     }
 
     @Override
     public String toString() {
     
         return "ServerConfiguration [port=" + port + ", serverRole=" + serverRole + ", masterHost=" + masterHost
-                + ", masterPort=" + masterPort + ", rdbFileDir=" + rdbFileDir + ", rdbFileName=" + rdbFileName + "]";
+                + ", masterPort=" + masterPort + ", rdbFileDir=" + rdbFileDir + ", rdbFileName=" + rdbFileName
+                + ", ioMode=" + ioMode + ", ioThreads=" + ioThreads + ", execMode=" + execMode + ", shards=" + shards
+                + ", hz=" + hz + ", maxMemory=" + maxMemory + ", maxMemoryPolicy=" + maxMemoryPolicy.policyName()
+                + ", keyPrefixIndex=" + keyPrefixIndex + ", databases=" + databases + "]";
     }
 
     
@@ -0,0 +1,37 @@
+package util;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires the timeouts of blocked clients (BLPOP, XREAD BLOCK, WAIT). A blocked
+ * client holds no thread of its own, so one shared timer thread completes
+ * its reply when nothing arrived in time.
+ */
+public final class TimeoutScheduler {
+
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    private TimeoutScheduler() {
+    }
+
+    /**
+     * Runs the task once after the delay, on the timer thread. The task must
+     * be short: every other timeout waits behind it.
+     */
+    public static ScheduledFuture<?> schedule(long delayNanos, Runnable task) {
+        return TIMER.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "Timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most waiters are served before their timeout, drop cancelled ones right away
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -0,0 +1,179 @@
+package command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import server.connection.entity.ClientConnection;
+import server.core.ServerContext;
+import storage.InMemoryDataStore;
+import storage.ShardedKeyspace;
+
+class ShardedExecutorTest {
+
+    private static final int SHARDS = 4;
+
+    private ShardedExecutor shards;
+    private CommandExecuter commandExecuter;
+
+    @BeforeEach
+    void start() {
+        shards = new ShardedExecutor(0, SHARDS);
+        shards.start();
+        InMemoryDataStore dataStore = new InMemoryDataStore(SHARDS);
+        // Connections log in as the default user, looked up through the context
+        ServerContext.getInstance().setDataStore(dataStore);
+        commandExecuter = new CommandExecuter(dataStore);
+        commandExecuter.useShards(shards);
+    }
+
+    @AfterEach
+    void shutdown() {
+        shards.shutdown();
+    }
+
+    @Test
+    void crossShardMsetIsSeenWholeByMget() throws Exception {
+        List<String> keys = keysOnEveryShard(2);
+        Client writer = new Client("writer");
+        Client reader = new Client("reader");
+        int rounds = 500;
+
+        assertEquals("+OK\r\n", writer.call(mset(keys, 0)));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writes = new Thread(() -> {
+            try {
+                for (int round = 1; round <= rounds; round++) {
+                    assertEquals("+OK\r\n", writer.call(mset(keys, round)));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writes.start();
+
+        List<String> mget = new ArrayList<>(List.of("MGET"));
+        mget.addAll(keys);
+        while (writes.isAlive()) {
+            // The coordinator parks every shard, so an MGET never sees half an MSET
+            Set<String> values = new HashSet<>(bulkStrings(reader.call(mget)));
+            assertEquals(1, values.size(), "values " + values);
+        }
+        writes.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(Set.of(String.valueOf(rounds)), new HashSet<>(bulkStrings(reader.call(mget))));
+    }
+
+    @Test
+    void blpopIsWokenByAPushFromAnotherThread() throws Exception {
+        Client blocked = new Client("blocked");
+        Client pusher = new Client("pusher");
+        CountDownLatch replied = blocked.callDeferred(List.of("BLPOP", "queue", "0"));
+        assertFalse(replied.await(50, TimeUnit.MILLISECONDS));
+
+        assertEquals(":1\r\n", pusher.call(List.of("RPUSH", "queue", "first")));
+        assertTrue(replied.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("queue", "first"), bulkStrings(blocked.flushed()));
+        assertEquals(":0\r\n", pusher.call(List.of("LLEN", "queue")));
+    }
+
+    @Test
+    void blpopIsWokenByACrossShardTransactionOnTheCoordinator() throws Exception {
+        String queue = keysOnEveryShard(1).get(0);
+        String elsewhere = keysOnEveryShard(1).get(1);
+        Client blocked = new Client("blocked");
+        Client pusher = new Client("pusher");
+        CountDownLatch replied = blocked.callDeferred(List.of("BLPOP", queue, "0"));
+
+        pusher.call(List.of("MULTI"));
+        pusher.call(List.of("RPUSH", queue, "from-exec"));
+        pusher.call(List.of("SET", elsewhere, "x"));
+        pusher.call(List.of("EXEC"));
+        assertTrue(replied.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(queue, "from-exec"), bulkStrings(blocked.flushed()));
+        assertEquals(":0\r\n", pusher.call(List.of("LLEN", queue)));
+    }
+
+    private static List<String> mset(List<String> keys, int round) {
+        List<String> request = new ArrayList<>(List.of("MSET"));
+        for (String key : keys) {
+            request.add(key);
+            request.add(String.valueOf(round));
+        }
+        return request;
+    }
+
+    // Keys owned by each shard in turn, perShard of them for every shard
+    private static List<String> keysOnEveryShard(int perShard) {
+        List<String> keys = new ArrayList<>();
+        int[] found = new int[SHARDS];
+        for (int i = 0; keys.size() < SHARDS * perShard; i++) {
+            String key = "key:" + i;
+            int shard = ShardedKeyspace.shardOf(key, SHARDS);
+            if (found[shard] < perShard) {
+                found[shard]++;
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    // The bulk strings of an array reply, in order
+    private static List<String> bulkStrings(String reply) {
+        List<String> lines = Arrays.asList(reply.split("\r\n"));
+        int count = Integer.parseInt(lines.get(0).substring(1));
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(lines.get(2 + 2 * i));
+        }
+        return values;
+    }
+
+    private class Client {
+        private final String id;
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final ClientConnection connection;
+
+        Client(String id) {
+            this.id = id;
+            this.connection = new ClientConnection(id, output);
+        }
+
+        String call(List<String> request) throws IOException {
+            commandExecuter.executeRequest(id, request, connection);
+            return flushed();
+        }
+
+        CountDownLatch callDeferred(List<String> request) {
+            CountDownLatch replied = new CountDownLatch(1);
+            commandExecuter.executeRequest(id, request, connection);
+            assertTrue(connection.whenReplyDeferred(replied::countDown));
+            return replied;
+        }
+
+        String flushed() throws IOException {
+            connection.flush();
+            String reply = output.toString(StandardCharsets.UTF_8);
+            output.reset();
+            return reply;
+        }
+    }
+}
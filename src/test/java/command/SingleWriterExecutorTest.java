@@ -0,0 +1,101 @@
+package command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleWriterExecutorTest {
+
+    private final SingleWriterExecutor executor = new SingleWriterExecutor("Executor-0-0");
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void runsTasksOfEveryProducerOnOneThreadInOrder() throws InterruptedException {
+        executor.start();
+        int producers = 4;
+        int perProducer = 10_000;
+        List<List<Integer>> seen = new ArrayList<>();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        for (int p = 0; p < producers; p++) {
+            // Only ever touched by the executor thread
+            seen.add(new ArrayList<>());
+        }
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+        List<Thread> started = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    int task = i;
+                    executor.submit(() -> {
+                        threads.add(Thread.currentThread());
+                        seen.get(producer).add(task);
+                        done.countDown();
+                    });
+                }
+            });
+            started.add(thread);
+            thread.start();
+        }
+        for (Thread thread : started) {
+            thread.join();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1, threads.size());
+        // Each producer's tasks ran in the order it submitted them
+        executor.executeAndWait(() -> {
+            for (List<Integer> tasks : seen) {
+                for (int i = 0; i < perProducer; i++) {
+                    assertEquals(i, tasks.get(i));
+                }
+            }
+        });
+    }
+
+    @Test
+    void executeAndWaitRunsInlineOnTheExecutorAndRethrows() {
+        executor.start();
+        Thread[] ranOn = new Thread[2];
+        executor.executeAndWait(() -> {
+            ranOn[0] = Thread.currentThread();
+            // Nested calls must not queue behind the running task
+            executor.executeAndWait(() -> ranOn[1] = Thread.currentThread());
+        });
+        assertSame(ranOn[0], ranOn[1]);
+        assertEquals("Executor-0-0", ranOn[0].getName());
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> executor.executeAndWait(() -> {
+                    throw new IllegalStateException("boom");
+                }));
+        assertEquals("boom", thrown.getMessage());
+    }
+
+    @Test
+    void wakesUpAfterParkingOnAnEmptyQueue() throws InterruptedException {
+        executor.start();
+        for (int round = 0; round < 100; round++) {
+            CountDownLatch ran = new CountDownLatch(1);
+            // Give the executor time to park before the next task arrives
+            Thread.sleep(1);
+            executor.submit(ran::countDown);
+            assertTrue(ran.await(5, TimeUnit.SECONDS), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package replication.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import replication.ReplicationManager;
+
+class WaitRequestManagerTest {
+
+    private final WaitRequestManager manager = new WaitRequestManager(ReplicationManager.create());
+
+    @Test
+    void completesOnceEnoughReplicasAcknowledged() {
+        AtomicInteger replies = new AtomicInteger();
+        AtomicInteger acks = new AtomicInteger(-1);
+        manager.awaitClientForAcks(new WaitRequest(100, 2, 0, count -> {
+            replies.incrementAndGet();
+            acks.set(count);
+        }));
+        manager.signalWaiters(1, 100);
+        assertEquals(0, replies.get());
+        manager.signalWaiters(2, 150);
+        assertEquals(1, replies.get());
+        assertEquals(2, acks.get());
+    }
+
+    @Test
+    void cancelledRequestIsNeverAnswered() throws InterruptedException {
+        AtomicInteger replies = new AtomicInteger();
+        WaitRequest forever = new WaitRequest(100, 1, 0, count -> replies.incrementAndGet());
+        WaitRequest timed = new WaitRequest(100, 1, 50, count -> replies.incrementAndGet());
+        manager.awaitClientForAcks(forever);
+        manager.awaitClientForAcks(timed);
+        manager.cancel(forever);
+        manager.cancel(timed);
+
+        manager.signalWaiters(1, 200);
+        Thread.sleep(150);// past the timeout of the second request
+        assertEquals(0, replies.get());
+
+        // The queue is empty again: a new request is answered by the next ACK
+        manager.awaitClientForAcks(new WaitRequest(100, 1, 0, count -> replies.incrementAndGet()));
+        manager.signalWaiters(2, 200);
+        assertEquals(1, replies.get());
+    }
+}
@@ -0,0 +1,164 @@
+package storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExpiresIndexTest {
+
+    private ExpiresIndex index;
+    private long now;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ExpiresIndex();
+        // The wheel starts at its construction time, never after this
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void keysOnEveryLevelAreDueOnlyOnceTheirDeadlinePasses() {
+        Map<String, Long> deadlines = new LinkedHashMap<>();
+        deadlines.put("level0", now + 10);
+        deadlines.put("level1", now + 5_000);
+        deadlines.put("level2", now + 300_000);
+        deadlines.forEach(index::put);
+
+        deadlines.forEach((key, deadline) -> {
+            index.advance(deadline);
+            assertEquals(List.of(), drain(), key + " is not due at its deadline");
+            index.advance(deadline + 1);
+            assertEquals(List.of(key), drain());
+        });
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void pastDeadlineIsDueWithoutAdvancing() {
+        index.put("late", now - 1_000);
+        assertEquals(1, index.dueCount());
+        assertEquals("late", index.pollDue());
+        assertNull(index.pollDue());
+    }
+
+    @Test
+    void rescheduleMovesKeyToALowerLevel() {
+        index.put("key", now + 300_000);
+        index.put("key", now + 20);
+
+        index.advance(now + 21);
+        assertEquals(List.of("key"), drain());
+        index.advance(now + 300_001);
+        assertEquals(List.of(), drain());
+    }
+
+    @Test
+    void rescheduleMovesKeyToAHigherLevel() {
+        index.put("key", now + 20);
+        index.put("key", now + 200_000);
+
+        index.advance(now + 21);
+        assertEquals(List.of(), drain());
+        index.advance(now + 200_000);
+        assertEquals(List.of(), drain());
+        index.advance(now + 200_001);
+        assertEquals(List.of("key"), drain());
+    }
+
+    @Test
+    void rescheduleAfterCascadeLeavesNoStaleEntry() {
+        index.put("key", now + 5_000);
+        // Far enough for the key to cascade out of its first slot
+        index.advance(now + 4_990);
+        assertEquals(List.of(), drain());
+        index.put("key", now + 100_000);
+
+        index.advance(now + 5_001);
+        assertEquals(List.of(), drain());
+        index.advance(now + 100_001);
+        assertEquals(List.of("key"), drain());
+    }
+
+    @Test
+    void removeBeforeCascadeDropsTheKey() {
+        index.put("kept", now + 100_000);
+        index.put("removed", now + 100_000);
+        index.put("cascaded", now + 100_000);
+        index.remove("removed");
+
+        index.advance(now + 99_000);
+        index.remove("cascaded");
+        index.advance(now + 100_001);
+        assertEquals(List.of("kept"), drain());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void polledKeyStaysIndexedUntilRemoved() {
+        index.put("key", now + 1);
+        index.advance(now + 2);
+        assertEquals("key", index.pollDue());
+
+        assertEquals(1, index.size());
+        assertEquals(0, index.dueCount());
+        assertEquals("key", index.randomKey(new Random()));
+        index.remove("key");
+        assertEquals(0, index.size());
+        assertNull(index.randomKey(new Random()));
+    }
+
+    @Test
+    void manyKeysAreDueInTheStepTheirDeadlinePasses() {
+        Random random = new Random(42);
+        Map<String, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = now + random.nextInt(300_000);
+            deadlines.put("key:" + i, deadline);
+            index.put("key:" + i, deadline);
+        }
+
+        Map<String, Long> polled = new HashMap<>();
+        long previous = now;
+        while (polled.size() < deadlines.size()) {
+            long step = previous + 1 + random.nextInt(997);
+            index.advance(step);
+            int due = index.dueCount();
+            assertEquals(due, drainCount(step, previous, deadlines, polled));
+            previous = step;
+            assertTrue(step < now + 400_000, "keys left in the wheel " + (deadlines.size() - polled.size()));
+        }
+        assertEquals(deadlines.size(), index.size());
+    }
+
+    // Polls every due key, checking each became due in this step only
+    private int drainCount(long step, long previous, Map<String, Long> deadlines, Map<String, Long> polled) {
+        int due = 0;
+        for (String key : drain()) {
+            long deadline = deadlines.get(key);
+            assertTrue(deadline < step, key + " polled before its deadline");
+            assertTrue(deadline >= previous, key + " was due a step earlier");
+            assertNull(polled.put(key, step), key + " polled twice");
+            due++;
+        }
+        return due;
+    }
+
+    private List<String> drain() {
+        List<String> keys = new ArrayList<>();
+        for (String key = index.pollDue(); key != null; key = index.pollDue()) {
+            keys.add(key);
+        }
+        keys.sort(null);
+        return keys;
+    }
+}
@@ -0,0 +1,88 @@
+package storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import domain.RedisValue;
+import domain.values.StringValue;
+
+class MoveTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void movesOnlyToAnAbsentKey() {
+        InMemoryDataStore dataStore = new InMemoryDataStore();
+        dataStore.setValue("k", new StringValue("a"));
+        assertTrue(dataStore.move("k", 1));
+        assertNull(dataStore.getValue("k"));
+
+        dataStore.setValue("k", new StringValue("b"));
+        assertFalse(dataStore.move("k", 1));
+        assertEquals("b", text(dataStore.getValue("k")));
+        SelectedDatabase.set(1);
+        try {
+            assertEquals("a", text(dataStore.getValue("k")));
+        } finally {
+            SelectedDatabase.set(0);
+        }
+    }
+
+    @Test
+    void neverOverwritesAConcurrentWriteToTheTarget() throws InterruptedException {
+        InMemoryDataStore dataStore = new InMemoryDataStore();
+        for (int i = 0; i < KEYS; i++) {
+            dataStore.setValue("key:" + i, new StringValue("moved"));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        Thread mover = new Thread(() -> {
+            await(start);
+            for (int i = 0; i < KEYS; i++) {
+                dataStore.move("key:" + i, 1);
+            }
+        });
+        Thread writer = new Thread(() -> {
+            SelectedDatabase.set(1);
+            await(start);
+            for (int i = 0; i < KEYS; i++) {
+                dataStore.setValue("key:" + i, new StringValue("written"));
+            }
+        });
+        mover.start();
+        writer.start();
+        start.countDown();
+        mover.join();
+        writer.join();
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key:" + i;
+            RedisValue source = dataStore.getValue(key);
+            SelectedDatabase.set(1);
+            RedisValue target = dataStore.getValue(key);
+            SelectedDatabase.set(0);
+            // The write either came first and MOVE failed, or came last and won
+            assertEquals("written", text(target), key);
+            if (source != null) {
+                assertEquals("moved", text(source), key);
+            }
+        }
+    }
+
+    private static String text(RedisValue value) {
+        return value == null ? null : ((StringValue) value).getString();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
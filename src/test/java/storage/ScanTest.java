@@ -0,0 +1,78 @@
+package storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import domain.values.StringValue;
+
+class ScanTest {
+
+    private static final int KEYS = 10_000;
+    private static final int COUNT = 10;
+
+    @Test
+    void countLimitsEachBatchInThreadedMode() {
+        assertBatchedScan(new InMemoryDataStore());
+    }
+
+    @Test
+    void countLimitsEachBatchInShardedMode() {
+        assertBatchedScan(new InMemoryDataStore(4));
+    }
+
+    @Test
+    void scanKeepsItsPlaceWhileKeysAreAdded() {
+        InMemoryDataStore dataStore = new InMemoryDataStore();
+        Set<String> initial = fill(dataStore, 1000);
+        Set<String> seen = new HashSet<>();
+        long cursor = 0;
+        int added = 0;
+        do {
+            List<String> keys = new ArrayList<>();
+            cursor = dataStore.scan(cursor, COUNT, "", keys);
+            seen.addAll(keys);
+            // Grows the segments through several resizes mid-scan
+            for (int i = 0; i < 50; i++) {
+                dataStore.setValue("added:" + added++, new StringValue("v"));
+            }
+        } while (cursor != 0);
+        assertTrue(seen.containsAll(initial));
+    }
+
+    private static void assertBatchedScan(InMemoryDataStore dataStore) {
+        Set<String> expected = fill(dataStore, KEYS);
+        Set<String> seen = new HashSet<>();
+        long cursor = 0;
+        int calls = 0;
+        do {
+            List<String> keys = new ArrayList<>();
+            cursor = dataStore.scan(cursor, COUNT, "", keys);
+            // A bucket is visited whole, so a batch may run a few keys past COUNT
+            assertTrue(keys.size() < 2 * COUNT, "batch of " + keys.size() + " keys");
+            seen.addAll(keys);
+            if (calls++ == 0) {
+                assertNotEquals(0, cursor);
+            }
+        } while (cursor != 0);
+        assertEquals(expected, seen);
+        assertTrue(calls >= KEYS / (2 * COUNT));
+    }
+
+    private static Set<String> fill(InMemoryDataStore dataStore, int count) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            String key = "key:" + i;
+            dataStore.setValue(key, new StringValue("v"));
+            keys.add(key);
+        }
+        return keys;
+    }
+}